@@ -0,0 +1,82 @@
+package com.aspia.inventory.config;
+
+import org.hibernate.boot.spi.SessionFactoryOptions;
+import org.hibernate.cache.cfg.spi.DomainDataRegionBuildingContext;
+import org.hibernate.cache.cfg.spi.DomainDataRegionConfig;
+import org.hibernate.cache.spi.support.DomainDataStorageAccess;
+import org.hibernate.cache.spi.support.RegionFactoryTemplate;
+import org.hibernate.cache.spi.support.StorageAccess;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Кэш второго уровня Hibernate в памяти процесса. Регионы сущностей и запросов ограничены
+ * числом записей (вытесняются давно не читавшиеся); регион меток времени не ограничивается —
+ * по нему кэш запросов проверяет, не менялись ли таблицы.
+ */
+public class LocalCacheRegionFactory extends RegionFactoryTemplate {
+
+    private static final long serialVersionUID = 1L;
+
+    /** Предел записей в одном регионе. */
+    public static final String MAX_ENTRIES = "hibernate.cache.local.max_entries";
+
+    private static final int DEFAULT_MAX_ENTRIES = 10_000;
+
+    private final Map<String, LocalCacheStorage> storages = new ConcurrentHashMap<>();
+    private int maxEntries = DEFAULT_MAX_ENTRIES;
+
+    @Override
+    @SuppressWarnings("rawtypes")
+    protected void prepareForUse(SessionFactoryOptions settings, Map configValues) {
+        Object value = configValues.get(MAX_ENTRIES);
+        if (value != null) {
+            maxEntries = Integer.parseInt(value.toString().trim());
+        }
+    }
+
+    @Override
+    protected void releaseFromUse() {
+        storages.values().forEach(LocalCacheStorage::release);
+        storages.clear();
+    }
+
+    @Override
+    protected DomainDataStorageAccess createDomainDataStorageAccess(DomainDataRegionConfig regionConfig,
+                                                                    DomainDataRegionBuildingContext buildingContext) {
+        return register(regionConfig.getRegionName(), new LocalCacheStorage(maxEntries));
+    }
+
+    @Override
+    protected StorageAccess createQueryResultsRegionStorageAccess(String regionName,
+                                                                  SessionFactoryImplementor sessionFactory) {
+        return register(regionName, new LocalCacheStorage(maxEntries));
+    }
+
+    @Override
+    protected StorageAccess createTimestampsRegionStorageAccess(String regionName,
+                                                                SessionFactoryImplementor sessionFactory) {
+        return register(regionName, new LocalCacheStorage(0));
+    }
+
+    /**
+     * Текущее число записей по регионам.
+     */
+    public Map<String, Integer> getRegionSizes() {
+        Map<String, Integer> sizes = new TreeMap<>();
+        storages.forEach((name, storage) -> sizes.put(name, storage.size()));
+        return sizes;
+    }
+
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+    private LocalCacheStorage register(String regionName, LocalCacheStorage storage) {
+        storages.put(regionName, storage);
+        return storage;
+    }
+}
@@ -0,0 +1,69 @@
+package com.aspia.inventory.config;
+
+import org.hibernate.cache.spi.support.DomainDataStorageAccess;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Хранилище региона: LinkedHashMap в порядке доступа; при maxEntries > 0 лишние записи вытесняются.
+ */
+class LocalCacheStorage implements DomainDataStorageAccess {
+
+    private final Map<Object, Object> entries;
+
+    LocalCacheStorage(int maxEntries) {
+        this.entries = Collections.synchronizedMap(new LinkedHashMap<Object, Object>(64, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Object, Object> eldest) {
+                return maxEntries > 0 && size() > maxEntries;
+            }
+        });
+    }
+
+    @Override
+    public Object getFromCache(Object key, SharedSessionContractImplementor session) {
+        return entries.get(key);
+    }
+
+    @Override
+    public void putIntoCache(Object key, Object value, SharedSessionContractImplementor session) {
+        entries.put(key, value);
+    }
+
+    @Override
+    public void removeFromCache(Object key, SharedSessionContractImplementor session) {
+        entries.remove(key);
+    }
+
+    @Override
+    public void clearCache(SharedSessionContractImplementor session) {
+        entries.clear();
+    }
+
+    @Override
+    public boolean contains(Object key) {
+        return entries.containsKey(key);
+    }
+
+    @Override
+    public void evictData() {
+        entries.clear();
+    }
+
+    @Override
+    public void evictData(Object key) {
+        entries.remove(key);
+    }
+
+    @Override
+    public void release() {
+        entries.clear();
+    }
+
+    int size() {
+        return entries.size();
+    }
+}
@@ -0,0 +1,77 @@
+package com.aspia.inventory.config;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Счётчик SQL-запросов на HTTP-запрос (включая отрисовку шаблона).
+ * Превышение порога пишется в лог — так видны регрессии N+1 после изменений в маппинге или шаблонах.
+ * Итог сохраняется в атрибуте запроса QUERY_COUNT_ATTRIBUTE — по нему тесты проверяют бюджет запросов
+ * каждой страницы (EndpointQueryCountTest).
+ */
+@Configuration
+public class QueryCountConfig implements WebMvcConfigurer {
+
+    private static final Logger log = LoggerFactory.getLogger(QueryCountConfig.class);
+
+    /** Число SQL-запросов, выполненных за HTTP-запрос (Integer); выставляется по его завершении. */
+    public static final String QUERY_COUNT_ATTRIBUTE = QueryCountConfig.class.getName() + ".count";
+
+    /** null — поток не обрабатывает HTTP-запрос (синхронизация, планировщик). */
+    private static final ThreadLocal<int[]> COUNTER = new ThreadLocal<>();
+
+    @Value("${inventory.query-count.warn-threshold:15}")
+    private int warnThreshold;
+
+    @Bean
+    public HibernatePropertiesCustomizer statementCountingCustomizer() {
+        StatementInspector inspector = sql -> {
+            int[] counter = COUNTER.get();
+            if (counter != null) counter[0]++;
+            return sql;
+        };
+        return properties -> properties.put("hibernate.session_factory.statement_inspector", inspector);
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new AsyncHandlerInterceptor() {
+            @Override
+            public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+                COUNTER.set(new int[1]);
+                return true;
+            }
+
+            /** Выгрузки пишутся в другом потоке — счётчик потока запроса освобождается сразу. */
+            @Override
+            public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response,
+                                                       Object handler) {
+                COUNTER.remove();
+            }
+
+            @Override
+            public void afterCompletion(HttpServletRequest request, HttpServletResponse response,
+                                        Object handler, Exception ex) {
+                int[] counter = COUNTER.get();
+                COUNTER.remove();
+                if (counter == null) return;
+                request.setAttribute(QUERY_COUNT_ATTRIBUTE, counter[0]);
+                if (counter[0] > warnThreshold) {
+                    log.warn("{} {}: {} SQL-запросов (порог {})",
+                            request.getMethod(), request.getRequestURI(), counter[0], warnThreshold);
+                }
+            }
+        }).excludePathPatterns("/css/**", "/js/**", "/webjars/**");
+    }
+}
@@ -1,19 +1,34 @@
 package com.aspia.inventory.controller;
 
+import com.aspia.inventory.config.LocalCacheRegionFactory;
 import com.aspia.inventory.model.AppUser;
 import com.aspia.inventory.model.Host;
 import com.aspia.inventory.model.HostGroup;
+import com.aspia.inventory.model.ScheduledReport;
 import com.aspia.inventory.repository.AppUserRepository;
 import com.aspia.inventory.repository.HostGroupRepository;
 import com.aspia.inventory.repository.HostRepository;
+import com.aspia.inventory.repository.OutboxMessageRepository;
+import com.aspia.inventory.repository.ScheduledReportRepository;
+import com.aspia.inventory.service.NotificationDeliveryEngine;
+import com.aspia.inventory.service.ReportJobService.ReportType;
+import com.aspia.inventory.service.ScheduledReportService;
+import org.hibernate.cache.spi.RegionFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
+import javax.persistence.EntityManagerFactory;
 import java.security.Principal;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 
 @Controller
 public class AdminController {
@@ -22,15 +37,30 @@ public class AdminController {
     private final HostGroupRepository groupRepository;
     private final HostRepository hostRepository;
     private final PasswordEncoder passwordEncoder;
+    private final EntityManagerFactory entityManagerFactory;
+    private final ScheduledReportRepository scheduledReportRepository;
+    private final ScheduledReportService scheduledReportService;
+    private final NotificationDeliveryEngine deliveryEngine;
+    private final OutboxMessageRepository outboxRepository;
 
     public AdminController(AppUserRepository userRepository,
                            HostGroupRepository groupRepository,
                            HostRepository hostRepository,
-                           PasswordEncoder passwordEncoder) {
+                           PasswordEncoder passwordEncoder,
+                           EntityManagerFactory entityManagerFactory,
+                           ScheduledReportRepository scheduledReportRepository,
+                           ScheduledReportService scheduledReportService,
+                           NotificationDeliveryEngine deliveryEngine,
+                           OutboxMessageRepository outboxRepository) {
         this.userRepository = userRepository;
         this.groupRepository = groupRepository;
         this.hostRepository = hostRepository;
         this.passwordEncoder = passwordEncoder;
+        this.entityManagerFactory = entityManagerFactory;
+        this.scheduledReportRepository = scheduledReportRepository;
+        this.scheduledReportService = scheduledReportService;
+        this.deliveryEngine = deliveryEngine;
+        this.outboxRepository = outboxRepository;
     }
 
     @GetMapping("/admin")
@@ -38,6 +68,8 @@ public class AdminController {
         model.addAttribute("currentPage", "admin");
         model.addAttribute("users", userRepository.findAll());
         model.addAttribute("groups", groupRepository.findAll());
+        model.addAttribute("scheduledReports", scheduledReportRepository.findAllByOrderByNameAsc());
+        model.addAttribute("reportTypes", ReportType.values());
         return "admin";
     }
 
@@ -112,6 +144,7 @@ public class AdminController {
     }
 
     @PostMapping("/admin/groups/{id}/tracking")
+    @org.springframework.transaction.annotation.Transactional
     public String updateGroupTracking(@PathVariable Long id,
                                       @RequestParam(required = false) List<String> trackedComponents) {
         HostGroup group = groupRepository.findById(id).orElse(null);
@@ -122,6 +155,8 @@ public class AdminController {
             group.setTrackedComponents(null);
         }
         groupRepository.save(group);
+        hostRepository.invalidateTrackingPolicyByGroupId(id);
+        recompileTrackingPolicies();
         return "redirect:/admin";
     }
 
@@ -130,13 +165,147 @@ public class AdminController {
     public String deleteGroup(@PathVariable Long id) {
         HostGroup group = groupRepository.findById(id).orElse(null);
         if (group != null) {
-            for (Host host : hostRepository.findAll()) {
-                if (host.getGroups().remove(group)) {
-                    hostRepository.save(host);
-                }
+            // Плановые отчёты с фильтром по группе удаляются вместе с ней (ON DELETE CASCADE) —
+            // их расписание и готовые файлы снимаются здесь же
+            for (ScheduledReport report : scheduledReportRepository.findByGroupId(id)) {
+                scheduledReportRepository.delete(report);
+                scheduledReportService.deleteFiles(report.getId());
             }
+            hostRepository.invalidateTrackingPolicyByGroupId(id);
+            hostRepository.deleteGroupLinksByGroupId(id);
             groupRepository.delete(group);
+            recompileTrackingPolicies();
+        }
+        return "redirect:/admin";
+    }
+
+    /**
+     * Компиляция политики у хостов со сброшенной маской — загружаются только они, вместе с группами.
+     */
+    private void recompileTrackingPolicies() {
+        for (Host host : hostRepository.findByTrackedComponentsMaskIsNull()) {
+            host.getTrackedComponentsMask();
+            hostRepository.save(host);
+        }
+    }
+
+    // ==================== Плановые отчёты ====================
+
+    @PostMapping("/admin/reports")
+    public String createScheduledReport(@RequestParam String name,
+                                        @RequestParam ReportType reportType,
+                                        @RequestParam(required = false) Long groupId,
+                                        @RequestParam String cron,
+                                        @RequestParam(defaultValue = "4") int keepCount,
+                                        RedirectAttributes redirectAttributes) {
+        String expression = cron.trim();
+        if (!ScheduledReportService.isValidCron(expression)) {
+            redirectAttributes.addFlashAttribute("userError",
+                    "Неверное расписание «" + cron + "»: нужно выражение cron из шести полей, например «0 0 5 * * MON»");
+            return "redirect:/admin";
+        }
+        if (groupId != null && !reportType.isHardware()) {
+            redirectAttributes.addFlashAttribute("userError", "Фильтр по группе доступен только для отчётов по оборудованию");
+            return "redirect:/admin";
         }
+        ScheduledReport report = new ScheduledReport();
+        report.setName(name);
+        report.setReportType(reportType.name());
+        report.setGroupId(groupId);
+        report.setCron(expression);
+        report.setKeepCount(Math.max(keepCount, 1));
+        scheduledReportService.reschedule(scheduledReportRepository.save(report));
+        redirectAttributes.addFlashAttribute("userSuccess", "Плановый отчёт «" + name + "» создан");
+        return "redirect:/admin";
+    }
+
+    @PostMapping("/admin/reports/{id}/toggle")
+    public String toggleScheduledReport(@PathVariable Long id) {
+        scheduledReportRepository.findById(id).ifPresent(report -> {
+            report.setEnabled(!report.isEnabled());
+            scheduledReportService.reschedule(scheduledReportRepository.save(report));
+        });
         return "redirect:/admin";
     }
+
+    @PostMapping("/admin/reports/{id}/run")
+    public String runScheduledReport(@PathVariable Long id, RedirectAttributes redirectAttributes) {
+        scheduledReportRepository.findById(id).ifPresent(report -> {
+            scheduledReportService.runNow(id);
+            redirectAttributes.addFlashAttribute("userSuccess",
+                    "Отчёт «" + report.getName() + "» поставлен в очередь построения");
+        });
+        return "redirect:/admin";
+    }
+
+    @PostMapping("/admin/reports/{id}/delete")
+    public String deleteScheduledReport(@PathVariable Long id) {
+        scheduledReportRepository.findById(id).ifPresent(report -> {
+            scheduledReportRepository.delete(report);
+            scheduledReportService.deleteFiles(id);
+        });
+        return "redirect:/admin";
+    }
+
+    // ==================== Кэш ====================
+
+    /**
+     * Статистика кэша второго уровня и кэша запросов: общие счётчики и разбивка по регионам.
+     */
+    @GetMapping("/admin/cache-stats")
+    @ResponseBody
+    public Map<String, Object> cacheStats() {
+        SessionFactoryImplementor sessionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+        Statistics statistics = sessionFactory.getStatistics();
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("statisticsEnabled", statistics.isStatisticsEnabled());
+        result.put("secondLevelHits", statistics.getSecondLevelCacheHitCount());
+        result.put("secondLevelMisses", statistics.getSecondLevelCacheMissCount());
+        result.put("secondLevelPuts", statistics.getSecondLevelCachePutCount());
+        result.put("queryHits", statistics.getQueryCacheHitCount());
+        result.put("queryMisses", statistics.getQueryCacheMissCount());
+        result.put("queryPuts", statistics.getQueryCachePutCount());
+
+        RegionFactory regionFactory = sessionFactory.getCache().getRegionFactory();
+        if (regionFactory instanceof LocalCacheRegionFactory) {
+            LocalCacheRegionFactory localFactory = (LocalCacheRegionFactory) regionFactory;
+            result.put("maxEntriesPerRegion", localFactory.getMaxEntries());
+            // Регион меток времени статистики попаданий не ведёт — только размер
+            String timestampsRegion = sessionFactory.getCache().getTimestampsCache().getRegion().getName();
+            Map<String, Object> regions = new TreeMap<>();
+            localFactory.getRegionSizes().forEach((name, size) -> {
+                Map<String, Object> region = new LinkedHashMap<>();
+                region.put("size", size);
+                CacheRegionStatistics regionStatistics = name.equals(timestampsRegion)
+                        ? null : statistics.getCacheRegionStatistics(name);
+                if (regionStatistics != null) {
+                    region.put("hits", regionStatistics.getHitCount());
+                    region.put("misses", regionStatistics.getMissCount());
+                    region.put("puts", regionStatistics.getPutCount());
+                }
+                regions.put(name, region);
+            });
+            result.put("regions", regions);
+        }
+        return result;
+    }
+
+    /**
+     * Каналы уведомлений: очередь в памяти, отправлено/повторено/отклонено, средняя задержка
+     * отправки — и записи outbox по каналам и статусам.
+     */
+    @GetMapping("/admin/notification-stats")
+    @ResponseBody
+    public Map<String, Object> notificationStats() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("channels", deliveryEngine.stats());
+        Map<String, Map<String, Long>> outbox = new TreeMap<>();
+        for (Object[] row : outboxRepository.countByChannelAndStatus()) {
+            outbox.computeIfAbsent((String) row[0], k -> new TreeMap<>())
+                    .put((String) row[1], ((Number) row[2]).longValue());
+        }
+        result.put("outbox", outbox);
+        return result;
+    }
 }
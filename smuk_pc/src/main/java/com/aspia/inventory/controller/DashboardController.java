@@ -1,9 +1,7 @@
 package com.aspia.inventory.controller;
 
-import com.aspia.inventory.model.ComponentChange;
-import com.aspia.inventory.repository.ComponentChangeRepository;
-import com.aspia.inventory.repository.HostRepository;
 import com.aspia.inventory.service.AspiaSyncService;
+import com.aspia.inventory.service.DashboardStatsService;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -12,25 +10,21 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
-import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
-import java.util.*;
-import java.util.stream.Collectors;
+import java.util.HashMap;
+import java.util.Map;
 
 @Controller
 public class DashboardController {
 
-    private final HostRepository hostRepository;
-    private final ComponentChangeRepository changeRepository;
+    private final DashboardStatsService statsService;
     private final AspiaSyncService syncService;
 
     private static final DateTimeFormatter DATE_FMT = DateTimeFormatter.ofPattern("dd.MM.yyyy HH:mm");
 
-    public DashboardController(HostRepository hostRepository,
-                               ComponentChangeRepository changeRepository,
+    public DashboardController(DashboardStatsService statsService,
                                AspiaSyncService syncService) {
-        this.hostRepository = hostRepository;
-        this.changeRepository = changeRepository;
+        this.statsService = statsService;
         this.syncService = syncService;
     }
 
@@ -38,40 +32,10 @@ public class DashboardController {
     public String dashboard(Model model) {
         model.addAttribute("currentPage", "dashboard");
 
-        long totalHosts = hostRepository.count();
-        long onlineHosts = hostRepository.countByOnlineTrue();
-        long offlineHosts = hostRepository.countByOnlineFalse();
-        long errorHosts = hostRepository.countBySyncErrorNotNull();
-        long unacknowledgedChanges = changeRepository.countByAcknowledgedFalse();
-
-        Map<String, Long> stats = new HashMap<>();
-        stats.put("totalHosts", totalHosts);
-        stats.put("onlineHosts", onlineHosts);
-        stats.put("offlineHosts", offlineHosts);
-        stats.put("errorHosts", errorHosts);
-        stats.put("unacknowledgedChanges", unacknowledgedChanges);
-        model.addAttribute("stats", stats);
-
-        // Последние непросмотренные изменения
-        List<ComponentChange> changes = changeRepository.findTop20ByAcknowledgedFalseOrderByDetectedAtDesc();
-        List<Map<String, String>> recentChanges = new ArrayList<>();
-        for (ComponentChange c : changes) {
-            Map<String, String> change = new HashMap<>();
-            change.put("id", String.valueOf(c.getId()));
-            change.put("hostName", c.getHost().getDisplayName());
-            change.put("hostId", String.valueOf(c.getHost().getId()));
-            String groupNames = c.getHost().getGroups().stream()
-                    .map(g -> g.getName())
-                    .collect(Collectors.joining(", "));
-            change.put("hostGroup", groupNames);
-            change.put("componentType", c.getComponentType());
-            change.put("changeType", c.getChangeType());
-            change.put("oldValue", c.getOldValue() != null ? c.getOldValue() : "");
-            change.put("newValue", c.getNewValue() != null ? c.getNewValue() : "");
-            change.put("changeDate", c.getDetectedAt().format(DATE_FMT));
-            recentChanges.add(change);
-        }
-        model.addAttribute("recentChanges", recentChanges);
+        // Счётчики и последние непросмотренные изменения — из снимка в памяти, без запросов к БД
+        DashboardStatsService.Snapshot snapshot = statsService.getSnapshot();
+        model.addAttribute("stats", snapshot.toStats());
+        model.addAttribute("recentChanges", snapshot.recentChanges);
 
         // Информация о синхронизации
         model.addAttribute("lastSyncTime", syncService.getLastSyncTime() != null
@@ -87,39 +51,9 @@ public class DashboardController {
     public Map<String, Object> dashboardApi() {
         Map<String, Object> result = new HashMap<>();
 
-        long totalHosts = hostRepository.count();
-        long onlineHosts = hostRepository.countByOnlineTrue();
-        long offlineHosts = hostRepository.countByOnlineFalse();
-        long errorHosts = hostRepository.countBySyncErrorNotNull();
-        long unacknowledgedChanges = changeRepository.countByAcknowledgedFalse();
-
-        Map<String, Long> stats = new HashMap<>();
-        stats.put("totalHosts", totalHosts);
-        stats.put("onlineHosts", onlineHosts);
-        stats.put("offlineHosts", offlineHosts);
-        stats.put("errorHosts", errorHosts);
-        stats.put("unacknowledgedChanges", unacknowledgedChanges);
-        result.put("stats", stats);
-
-        List<ComponentChange> changes = changeRepository.findTop20ByAcknowledgedFalseOrderByDetectedAtDesc();
-        List<Map<String, String>> recentChanges = new ArrayList<>();
-        for (ComponentChange c : changes) {
-            Map<String, String> change = new HashMap<>();
-            change.put("id", String.valueOf(c.getId()));
-            change.put("hostName", c.getHost().getDisplayName());
-            change.put("hostId", String.valueOf(c.getHost().getId()));
-            String groupNames = c.getHost().getGroups().stream()
-                    .map(g -> g.getName())
-                    .collect(Collectors.joining(", "));
-            change.put("hostGroup", groupNames);
-            change.put("componentType", c.getComponentType());
-            change.put("changeType", c.getChangeType());
-            change.put("oldValue", c.getOldValue() != null ? c.getOldValue() : "");
-            change.put("newValue", c.getNewValue() != null ? c.getNewValue() : "");
-            change.put("changeDate", c.getDetectedAt().format(DATE_FMT));
-            recentChanges.add(change);
-        }
-        result.put("recentChanges", recentChanges);
+        DashboardStatsService.Snapshot snapshot = statsService.getSnapshot();
+        result.put("stats", snapshot.toStats());
+        result.put("recentChanges", snapshot.recentChanges);
 
         result.put("lastSyncTime", syncService.getLastSyncTime() != null
                 ? syncService.getLastSyncTime().format(DATE_FMT) : "Ещё не выполнялась");
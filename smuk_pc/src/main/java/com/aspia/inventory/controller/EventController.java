@@ -1,9 +1,21 @@
 package com.aspia.inventory.controller;
 
-import com.aspia.inventory.model.ComponentChange;
+import com.aspia.inventory.dto.AcknowledgementSummary;
+import com.aspia.inventory.dto.ChangeExportRow;
+import com.aspia.inventory.dto.EventFilter;
+import com.aspia.inventory.dto.EventPage;
 import com.aspia.inventory.repository.ComponentChangeRepository;
-import com.aspia.inventory.service.TelegramNotificationService;
+import com.aspia.inventory.repository.HostGroupRepository;
+import com.aspia.inventory.repository.HostRepository;
+import com.aspia.inventory.service.DashboardStatsService;
+import com.aspia.inventory.service.InventoryExportService;
+import com.aspia.inventory.service.NotificationService;
+import com.aspia.inventory.util.DelimitedWriter;
+import com.aspia.inventory.util.DownloadResponses;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
@@ -11,99 +23,201 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.security.Principal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
 import java.util.List;
 
 @Controller
 public class EventController {
 
+    private static final Logger log = LoggerFactory.getLogger(EventController.class);
+
+    private static final int DEFAULT_PAGE_SIZE = 100;
+    private static final int MAX_PAGE_SIZE = 500;
+
     private final ComponentChangeRepository changeRepository;
-    private final TelegramNotificationService telegramService;
+    private final HostGroupRepository groupRepository;
+    private final HostRepository hostRepository;
+    private final NotificationService notificationService;
+    private final DashboardStatsService statsService;
+    private final InventoryExportService exportService;
 
     public EventController(ComponentChangeRepository changeRepository,
-                           TelegramNotificationService telegramService) {
+                           HostGroupRepository groupRepository,
+                           HostRepository hostRepository,
+                           NotificationService notificationService,
+                           DashboardStatsService statsService,
+                           InventoryExportService exportService) {
         this.changeRepository = changeRepository;
-        this.telegramService = telegramService;
+        this.groupRepository = groupRepository;
+        this.hostRepository = hostRepository;
+        this.notificationService = notificationService;
+        this.statsService = statsService;
+        this.exportService = exportService;
     }
 
     @GetMapping("/events")
-    public String events(@RequestParam(required = false) String filter,
-                         @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dateFrom,
+    public String events(@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dateFrom,
                          @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dateTo,
+                         @RequestParam(required = false) String componentType,
+                         @RequestParam(required = false) String changeType,
+                         @RequestParam(required = false) String status,
+                         @RequestParam(required = false) Long hostId,
+                         @RequestParam(required = false) String host,
+                         @RequestParam(required = false) Long groupId,
+                         @RequestParam(required = false) String after,
+                         @RequestParam(required = false) Integer size,
                          Model model) {
         model.addAttribute("currentPage", "events");
 
-        List<ComponentChange> allChanges;
-        if (dateFrom != null || dateTo != null) {
-            LocalDateTime from = dateFrom != null
-                    ? dateFrom.atStartOfDay()
-                    : LocalDateTime.of(2000, 1, 1, 0, 0);
-            LocalDateTime to = dateTo != null
-                    ? dateTo.atTime(LocalTime.MAX)
-                    : LocalDateTime.now();
-            allChanges = changeRepository.findByDetectedAtBetweenOrderByDetectedAtDesc(from, to);
-        } else {
-            allChanges = changeRepository.findTop50ByOrderByDetectedAtDesc();
-        }
+        EventFilter filter = buildFilter(dateFrom, dateTo, componentType, changeType, status, hostId, host, groupId);
+        EventPage page = changeRepository.findEventPage(filter, EventPage.Cursor.parse(after), pageSize(size));
 
         long unacknowledgedCount = changeRepository.countByAcknowledgedFalse();
 
-        model.addAttribute("events", allChanges);
+        model.addAttribute("events", page.getItems());
+        model.addAttribute("nextCursor", page.getNextCursor());
+        model.addAttribute("firstPage", after == null || after.isEmpty());
         model.addAttribute("unacknowledgedCount", unacknowledgedCount);
-        model.addAttribute("filter", filter != null ? filter : "all");
+        model.addAttribute("groups", groupRepository.findAll());
         model.addAttribute("dateFrom", dateFrom);
         model.addAttribute("dateTo", dateTo);
+        model.addAttribute("componentType", componentType != null ? componentType : "");
+        model.addAttribute("changeType", changeType != null ? changeType : "");
+        model.addAttribute("status", status != null ? status : "");
+        model.addAttribute("hostId", hostId);
+        model.addAttribute("host", host != null ? host : "");
+        model.addAttribute("groupId", groupId);
 
         return "events";
     }
 
+    /**
+     * Журнал изменений постранично: курсор следующей страницы возвращается в nextCursor
+     * и передаётся обратно в параметре after.
+     */
+    @GetMapping("/api/events")
+    @ResponseBody
+    public EventPage eventsApi(@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                               @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+                               @RequestParam(required = false) String componentType,
+                               @RequestParam(required = false) String changeType,
+                               @RequestParam(required = false) String status,
+                               @RequestParam(required = false) Long hostId,
+                               @RequestParam(required = false) String host,
+                               @RequestParam(required = false) Long groupId,
+                               @RequestParam(required = false) String after,
+                               @RequestParam(required = false) Integer size) {
+        EventFilter filter = buildFilter(null, null, componentType, changeType, status, hostId, host, groupId);
+        filter.setFrom(from);
+        filter.setTo(to);
+        return changeRepository.findEventPage(filter, EventPage.Cursor.parse(after), pageSize(size));
+    }
+
+    /**
+     * Журнал изменений по фильтрам страницы целиком: format=csv|tsv|xlsx.
+     * Строки читаются курсором БД и сразу пишутся в ответ, поэтому объём периода не ограничен.
+     */
+    @GetMapping("/events/export")
+    public ResponseEntity<StreamingResponseBody> export(@RequestParam(defaultValue = "csv") String format,
+                                                        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dateFrom,
+                                                        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dateTo,
+                                                        @RequestParam(required = false) String componentType,
+                                                        @RequestParam(required = false) String changeType,
+                                                        @RequestParam(required = false) String status,
+                                                        @RequestParam(required = false) Long hostId,
+                                                        @RequestParam(required = false) String host,
+                                                        @RequestParam(required = false) Long groupId) {
+        EventFilter filter = buildFilter(dateFrom, dateTo, componentType, changeType, status, hostId, host, groupId);
+        ChangeExportRow.Source source = handler -> changeRepository.forEachEvent(filter, handler);
+        String filename = "changes_" + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmm"));
+
+        if ("xlsx".equalsIgnoreCase(format)) {
+            return DownloadResponses.attachment(filename + ".xlsx", DownloadResponses.XLSX,
+                    DownloadResponses.logged(log, "Ошибка экспорта журнала изменений в Excel",
+                            out -> exportService.writeChangesExcel(source, out)));
+        }
+        DelimitedWriter.Format delimited = "tsv".equalsIgnoreCase(format) ? DelimitedWriter.Format.TSV
+                                                                           : DelimitedWriter.Format.CSV;
+        return DownloadResponses.attachment(filename + "." + delimited.getExtension(), delimited.getMediaType(),
+                DownloadResponses.logged(log, "Ошибка экспорта журнала изменений",
+                        out -> exportService.writeChangesDelimited(source, delimited, out)));
+    }
+
+    private static EventFilter buildFilter(LocalDate dateFrom, LocalDate dateTo, String componentType,
+                                           String changeType, String status, Long hostId, String host, Long groupId) {
+        EventFilter filter = new EventFilter();
+        filter.setFrom(dateFrom != null ? dateFrom.atStartOfDay() : null);
+        filter.setTo(dateTo != null ? dateTo.atTime(LocalTime.MAX) : null);
+        filter.setComponentType(componentType);
+        filter.setChangeType(changeType);
+        if ("acknowledged".equals(status)) {
+            filter.setAcknowledged(true);
+        } else if ("unacknowledged".equals(status)) {
+            filter.setAcknowledged(false);
+        }
+        filter.setHostId(hostId);
+        filter.setHostQuery(host);
+        filter.setGroupId(groupId);
+        return filter;
+    }
+
+    private static int pageSize(Integer size) {
+        if (size == null || size <= 0) return DEFAULT_PAGE_SIZE;
+        return Math.min(size, MAX_PAGE_SIZE);
+    }
+
     @PreAuthorize("hasRole('ADMIN')")
     @PostMapping("/events/{id}/acknowledge")
+    @org.springframework.transaction.annotation.Transactional
     public String acknowledgeOne(@PathVariable Long id,
                                  @RequestParam(required = false) String redirectTo,
                                  Principal principal) {
+        // Уже подтверждённое изменение не трогаем: ни счётчика, ни повторного уведомления
+        if (changeRepository.acknowledgeIfUnacknowledged(id, principal.getName(), LocalDateTime.now()) == 0) {
+            return "redirect:" + (redirectTo != null ? redirectTo : "/events");
+        }
         changeRepository.findById(id).ifPresent(change -> {
-            change.setAcknowledged(true);
-            change.setAcknowledgedAt(LocalDateTime.now());
-            change.setAcknowledgedBy(principal.getName());
-            changeRepository.save(change);
-            telegramService.notifyChangesAcknowledged(
+            hostRepository.subtractUnacknowledgedChanges(change.getHost().getId(), 1);
+            statsService.onChangesAcknowledged(1);
+            notificationService.notifyChangesAcknowledged(
                     principal.getName(),
+                    change.getHost().getId(),
                     change.getHost().getDisplayName(),
-                    java.util.Collections.singletonList(new TelegramNotificationService.ChangeInfo(
+                    java.util.Collections.singletonList(new NotificationService.ChangeInfo(
                             change.getHost().getDisplayName(), change.getComponentType(),
                             change.getChangeType(), change.getOldValue(), change.getNewValue())));
         });
         return "redirect:" + (redirectTo != null ? redirectTo : "/events");
     }
 
+    /**
+     * Подтверждение всех непросмотренных изменений в пределах фильтра (хост, группа, компонент, период).
+     */
     @PreAuthorize("hasRole('ADMIN')")
     @PostMapping("/events/acknowledge-all")
-    public String acknowledgeAll(@RequestParam(required = false) String redirectTo,
+    @org.springframework.transaction.annotation.Transactional
+    public String acknowledgeAll(@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dateFrom,
+                                 @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dateTo,
+                                 @RequestParam(required = false) String componentType,
+                                 @RequestParam(required = false) String changeType,
+                                 @RequestParam(required = false) Long hostId,
+                                 @RequestParam(required = false) String host,
+                                 @RequestParam(required = false) Long groupId,
+                                 @RequestParam(required = false) String redirectTo,
                                  Principal principal) {
-        List<ComponentChange> unacknowledged = changeRepository.findAll().stream()
-                .filter(c -> !c.isAcknowledged())
-                .collect(java.util.stream.Collectors.toList());
-        LocalDateTime now = LocalDateTime.now();
+        EventFilter filter = buildFilter(dateFrom, dateTo, componentType, changeType, null, hostId, host, groupId);
         String username = principal.getName();
-        for (ComponentChange c : unacknowledged) {
-            c.setAcknowledged(true);
-            c.setAcknowledgedAt(now);
-            c.setAcknowledgedBy(username);
-        }
-        changeRepository.saveAll(unacknowledged);
-        if (!unacknowledged.isEmpty()) {
-            List<TelegramNotificationService.ChangeInfo> infos = new java.util.ArrayList<>();
-            for (ComponentChange c : unacknowledged) {
-                infos.add(new TelegramNotificationService.ChangeInfo(
-                        c.getHost().getDisplayName(), c.getComponentType(),
-                        c.getChangeType(), c.getOldValue(), c.getNewValue()));
-            }
-            telegramService.notifyAllChangesAcknowledged(username, infos);
+        List<AcknowledgementSummary> summary = changeRepository.acknowledge(filter, username, LocalDateTime.now());
+        if (!summary.isEmpty()) {
+            statsService.onChangesAcknowledged(summary.stream().mapToLong(AcknowledgementSummary::getCount).sum());
+            notificationService.notifyChangesAcknowledgedSummary(username, summary);
         }
         return "redirect:" + (redirectTo != null ? redirectTo : "/events");
     }
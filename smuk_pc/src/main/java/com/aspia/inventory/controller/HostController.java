@@ -1,33 +1,45 @@
 package com.aspia.inventory.controller;
 
+import com.aspia.inventory.dto.AcknowledgementSummary;
+import com.aspia.inventory.dto.EventFilter;
+import com.aspia.inventory.dto.HostQuery;
+import com.aspia.inventory.dto.HostRow;
+import com.aspia.inventory.dto.TablePage;
 import com.aspia.inventory.model.ComponentChange;
 import com.aspia.inventory.model.Host;
 import com.aspia.inventory.model.HostGroup;
-import com.aspia.inventory.model.HostSoftware;
 import com.aspia.inventory.model.SoftwareExclusion;
+import com.aspia.inventory.model.SoftwareSetItem;
 import com.aspia.inventory.repository.ComponentChangeRepository;
 import com.aspia.inventory.repository.HostGroupRepository;
 import com.aspia.inventory.repository.HostRepository;
-import com.aspia.inventory.repository.HostSoftwareRepository;
 import com.aspia.inventory.repository.SoftwareExclusionRepository;
 import com.aspia.inventory.service.AspiaSyncService;
-import com.aspia.inventory.service.InventoryExportService;
-import com.aspia.inventory.service.TelegramNotificationService;
+import com.aspia.inventory.service.DashboardStatsService;
+import com.aspia.inventory.service.HostCardExportService;
+import com.aspia.inventory.service.HostDeletionService;
+import com.aspia.inventory.service.InventoryDataVersion;
+import com.aspia.inventory.service.SoftwareSetService;
+import com.aspia.inventory.service.NotificationService;
 import com.aspia.inventory.util.CryptoUtils;
+import com.aspia.inventory.util.DownloadResponses;
 import com.fasterxml.jackson.core.type.TypeReference;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import org.springframework.http.HttpHeaders;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
 import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -35,83 +47,118 @@ import java.util.stream.Collectors;
 public class HostController {
 
     private static final Logger log = LoggerFactory.getLogger(HostController.class);
+    private static final int MAX_PAGE_SIZE = 200;
 
     private final HostRepository hostRepository;
-    private final HostSoftwareRepository softwareRepository;
     private final ComponentChangeRepository changeRepository;
     private final HostGroupRepository groupRepository;
     private final SoftwareExclusionRepository exclusionRepository;
     private final AspiaSyncService syncService;
-    private final InventoryExportService exportService;
-    private final TelegramNotificationService telegramService;
+    private final HostCardExportService cardExportService;
+    private final NotificationService notificationService;
+    private final SoftwareSetService setService;
+    private final DashboardStatsService statsService;
+    private final HostDeletionService deletionService;
+    private final InventoryDataVersion dataVersion;
     private final ObjectMapper objectMapper = new ObjectMapper();
 
     @Value("${app.encryption.key}")
     private String encryptionKey;
 
+    /** Изменений на вкладке хоста — последние; остальные — в журнале событий и его выгрузке. */
+    @Value("${inventory.hosts.detail-changes:200}")
+    private int detailChanges;
+
     public HostController(HostRepository hostRepository,
-                          HostSoftwareRepository softwareRepository,
                           ComponentChangeRepository changeRepository,
                           HostGroupRepository groupRepository,
                           SoftwareExclusionRepository exclusionRepository,
                           AspiaSyncService syncService,
-                          InventoryExportService exportService,
-                          TelegramNotificationService telegramService) {
+                          HostCardExportService cardExportService,
+                          NotificationService notificationService,
+                          SoftwareSetService setService,
+                          DashboardStatsService statsService,
+                          HostDeletionService deletionService,
+                          InventoryDataVersion dataVersion) {
         this.hostRepository = hostRepository;
-        this.softwareRepository = softwareRepository;
         this.changeRepository = changeRepository;
         this.groupRepository = groupRepository;
         this.exclusionRepository = exclusionRepository;
         this.syncService = syncService;
-        this.exportService = exportService;
-        this.telegramService = telegramService;
+        this.cardExportService = cardExportService;
+        this.notificationService = notificationService;
+        this.setService = setService;
+        this.statsService = statsService;
+        this.deletionService = deletionService;
+        this.dataVersion = dataVersion;
     }
 
     @GetMapping("/hosts")
     public String hosts(@RequestParam(required = false) String filter, Model model) {
         model.addAttribute("currentPage", "hosts");
-        List<Host> hosts = hostRepository.findAll();
-        model.addAttribute("hosts", hosts);
-        long online = hosts.stream().filter(Host::isOnline).count();
-        long errorHosts = hosts.stream().filter(h -> h.getSyncError() != null).count();
-        model.addAttribute("totalHosts", hosts.size());
-        model.addAttribute("onlineHosts", online);
-        model.addAttribute("offlineHosts", hosts.size() - online);
-        model.addAttribute("errorHosts", errorHosts);
-
-        // ID хостов с изменениями за 24ч — для фильтра "С изменениями"
-        Set<Long> changedHostIds = new HashSet<>(
-                changeRepository.findDistinctHostIdsWithChangesAfter(LocalDateTime.now().minusHours(24)));
-        model.addAttribute("changedHostIds", changedHostIds);
-        model.addAttribute("changedHostsCount", changedHostIds.size());
-
-        // Группы для фильтра
+        model.addAttribute("totalHosts", hostRepository.count());
+        model.addAttribute("onlineHosts", hostRepository.countByOnlineTrue());
+        model.addAttribute("offlineHosts", hostRepository.countByOnlineFalse());
+        model.addAttribute("errorHosts", hostRepository.countBySyncErrorNotNull());
+        model.addAttribute("changedHostsCount",
+                hostRepository.countByLastChangeAtAfter(LocalDateTime.now().minusHours(24)));
+
+        // Значения фильтров; строки таблицы подгружаются постранично через /api/hosts
         model.addAttribute("groups", groupRepository.findAll());
+        model.addAttribute("osNames", hostRepository.findDistinctOsNames());
 
         // Фильтр из URL (для перехода с дашборда)
         model.addAttribute("filter", filter != null ? filter : "");
         return "hosts";
     }
 
+    /**
+     * Страница таблицы хостов для /hosts и вкладки оборудования /inventory.
+     * Сортировка — параметры sort=ключ,asc|desc в порядке приоритета.
+     */
+    @GetMapping("/api/hosts")
+    @ResponseBody
+    public TablePage<HostRow> hostsApi(@RequestParam(required = false) String search,
+                                       @RequestParam(required = false) String status,
+                                       @RequestParam(required = false) Long groupId,
+                                       @RequestParam(required = false) String os,
+                                       @RequestParam(required = false) List<String> sort,
+                                       @RequestParam(defaultValue = "0") int page,
+                                       @RequestParam(defaultValue = "50") int size) {
+        HostQuery query = new HostQuery();
+        query.setSearch(search);
+        query.setStatus(status);
+        query.setGroupId(groupId);
+        query.setOsName(os);
+        query.setSort(sort);
+        query.setPage(page);
+        query.setSize(Math.max(1, Math.min(size, MAX_PAGE_SIZE)));
+        return hostRepository.findHostPage(query);
+    }
+
     @GetMapping("/hosts/{id}")
     public String hostDetail(@PathVariable Long id, Model model) {
         model.addAttribute("currentPage", "hosts");
-        Host host = hostRepository.findById(id).orElse(null);
+        Host host = hostRepository.findWithGroupsById(id).orElse(null);
         if (host == null) {
             return "redirect:/hosts";
         }
         model.addAttribute("host", host);
 
-        List<HostSoftware> software = softwareRepository.findByHost(host);
+        List<SoftwareSetItem> software = setService.getItems(host.getSoftwareSetId());
         model.addAttribute("software", software);
 
-        // Изменения хоста
-        List<ComponentChange> hostChanges = changeRepository.findByHostOrderByDetectedAtDesc(host);
-        model.addAttribute("hostChanges", hostChanges);
+        // Последние изменения хоста; лишняя строка показывает, что история длиннее
+        List<ComponentChange> hostChanges = changeRepository.findByHostOrderByDetectedAtDescIdDesc(host,
+                PageRequest.of(0, detailChanges + 1));
+        boolean hostChangesTruncated = hostChanges.size() > detailChanges;
+        model.addAttribute("hostChanges", hostChangesTruncated ? hostChanges.subList(0, detailChanges) : hostChanges);
+        model.addAttribute("hostChangesTruncated", hostChangesTruncated);
+        // Изменения за месяцы, вышедшие за срок хранения журнала, — только итоги
+        model.addAttribute("changeRollups", changeRepository.findRollups(host.getId()));
 
         // Количество неподтверждённых изменений
-        long unacknowledgedCount = changeRepository.findByHostAndAcknowledgedFalse(host).size();
-        model.addAttribute("unacknowledgedCount", unacknowledgedCount);
+        model.addAttribute("unacknowledgedCount", host.getUnacknowledgedChanges());
 
         // Все группы для формы назначения
         model.addAttribute("allGroups", groupRepository.findAll());
@@ -165,49 +212,67 @@ public class HostController {
         if (host == null) return "redirect:/hosts";
         host.setAlias(alias != null && !alias.trim().isEmpty() ? alias.trim() : null);
         hostRepository.save(host);
+        dataVersion.bump();
         return "redirect:/hosts/" + id;
     }
 
     @PreAuthorize("hasRole('ADMIN')")
     @PostMapping("/hosts/{id}/acknowledge")
+    @org.springframework.transaction.annotation.Transactional
     public String acknowledgeHostChanges(@PathVariable Long id, java.security.Principal principal) {
         Host host = hostRepository.findById(id).orElse(null);
         if (host == null) return "redirect:/hosts";
-        List<ComponentChange> unacknowledged = changeRepository.findByHostAndAcknowledgedFalse(host);
-        LocalDateTime now = LocalDateTime.now();
+        EventFilter filter = new EventFilter();
+        filter.setHostId(host.getId());
         String username = principal.getName();
-        for (ComponentChange c : unacknowledged) {
-            c.setAcknowledged(true);
-            c.setAcknowledgedAt(now);
-            c.setAcknowledgedBy(username);
-        }
-        changeRepository.saveAll(unacknowledged);
-        if (!unacknowledged.isEmpty()) {
-            String displayName = host.getDisplayName();
-            List<TelegramNotificationService.ChangeInfo> infos = new java.util.ArrayList<>();
-            for (ComponentChange c : unacknowledged) {
-                infos.add(new TelegramNotificationService.ChangeInfo(
-                        displayName, c.getComponentType(), c.getChangeType(), c.getOldValue(), c.getNewValue()));
-            }
-            telegramService.notifyChangesAcknowledged(username, displayName, infos);
+        List<AcknowledgementSummary> summary = changeRepository.acknowledge(filter, username, LocalDateTime.now());
+        if (!summary.isEmpty()) {
+            statsService.onChangesAcknowledged(summary.stream().mapToLong(AcknowledgementSummary::getCount).sum());
+            notificationService.notifyChangesAcknowledgedSummary(username, summary);
         }
         return "redirect:/hosts/" + id;
     }
 
     @PreAuthorize("hasRole('ADMIN')")
     @PostMapping("/hosts/{id}/delete")
-    @org.springframework.transaction.annotation.Transactional
-    public String deleteHost(@PathVariable Long id) {
-        Host host = hostRepository.findById(id).orElse(null);
-        if (host == null) return "redirect:/hosts";
-        softwareRepository.deleteByHost(host);
-        changeRepository.deleteByHost(host);
-        host.setGroups(new HashSet<>());
-        hostRepository.save(host);
-        hostRepository.delete(host);
+    public String deleteHost(@PathVariable Long id, RedirectAttributes redirectAttributes) {
+        addDeletionMessage(deletionService.delete(Collections.singletonList(id)), redirectAttributes);
+        return "redirect:/hosts";
+    }
+
+    /**
+     * Удаление выбранных хостов.
+     */
+    @PreAuthorize("hasRole('ADMIN')")
+    @PostMapping("/hosts/delete")
+    public String deleteHosts(@RequestParam(required = false) List<Long> ids, RedirectAttributes redirectAttributes) {
+        addDeletionMessage(deletionService.delete(ids), redirectAttributes);
         return "redirect:/hosts";
     }
 
+    /**
+     * Удаление списанных хостов — оффлайн и без успешной синхронизации дольше указанного срока.
+     */
+    @PreAuthorize("hasRole('ADMIN')")
+    @PostMapping("/hosts/delete-offline")
+    public String deleteOfflineHosts(@RequestParam int days, RedirectAttributes redirectAttributes) {
+        if (days < 1) return "redirect:/hosts";
+        List<Long> ids = hostRepository.findIdsOfflineSince(LocalDateTime.now().minusDays(days));
+        addDeletionMessage(deletionService.delete(ids), redirectAttributes);
+        return "redirect:/hosts";
+    }
+
+    private static void addDeletionMessage(HostDeletionService.Result result, RedirectAttributes redirectAttributes) {
+        if (result.getQueued() > 0) {
+            redirectAttributes.addFlashAttribute("hostsMessage",
+                    "Хостов поставлено на удаление: " + result.getQueued() + ". История изменений удаляется в фоне");
+        } else if (result.getDeleted() > 0) {
+            redirectAttributes.addFlashAttribute("hostsMessage", "Удалено хостов: " + result.getDeleted());
+        } else {
+            redirectAttributes.addFlashAttribute("hostsMessage", "Нет хостов для удаления");
+        }
+    }
+
     @PreAuthorize("hasRole('ADMIN')")
     @PostMapping("/hosts/{id}/groups")
     public String updateHostGroups(@PathVariable Long id, @RequestParam(required = false) List<Long> groupIds) {
@@ -258,41 +323,45 @@ public class HostController {
     }
 
     @GetMapping("/hosts/{id}/export/pdf")
-    public ResponseEntity<byte[]> exportHostPdf(@PathVariable Long id) {
-        Host host = hostRepository.findById(id).orElse(null);
-        if (host == null) return ResponseEntity.notFound().build();
-        try {
-            List<HostSoftware> software = softwareRepository.findByHost(host);
-            List<ComponentChange> changes = changeRepository.findByHostOrderByDetectedAtDesc(host);
-            byte[] data = exportService.exportHostCardPdf(host, software, changes);
-            String filename = "host_" + host.getComputerName() + ".pdf";
-            return ResponseEntity.ok()
-                    .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
-                    .contentType(MediaType.APPLICATION_PDF)
-                    .body(data);
-        } catch (Exception e) {
-            log.error("Ошибка экспорта карточки хоста {} в PDF", id, e);
-            return ResponseEntity.internalServerError().build();
-        }
+    public ResponseEntity<StreamingResponseBody> exportHostPdf(@PathVariable Long id) {
+        return exportHostCard(id, HostCardExportService.Format.PDF, MediaType.APPLICATION_PDF);
     }
 
     @GetMapping("/hosts/{id}/export/excel")
-    public ResponseEntity<byte[]> exportHostExcel(@PathVariable Long id) {
-        Host host = hostRepository.findById(id).orElse(null);
-        if (host == null) return ResponseEntity.notFound().build();
-        try {
-            List<HostSoftware> software = softwareRepository.findByHost(host);
-            List<ComponentChange> changes = changeRepository.findByHostOrderByDetectedAtDesc(host);
-            byte[] data = exportService.exportHostCardExcel(host, software, changes);
-            String filename = "host_" + host.getComputerName() + ".xlsx";
-            return ResponseEntity.ok()
-                    .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
-                    .contentType(MediaType.parseMediaType("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet"))
-                    .body(data);
-        } catch (Exception e) {
-            log.error("Ошибка экспорта карточки хоста {} в Excel", id, e);
-            return ResponseEntity.internalServerError().build();
-        }
+    public ResponseEntity<StreamingResponseBody> exportHostExcel(@PathVariable Long id) {
+        return exportHostCard(id, HostCardExportService.Format.EXCEL, DownloadResponses.XLSX);
+    }
+
+    private ResponseEntity<StreamingResponseBody> exportHostCard(Long id, HostCardExportService.Format format,
+                                                                 MediaType contentType) {
+        HostCardExportService.HostCard card = cardExportService.load(id).orElse(null);
+        if (card == null) return ResponseEntity.notFound().build();
+        return DownloadResponses.attachment(HostCardExportService.fileName(card.getHost(), format), contentType,
+                DownloadResponses.logged(log, "Ошибка экспорта карточки хоста " + id + " (" + format + ")",
+                        out -> cardExportService.write(card, format, out)));
+    }
+
+    /**
+     * Карточки всех хостов, подходящих под фильтры таблицы, — одним ZIP-архивом.
+     */
+    @GetMapping("/hosts/export/zip")
+    public ResponseEntity<StreamingResponseBody> exportHostCards(@RequestParam(defaultValue = "PDF") HostCardExportService.Format format,
+                                                                 @RequestParam(required = false) String search,
+                                                                 @RequestParam(required = false) String status,
+                                                                 @RequestParam(required = false) Long groupId,
+                                                                 @RequestParam(required = false) String os,
+                                                                 @RequestParam(required = false) List<String> sort) {
+        HostQuery query = new HostQuery();
+        query.setSearch(search);
+        query.setStatus(status);
+        query.setGroupId(groupId);
+        query.setOsName(os);
+        query.setSort(sort);
+        List<Long> hostIds = hostRepository.findHostIds(query);
+        String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmm"));
+        return DownloadResponses.attachment("hosts_" + timestamp + ".zip", DownloadResponses.ZIP,
+                DownloadResponses.logged(log, "Ошибка пакетного экспорта карточек хостов",
+                        out -> cardExportService.writeZip(hostIds, format, out)));
     }
 
     @PreAuthorize("hasRole('ADMIN')")
@@ -1,17 +1,23 @@
 package com.aspia.inventory.controller;
 
+import com.aspia.inventory.dto.HostSoftwareEntry;
+import com.aspia.inventory.dto.SoftwareSummaryRow;
+import com.aspia.inventory.dto.TablePage;
 import com.aspia.inventory.model.Host;
-import com.aspia.inventory.model.HostSoftware;
 import com.aspia.inventory.model.SoftwareExclusion;
-import com.aspia.inventory.repository.ComponentChangeRepository;
+import com.aspia.inventory.model.SoftwareTitle;
 import com.aspia.inventory.repository.HostGroupRepository;
 import com.aspia.inventory.repository.HostRepository;
-import com.aspia.inventory.repository.HostSoftwareRepository;
 import com.aspia.inventory.repository.SoftwareExclusionRepository;
-import com.aspia.inventory.service.InventoryExportService;
+import com.aspia.inventory.repository.SoftwareSetItemRepository;
+import com.aspia.inventory.service.ReportJobService;
+import com.aspia.inventory.service.ScheduledReportService;
+import com.aspia.inventory.service.SoftwareSummaryService;
+import com.aspia.inventory.service.SoftwareTitleService;
+import com.aspia.inventory.util.DelimitedWriter;
+import com.aspia.inventory.util.DownloadResponses;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -19,7 +25,12 @@ import org.springframework.stereotype.Controller;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.file.Path;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
@@ -29,49 +40,67 @@ import java.util.stream.Collectors;
 public class InventoryController {
 
     private static final Logger log = LoggerFactory.getLogger(InventoryController.class);
+    private static final int MAX_PAGE_SIZE = 200;
 
     private final HostRepository hostRepository;
-    private final HostSoftwareRepository softwareRepository;
+    private final SoftwareSetItemRepository setItemRepository;
     private final HostGroupRepository groupRepository;
-    private final ComponentChangeRepository changeRepository;
     private final SoftwareExclusionRepository exclusionRepository;
-    private final InventoryExportService exportService;
+    private final ReportJobService reportJobService;
+    private final ScheduledReportService scheduledReportService;
+    private final SoftwareSummaryService summaryService;
+    private final SoftwareTitleService titleService;
 
     public InventoryController(HostRepository hostRepository,
-                               HostSoftwareRepository softwareRepository,
+                               SoftwareSetItemRepository setItemRepository,
                                HostGroupRepository groupRepository,
-                               ComponentChangeRepository changeRepository,
                                SoftwareExclusionRepository exclusionRepository,
-                               InventoryExportService exportService) {
+                               ReportJobService reportJobService,
+                               ScheduledReportService scheduledReportService,
+                               SoftwareSummaryService summaryService,
+                               SoftwareTitleService titleService) {
         this.hostRepository = hostRepository;
-        this.softwareRepository = softwareRepository;
+        this.setItemRepository = setItemRepository;
         this.groupRepository = groupRepository;
-        this.changeRepository = changeRepository;
         this.exclusionRepository = exclusionRepository;
-        this.exportService = exportService;
+        this.reportJobService = reportJobService;
+        this.scheduledReportService = scheduledReportService;
+        this.summaryService = summaryService;
+        this.titleService = titleService;
     }
 
     @GetMapping("/inventory")
     public String inventory(Model model) {
         model.addAttribute("currentPage", "inventory");
 
-        List<Host> hosts = hostRepository.findAll();
-        model.addAttribute("hosts", hosts);
-
-        Set<Long> changedHostIds = new HashSet<>(
-                changeRepository.findDistinctHostIdsWithUnacknowledgedChanges());
-        model.addAttribute("changedHostIds", changedHostIds);
-
+        // Счётчики вкладок; строки таблиц подгружаются постранично через /api/hosts и /api/inventory/software
+        model.addAttribute("hostCount", hostRepository.count());
+        model.addAttribute("softwareCount", summaryService.countPrograms());
         model.addAttribute("groups", groupRepository.findAll());
+        model.addAttribute("readyReports", scheduledReportService.listReady());
+
+        return "inventory";
+    }
 
-        List<Object[]> softwareList = softwareRepository.findSoftwareSummary();
-        model.addAttribute("softwareList", softwareList);
+    /**
+     * Страница сводки ПО. Сортировка — параметры sort=name|publisher|hostCount,asc|desc.
+     */
+    @GetMapping("/api/inventory/software")
+    @ResponseBody
+    public TablePage<SoftwareSummaryRow> softwareApi(@RequestParam(required = false) String search,
+                                                     @RequestParam(required = false) List<String> sort,
+                                                     @RequestParam(defaultValue = "0") int page,
+                                                     @RequestParam(defaultValue = "50") int size) {
+        TablePage<SoftwareSummaryRow> result = summaryService.getSummaryPage(search,
+                sort != null ? sort : Collections.emptyList(),
+                Math.max(page, 0), Math.max(1, Math.min(size, MAX_PAGE_SIZE)));
 
         Set<String> excludedSoftwareNames = exclusionRepository.findByHostIsNull().stream()
                 .map(SoftwareExclusion::getSoftwareName).collect(Collectors.toSet());
-        model.addAttribute("excludedSoftwareNames", excludedSoftwareNames);
-
-        return "inventory";
+        for (SoftwareSummaryRow row : result.getItems()) {
+            row.setTracked(!excludedSoftwareNames.contains(row.getName()));
+        }
+        return result;
     }
 
     @PreAuthorize("hasRole('ADMIN')")
@@ -97,11 +126,22 @@ public class InventoryController {
         model.addAttribute("currentPage", "inventory");
         model.addAttribute("softwareName", name);
 
-        List<HostSoftware> entries = softwareRepository.findByNameWithHost(name);
+        SoftwareTitle title = titleService.findByName(name).orElse(null);
+        List<HostSoftwareEntry> entries = title != null
+                ? setItemRepository.findHostEntriesByTitleId(title.getId())
+                : Collections.emptyList();
+        if (!entries.isEmpty()) {
+            // Группы всех хостов страницы — одним запросом
+            Map<Long, List<String>> groupsByHost = new HashMap<>();
+            for (Object[] row : hostRepository.findGroupNamesByHostIds(
+                    entries.stream().map(HostSoftwareEntry::getHostId).collect(Collectors.toSet()))) {
+                groupsByHost.computeIfAbsent((Long) row[0], k -> new ArrayList<>()).add((String) row[1]);
+            }
+            entries.forEach(e -> e.setGroupNames(groupsByHost.getOrDefault(e.getHostId(), Collections.emptyList())));
+        }
         model.addAttribute("softwareEntries", entries);
 
-        String publisher = entries.isEmpty() ? "—" :
-                (entries.get(0).getPublisher() != null ? entries.get(0).getPublisher() : "—");
+        String publisher = title != null && title.getPublisher() != null ? title.getPublisher() : "—";
         model.addAttribute("publisher", publisher);
 
         return "software-detail";
@@ -109,64 +149,73 @@ public class InventoryController {
 
     // ==================== Экспорт ====================
 
-    @GetMapping("/inventory/export/hardware/excel")
-    public ResponseEntity<byte[]> exportHardwareExcel() {
-        try {
-            List<Host> hosts = hostRepository.findAll();
-            byte[] data = exportService.exportHardwareExcel(hosts);
-            return ResponseEntity.ok()
-                    .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=hardware_" + timestamp() + ".xlsx")
-                    .contentType(MediaType.parseMediaType("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet"))
-                    .body(data);
-        } catch (Exception e) {
-            log.error("Ошибка экспорта оборудования в Excel", e);
-            return ResponseEntity.internalServerError().build();
-        }
+    /**
+     * Отчёт по всему парку строится в фоне; страница опрашивает состояние и скачивает готовый файл.
+     */
+    @PostMapping("/inventory/reports")
+    @ResponseBody
+    public Map<String, Object> submitReport(@RequestParam ReportJobService.ReportType type) {
+        return toJson(reportJobService.submit(type));
     }
 
-    @GetMapping("/inventory/export/hardware/pdf")
-    public ResponseEntity<byte[]> exportHardwarePdf() {
-        try {
-            List<Host> hosts = hostRepository.findAll();
-            byte[] data = exportService.exportHardwarePdf(hosts);
-            return ResponseEntity.ok()
-                    .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=hardware_" + timestamp() + ".pdf")
-                    .contentType(MediaType.APPLICATION_PDF)
-                    .body(data);
-        } catch (Exception e) {
-            log.error("Ошибка экспорта оборудования в PDF", e);
-            return ResponseEntity.internalServerError().build();
-        }
+    @GetMapping("/inventory/reports/{id}")
+    @ResponseBody
+    public Map<String, Object> reportStatus(@PathVariable String id) {
+        return reportJobService.find(id).map(this::toJson)
+                .orElseGet(() -> Collections.singletonMap("status", "MISSING"));
     }
 
-    @GetMapping("/inventory/export/software/excel")
-    public ResponseEntity<byte[]> exportSoftwareExcel() {
-        try {
-            List<Object[]> softwareList = softwareRepository.findSoftwareSummary();
-            byte[] data = exportService.exportSoftwareExcel(softwareList);
-            return ResponseEntity.ok()
-                    .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=software_" + timestamp() + ".xlsx")
-                    .contentType(MediaType.parseMediaType("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet"))
-                    .body(data);
-        } catch (Exception e) {
-            log.error("Ошибка экспорта ПО в Excel", e);
-            return ResponseEntity.internalServerError().build();
+    @GetMapping("/inventory/reports/{id}/download")
+    public void downloadReport(@PathVariable String id, HttpServletRequest request,
+                               HttpServletResponse response) throws IOException {
+        Optional<ReportJobService.Job> job = reportJobService.find(id);
+        Optional<Path> file = reportJobService.getFile(id);
+        if (!job.isPresent() || !file.isPresent()) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
         }
+        ReportJobService.ReportType type = job.get().getType();
+        DownloadResponses.sendFile(request, response, file.get(),
+                type.getBaseName() + "_" + timestamp() + "." + type.getExtension(), type.getMediaType());
     }
 
-    @GetMapping("/inventory/export/software/pdf")
-    public ResponseEntity<byte[]> exportSoftwarePdf() {
-        try {
-            List<Object[]> softwareList = softwareRepository.findSoftwareSummary();
-            byte[] data = exportService.exportSoftwarePdf(softwareList);
-            return ResponseEntity.ok()
-                    .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=software_" + timestamp() + ".pdf")
-                    .contentType(MediaType.APPLICATION_PDF)
-                    .body(data);
-        } catch (Exception e) {
-            log.error("Ошибка экспорта ПО в PDF", e);
-            return ResponseEntity.internalServerError().build();
+    /**
+     * Готовый плановый отчёт: файл уже на диске, отдаётся без построения.
+     */
+    @GetMapping("/inventory/reports/scheduled/{reportId}/{fileName:.+}")
+    public void downloadScheduledReport(@PathVariable Long reportId, @PathVariable String fileName,
+                                        HttpServletRequest request, HttpServletResponse response) throws IOException {
+        Optional<Path> file = scheduledReportService.getFile(reportId, fileName);
+        if (!file.isPresent()) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
         }
+        MediaType mediaType = fileName.endsWith(".pdf") ? MediaType.APPLICATION_PDF : DownloadResponses.XLSX;
+        DownloadResponses.sendFile(request, response, file.get(), fileName, mediaType);
+    }
+
+    /**
+     * Все установленные программы на всех ПК с версиями — для аудита. Строки идут из курсора БД
+     * прямо в ответ, поэтому выгрузка не ставится в очередь отчётов и не хранится на диске.
+     */
+    @GetMapping("/inventory/export/software-matrix")
+    public ResponseEntity<StreamingResponseBody> exportSoftwareMatrix(
+            @RequestParam(defaultValue = "CSV") DelimitedWriter.Format format) {
+        return DownloadResponses.attachment("software_matrix_" + timestamp() + "." + format.getExtension(),
+                format.getMediaType(),
+                DownloadResponses.logged(log, "Ошибка экспорта матрицы ПО",
+                        out -> {
+                            long rows = hostRepository.copySoftwareMatrixTo(format, out);
+                            log.info("Матрица ПО выгружена: {} строк", rows);
+                        }));
+    }
+
+    private Map<String, Object> toJson(ReportJobService.Job job) {
+        Map<String, Object> result = new HashMap<>();
+        result.put("id", job.getId());
+        result.put("status", job.getStatus().name());
+        if (job.getError() != null) result.put("error", job.getError());
+        return result;
     }
 
     private String timestamp() {
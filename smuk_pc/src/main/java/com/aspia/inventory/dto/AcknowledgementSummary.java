@@ -0,0 +1,31 @@
+package com.aspia.inventory.dto;
+
+/**
+ * Итог массового подтверждения: число подтверждённых изменений по хосту, компоненту и типу изменения.
+ */
+public class AcknowledgementSummary {
+
+    private final Long hostId;
+    private final String hostName;
+    private final String componentType;
+    private final String changeType;
+    private final long count;
+
+    public AcknowledgementSummary(Long hostId, String hostName, String componentType, String changeType, long count) {
+        this.hostId = hostId;
+        this.hostName = hostName;
+        this.componentType = componentType;
+        this.changeType = changeType;
+        this.count = count;
+    }
+
+    public Long getHostId() { return hostId; }
+
+    public String getHostName() { return hostName; }
+
+    public String getComponentType() { return componentType; }
+
+    public String getChangeType() { return changeType; }
+
+    public long getCount() { return count; }
+}
@@ -0,0 +1,66 @@
+package com.aspia.inventory.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * Строка журнала изменений: поля изменения и хоста из одного запроса, без загрузки сущностей.
+ */
+public class ChangeEventView {
+
+    private final Long id;
+    private final LocalDateTime detectedAt;
+    private final Long hostId;
+    private final String computerName;
+    private final String alias;
+    private final String componentType;
+    private final String changeType;
+    private final String oldValue;
+    private final String newValue;
+    private final boolean acknowledged;
+    private final LocalDateTime acknowledgedAt;
+    private final String acknowledgedBy;
+
+    public ChangeEventView(Long id, LocalDateTime detectedAt, Long hostId, String computerName, String alias,
+                           String componentType, String changeType, String oldValue, String newValue,
+                           boolean acknowledged, LocalDateTime acknowledgedAt, String acknowledgedBy) {
+        this.id = id;
+        this.detectedAt = detectedAt;
+        this.hostId = hostId;
+        this.computerName = computerName;
+        this.alias = alias;
+        this.componentType = componentType;
+        this.changeType = changeType;
+        this.oldValue = oldValue;
+        this.newValue = newValue;
+        this.acknowledged = acknowledged;
+        this.acknowledgedAt = acknowledgedAt;
+        this.acknowledgedBy = acknowledgedBy;
+    }
+
+    public Long getId() { return id; }
+
+    public LocalDateTime getDetectedAt() { return detectedAt; }
+
+    public Long getHostId() { return hostId; }
+
+    public String getComputerName() { return computerName; }
+
+    /** Совпадает с Host.getDisplayName(). */
+    public String getHostName() {
+        return alias != null && !alias.trim().isEmpty() ? alias : computerName;
+    }
+
+    public String getComponentType() { return componentType; }
+
+    public String getChangeType() { return changeType; }
+
+    public String getOldValue() { return oldValue; }
+
+    public String getNewValue() { return newValue; }
+
+    public boolean isAcknowledged() { return acknowledged; }
+
+    public LocalDateTime getAcknowledgedAt() { return acknowledgedAt; }
+
+    public String getAcknowledgedBy() { return acknowledgedBy; }
+}
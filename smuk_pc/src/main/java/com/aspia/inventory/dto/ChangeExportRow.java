@@ -0,0 +1,78 @@
+package com.aspia.inventory.dto;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+
+/**
+ * Строка выгрузки журнала изменений: имена хоста и групп уже подставлены, типы раскодированы.
+ */
+public class ChangeExportRow {
+
+    /** Получатель строк, читаемых из курсора БД по одной. */
+    @FunctionalInterface
+    public interface Handler {
+        void accept(ChangeExportRow row) throws IOException;
+    }
+
+    /** Источник строк: передаёт каждую строку в handler, возвращает их число. */
+    @FunctionalInterface
+    public interface Source {
+        long forEach(Handler handler) throws IOException;
+    }
+
+    private final long id;
+    private final LocalDateTime detectedAt;
+    private final String hostName;
+    private final String computerName;
+    private final String groupNames;
+    private final String componentType;
+    private final String changeType;
+    private final String oldValue;
+    private final String newValue;
+    private final boolean acknowledged;
+    private final LocalDateTime acknowledgedAt;
+    private final String acknowledgedBy;
+
+    public ChangeExportRow(long id, LocalDateTime detectedAt, String hostName, String computerName, String groupNames,
+                           String componentType, String changeType, String oldValue, String newValue,
+                           boolean acknowledged, LocalDateTime acknowledgedAt, String acknowledgedBy) {
+        this.id = id;
+        this.detectedAt = detectedAt;
+        this.hostName = hostName;
+        this.computerName = computerName;
+        this.groupNames = groupNames;
+        this.componentType = componentType;
+        this.changeType = changeType;
+        this.oldValue = oldValue;
+        this.newValue = newValue;
+        this.acknowledged = acknowledged;
+        this.acknowledgedAt = acknowledgedAt;
+        this.acknowledgedBy = acknowledgedBy;
+    }
+
+    public long getId() { return id; }
+
+    public LocalDateTime getDetectedAt() { return detectedAt; }
+
+    /** Псевдоним или имя компьютера. */
+    public String getHostName() { return hostName; }
+
+    public String getComputerName() { return computerName; }
+
+    /** Группы хоста через запятую, по алфавиту; null — хост без групп. */
+    public String getGroupNames() { return groupNames; }
+
+    public String getComponentType() { return componentType; }
+
+    public String getChangeType() { return changeType; }
+
+    public String getOldValue() { return oldValue; }
+
+    public String getNewValue() { return newValue; }
+
+    public boolean isAcknowledged() { return acknowledged; }
+
+    public LocalDateTime getAcknowledgedAt() { return acknowledgedAt; }
+
+    public String getAcknowledgedBy() { return acknowledgedBy; }
+}
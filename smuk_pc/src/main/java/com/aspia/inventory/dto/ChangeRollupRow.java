@@ -0,0 +1,29 @@
+package com.aspia.inventory.dto;
+
+import java.time.LocalDate;
+
+/**
+ * Свёрнутые изменения хоста за месяц, вышедший за срок хранения журнала.
+ */
+public class ChangeRollupRow {
+
+    private final LocalDate month;
+    private final String componentType;
+    private final String changeType;
+    private final long count;
+
+    public ChangeRollupRow(LocalDate month, String componentType, String changeType, long count) {
+        this.month = month;
+        this.componentType = componentType;
+        this.changeType = changeType;
+        this.count = count;
+    }
+
+    public LocalDate getMonth() { return month; }
+
+    public String getComponentType() { return componentType; }
+
+    public String getChangeType() { return changeType; }
+
+    public long getCount() { return count; }
+}
@@ -0,0 +1,47 @@
+package com.aspia.inventory.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * Серверные фильтры журнала изменений. Пустое поле — фильтр не применяется.
+ */
+public class EventFilter {
+
+    private LocalDateTime from;
+    private LocalDateTime to;
+    private String componentType;
+    private String changeType;
+    private Boolean acknowledged;
+    private Long hostId;
+    private String hostQuery;
+    private Long groupId;
+
+    public LocalDateTime getFrom() { return from; }
+    public void setFrom(LocalDateTime from) { this.from = from; }
+
+    public LocalDateTime getTo() { return to; }
+    public void setTo(LocalDateTime to) { this.to = to; }
+
+    public String getComponentType() { return componentType; }
+    public void setComponentType(String componentType) { this.componentType = blankToNull(componentType); }
+
+    public String getChangeType() { return changeType; }
+    public void setChangeType(String changeType) { this.changeType = blankToNull(changeType); }
+
+    public Boolean getAcknowledged() { return acknowledged; }
+    public void setAcknowledged(Boolean acknowledged) { this.acknowledged = acknowledged; }
+
+    public Long getHostId() { return hostId; }
+    public void setHostId(Long hostId) { this.hostId = hostId; }
+
+    /** Подстрока имени компьютера или псевдонима. */
+    public String getHostQuery() { return hostQuery; }
+    public void setHostQuery(String hostQuery) { this.hostQuery = blankToNull(hostQuery); }
+
+    public Long getGroupId() { return groupId; }
+    public void setGroupId(Long groupId) { this.groupId = groupId; }
+
+    private static String blankToNull(String value) {
+        return value != null && !value.trim().isEmpty() ? value.trim() : null;
+    }
+}
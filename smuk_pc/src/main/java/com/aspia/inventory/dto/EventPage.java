@@ -0,0 +1,62 @@
+package com.aspia.inventory.dto;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+
+/**
+ * Страница журнала изменений с курсором на следующую страницу.
+ */
+public class EventPage {
+
+    private final List<ChangeEventView> items;
+    private final String nextCursor;
+
+    public EventPage(List<ChangeEventView> items, String nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<ChangeEventView> getItems() { return items; }
+
+    /** null — страница последняя. */
+    public String getNextCursor() { return nextCursor; }
+
+    public boolean isHasMore() { return nextCursor != null; }
+
+    /**
+     * Позиция строки по ключу сортировки (detected_at, id).
+     * Строковая форма: "2026-01-31T12:00:00.123_4567".
+     */
+    public static class Cursor {
+        public final LocalDateTime detectedAt;
+        public final Long id;
+
+        public Cursor(LocalDateTime detectedAt, Long id) {
+            this.detectedAt = detectedAt;
+            this.id = id;
+        }
+
+        public static Cursor after(ChangeEventView last) {
+            return new Cursor(last.getDetectedAt(), last.getId());
+        }
+
+        /** Для пустого или некорректного значения возвращает null (первая страница). */
+        public static Cursor parse(String value) {
+            if (value == null || value.isEmpty()) return null;
+            int sep = value.lastIndexOf('_');
+            if (sep <= 0) return null;
+            try {
+                return new Cursor(LocalDateTime.parse(value.substring(0, sep)),
+                        Long.parseLong(value.substring(sep + 1)));
+            } catch (DateTimeParseException | NumberFormatException e) {
+                return null;
+            }
+        }
+
+        @Override
+        public String toString() {
+            return detectedAt + "_" + id;
+        }
+    }
+}
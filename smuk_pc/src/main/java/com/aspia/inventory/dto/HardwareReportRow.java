@@ -0,0 +1,68 @@
+package com.aspia.inventory.dto;
+
+import com.aspia.inventory.model.Host;
+
+import java.io.IOException;
+
+/**
+ * Строка отчёта по оборудованию: только колонки отчёта, без сущности хоста и его config_json.
+ */
+public class HardwareReportRow {
+
+    /** Получатель строк, читаемых из курсора БД по одной. */
+    @FunctionalInterface
+    public interface Handler {
+        void accept(HardwareReportRow row) throws IOException;
+    }
+
+    /** Источник строк: передаёт каждую строку в handler, возвращает их число. */
+    @FunctionalInterface
+    public interface Source {
+        long forEach(Handler handler) throws IOException;
+    }
+
+    private final String displayName;
+    private final String computerName;
+    private final String motherboard;
+    private final String cpuModel;
+    private final Long totalRamBytes;
+    private final String videoAdapter;
+    private final String osName;
+    private final String ipAddress;
+    private final boolean online;
+    private final boolean syncFailed;
+
+    public HardwareReportRow(String displayName, String computerName, String motherboard, String cpuModel,
+                             Long totalRamBytes, String videoAdapter, String osName, String ipAddress,
+                             boolean online, boolean syncFailed) {
+        this.displayName = displayName;
+        this.computerName = computerName;
+        this.motherboard = motherboard;
+        this.cpuModel = cpuModel;
+        this.totalRamBytes = totalRamBytes;
+        this.videoAdapter = videoAdapter;
+        this.osName = osName;
+        this.ipAddress = ipAddress;
+        this.online = online;
+        this.syncFailed = syncFailed;
+    }
+
+    /** Псевдоним или имя компьютера. */
+    public String getDisplayName() { return displayName; }
+
+    public String getComputerName() { return computerName; }
+
+    public String getMotherboard() { return motherboard; }
+
+    public String getCpuModel() { return cpuModel; }
+
+    public String getFormattedRam() { return Host.formatGb(totalRamBytes); }
+
+    public String getVideoAdapter() { return videoAdapter; }
+
+    public String getOsName() { return osName; }
+
+    public String getIpAddress() { return ipAddress; }
+
+    public String getStatus() { return syncFailed ? "Ошибка" : (online ? "Онлайн" : "Оффлайн"); }
+}
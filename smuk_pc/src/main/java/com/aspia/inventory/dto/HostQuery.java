@@ -0,0 +1,50 @@
+package com.aspia.inventory.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Параметры таблицы хостов: фильтры, сортировка и страница.
+ */
+public class HostQuery {
+
+    /** Статусы фильтра; CHANGED — изменения за 24 часа, UNACKNOWLEDGED — есть неподтверждённые. */
+    public static final List<String> STATUSES =
+            List.of("ONLINE", "OFFLINE", "ERROR", "CHANGED", "UNACKNOWLEDGED");
+
+    private String search;
+    private String status;
+    private Long groupId;
+    private String osName;
+    private List<String> sort = new ArrayList<>();
+    private int page;
+    private int size = 50;
+
+    public String getSearch() { return search; }
+    public void setSearch(String search) {
+        this.search = search != null && !search.trim().isEmpty() ? search.trim() : null;
+    }
+
+    public String getStatus() { return status; }
+    public void setStatus(String status) {
+        this.status = status != null && STATUSES.contains(status) ? status : null;
+    }
+
+    public Long getGroupId() { return groupId; }
+    public void setGroupId(Long groupId) { this.groupId = groupId; }
+
+    public String getOsName() { return osName; }
+    public void setOsName(String osName) {
+        this.osName = osName != null && !osName.isEmpty() ? osName : null;
+    }
+
+    /** Элементы вида "name,asc" или "lastSync,desc" в порядке приоритета. */
+    public List<String> getSort() { return sort; }
+    public void setSort(List<String> sort) { this.sort = sort != null ? sort : new ArrayList<>(); }
+
+    public int getPage() { return page; }
+    public void setPage(int page) { this.page = Math.max(page, 0); }
+
+    public int getSize() { return size; }
+    public void setSize(int size) { this.size = size; }
+}
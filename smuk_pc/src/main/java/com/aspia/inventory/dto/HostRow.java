@@ -0,0 +1,112 @@
+package com.aspia.inventory.dto;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Строка таблиц хостов (/hosts, вкладка оборудования в /inventory) — без загрузки сущности Host.
+ */
+public class HostRow {
+
+    private final Long id;
+    private final Integer aspiaHostId;
+    private final String computerName;
+    private final String alias;
+    private final String osName;
+    private final String cpuModel;
+    private final Long totalRamBytes;
+    private final String videoAdapter;
+    private final String motherboard;
+    private final boolean online;
+    private final String syncError;
+    private final LocalDateTime lastSyncAt;
+    private final int unacknowledgedChanges;
+    private final LocalDateTime lastChangeAt;
+    private final int softwareCount;
+    private final Long lastSyncDurationMs;
+    private List<String> groupNames = new ArrayList<>();
+
+    public HostRow(Long id, Integer aspiaHostId, String computerName, String alias, String osName,
+                   String cpuModel, Long totalRamBytes, String videoAdapter, String motherboard,
+                   Boolean online, String syncError, LocalDateTime lastSyncAt,
+                   Integer unacknowledgedChanges, LocalDateTime lastChangeAt, Integer softwareCount,
+                   Long lastSyncDurationMs) {
+        this.id = id;
+        this.aspiaHostId = aspiaHostId;
+        this.computerName = computerName;
+        this.alias = alias;
+        this.osName = osName;
+        this.cpuModel = cpuModel;
+        this.totalRamBytes = totalRamBytes;
+        this.videoAdapter = videoAdapter;
+        this.motherboard = motherboard;
+        this.online = online != null && online;
+        this.syncError = syncError;
+        this.lastSyncAt = lastSyncAt;
+        this.unacknowledgedChanges = unacknowledgedChanges != null ? unacknowledgedChanges : 0;
+        this.lastChangeAt = lastChangeAt;
+        this.softwareCount = softwareCount != null ? softwareCount : 0;
+        this.lastSyncDurationMs = lastSyncDurationMs;
+    }
+
+    public Long getId() { return id; }
+
+    public Integer getAspiaHostId() { return aspiaHostId; }
+
+    public String getComputerName() { return computerName; }
+
+    public String getAlias() { return alias; }
+
+    /** Совпадает с Host.getDisplayName(). */
+    public String getDisplayName() {
+        return alias != null && !alias.trim().isEmpty() ? alias : computerName;
+    }
+
+    public String getOsName() { return osName; }
+
+    public String getCpuModel() { return cpuModel; }
+
+    public Long getTotalRamBytes() { return totalRamBytes; }
+
+    /** Совпадает с Host.getFormattedRam(). */
+    public String getFormattedRam() {
+        if (totalRamBytes == null) return "—";
+        double gb = totalRamBytes / (1024.0 * 1024.0 * 1024.0);
+        return String.format("%.1f GB", gb);
+    }
+
+    public String getVideoAdapter() { return videoAdapter; }
+
+    public String getMotherboard() { return motherboard; }
+
+    public boolean isOnline() { return online; }
+
+    public String getSyncError() { return syncError; }
+
+    /** ERROR, ONLINE или OFFLINE — как в бейдже статуса. */
+    public String getStatus() {
+        if (syncError != null) return "ERROR";
+        return online ? "ONLINE" : "OFFLINE";
+    }
+
+    public LocalDateTime getLastSyncAt() { return lastSyncAt; }
+
+    public List<String> getGroupNames() { return groupNames; }
+    public void setGroupNames(List<String> groupNames) { this.groupNames = groupNames; }
+
+    public int getUnacknowledgedChanges() { return unacknowledgedChanges; }
+
+    public LocalDateTime getLastChangeAt() { return lastChangeAt; }
+
+    public int getSoftwareCount() { return softwareCount; }
+
+    public Long getLastSyncDurationMs() { return lastSyncDurationMs; }
+
+    /** Есть изменения за последние 24 часа. */
+    public boolean isChangedRecently() {
+        return lastChangeAt != null && lastChangeAt.isAfter(LocalDateTime.now().minusHours(24));
+    }
+
+    public boolean isHasUnacknowledged() { return unacknowledgedChanges > 0; }
+}
@@ -0,0 +1,52 @@
+package com.aspia.inventory.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Установка программы на конкретном хосте (для страницы программы) — без загрузки сущности Host.
+ */
+public class HostSoftwareEntry {
+
+    private final Long hostId;
+    private final String computerName;
+    private final String alias;
+    private final String osName;
+    private final boolean online;
+    private final String syncError;
+    private final String version;
+    private List<String> groupNames = new ArrayList<>();
+
+    public HostSoftwareEntry(Long hostId, String computerName, String alias, String osName,
+                             Boolean online, String syncError, String version) {
+        this.hostId = hostId;
+        this.computerName = computerName;
+        this.alias = alias;
+        this.osName = osName;
+        this.online = online != null && online;
+        this.syncError = syncError;
+        this.version = version;
+    }
+
+    public Long getHostId() { return hostId; }
+
+    public String getComputerName() { return computerName; }
+
+    public String getAlias() { return alias; }
+
+    /** Совпадает с Host.getDisplayName(). */
+    public String getDisplayName() {
+        return alias != null && !alias.trim().isEmpty() ? alias : computerName;
+    }
+
+    public String getOsName() { return osName; }
+
+    public boolean isOnline() { return online; }
+
+    public String getSyncError() { return syncError; }
+
+    public String getVersion() { return version; }
+
+    public List<String> getGroupNames() { return groupNames; }
+    public void setGroupNames(List<String> groupNames) { this.groupNames = groupNames; }
+}
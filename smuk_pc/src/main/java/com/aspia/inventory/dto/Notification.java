@@ -0,0 +1,83 @@
+package com.aspia.inventory.dto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Уведомление в виде, не зависящем от канала: каждый канал сам решает, как его показать
+ * (MarkdownV2 для Telegram, текст письма, JSON для webhook).
+ */
+public class Notification {
+
+    public enum Kind { CHANGES_DETECTED, CHANGES_ACKNOWLEDGED }
+
+    private final Kind kind;
+    /** Кто подтвердил изменения; null для обнаруженных. */
+    private final String actor;
+    private final List<String> hosts;
+    private final List<Item> items;
+    /** Изменений, не вошедших в items из-за ограничения размера сводки. */
+    private final long omittedItems;
+    private final LocalDateTime createdAt;
+
+    public Notification(Kind kind, String actor, List<String> hosts, List<Item> items, long omittedItems,
+                        LocalDateTime createdAt) {
+        this.kind = kind;
+        this.actor = actor;
+        this.hosts = hosts;
+        this.items = items;
+        this.omittedItems = omittedItems;
+        this.createdAt = createdAt;
+    }
+
+    public Kind getKind() { return kind; }
+
+    public String getActor() { return actor; }
+
+    public List<String> getHosts() { return hosts; }
+
+    public List<Item> getItems() { return items; }
+
+    public long getOmittedItems() { return omittedItems; }
+
+    public LocalDateTime getCreatedAt() { return createdAt; }
+
+    public long getTotalCount() {
+        return items.stream().mapToLong(Item::getCount).sum() + omittedItems;
+    }
+
+    /**
+     * Одинаковое изменение на нескольких хостах; count — число изменений (для подтверждений
+     * может превышать число хостов).
+     */
+    public static class Item {
+        private final String componentType;
+        private final String changeType;
+        private final String oldValue;
+        private final String newValue;
+        private final List<String> hosts;
+        private final long count;
+
+        public Item(String componentType, String changeType, String oldValue, String newValue,
+                    List<String> hosts, long count) {
+            this.componentType = componentType;
+            this.changeType = changeType;
+            this.oldValue = oldValue;
+            this.newValue = newValue;
+            this.hosts = hosts;
+            this.count = count;
+        }
+
+        public String getComponentType() { return componentType; }
+
+        public String getChangeType() { return changeType; }
+
+        public String getOldValue() { return oldValue; }
+
+        public String getNewValue() { return newValue; }
+
+        public List<String> getHosts() { return hosts; }
+
+        public long getCount() { return count; }
+    }
+}
@@ -0,0 +1,32 @@
+package com.aspia.inventory.dto;
+
+/**
+ * Строка вкладки ПО в /inventory.
+ */
+public class SoftwareSummaryRow {
+
+    private final String name;
+    private final String publisher;
+    private final int hostCount;
+    private final int versionCount;
+    private boolean tracked = true;
+
+    public SoftwareSummaryRow(String name, String publisher, int hostCount, int versionCount) {
+        this.name = name;
+        this.publisher = publisher;
+        this.hostCount = hostCount;
+        this.versionCount = versionCount;
+    }
+
+    public String getName() { return name; }
+
+    public String getPublisher() { return publisher; }
+
+    public int getHostCount() { return hostCount; }
+
+    public int getVersionCount() { return versionCount; }
+
+    /** false — ПО исключено из отслеживания глобально. */
+    public boolean isTracked() { return tracked; }
+    public void setTracked(boolean tracked) { this.tracked = tracked; }
+}
@@ -0,0 +1,33 @@
+package com.aspia.inventory.dto;
+
+import java.util.List;
+
+/**
+ * Страница таблицы для клиентской подгрузки: строки текущей страницы и общее число строк по фильтру.
+ */
+public class TablePage<T> {
+
+    private final List<T> items;
+    private final long total;
+    private final int page;
+    private final int size;
+
+    public TablePage(List<T> items, long total, int page, int size) {
+        this.items = items;
+        this.total = total;
+        this.page = page;
+        this.size = size;
+    }
+
+    public List<T> getItems() { return items; }
+
+    public long getTotal() { return total; }
+
+    public int getPage() { return page; }
+
+    public int getSize() { return size; }
+
+    public int getTotalPages() {
+        return size > 0 ? (int) ((total + size - 1) / size) : 0;
+    }
+}
@@ -0,0 +1,31 @@
+package com.aspia.inventory.model;
+
+/**
+ * Тип изменения в журнале. Порядок констант менять нельзя — коды хранятся в БД
+ * (component_changes.change_type_code).
+ */
+public enum ChangeType {
+    ADDED,
+    REMOVED,
+    MODIFIED,
+    UPDATED;
+
+    private static final ChangeType[] VALUES = values();
+
+    public short code() {
+        return (short) ordinal();
+    }
+
+    public static ChangeType fromCode(short code) {
+        return code >= 0 && code < VALUES.length ? VALUES[code] : null;
+    }
+
+    public static ChangeType fromName(String name) {
+        if (name == null) return null;
+        try {
+            return valueOf(name.trim());
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.aspia.inventory.model;
+
+import javax.persistence.AttributeConverter;
+import javax.persistence.Converter;
+
+/**
+ * Имя типа изменения ↔ SMALLINT-код (см. {@link ComponentTypeCodeConverter}).
+ */
+@Converter
+public class ChangeTypeCodeConverter implements AttributeConverter<String, Short> {
+
+    @Override
+    public Short convertToDatabaseColumn(String name) {
+        ChangeType type = ChangeType.fromName(name);
+        return type != null ? type.code() : null;
+    }
+
+    @Override
+    public String convertToEntityAttribute(Short code) {
+        ChangeType type = code != null ? ChangeType.fromCode(code) : null;
+        return type != null ? type.name() : null;
+    }
+}
@@ -1,8 +1,15 @@
 package com.aspia.inventory.model;
 
+import org.hibernate.annotations.ColumnTransformer;
+
 import javax.persistence.*;
 import java.time.LocalDateTime;
 
+/**
+ * Запись журнала изменений. Типы хранятся SMALLINT-кодами, значения — ссылками на словарь
+ * change_value (V9__compact_change_values.sql); API сущности оперирует строками.
+ * Записи неизменяемы, кроме полей подтверждения.
+ */
 @Entity
 @Table(name = "component_changes")
 public class ComponentChange {
@@ -15,16 +22,26 @@ public class ComponentChange {
     @JoinColumn(name = "host_id", nullable = false)
     private Host host;
 
-    @Column(name = "component_type", nullable = false)
+    @Convert(converter = ComponentTypeCodeConverter.class)
+    @Column(name = "component_type_code", nullable = false, updatable = false)
     private String componentType;
 
-    @Column(name = "change_type", nullable = false)
+    @Convert(converter = ChangeTypeCodeConverter.class)
+    @Column(name = "change_type_code", nullable = false, updatable = false)
     private String changeType;
 
-    @Column(name = "old_value", columnDefinition = "TEXT")
+    // Строка читается из словаря подзапросом и записывается через intern_change_value().
+    // columnDefinition = "int8" — для проверки схемы: колонка BIGINT при строковом поле.
+    @ColumnTransformer(
+            read = "(SELECT v.value FROM change_value v WHERE v.id = old_value_id)",
+            write = "intern_change_value(?)")
+    @Column(name = "old_value_id", columnDefinition = "int8", updatable = false)
     private String oldValue;
 
-    @Column(name = "new_value", columnDefinition = "TEXT")
+    @ColumnTransformer(
+            read = "(SELECT v.value FROM change_value v WHERE v.id = new_value_id)",
+            write = "intern_change_value(?)")
+    @Column(name = "new_value_id", columnDefinition = "int8", updatable = false)
     private String newValue;
 
     @Column(name = "detected_at", nullable = false)
@@ -0,0 +1,81 @@
+package com.aspia.inventory.model;
+
+import java.util.*;
+
+/**
+ * Отслеживаемые типы компонентов. Каждому типу соответствует бит в маске
+ * политики отслеживания (см. {@link Host#getTrackedComponentsMask()}) и код в журнале изменений.
+ * Порядок констант менять нельзя — маски и коды хранятся в БД.
+ */
+public enum ComponentType {
+    PROCESSOR,
+    MEMORY,
+    DISK,
+    VIDEO_ADAPTER,
+    SOFTWARE;
+
+    private static final ComponentType[] VALUES = values();
+
+    public static final int ALL_MASK = (1 << VALUES.length) - 1;
+
+    public int bit() {
+        return 1 << ordinal();
+    }
+
+    /** Код в component_changes.component_type_code. */
+    public short code() {
+        return (short) ordinal();
+    }
+
+    public static ComponentType fromCode(short code) {
+        return code >= 0 && code < VALUES.length ? VALUES[code] : null;
+    }
+
+    public boolean isIn(int mask) {
+        return (mask & bit()) != 0;
+    }
+
+    public static ComponentType fromName(String name) {
+        if (name == null) return null;
+        try {
+            return valueOf(name.trim());
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Разбор CSV-строки вида "PROCESSOR,DISK" в маску. Неизвестные имена игнорируются.
+     */
+    public static int parseMask(String csv) {
+        int mask = 0;
+        if (csv == null || csv.trim().isEmpty()) return mask;
+        for (String s : csv.split(",")) {
+            ComponentType type = fromName(s);
+            if (type != null) mask |= type.bit();
+        }
+        return mask;
+    }
+
+    public static int maskOf(Collection<String> names) {
+        int mask = 0;
+        if (names == null) return mask;
+        for (String name : names) {
+            ComponentType type = fromName(name);
+            if (type != null) mask |= type.bit();
+        }
+        return mask;
+    }
+
+    public static Set<String> namesOf(int mask) {
+        Set<String> result = new LinkedHashSet<>();
+        for (ComponentType type : VALUES) {
+            if (type.isIn(mask)) result.add(type.name());
+        }
+        return result;
+    }
+
+    public static Set<String> allNames() {
+        return namesOf(ALL_MASK);
+    }
+}
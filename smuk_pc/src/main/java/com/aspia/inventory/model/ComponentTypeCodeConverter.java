@@ -0,0 +1,24 @@
+package com.aspia.inventory.model;
+
+import javax.persistence.AttributeConverter;
+import javax.persistence.Converter;
+
+/**
+ * Имя типа компонента ↔ SMALLINT-код. Неизвестное имя даёт null: в фильтре оно ничего не найдёт,
+ * а при вставке нарушит NOT NULL.
+ */
+@Converter
+public class ComponentTypeCodeConverter implements AttributeConverter<String, Short> {
+
+    @Override
+    public Short convertToDatabaseColumn(String name) {
+        ComponentType type = ComponentType.fromName(name);
+        return type != null ? type.code() : null;
+    }
+
+    @Override
+    public String convertToEntityAttribute(Short code) {
+        ComponentType type = code != null ? ComponentType.fromCode(code) : null;
+        return type != null ? type.name() : null;
+    }
+}
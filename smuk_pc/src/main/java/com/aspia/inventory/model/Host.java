@@ -56,6 +56,10 @@ public class Host {
     @Column(name = "aspia_host_password")
     private String aspiaHostPasswordEncrypted;
 
+    /** Текущий набор ПО хоста (см. SoftwareSet); null — список ПО ещё не получен или пуст. */
+    @Column(name = "software_set_id")
+    private Long softwareSetId;
+
     @Column(name = "config_json", columnDefinition = "TEXT")
     private String configJson;
 
@@ -80,7 +84,32 @@ public class Host {
     @Column(name = "tracked_components_override")
     private String trackedComponentsOverride;
 
-    @ManyToMany(fetch = FetchType.EAGER)
+    /**
+     * Скомпилированная политика отслеживания (битовая маска {@link ComponentType}).
+     * null — политика устарела и будет пересчитана при следующем обращении/сохранении.
+     */
+    @Column(name = "tracked_components_mask")
+    private Integer trackedComponentsMask;
+
+    /**
+     * Счётчики изменений меняются только атомарными UPDATE (HostRepository.addUnacknowledgedChanges,
+     * подтверждение изменений), поэтому сохранение сущности их не перезаписывает.
+     */
+    @Column(name = "unacknowledged_changes", insertable = false, updatable = false)
+    private int unacknowledgedChanges;
+
+    @Column(name = "last_change_at", insertable = false, updatable = false)
+    private LocalDateTime lastChangeAt;
+
+    /** Число программ в текущем наборе ПО; обновляется при смене набора. */
+    @Column(name = "software_count", nullable = false)
+    private int softwareCount;
+
+    @Column(name = "last_sync_duration_ms")
+    private Long lastSyncDurationMs;
+
+    /** Загружается лениво; страницам, которым нужны группы, — HostRepository.findWithGroupsById или DTO. */
+    @ManyToMany(fetch = FetchType.LAZY)
     @JoinTable(name = "hosts_groups",
             joinColumns = @JoinColumn(name = "host_id"),
             inverseJoinColumns = @JoinColumn(name = "group_id"))
@@ -90,11 +119,13 @@ public class Host {
     protected void onCreate() {
         createdAt = LocalDateTime.now();
         updatedAt = LocalDateTime.now();
+        getTrackedComponentsMask();
     }
 
     @PreUpdate
     protected void onUpdate() {
         updatedAt = LocalDateTime.now();
+        getTrackedComponentsMask();
     }
 
     public Host() {}
@@ -150,6 +181,19 @@ public class Host {
     public LocalDateTime getLastSyncAt() { return lastSyncAt; }
     public void setLastSyncAt(LocalDateTime lastSyncAt) { this.lastSyncAt = lastSyncAt; }
 
+    public Long getSoftwareSetId() { return softwareSetId; }
+    public void setSoftwareSetId(Long softwareSetId) { this.softwareSetId = softwareSetId; }
+
+    public int getUnacknowledgedChanges() { return unacknowledgedChanges; }
+
+    public LocalDateTime getLastChangeAt() { return lastChangeAt; }
+
+    public int getSoftwareCount() { return softwareCount; }
+    public void setSoftwareCount(int softwareCount) { this.softwareCount = softwareCount; }
+
+    public Long getLastSyncDurationMs() { return lastSyncDurationMs; }
+    public void setLastSyncDurationMs(Long lastSyncDurationMs) { this.lastSyncDurationMs = lastSyncDurationMs; }
+
     public String getConfigJson() { return configJson; }
     public void setConfigJson(String configJson) { this.configJson = configJson; }
 
@@ -170,7 +214,10 @@ public class Host {
     public void setAspiaHostPasswordEncrypted(String aspiaHostPasswordEncrypted) { this.aspiaHostPasswordEncrypted = aspiaHostPasswordEncrypted; }
 
     public Set<HostGroup> getGroups() { return groups; }
-    public void setGroups(Set<HostGroup> groups) { this.groups = groups; }
+    public void setGroups(Set<HostGroup> groups) {
+        this.groups = groups;
+        invalidateTrackingPolicy();
+    }
 
     public String getGroupNamesString() {
         if (groups == null || groups.isEmpty()) return "";
@@ -193,57 +240,73 @@ public class Host {
     }
 
     public String getFormattedRam() {
-        if (totalRamBytes == null) return "—";
-        double gb = totalRamBytes / (1024.0 * 1024.0 * 1024.0);
-        return String.format("%.1f GB", gb);
+        return formatGb(totalRamBytes);
     }
 
     public String getFormattedDisk() {
-        if (totalDiskBytes == null) return "—";
-        double gb = totalDiskBytes / (1024.0 * 1024.0 * 1024.0);
+        return formatGb(totalDiskBytes);
+    }
+
+    public static String formatGb(Long bytes) {
+        if (bytes == null) return "—";
+        double gb = bytes / (1024.0 * 1024.0 * 1024.0);
         return String.format("%.1f GB", gb);
     }
 
     public String getTrackedComponentsOverride() { return trackedComponentsOverride; }
-    public void setTrackedComponentsOverride(String trackedComponentsOverride) { this.trackedComponentsOverride = trackedComponentsOverride; }
+    public void setTrackedComponentsOverride(String trackedComponentsOverride) {
+        this.trackedComponentsOverride = trackedComponentsOverride;
+        invalidateTrackingPolicy();
+    }
 
-    private static final Set<String> ALL_COMPONENTS = new LinkedHashSet<>(
-            Arrays.asList("PROCESSOR", "MEMORY", "DISK", "VIDEO_ADAPTER", "SOFTWARE"));
+    public static Set<String> getAllComponentTypes() { return ComponentType.allNames(); }
 
-    public static Set<String> getAllComponentTypes() { return ALL_COMPONENTS; }
+    /**
+     * Маска отслеживаемых компонентов: переопределение хоста, иначе объединение масок групп,
+     * иначе все компоненты. Вычисляется один раз и хранится в колонке tracked_components_mask.
+     */
+    public int getTrackedComponentsMask() {
+        if (trackedComponentsMask == null) {
+            trackedComponentsMask = compileTrackingPolicy();
+        }
+        return trackedComponentsMask;
+    }
 
-    public Set<String> getEffectiveTrackedComponents() {
+    /**
+     * Сбрасывает скомпилированную политику. Вызывать при изменении состава групп хоста
+     * или настроек отслеживания его групп.
+     */
+    public void invalidateTrackingPolicy() {
+        trackedComponentsMask = null;
+    }
+
+    private int compileTrackingPolicy() {
         if (trackedComponentsOverride != null) {
-            return parseCsv(trackedComponentsOverride);
+            return ComponentType.parseMask(trackedComponentsOverride);
         }
-        if (groups != null && !groups.isEmpty()) {
-            Set<String> union = new HashSet<>();
+        int union = 0;
+        if (groups != null) {
             for (HostGroup g : groups) {
-                Set<String> gs = g.getTrackedComponentsSet();
-                if (!gs.isEmpty()) {
-                    union.addAll(gs);
-                }
+                union |= g.getTrackedComponentsMask();
             }
-            if (!union.isEmpty()) return union;
         }
-        return ALL_COMPONENTS;
+        return union != 0 ? union : ComponentType.ALL_MASK;
+    }
+
+    public Set<String> getEffectiveTrackedComponents() {
+        return ComponentType.namesOf(getTrackedComponentsMask());
+    }
+
+    public boolean isComponentTracked(ComponentType componentType) {
+        return componentType.isIn(getTrackedComponentsMask());
     }
 
     public boolean isComponentTracked(String componentType) {
-        return getEffectiveTrackedComponents().contains(componentType);
+        ComponentType type = ComponentType.fromName(componentType);
+        return type != null && isComponentTracked(type);
     }
 
     public boolean hasTrackingOverride() {
         return trackedComponentsOverride != null;
     }
-
-    private static Set<String> parseCsv(String csv) {
-        Set<String> result = new HashSet<>();
-        if (csv == null || csv.trim().isEmpty()) return result;
-        for (String s : csv.split(",")) {
-            String trimmed = s.trim();
-            if (!trimmed.isEmpty()) result.add(trimmed);
-        }
-        return result;
-    }
 }
@@ -1,11 +1,16 @@
 package com.aspia.inventory.model;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
 import javax.persistence.*;
 import java.time.LocalDateTime;
 import java.util.*;
 
 @Entity
 @Table(name = "host_group")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "hostGroup")
 public class HostGroup {
 
     @Id
@@ -23,6 +28,9 @@ public class HostGroup {
     @Column(name = "created_at")
     private LocalDateTime createdAt;
 
+    @Transient
+    private Integer trackedComponentsMask;
+
     @PrePersist
     protected void onCreate() {
         createdAt = LocalDateTime.now();
@@ -42,18 +50,23 @@ public class HostGroup {
     public LocalDateTime getCreatedAt() { return createdAt; }
 
     public String getTrackedComponents() { return trackedComponents; }
-    public void setTrackedComponents(String trackedComponents) { this.trackedComponents = trackedComponents; }
+    public void setTrackedComponents(String trackedComponents) {
+        this.trackedComponents = trackedComponents;
+        this.trackedComponentsMask = null;
+    }
 
-    public Set<String> getTrackedComponentsSet() {
-        if (trackedComponents == null || trackedComponents.trim().isEmpty()) {
-            return Collections.emptySet();
+    /**
+     * Маска отслеживаемых компонентов группы; 0 — группа не ограничивает отслеживание.
+     */
+    public int getTrackedComponentsMask() {
+        if (trackedComponentsMask == null) {
+            trackedComponentsMask = ComponentType.parseMask(trackedComponents);
         }
-        Set<String> result = new HashSet<>();
-        for (String s : trackedComponents.split(",")) {
-            String trimmed = s.trim();
-            if (!trimmed.isEmpty()) result.add(trimmed);
-        }
-        return result;
+        return trackedComponentsMask;
+    }
+
+    public Set<String> getTrackedComponentsSet() {
+        return ComponentType.namesOf(getTrackedComponentsMask());
     }
 
     @Override
@@ -0,0 +1,84 @@
+package com.aspia.inventory.model;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Исходящее уведомление одного канала (см. V11__notification_outbox.sql, V12__notification_channels.sql,
+ * V13__notification_outbox_send_alone.sql).
+ */
+@Entity
+@Table(name = "notification_outbox")
+public class OutboxMessage {
+
+    public static final String KIND_CHANGES = "CHANGES";
+    public static final String KIND_ACKNOWLEDGED = "ACK";
+
+    public static final String STATUS_PENDING = "PENDING";
+    public static final String STATUS_FAILED = "FAILED";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, length = 32)
+    private String channel;
+
+    @Column(nullable = false, length = 16)
+    private String kind;
+
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String payload;
+
+    @Column(nullable = false, length = 16)
+    private String status = STATUS_PENDING;
+
+    @Column(nullable = false)
+    private int attempts;
+
+    @Column(name = "send_alone", nullable = false)
+    private boolean sendAlone;
+
+    @Column(name = "next_attempt_at", nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    @Column(name = "last_error", length = 500)
+    private String lastError;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+        if (nextAttemptAt == null) nextAttemptAt = createdAt;
+    }
+
+    public OutboxMessage() {}
+
+    public OutboxMessage(String channel, String kind, String payload) {
+        this.channel = channel;
+        this.kind = kind;
+        this.payload = payload;
+    }
+
+    public Long getId() { return id; }
+
+    public String getChannel() { return channel; }
+
+    public String getKind() { return kind; }
+
+    public String getPayload() { return payload; }
+
+    public String getStatus() { return status; }
+
+    public int getAttempts() { return attempts; }
+
+    public boolean isSendAlone() { return sendAlone; }
+
+    public LocalDateTime getNextAttemptAt() { return nextAttemptAt; }
+
+    public String getLastError() { return lastError; }
+
+    public LocalDateTime getCreatedAt() { return createdAt; }
+}
@@ -0,0 +1,81 @@
+package com.aspia.inventory.model;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Определение планового отчёта. reportType — имя ReportJobService.ReportType.
+ */
+@Entity
+@Table(name = "scheduled_report")
+public class ScheduledReport {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private String name;
+
+    @Column(name = "report_type", nullable = false)
+    private String reportType;
+
+    /** Только для отчётов по оборудованию; null — весь парк. */
+    @Column(name = "group_id")
+    private Long groupId;
+
+    /** Выражение Spring cron из шести полей (секунды первыми). */
+    @Column(nullable = false)
+    private String cron;
+
+    @Column(name = "keep_count", nullable = false)
+    private int keepCount = 4;
+
+    @Column(nullable = false)
+    private boolean enabled = true;
+
+    @Column(name = "last_run_at")
+    private LocalDateTime lastRunAt;
+
+    @Column(name = "last_status", length = 500)
+    private String lastStatus;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+
+    public ScheduledReport() {}
+
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public String getName() { return name; }
+    public void setName(String name) { this.name = name; }
+
+    public String getReportType() { return reportType; }
+    public void setReportType(String reportType) { this.reportType = reportType; }
+
+    public Long getGroupId() { return groupId; }
+    public void setGroupId(Long groupId) { this.groupId = groupId; }
+
+    public String getCron() { return cron; }
+    public void setCron(String cron) { this.cron = cron; }
+
+    public int getKeepCount() { return keepCount; }
+    public void setKeepCount(int keepCount) { this.keepCount = keepCount; }
+
+    public boolean isEnabled() { return enabled; }
+    public void setEnabled(boolean enabled) { this.enabled = enabled; }
+
+    public LocalDateTime getLastRunAt() { return lastRunAt; }
+    public void setLastRunAt(LocalDateTime lastRunAt) { this.lastRunAt = lastRunAt; }
+
+    public String getLastStatus() { return lastStatus; }
+    public void setLastStatus(String lastStatus) { this.lastStatus = lastStatus; }
+
+    public LocalDateTime getCreatedAt() { return createdAt; }
+}
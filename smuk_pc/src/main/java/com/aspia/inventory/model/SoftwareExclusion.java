@@ -1,11 +1,16 @@
 package com.aspia.inventory.model;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
 import javax.persistence.*;
 import java.time.LocalDateTime;
 
 @Entity
 @Table(name = "software_exclusions",
        uniqueConstraints = @UniqueConstraint(columnNames = {"software_name", "host_id"}))
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "softwareExclusion")
 public class SoftwareExclusion {
 
     @Id
@@ -0,0 +1,36 @@
+package com.aspia.inventory.model;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Неизменяемый набор ПО, адресуемый по SHA-256 от отсортированного содержимого.
+ * Хосты с одинаковым списком ПО (один эталонный образ) ссылаются на один набор.
+ */
+@Entity
+@Table(name = "software_set")
+public class SoftwareSet {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "content_hash", nullable = false, unique = true, length = 64)
+    private String contentHash;
+
+    @Column(name = "item_count", nullable = false)
+    private int itemCount;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+
+    public SoftwareSet() {}
+
+    public Long getId() { return id; }
+
+    public String getContentHash() { return contentHash; }
+
+    public int getItemCount() { return itemCount; }
+
+    public LocalDateTime getCreatedAt() { return createdAt; }
+}
@@ -0,0 +1,57 @@
+package com.aspia.inventory.model;
+
+import javax.persistence.*;
+
+@Entity
+@Table(name = "software_set_item")
+public class SoftwareSetItem {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "set_id", nullable = false)
+    private Long setId;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "title_id", nullable = false)
+    private SoftwareTitle title;
+
+    @Column(name = "title_id", insertable = false, updatable = false)
+    private Integer titleId;
+
+    private String version;
+
+    @Column(name = "install_date")
+    private String installDate;
+
+    public SoftwareSetItem() {}
+
+    public SoftwareSetItem(Long setId, SoftwareTitle title, String version, String installDate) {
+        this.setId = setId;
+        this.title = title;
+        this.titleId = title.getId();
+        this.version = version;
+        this.installDate = installDate;
+    }
+
+    public Long getId() { return id; }
+
+    public Long getSetId() { return setId; }
+
+    public SoftwareTitle getTitle() { return title; }
+
+    public Integer getTitleId() { return titleId; }
+
+    public String getName() { return title.getName(); }
+
+    public String getPublisher() { return title.getPublisher(); }
+
+    public String getVersion() { return version; }
+
+    public String getInstallDate() { return installDate; }
+
+    public String getSoftwareKey() {
+        return titleId + "|" + (version != null ? version : "");
+    }
+}
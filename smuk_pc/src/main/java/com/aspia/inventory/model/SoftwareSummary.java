@@ -0,0 +1,35 @@
+package com.aspia.inventory.model;
+
+import javax.persistence.*;
+
+@Entity
+@Table(name = "software_summary")
+public class SoftwareSummary {
+
+    @Id
+    @Column(name = "title_id")
+    private Integer titleId;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "title_id", insertable = false, updatable = false)
+    private SoftwareTitle title;
+
+    @Column(name = "host_count", nullable = false)
+    private int hostCount;
+
+    @Column(name = "version_count", nullable = false)
+    private int versionCount;
+
+    public SoftwareSummary() {}
+
+    public Integer getTitleId() { return titleId; }
+    public void setTitleId(Integer titleId) { this.titleId = titleId; }
+
+    public SoftwareTitle getTitle() { return title; }
+
+    public int getHostCount() { return hostCount; }
+    public void setHostCount(int hostCount) { this.hostCount = hostCount; }
+
+    public int getVersionCount() { return versionCount; }
+    public void setVersionCount(int versionCount) { this.versionCount = versionCount; }
+}
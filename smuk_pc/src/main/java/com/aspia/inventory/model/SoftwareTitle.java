@@ -0,0 +1,45 @@
+package com.aspia.inventory.model;
+
+import javax.persistence.*;
+import java.util.Objects;
+
+/**
+ * Справочник названий ПО. software_set_item и software_summary ссылаются на него по целочисленному id.
+ */
+@Entity
+@Table(name = "software_title")
+public class SoftwareTitle {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Integer id;
+
+    @Column(nullable = false, unique = true)
+    private String name;
+
+    private String publisher;
+
+    public SoftwareTitle() {}
+
+    public Integer getId() { return id; }
+    public void setId(Integer id) { this.id = id; }
+
+    public String getName() { return name; }
+    public void setName(String name) { this.name = name; }
+
+    public String getPublisher() { return publisher; }
+    public void setPublisher(String publisher) { this.publisher = publisher; }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof SoftwareTitle)) return false;
+        SoftwareTitle that = (SoftwareTitle) o;
+        return id != null && id.equals(that.getId());
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id);
+    }
+}
@@ -2,9 +2,15 @@ package com.aspia.inventory.repository;
 
 import com.aspia.inventory.model.AppUser;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 
+import javax.persistence.QueryHint;
 import java.util.Optional;
 
+import static org.hibernate.annotations.QueryHints.CACHEABLE;
+
 public interface AppUserRepository extends JpaRepository<AppUser, Long> {
+
+    @QueryHints(@QueryHint(name = CACHEABLE, value = "true"))
     Optional<AppUser> findByUsername(String username);
 }
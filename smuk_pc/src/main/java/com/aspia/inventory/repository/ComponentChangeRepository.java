@@ -2,20 +2,23 @@ package com.aspia.inventory.repository;
 
 import com.aspia.inventory.model.ComponentChange;
 import com.aspia.inventory.model.Host;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
+import javax.persistence.QueryHint;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
-public interface ComponentChangeRepository extends JpaRepository<ComponentChange, Long> {
+import static org.hibernate.annotations.QueryHints.NATIVE_SPACES;
 
-    List<ComponentChange> findTop20ByOrderByDetectedAtDesc();
-
-    List<ComponentChange> findTop20ByAcknowledgedFalseOrderByDetectedAtDesc();
+public interface ComponentChangeRepository extends JpaRepository<ComponentChange, Long>, ComponentChangeRepositoryCustom {
 
-    List<ComponentChange> findTop50ByOrderByDetectedAtDesc();
+    List<ComponentChange> findTop20ByOrderByDetectedAtDesc();
 
     long countByDetectedAtAfter(LocalDateTime since);
 
@@ -23,19 +26,38 @@ public interface ComponentChangeRepository extends JpaRepository<ComponentChange
 
     long countByAcknowledgedFalseAndDetectedAtAfter(LocalDateTime since);
 
-    @Query("SELECT DISTINCT c.host.id FROM ComponentChange c WHERE c.detectedAt > :since")
-    List<Long> findDistinctHostIdsWithChangesAfter(@Param("since") LocalDateTime since);
-
-    @Query("SELECT DISTINCT c.host.id FROM ComponentChange c WHERE c.acknowledged = false")
-    List<Long> findDistinctHostIdsWithUnacknowledgedChanges();
-
-    List<ComponentChange> findByHostOrderByDetectedAtDesc(Host host);
+    /** Последние изменения хоста; вся история хоста — только потоковой выгрузкой журнала. */
+    List<ComponentChange> findByHostOrderByDetectedAtDescIdDesc(Host host, Pageable pageable);
 
     List<ComponentChange> findByHostAndAcknowledgedFalseOrderByDetectedAtDesc(Host host);
 
-    List<ComponentChange> findByHostAndAcknowledgedFalse(Host host);
-
-    List<ComponentChange> findByDetectedAtBetweenOrderByDetectedAtDesc(LocalDateTime from, LocalDateTime to);
-
-    void deleteByHost(Host host);
+    /**
+     * Подтверждение одного изменения. 0 — изменение уже подтверждено (повторное нажатие,
+     * устаревшая страница): время и автор подтверждения не перезаписываются.
+     */
+    @Modifying
+    @QueryHints(@QueryHint(name = NATIVE_SPACES, value = "component_changes"))
+    @Query(value = "UPDATE component_changes SET acknowledged = TRUE, acknowledged_at = :at, acknowledged_by = :by " +
+                   "WHERE id = :id AND acknowledged = FALSE",
+           nativeQuery = true)
+    int acknowledgeIfUnacknowledged(@Param("id") Long id, @Param("by") String acknowledgedBy,
+                                    @Param("at") LocalDateTime acknowledgedAt);
+
+    @Query(value = "SELECT COUNT(*) FROM component_changes WHERE host_id IN (:hostIds)", nativeQuery = true)
+    long countByHostIds(@Param("hostIds") Collection<Long> hostIds);
+
+    @Modifying
+    @QueryHints(@QueryHint(name = NATIVE_SPACES, value = "component_changes"))
+    @Query(value = "DELETE FROM component_changes WHERE host_id IN (:hostIds)", nativeQuery = true)
+    int deleteByHostIds(@Param("hostIds") Collection<Long> hostIds);
+
+    /**
+     * Порция истории удаляемых хостов — для фоновой очистки короткими транзакциями.
+     */
+    @Modifying
+    @QueryHints(@QueryHint(name = NATIVE_SPACES, value = "component_changes"))
+    @Query(value = "DELETE FROM component_changes WHERE (id, detected_at) IN " +
+                   "(SELECT id, detected_at FROM component_changes WHERE host_id IN (:hostIds) LIMIT :limit)",
+           nativeQuery = true)
+    int deleteBatchByHostIds(@Param("hostIds") Collection<Long> hostIds, @Param("limit") int limit);
 }
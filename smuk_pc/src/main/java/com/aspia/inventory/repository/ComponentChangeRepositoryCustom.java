@@ -0,0 +1,64 @@
+package com.aspia.inventory.repository;
+
+import com.aspia.inventory.dto.AcknowledgementSummary;
+import com.aspia.inventory.dto.ChangeExportRow;
+import com.aspia.inventory.dto.ChangeRollupRow;
+import com.aspia.inventory.dto.EventFilter;
+import com.aspia.inventory.dto.EventPage;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+
+public interface ComponentChangeRepositoryCustom {
+
+    /**
+     * Страница журнала изменений по убыванию (detected_at, id), начиная после курсора.
+     * Условия добавляются в запрос только для заданных полей фильтра.
+     */
+    EventPage findEventPage(EventFilter filter, EventPage.Cursor after, int limit);
+
+    /**
+     * Подтверждение всех непросмотренных изменений, подходящих под фильтр, одним UPDATE.
+     * Возвращает количество подтверждённых изменений по хосту, компоненту и типу изменения.
+     * Фильтр acknowledged не учитывается.
+     */
+    List<AcknowledgementSummary> acknowledge(EventFilter filter, String acknowledgedBy, LocalDateTime acknowledgedAt);
+
+    /**
+     * Все изменения по фильтру в порядке журнала — через курсор БД по одной строке, без сущностей.
+     * Свёрнутые (вышедшие за срок хранения) изменения не входят. Возвращает число строк.
+     */
+    long forEachEvent(EventFilter filter, ChangeExportRow.Handler handler) throws IOException;
+
+    List<ChangeRollupRow> findRollups(Long hostId);
+
+    // ===== Месячные секции component_changes_pYYYYMM =====
+
+    void createPartitionIfAbsent(YearMonth month);
+
+    /** Месяцы секций, присоединённых к component_changes. */
+    List<YearMonth> findAttachedPartitions();
+
+    /** Отсоединённые, но ещё не удалённые секции — архивация которых была прервана. */
+    List<YearMonth> findDetachedPartitions();
+
+    long countUnacknowledgedInPartition(YearMonth month);
+
+    /**
+     * Свёртка изменений секции в component_change_rollup и отсоединение секции — одной транзакцией.
+     * Возвращает число свёрнутых изменений.
+     */
+    long rollupAndDetachPartition(YearMonth month);
+
+    /** Выгрузка секции в CSV с заголовком. Возвращает число строк. */
+    long copyPartitionTo(YearMonth month, OutputStream out);
+
+    /**
+     * Удаление отсоединённой секции вместе со значениями словаря change_value, на которые больше
+     * ничто не ссылается. Возвращает число удалённых значений.
+     */
+    int dropPartition(YearMonth month);
+}
@@ -0,0 +1,455 @@
+package com.aspia.inventory.repository;
+
+import com.aspia.inventory.dto.AcknowledgementSummary;
+import com.aspia.inventory.dto.ChangeExportRow;
+import com.aspia.inventory.dto.ChangeRollupRow;
+import com.aspia.inventory.dto.ChangeEventView;
+import com.aspia.inventory.dto.EventFilter;
+import com.aspia.inventory.dto.EventPage;
+import com.aspia.inventory.model.ChangeType;
+import com.aspia.inventory.model.ComponentType;
+
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.Session;
+import org.hibernate.query.NativeQuery;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.Query;
+import javax.persistence.TypedQuery;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+
+class ComponentChangeRepositoryImpl implements ComponentChangeRepositoryCustom {
+
+    private static final String PARTITION_PREFIX = "component_changes_p";
+    private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.ofPattern("yyyyMM");
+    /** Строк, получаемых с сервера за одно обращение к курсору выгрузки. */
+    private static final int EXPORT_FETCH_SIZE = 2000;
+    /** Значений словаря, удаляемых одним запросом. */
+    private static final int VALUE_DELETE_BATCH = 10_000;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public EventPage findEventPage(EventFilter filter, EventPage.Cursor after, int limit) {
+        StringBuilder jpql = new StringBuilder(
+                "SELECT new com.aspia.inventory.dto.ChangeEventView(" +
+                "c.id, c.detectedAt, h.id, h.computerName, h.alias, c.componentType, c.changeType, " +
+                "c.oldValue, c.newValue, c.acknowledged, c.acknowledgedAt, c.acknowledgedBy) " +
+                "FROM ComponentChange c JOIN c.host h WHERE 1 = 1");
+        Map<String, Object> params = new HashMap<>();
+
+        if (filter.getFrom() != null) {
+            jpql.append(" AND c.detectedAt >= :from");
+            params.put("from", filter.getFrom());
+        }
+        if (filter.getTo() != null) {
+            jpql.append(" AND c.detectedAt <= :to");
+            params.put("to", filter.getTo());
+        }
+        if (filter.getComponentType() != null) {
+            jpql.append(" AND c.componentType = :componentType");
+            params.put("componentType", filter.getComponentType());
+        }
+        if (filter.getChangeType() != null) {
+            jpql.append(" AND c.changeType = :changeType");
+            params.put("changeType", filter.getChangeType());
+        }
+        if (filter.getAcknowledged() != null) {
+            jpql.append(" AND c.acknowledged = :acknowledged");
+            params.put("acknowledged", filter.getAcknowledged());
+        }
+        if (filter.getHostId() != null) {
+            jpql.append(" AND h.id = :hostId");
+            params.put("hostId", filter.getHostId());
+        }
+        if (filter.getHostQuery() != null) {
+            jpql.append(" AND (LOWER(h.computerName) LIKE :hostQuery OR LOWER(h.alias) LIKE :hostQuery)");
+            params.put("hostQuery", "%" + filter.getHostQuery().toLowerCase() + "%");
+        }
+        if (filter.getGroupId() != null) {
+            jpql.append(" AND h.id IN (SELECT gh.id FROM Host gh JOIN gh.groups g WHERE g.id = :groupId)");
+            params.put("groupId", filter.getGroupId());
+        }
+        if (after != null) {
+            // Первое условие даёт планировщику границу диапазона по индексу на detected_at
+            jpql.append(" AND c.detectedAt <= :afterAt AND (c.detectedAt < :afterAt OR c.id < :afterId)");
+            params.put("afterAt", after.detectedAt);
+            params.put("afterId", after.id);
+        }
+        jpql.append(" ORDER BY c.detectedAt DESC, c.id DESC");
+
+        TypedQuery<ChangeEventView> query = entityManager.createQuery(jpql.toString(), ChangeEventView.class);
+        params.forEach(query::setParameter);
+        // Лишняя строка показывает, есть ли следующая страница
+        query.setMaxResults(limit + 1);
+        List<ChangeEventView> rows = query.getResultList();
+
+        if (rows.size() <= limit) {
+            return new EventPage(rows, null);
+        }
+        List<ChangeEventView> items = new ArrayList<>(rows.subList(0, limit));
+        return new EventPage(items, EventPage.Cursor.after(items.get(limit - 1)).toString());
+    }
+
+    @Override
+    @Transactional
+    @SuppressWarnings("unchecked")
+    public List<AcknowledgementSummary> acknowledge(EventFilter filter, String acknowledgedBy, LocalDateTime acknowledgedAt) {
+        StringBuilder sql = new StringBuilder(
+                "WITH acked AS (" +
+                "UPDATE component_changes c SET acknowledged = true, acknowledged_at = :at, acknowledged_by = :by " +
+                "WHERE c.acknowledged = false");
+        Map<String, Object> params = new HashMap<>();
+        params.put("at", acknowledgedAt);
+        params.put("by", acknowledgedBy);
+
+        appendNativeFilter(sql, filter, params);
+        // Счётчики хостов уменьшаются тем же оператором
+        sql.append(" RETURNING c.host_id, c.component_type_code, c.change_type_code), " +
+                   "per_host AS (SELECT host_id, COUNT(*) AS cnt FROM acked GROUP BY host_id), " +
+                   "counters AS (UPDATE hosts ch SET unacknowledged_changes = GREATEST(ch.unacknowledged_changes - p.cnt, 0) " +
+                   "FROM per_host p WHERE ch.id = p.host_id) " +
+                   "SELECT a.host_id, COALESCE(NULLIF(h.alias, ''), h.computer_name), a.component_type_code, a.change_type_code, COUNT(*) " +
+                   "FROM acked a JOIN hosts h ON h.id = a.host_id " +
+                   "GROUP BY a.host_id, h.alias, h.computer_name, a.component_type_code, a.change_type_code " +
+                   "ORDER BY 2, a.component_type_code, a.change_type_code");
+
+        Query query = entityManager.createNativeQuery(sql.toString());
+        params.forEach(query::setParameter);
+        List<Object[]> rows = query.getResultList();
+
+        List<AcknowledgementSummary> result = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            result.add(new AcknowledgementSummary(((Number) row[0]).longValue(), (String) row[1],
+                    componentTypeName(row[2]), changeTypeName(row[3]), ((Number) row[4]).longValue()));
+        }
+        return result;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public long forEachEvent(EventFilter filter, ChangeExportRow.Handler handler) throws IOException {
+        // Группы собираются один раз на хост, а не подзапросом на каждую строку.
+        // Псевдонимы обязательны: Hibernate не принимает одинаковые имена колонок (ov.value, nv.value)
+        StringBuilder sql = new StringBuilder(
+                "SELECT c.id, c.detected_at, COALESCE(NULLIF(h.alias, ''), h.computer_name) AS host_name, " +
+                "h.computer_name, gn.names AS group_names, c.component_type_code, c.change_type_code, " +
+                "ov.value AS old_value, nv.value AS new_value, " +
+                "c.acknowledged, c.acknowledged_at, c.acknowledged_by " +
+                "FROM component_changes c " +
+                "JOIN hosts h ON h.id = c.host_id " +
+                "LEFT JOIN (SELECT hg.host_id, string_agg(g.name, ', ' ORDER BY g.name) AS names " +
+                "FROM hosts_groups hg JOIN host_group g ON g.id = hg.group_id GROUP BY hg.host_id) gn " +
+                "ON gn.host_id = c.host_id " +
+                "LEFT JOIN change_value ov ON ov.id = c.old_value_id " +
+                "LEFT JOIN change_value nv ON nv.id = c.new_value_id " +
+                "WHERE 1 = 1");
+        Map<String, Object> params = new HashMap<>();
+        appendNativeFilter(sql, filter, params);
+        if (filter.getAcknowledged() != null) {
+            sql.append(" AND c.acknowledged = :acknowledged");
+            params.put("acknowledged", filter.getAcknowledged());
+        }
+        sql.append(" ORDER BY c.detected_at DESC, c.id DESC");
+
+        NativeQuery<?> query = entityManager.createNativeQuery(sql.toString()).unwrap(NativeQuery.class);
+        params.forEach(query::setParameter);
+        query.setFetchSize(EXPORT_FETCH_SIZE);
+        query.setReadOnly(true);
+
+        long rows = 0;
+        try (ScrollableResults results = query.scroll(ScrollMode.FORWARD_ONLY)) {
+            while (results.next()) {
+                Object[] row = results.get();
+                handler.accept(new ChangeExportRow(((Number) row[0]).longValue(), toDateTime(row[1]),
+                        (String) row[2], (String) row[3], (String) row[4],
+                        componentTypeName(row[5]), changeTypeName(row[6]), (String) row[7], (String) row[8],
+                        Boolean.TRUE.equals(row[9]), toDateTime(row[10]), (String) row[11]));
+                rows++;
+            }
+        }
+        return rows;
+    }
+
+    private static LocalDateTime toDateTime(Object value) {
+        return value != null ? ((Timestamp) value).toLocalDateTime() : null;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<ChangeRollupRow> findRollups(Long hostId) {
+        List<Object[]> rows = entityManager.createNativeQuery(
+                "SELECT month, component_type_code, change_type_code, change_count FROM component_change_rollup " +
+                "WHERE host_id = :hostId ORDER BY month DESC, component_type_code, change_type_code")
+                .setParameter("hostId", hostId)
+                .getResultList();
+        List<ChangeRollupRow> result = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            result.add(new ChangeRollupRow(((Date) row[0]).toLocalDate(), componentTypeName(row[1]),
+                    changeTypeName(row[2]), ((Number) row[3]).longValue()));
+        }
+        return result;
+    }
+
+    /**
+     * Условия фильтра для нативных запросов по component_changes c (кроме acknowledged).
+     */
+    private static void appendNativeFilter(StringBuilder sql, EventFilter filter, Map<String, Object> params) {
+        if (filter.getFrom() != null) {
+            sql.append(" AND c.detected_at >= :from");
+            params.put("from", filter.getFrom());
+        }
+        if (filter.getTo() != null) {
+            sql.append(" AND c.detected_at <= :to");
+            params.put("to", filter.getTo());
+        }
+        if (filter.getComponentType() != null) {
+            sql.append(" AND c.component_type_code = :componentType");
+            params.put("componentType", componentTypeCode(filter.getComponentType()));
+        }
+        if (filter.getChangeType() != null) {
+            sql.append(" AND c.change_type_code = :changeType");
+            params.put("changeType", changeTypeCode(filter.getChangeType()));
+        }
+        if (filter.getHostId() != null) {
+            sql.append(" AND c.host_id = :hostId");
+            params.put("hostId", filter.getHostId());
+        }
+        if (filter.getHostQuery() != null) {
+            sql.append(" AND c.host_id IN (SELECT qh.id FROM hosts qh " +
+                       "WHERE LOWER(qh.computer_name) LIKE :hostQuery OR LOWER(qh.alias) LIKE :hostQuery)");
+            params.put("hostQuery", "%" + filter.getHostQuery().toLowerCase() + "%");
+        }
+        if (filter.getGroupId() != null) {
+            sql.append(" AND c.host_id IN (SELECT hg.host_id FROM hosts_groups hg WHERE hg.group_id = :groupId)");
+            params.put("groupId", filter.getGroupId());
+        }
+    }
+
+    // Типы в нативных запросах — SMALLINT-коды (см. ComponentTypeCodeConverter); неизвестное имя → -1
+
+    private static short componentTypeCode(String name) {
+        ComponentType type = ComponentType.fromName(name);
+        return type != null ? type.code() : -1;
+    }
+
+    private static short changeTypeCode(String name) {
+        ChangeType type = ChangeType.fromName(name);
+        return type != null ? type.code() : -1;
+    }
+
+    private static String componentTypeName(Object code) {
+        ComponentType type = ComponentType.fromCode(((Number) code).shortValue());
+        return type != null ? type.name() : String.valueOf(code);
+    }
+
+    private static String changeTypeName(Object code) {
+        ChangeType type = ChangeType.fromCode(((Number) code).shortValue());
+        return type != null ? type.name() : String.valueOf(code);
+    }
+
+    /** CASE-выражение для раскодирования типов в SQL — архив секции хранит имена, а не коды. */
+    private static String decodeSql(String column, boolean componentType) {
+        StringBuilder sb = new StringBuilder("CASE ").append(column);
+        if (componentType) {
+            for (ComponentType t : ComponentType.values()) {
+                sb.append(" WHEN ").append(t.code()).append(" THEN '").append(t.name()).append('\'');
+            }
+        } else {
+            for (ChangeType t : ChangeType.values()) {
+                sb.append(" WHEN ").append(t.code()).append(" THEN '").append(t.name()).append('\'');
+            }
+        }
+        return sb.append(" END").toString();
+    }
+
+    // Имена секций строятся только из YearMonth, поэтому подстановка в DDL безопасна
+
+    private static String partitionName(YearMonth month) {
+        return PARTITION_PREFIX + month.format(PARTITION_SUFFIX);
+    }
+
+    private static List<YearMonth> parsePartitionNames(List<String> names) {
+        List<YearMonth> result = new ArrayList<>(names.size());
+        for (String name : names) {
+            result.add(YearMonth.parse(name.substring(PARTITION_PREFIX.length()), PARTITION_SUFFIX));
+        }
+        Collections.sort(result);
+        return result;
+    }
+
+    @Override
+    @Transactional
+    public void createPartitionIfAbsent(YearMonth month) {
+        entityManager.createNativeQuery(
+                "CREATE TABLE IF NOT EXISTS " + partitionName(month) + " PARTITION OF component_changes " +
+                "FOR VALUES FROM ('" + month.atDay(1) + "') TO ('" + month.plusMonths(1).atDay(1) + "')")
+                .executeUpdate();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<YearMonth> findAttachedPartitions() {
+        return parsePartitionNames(entityManager.createNativeQuery(
+                "SELECT c.relname FROM pg_inherits i " +
+                "JOIN pg_class c ON c.oid = i.inhrelid " +
+                "WHERE i.inhparent = 'component_changes'::regclass AND c.relname ~ '^component_changes_p[0-9]{6}$'")
+                .getResultList());
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<YearMonth> findDetachedPartitions() {
+        return parsePartitionNames(entityManager.createNativeQuery(
+                "SELECT c.relname FROM pg_class c " +
+                "WHERE c.relkind = 'r' AND pg_table_is_visible(c.oid) " +
+                "AND c.relname ~ '^component_changes_p[0-9]{6}$' " +
+                "AND NOT EXISTS (SELECT 1 FROM pg_inherits i WHERE i.inhrelid = c.oid)")
+                .getResultList());
+    }
+
+    @Override
+    public long countUnacknowledgedInPartition(YearMonth month) {
+        return ((Number) entityManager.createNativeQuery(
+                "SELECT COUNT(*) FROM " + partitionName(month) + " WHERE acknowledged = false")
+                .getSingleResult()).longValue();
+    }
+
+    @Override
+    @Transactional
+    public long rollupAndDetachPartition(YearMonth month) {
+        String partition = partitionName(month);
+        long total = ((Number) entityManager.createNativeQuery("SELECT COUNT(*) FROM " + partition)
+                .getSingleResult()).longValue();
+        entityManager.createNativeQuery(
+                "INSERT INTO component_change_rollup " +
+                "(host_id, month, component_type_code, change_type_code, change_count, first_detected_at, last_detected_at) " +
+                "SELECT host_id, :month, component_type_code, change_type_code, COUNT(*), MIN(detected_at), MAX(detected_at) " +
+                "FROM " + partition + " GROUP BY host_id, component_type_code, change_type_code " +
+                "ON CONFLICT (host_id, month, component_type_code, change_type_code) DO UPDATE SET " +
+                "change_count = component_change_rollup.change_count + EXCLUDED.change_count, " +
+                "first_detected_at = LEAST(component_change_rollup.first_detected_at, EXCLUDED.first_detected_at), " +
+                "last_detected_at = GREATEST(component_change_rollup.last_detected_at, EXCLUDED.last_detected_at)")
+                .setParameter("month", Date.valueOf(month.atDay(1)))
+                .executeUpdate();
+        entityManager.createNativeQuery("ALTER TABLE component_changes DETACH PARTITION " + partition)
+                .executeUpdate();
+        return total;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public long copyPartitionTo(YearMonth month, OutputStream out) {
+        // Значения и типы раскодируются — архив читается без словаря
+        String sql = "SELECT c.id, c.host_id, " +
+                decodeSql("c.component_type_code", true) + " AS component_type, " +
+                decodeSql("c.change_type_code", false) + " AS change_type, " +
+                "ov.value AS old_value, nv.value AS new_value, " +
+                "c.detected_at, c.acknowledged, c.acknowledged_at, c.acknowledged_by " +
+                "FROM " + partitionName(month) + " c " +
+                "LEFT JOIN change_value ov ON ov.id = c.old_value_id " +
+                "LEFT JOIN change_value nv ON nv.id = c.new_value_id " +
+                "ORDER BY c.detected_at, c.id";
+        return entityManager.unwrap(Session.class).doReturningWork(connection -> {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+            // Курсор на стороне сервера: строки читаются порциями, а не всей секцией
+            try (PreparedStatement ps = connection.prepareStatement(sql)) {
+                ps.setFetchSize(1000);
+                try (ResultSet rs = ps.executeQuery()) {
+                    ResultSetMetaData meta = rs.getMetaData();
+                    int columns = meta.getColumnCount();
+                    for (int i = 1; i <= columns; i++) {
+                        if (i > 1) writer.write(',');
+                        writer.write(meta.getColumnName(i));
+                    }
+                    writer.write('\n');
+                    long rows = 0;
+                    while (rs.next()) {
+                        for (int i = 1; i <= columns; i++) {
+                            if (i > 1) writer.write(',');
+                            writeCsvValue(writer, rs.getString(i));
+                        }
+                        writer.write('\n');
+                        rows++;
+                    }
+                    writer.flush();
+                    return rows;
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    /** null — пустое поле, пустая строка — "". */
+    private static void writeCsvValue(Writer writer, String value) throws IOException {
+        if (value == null) return;
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+
+    @Override
+    @Transactional
+    public int dropPartition(YearMonth month) {
+        String partition = partitionName(month);
+        Object exists = entityManager.createNativeQuery("SELECT to_regclass(:name) IS NOT NULL")
+                .setParameter("name", partition)
+                .getSingleResult();
+        int purged = Boolean.TRUE.equals(exists) ? deleteValuesOnlyIn(month) : 0;
+        entityManager.createNativeQuery("DROP TABLE IF EXISTS " + partition).executeUpdate();
+        return purged;
+    }
+
+    /**
+     * Удаление значений словаря, на которые ссылается только удаляемая секция. Значения сначала
+     * блокируются (занятые intern_change_value пропускаются), затем ссылки проверяются повторно
+     * в новом снимке — он видит изменения, зафиксированные до блокировки. Значения, нужные другим
+     * отсоединённым, ещё не выгруженным секциям, остаются.
+     */
+    @SuppressWarnings("unchecked")
+    private int deleteValuesOnlyIn(YearMonth month) {
+        StringBuilder unreferenced = new StringBuilder(
+                "NOT EXISTS (SELECT 1 FROM component_changes c WHERE c.old_value_id = v.id) " +
+                "AND NOT EXISTS (SELECT 1 FROM component_changes c WHERE c.new_value_id = v.id)");
+        for (YearMonth detached : findDetachedPartitions()) {
+            if (detached.equals(month)) continue;
+            String other = partitionName(detached);
+            unreferenced.append(" AND NOT EXISTS (SELECT 1 FROM ").append(other).append(" c WHERE c.old_value_id = v.id)")
+                    .append(" AND NOT EXISTS (SELECT 1 FROM ").append(other).append(" c WHERE c.new_value_id = v.id)");
+        }
+        String partition = partitionName(month);
+        List<Object> locked = entityManager.createNativeQuery(
+                "SELECT v.id FROM change_value v WHERE v.id IN " +
+                "(SELECT old_value_id FROM " + partition + " UNION SELECT new_value_id FROM " + partition + ") " +
+                "AND " + unreferenced + " FOR UPDATE OF v SKIP LOCKED")
+                .getResultList();
+
+        int deleted = 0;
+        for (int from = 0; from < locked.size(); from += VALUE_DELETE_BATCH) {
+            List<Long> ids = new ArrayList<>();
+            for (Object id : locked.subList(from, Math.min(from + VALUE_DELETE_BATCH, locked.size()))) {
+                ids.add(((Number) id).longValue());
+            }
+            deleted += entityManager.createNativeQuery(
+                    "DELETE FROM change_value v WHERE v.id IN (:ids) AND " + unreferenced)
+                    .setParameter("ids", ids)
+                    .executeUpdate();
+        }
+        return deleted;
+    }
+}
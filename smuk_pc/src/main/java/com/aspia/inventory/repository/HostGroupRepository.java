@@ -2,6 +2,17 @@ package com.aspia.inventory.repository;
 
 import com.aspia.inventory.model.HostGroup;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
+
+import javax.persistence.QueryHint;
+import java.util.List;
+
+import static org.hibernate.annotations.QueryHints.CACHEABLE;
 
 public interface HostGroupRepository extends JpaRepository<HostGroup, Long> {
+
+    /** Список групп нужен почти каждой странице — результат в кэше запросов. */
+    @Override
+    @QueryHints(@QueryHint(name = CACHEABLE, value = "true"))
+    List<HostGroup> findAll();
 }
@@ -1,16 +1,34 @@
 package com.aspia.inventory.repository;
 
+import com.aspia.inventory.model.ComponentType;
 import com.aspia.inventory.model.Host;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import javax.persistence.QueryHint;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
-public interface HostRepository extends JpaRepository<Host, Long> {
+import static org.hibernate.annotations.QueryHints.NATIVE_SPACES;
+
+public interface HostRepository extends JpaRepository<Host, Long>, HostRepositoryCustom {
 
     Optional<Host> findByAspiaHostId(Integer aspiaHostId);
 
+    /** Число хостов группы — для заголовка отчёта по оборудованию с фильтром. */
+    @Query("SELECT COUNT(h) FROM Host h WHERE h.id IN (SELECT gh.id FROM Host gh JOIN gh.groups g WHERE g.id = :groupId)")
+    long countByGroupId(@Param("groupId") Long groupId);
+
+    /** Хост вместе с группами одним запросом — для карточки хоста. */
+    @EntityGraph(attributePaths = "groups")
+    Optional<Host> findWithGroupsById(Long id);
+
     List<Host> findByNeedsFullSyncTrue();
 
     long countByNeedsFullSyncFalse();
@@ -24,7 +42,98 @@ public interface HostRepository extends JpaRepository<Host, Long> {
     @Query("SELECT COUNT(h) FROM Host h WHERE h.syncError IS NOT NULL")
     long countBySyncErrorNotNull();
 
+    long countByLastChangeAtAfter(LocalDateTime since);
+
+    long countByUnacknowledgedChangesGreaterThan(int count);
+
+    /**
+     * Учёт новых изменений хоста — в той же транзакции, что и запись самих изменений.
+     */
+    @Modifying
+    @QueryHints(@QueryHint(name = NATIVE_SPACES, value = "hosts"))
+    @Query(value = "UPDATE hosts SET unacknowledged_changes = unacknowledged_changes + :count, " +
+                   "last_change_at = GREATEST(COALESCE(last_change_at, :at), :at) WHERE id = :id",
+           nativeQuery = true)
+    void addUnacknowledgedChanges(@Param("id") Long id, @Param("count") int count, @Param("at") LocalDateTime at);
+
+    @Modifying
+    @QueryHints(@QueryHint(name = NATIVE_SPACES, value = "hosts"))
+    @Query(value = "UPDATE hosts SET unacknowledged_changes = GREATEST(unacknowledged_changes - :count, 0) " +
+                   "WHERE id = :id", nativeQuery = true)
+    void subtractUnacknowledgedChanges(@Param("id") Long id, @Param("count") int count);
+
+    /**
+     * Хосты, не выходившие на связь с указанного момента, — кандидаты на списание.
+     */
+    @Query("SELECT h.id FROM Host h WHERE (h.online = false OR h.online IS NULL) " +
+           "AND COALESCE(h.lastSyncAt, h.createdAt) < :cutoff")
+    List<Long> findIdsOfflineSince(@Param("cutoff") LocalDateTime cutoff);
+
+    @Query("SELECT h.id FROM Host h WHERE h.id IN :ids")
+    List<Long> findExistingIds(@Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @QueryHints(@QueryHint(name = NATIVE_SPACES, value = "hosts_groups"))
+    @Query(value = "DELETE FROM hosts_groups WHERE host_id IN (:hostIds)", nativeQuery = true)
+    int deleteGroupLinksByHostIds(@Param("hostIds") Collection<Long> hostIds);
+
+    @Modifying
+    @QueryHints(@QueryHint(name = NATIVE_SPACES, value = "hosts"))
+    @Query(value = "DELETE FROM hosts WHERE id IN (:ids)", nativeQuery = true)
+    int deleteRowsByIds(@Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @QueryHints(@QueryHint(name = NATIVE_SPACES, value = "hosts_groups"))
+    @Query(value = "DELETE FROM hosts_groups WHERE group_id = :groupId", nativeQuery = true)
+    int deleteGroupLinksByGroupId(@Param("groupId") Long groupId);
+
+    /**
+     * Сброс скомпилированной политики у хостов группы; пересчёт — по findByTrackedComponentsMaskIsNull.
+     */
+    @Modifying
+    @QueryHints(@QueryHint(name = NATIVE_SPACES, value = "hosts,hosts_groups"))
+    @Query(value = "UPDATE hosts SET tracked_components_mask = NULL " +
+                   "WHERE id IN (SELECT host_id FROM hosts_groups WHERE group_id = :groupId)",
+           nativeQuery = true)
+    int invalidateTrackingPolicyByGroupId(@Param("groupId") Long groupId);
+
+    @Query("SELECT DISTINCT h.osName FROM Host h WHERE h.osName IS NOT NULL ORDER BY h.osName")
+    List<String> findDistinctOsNames();
+
+    /**
+     * Одна строка: [всего, онлайн, с ошибкой синхронизации].
+     */
+    @Query("SELECT COUNT(h), COALESCE(SUM(CASE WHEN h.online = true THEN 1 ELSE 0 END), 0), " +
+           "COALESCE(SUM(CASE WHEN h.syncError IS NOT NULL THEN 1 ELSE 0 END), 0) FROM Host h")
+    List<Object[]> countStatuses();
+
+    @Query("SELECT h.id, g.name FROM Host h JOIN h.groups g WHERE h.id IN :ids ORDER BY g.name")
+    List<Object[]> findGroupNamesByHostIds(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT h.id, g.id FROM Host h JOIN h.groups g WHERE h.id IN :ids")
+    List<Object[]> findGroupLinks(@Param("ids") Collection<Long> ids);
+
     List<Host> findByOsNameNotLikeIgnoreCase(String pattern);
 
     List<Host> findByOsNameIsNull();
+
+    @EntityGraph(attributePaths = "groups")
+    List<Host> findByTrackedComponentsMaskIsNull();
+
+    @Query(value = "SELECT h.id FROM hosts h WHERE (h.tracked_components_mask & :bit) <> 0", nativeQuery = true)
+    List<Long> findIdsByTrackedComponentsMaskBit(@Param("bit") int bit);
+
+    @Query(value = "SELECT COUNT(*) FROM hosts h WHERE (h.tracked_components_mask & :bit) <> 0", nativeQuery = true)
+    long countByTrackedComponentsMaskBit(@Param("bit") int bit);
+
+    /**
+     * Хосты, отслеживающие указанный компонент, — по скомпилированной маске, без загрузки групп.
+     */
+    default List<Long> findIdsTrackingComponent(ComponentType type) {
+        return findIdsByTrackedComponentsMaskBit(type.bit());
+    }
+
+    default long countTrackingComponent(ComponentType type) {
+        return countByTrackedComponentsMaskBit(type.bit());
+    }
 }
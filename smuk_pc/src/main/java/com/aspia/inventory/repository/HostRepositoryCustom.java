@@ -0,0 +1,37 @@
+package com.aspia.inventory.repository;
+
+import com.aspia.inventory.dto.HardwareReportRow;
+import com.aspia.inventory.dto.HostQuery;
+import com.aspia.inventory.dto.HostRow;
+import com.aspia.inventory.dto.TablePage;
+import com.aspia.inventory.util.DelimitedWriter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+
+public interface HostRepositoryCustom {
+
+    /**
+     * Страница таблицы хостов: фильтрация, сортировка и подсчёт выполняются в БД,
+     * группы и признаки изменений догружаются только для хостов страницы.
+     */
+    TablePage<HostRow> findHostPage(HostQuery query);
+
+    /**
+     * Id всех хостов, подходящих под фильтры таблицы, в её порядке сортировки; страница не учитывается.
+     */
+    List<Long> findHostIds(HostQuery query);
+
+    /**
+     * Матрица «хост × установленная программа» целиком — построчно в out через курсор БД,
+     * без создания сущностей. Возвращает число строк данных.
+     */
+    long copySoftwareMatrixTo(DelimitedWriter.Format format, OutputStream out);
+
+    /**
+     * Строки отчёта по оборудованию (вся таблица или хосты группы) — через курсор БД по одной,
+     * только колонки отчёта, без создания сущностей. Возвращает число строк.
+     */
+    long forEachHardwareRow(Long groupId, HardwareReportRow.Handler handler) throws IOException;
+}
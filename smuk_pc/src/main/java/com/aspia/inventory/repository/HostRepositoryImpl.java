@@ -0,0 +1,247 @@
+package com.aspia.inventory.repository;
+
+import com.aspia.inventory.dto.HardwareReportRow;
+import com.aspia.inventory.dto.HostQuery;
+import com.aspia.inventory.dto.HostRow;
+import com.aspia.inventory.dto.TablePage;
+import com.aspia.inventory.util.DelimitedWriter;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.Session;
+import org.hibernate.query.NativeQuery;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.TypedQuery;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.LocalDateTime;
+import java.util.*;
+
+class HostRepositoryImpl implements HostRepositoryCustom {
+
+    /** Допустимые ключи сортировки → выражения JPQL. Произвольные выражения из запроса не принимаются. */
+    private static final Map<String, String> SORT_COLUMNS = new HashMap<>();
+    static {
+        SORT_COLUMNS.put("name", "LOWER(COALESCE(NULLIF(h.alias, ''), h.computerName))");
+        SORT_COLUMNS.put("aspiaHostId", "h.aspiaHostId");
+        SORT_COLUMNS.put("os", "h.osName");
+        SORT_COLUMNS.put("cpu", "h.cpuModel");
+        SORT_COLUMNS.put("ram", "h.totalRamBytes");
+        SORT_COLUMNS.put("video", "h.videoAdapter");
+        SORT_COLUMNS.put("motherboard", "h.motherboard");
+        SORT_COLUMNS.put("lastSync", "h.lastSyncAt");
+        SORT_COLUMNS.put("software", "h.softwareCount");
+        SORT_COLUMNS.put("unacknowledged", "h.unacknowledgedChanges");
+        SORT_COLUMNS.put("lastChange", "h.lastChangeAt");
+    }
+
+    private static final String[] MATRIX_HEADERS = {
+            "ID хоста", "ID Aspia", "Имя ПК", "Псевдоним", "ОС", "IP-адрес",
+            "Программа", "Издатель", "Версия", "Дата установки"
+    };
+
+    /** Строк, получаемых с сервера за одно обращение к курсору (матрица ПО, отчёт по оборудованию). */
+    private static final int MATRIX_FETCH_SIZE = 5000;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public TablePage<HostRow> findHostPage(HostQuery query) {
+        Map<String, Object> params = new HashMap<>();
+        String where = where(query, params);
+
+        TypedQuery<Long> countQuery = entityManager.createQuery("SELECT COUNT(h) FROM Host h" + where, Long.class);
+        params.forEach(countQuery::setParameter);
+        long total = countQuery.getSingleResult();
+
+        List<HostRow> rows = Collections.emptyList();
+        if (total > (long) query.getPage() * query.getSize()) {
+            TypedQuery<HostRow> rowQuery = entityManager.createQuery(
+                    "SELECT new com.aspia.inventory.dto.HostRow(h.id, h.aspiaHostId, h.computerName, h.alias, " +
+                    "h.osName, h.cpuModel, h.totalRamBytes, h.videoAdapter, h.motherboard, h.online, " +
+                    "h.syncError, h.lastSyncAt, h.unacknowledgedChanges, h.lastChangeAt, h.softwareCount, " +
+                    "h.lastSyncDurationMs) FROM Host h" + where + orderBy(query.getSort()), HostRow.class);
+            params.forEach(rowQuery::setParameter);
+            rowQuery.setFirstResult(query.getPage() * query.getSize());
+            rowQuery.setMaxResults(query.getSize());
+            rows = rowQuery.getResultList();
+            fillGroupNames(rows);
+        }
+        return new TablePage<>(rows, total, query.getPage(), query.getSize());
+    }
+
+    @Override
+    public List<Long> findHostIds(HostQuery query) {
+        Map<String, Object> params = new HashMap<>();
+        TypedQuery<Long> idQuery = entityManager.createQuery(
+                "SELECT h.id FROM Host h" + where(query, params) + orderBy(query.getSort()), Long.class);
+        params.forEach(idQuery::setParameter);
+        return idQuery.getResultList();
+    }
+
+    /**
+     * Транзакция обязательна: драйвер PostgreSQL читает порциями по fetch size только
+     * при выключенном autocommit, иначе весь результат загружается в память.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public long copySoftwareMatrixTo(DelimitedWriter.Format format, OutputStream out) {
+        String sql = "SELECT h.id, h.aspia_host_id, h.computer_name, h.alias, h.os_name, h.ip_address, " +
+                "t.name, t.publisher, i.version, i.install_date " +
+                "FROM hosts h " +
+                "JOIN software_set_item i ON i.set_id = h.software_set_id " +
+                "JOIN software_title t ON t.id = i.title_id " +
+                "ORDER BY LOWER(COALESCE(NULLIF(h.alias, ''), h.computer_name)), h.id, LOWER(t.name), i.id";
+        return entityManager.unwrap(Session.class).doReturningWork(connection -> {
+            try (PreparedStatement ps = connection.prepareStatement(sql,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+                ps.setFetchSize(MATRIX_FETCH_SIZE);
+                try (ResultSet rs = ps.executeQuery()) {
+                    DelimitedWriter writer = new DelimitedWriter(out, format);
+                    writer.row(MATRIX_HEADERS);
+                    String[] values = new String[MATRIX_HEADERS.length];
+                    long rows = 0;
+                    while (rs.next()) {
+                        for (int i = 0; i < values.length; i++) {
+                            values[i] = rs.getString(i + 1);
+                        }
+                        writer.row(values);
+                        rows++;
+                    }
+                    writer.flush();
+                    return rows;
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public long forEachHardwareRow(Long groupId, HardwareReportRow.Handler handler) throws IOException {
+        // Псевдонимы обязательны: Hibernate не принимает безымянные и повторяющиеся колонки
+        String sql = "SELECT CASE WHEN TRIM(h.alias) <> '' THEN h.alias ELSE h.computer_name END AS display_name, " +
+                "h.computer_name, h.motherboard, h.cpu_model, h.total_ram_bytes, h.video_adapter, h.os_name, " +
+                "h.ip_address, h.online, h.sync_error IS NOT NULL AS sync_failed " +
+                "FROM hosts h" +
+                (groupId != null ? " WHERE h.id IN (SELECT hg.host_id FROM hosts_groups hg WHERE hg.group_id = :groupId)" : "") +
+                " ORDER BY LOWER(COALESCE(NULLIF(h.alias, ''), h.computer_name)), h.id";
+        NativeQuery<?> query = entityManager.createNativeQuery(sql).unwrap(NativeQuery.class);
+        if (groupId != null) query.setParameter("groupId", groupId);
+        query.setFetchSize(MATRIX_FETCH_SIZE);
+        query.setReadOnly(true);
+
+        long rows = 0;
+        try (ScrollableResults results = query.scroll(ScrollMode.FORWARD_ONLY)) {
+            while (results.next()) {
+                Object[] row = results.get();
+                handler.accept(new HardwareReportRow((String) row[0], (String) row[1], (String) row[2],
+                        (String) row[3], row[4] != null ? ((Number) row[4]).longValue() : null,
+                        (String) row[5], (String) row[6], (String) row[7],
+                        Boolean.TRUE.equals(row[8]), Boolean.TRUE.equals(row[9])));
+                rows++;
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Условия фильтров таблицы; значения параметров добавляются в params.
+     */
+    private static String where(HostQuery query, Map<String, Object> params) {
+        StringBuilder where = new StringBuilder(" WHERE 1 = 1");
+
+        if (query.getSearch() != null) {
+            where.append(" AND (LOWER(h.computerName) LIKE :search OR LOWER(h.alias) LIKE :search" +
+                         " OR LOWER(h.osName) LIKE :search OR LOWER(h.cpuModel) LIKE :search" +
+                         " OR LOWER(h.videoAdapter) LIKE :search OR LOWER(h.motherboard) LIKE :search");
+            params.put("search", "%" + query.getSearch().toLowerCase() + "%");
+            Integer aspiaHostId = parseInt(query.getSearch());
+            if (aspiaHostId != null) {
+                where.append(" OR h.aspiaHostId = :aspiaHostId");
+                params.put("aspiaHostId", aspiaHostId);
+            }
+            where.append(")");
+        }
+        if (query.getStatus() != null) {
+            switch (query.getStatus()) {
+                case "ONLINE":
+                    where.append(" AND h.syncError IS NULL AND h.online = true");
+                    break;
+                case "OFFLINE":
+                    where.append(" AND h.syncError IS NULL AND (h.online = false OR h.online IS NULL)");
+                    break;
+                case "ERROR":
+                    where.append(" AND h.syncError IS NOT NULL");
+                    break;
+                case "CHANGED":
+                    where.append(" AND h.lastChangeAt > :since");
+                    params.put("since", LocalDateTime.now().minusHours(24));
+                    break;
+                case "UNACKNOWLEDGED":
+                    where.append(" AND h.unacknowledgedChanges > 0");
+                    break;
+                default:
+                    break;
+            }
+        }
+        if (query.getGroupId() != null) {
+            where.append(" AND h.id IN (SELECT gh.id FROM Host gh JOIN gh.groups g WHERE g.id = :groupId)");
+            params.put("groupId", query.getGroupId());
+        }
+        if (query.getOsName() != null) {
+            where.append(" AND h.osName = :osName");
+            params.put("osName", query.getOsName());
+        }
+        return where.toString();
+    }
+
+    /**
+     * Группы — одним запросом на страницу; признаки изменений читаются из счётчиков хоста.
+     */
+    private void fillGroupNames(List<HostRow> rows) {
+        if (rows.isEmpty()) return;
+        Map<Long, HostRow> byId = new HashMap<>();
+        for (HostRow row : rows) byId.put(row.getId(), row);
+
+        List<Object[]> groups = entityManager.createQuery(
+                "SELECT h.id, g.name FROM Host h JOIN h.groups g WHERE h.id IN :ids ORDER BY g.name", Object[].class)
+                .setParameter("ids", byId.keySet())
+                .getResultList();
+        for (Object[] g : groups) {
+            byId.get((Long) g[0]).getGroupNames().add((String) g[1]);
+        }
+    }
+
+    private static String orderBy(List<String> sort) {
+        StringBuilder sb = new StringBuilder();
+        for (String item : sort) {
+            String[] parts = item.split(",");
+            String column = SORT_COLUMNS.get(parts[0].trim());
+            if (column == null) continue;
+            boolean desc = parts.length > 1 && "desc".equalsIgnoreCase(parts[1].trim());
+            sb.append(sb.length() == 0 ? " ORDER BY " : ", ")
+              .append(column).append(desc ? " DESC NULLS LAST" : " ASC NULLS LAST");
+        }
+        if (sb.length() == 0) {
+            sb.append(" ORDER BY ").append(SORT_COLUMNS.get("name"));
+        }
+        // Уникальный ключ в конце — стабильный порядок между страницами
+        return sb.append(", h.id").toString();
+    }
+
+    private static Integer parseInt(String value) {
+        try {
+            return Integer.valueOf(value);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.aspia.inventory.repository;
+
+import com.aspia.inventory.model.OutboxMessage;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import javax.persistence.QueryHint;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+import static org.hibernate.annotations.QueryHints.NATIVE_SPACES;
+
+public interface OutboxMessageRepository extends JpaRepository<OutboxMessage, Long> {
+
+    /**
+     * Очередная пачка канала к отправке. SKIP LOCKED — строки, которые забирает другой экземпляр
+     * приложения, пропускаются, а не ожидаются.
+     */
+    @Query(value = "SELECT * FROM notification_outbox WHERE channel = :channel AND status = 'PENDING' " +
+                   "AND next_attempt_at <= :now ORDER BY id LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<OutboxMessage> lockDue(@Param("channel") String channel, @Param("now") LocalDateTime now,
+                                @Param("limit") int limit);
+
+    /**
+     * Взятие в работу: попытка засчитывается сразу, строка снова станет доступна
+     * по окончании аренды, если доставка не будет подтверждена.
+     */
+    @Modifying
+    @QueryHints(@QueryHint(name = NATIVE_SPACES, value = "notification_outbox"))
+    @Query(value = "UPDATE notification_outbox SET attempts = attempts + 1, next_attempt_at = :leaseUntil " +
+                   "WHERE id IN (:ids)", nativeQuery = true)
+    int claim(@Param("ids") Collection<Long> ids, @Param("leaseUntil") LocalDateTime leaseUntil);
+
+    @Modifying
+    @QueryHints(@QueryHint(name = NATIVE_SPACES, value = "notification_outbox"))
+    @Query(value = "DELETE FROM notification_outbox WHERE id IN (:ids)", nativeQuery = true)
+    int deleteDelivered(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Неудачная доставка: повтор в nextAttemptAt, а исчерпавшие maxAttempts строки
+     * (и отклонённые получателем — maxAttempts = 0) остаются в таблице со статусом FAILED.
+     */
+    @Modifying
+    @QueryHints(@QueryHint(name = NATIVE_SPACES, value = "notification_outbox"))
+    @Query(value = "UPDATE notification_outbox SET last_error = :error, next_attempt_at = :nextAttemptAt, " +
+                   "status = CASE WHEN attempts >= :maxAttempts THEN 'FAILED' ELSE 'PENDING' END " +
+                   "WHERE id IN (:ids)", nativeQuery = true)
+    int markFailed(@Param("ids") Collection<Long> ids, @Param("error") String error,
+                   @Param("nextAttemptAt") LocalDateTime nextAttemptAt, @Param("maxAttempts") int maxAttempts);
+
+    /**
+     * Сводка отклонена получателем: строки снова ставятся в очередь, каждая — отдельным сообщением,
+     * чтобы отклонённой осталась только строка, из-за которой это произошло.
+     */
+    @Modifying
+    @QueryHints(@QueryHint(name = NATIVE_SPACES, value = "notification_outbox"))
+    @Query(value = "UPDATE notification_outbox SET send_alone = TRUE, last_error = :error, " +
+                   "next_attempt_at = :nextAttemptAt WHERE id IN (:ids)", nativeQuery = true)
+    int markSendAlone(@Param("ids") Collection<Long> ids, @Param("error") String error,
+                      @Param("nextAttemptAt") LocalDateTime nextAttemptAt);
+
+    @Query(value = "SELECT COUNT(*) FROM notification_outbox WHERE status = 'PENDING'", nativeQuery = true)
+    long countPending();
+
+    @Query(value = "SELECT channel, status, COUNT(*) FROM notification_outbox GROUP BY channel, status", nativeQuery = true)
+    List<Object[]> countByChannelAndStatus();
+
+    @Modifying
+    @QueryHints(@QueryHint(name = NATIVE_SPACES, value = "notification_outbox"))
+    @Query(value = "DELETE FROM notification_outbox WHERE status = 'FAILED' AND created_at < :before", nativeQuery = true)
+    int deleteFailedBefore(@Param("before") LocalDateTime before);
+}
@@ -0,0 +1,15 @@
+package com.aspia.inventory.repository;
+
+import com.aspia.inventory.model.ScheduledReport;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+
+public interface ScheduledReportRepository extends JpaRepository<ScheduledReport, Long> {
+
+    List<ScheduledReport> findAllByOrderByNameAsc();
+
+    List<ScheduledReport> findByEnabledTrue();
+
+    List<ScheduledReport> findByGroupId(Long groupId);
+}
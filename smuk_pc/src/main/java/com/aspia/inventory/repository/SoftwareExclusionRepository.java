@@ -3,21 +3,42 @@ package com.aspia.inventory.repository;
 import com.aspia.inventory.model.Host;
 import com.aspia.inventory.model.SoftwareExclusion;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import javax.persistence.QueryHint;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
+import static org.hibernate.annotations.QueryHints.CACHEABLE;
+import static org.hibernate.annotations.QueryHints.NATIVE_SPACES;
+
+/**
+ * Исключения читаются при каждой синхронизации хоста — выборки идут через кэш запросов.
+ */
 public interface SoftwareExclusionRepository extends JpaRepository<SoftwareExclusion, Long> {
 
+    @QueryHints(@QueryHint(name = CACHEABLE, value = "true"))
     List<SoftwareExclusion> findByHostIsNull();
 
+    @QueryHints(@QueryHint(name = CACHEABLE, value = "true"))
     List<SoftwareExclusion> findByHost(Host host);
 
+    @QueryHints(@QueryHint(name = CACHEABLE, value = "true"))
     Optional<SoftwareExclusion> findBySoftwareNameAndHostIsNull(String softwareName);
 
+    @QueryHints(@QueryHint(name = CACHEABLE, value = "true"))
     Optional<SoftwareExclusion> findBySoftwareNameAndHost(String softwareName, Host host);
 
     void deleteBySoftwareNameAndHostIsNull(String softwareName);
 
     void deleteBySoftwareNameAndHost(String softwareName, Host host);
+
+    @Modifying
+    @QueryHints(@QueryHint(name = NATIVE_SPACES, value = "software_exclusions"))
+    @Query(value = "DELETE FROM software_exclusions WHERE host_id IN (:hostIds)", nativeQuery = true)
+    int deleteByHostIds(@Param("hostIds") Collection<Long> hostIds);
 }
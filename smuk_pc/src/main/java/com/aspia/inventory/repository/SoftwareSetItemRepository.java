@@ -0,0 +1,29 @@
+package com.aspia.inventory.repository;
+
+import com.aspia.inventory.dto.HostSoftwareEntry;
+import com.aspia.inventory.model.SoftwareSetItem;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+public interface SoftwareSetItemRepository extends JpaRepository<SoftwareSetItem, Long> {
+
+    @Query("SELECT i FROM SoftwareSetItem i JOIN FETCH i.title WHERE i.setId = :setId ORDER BY i.title.name")
+    List<SoftwareSetItem> findBySetIdWithTitle(@Param("setId") Long setId);
+
+    /**
+     * Элементы набора без загрузки справочника — для сравнения по title_id при синхронизации.
+     */
+    List<SoftwareSetItem> findBySetId(Long setId);
+
+    @Query("SELECT DISTINCT i.titleId FROM SoftwareSetItem i WHERE i.setId = :setId")
+    List<Integer> findDistinctTitleIdsBySetId(@Param("setId") Long setId);
+
+    @Query("SELECT new com.aspia.inventory.dto.HostSoftwareEntry(" +
+           "h.id, h.computerName, h.alias, h.osName, h.online, h.syncError, i.version) " +
+           "FROM Host h, SoftwareSetItem i WHERE i.setId = h.softwareSetId AND i.titleId = :titleId " +
+           "ORDER BY h.computerName")
+    List<HostSoftwareEntry> findHostEntriesByTitleId(@Param("titleId") Integer titleId);
+}
@@ -0,0 +1,58 @@
+package com.aspia.inventory.repository;
+
+import com.aspia.inventory.model.SoftwareSet;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import javax.persistence.QueryHint;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+import static org.hibernate.annotations.QueryHints.NATIVE_SPACES;
+
+public interface SoftwareSetRepository extends JpaRepository<SoftwareSet, Long> {
+
+    Optional<SoftwareSet> findByContentHash(String contentHash);
+
+    /**
+     * Вставка набора, если набора с таким хэшем ещё нет. Возвращает 1, если набор создан этой транзакцией.
+     * Конкурентная вставка того же хэша ждёт фиксации первой транзакции и возвращает 0.
+     */
+    @Modifying
+    @QueryHints(@QueryHint(name = NATIVE_SPACES, value = "software_set"))
+    @Query(value = "INSERT INTO software_set (content_hash, item_count, created_at) VALUES (:hash, :itemCount, now()) " +
+                   "ON CONFLICT (content_hash) DO NOTHING",
+           nativeQuery = true)
+    int insertIfAbsent(@Param("hash") String contentHash, @Param("itemCount") int itemCount);
+
+    /**
+     * id набора с блокировкой FOR KEY SHARE до конца транзакции: пока синхронизация не сослалась
+     * на набор с хоста, lockUnreferencedIds его пропускает. Пусто, если набор успели удалить.
+     */
+    @Query(value = "SELECT id FROM software_set WHERE content_hash = :hash FOR KEY SHARE", nativeQuery = true)
+    Optional<Long> lockIdByContentHash(@Param("hash") String contentHash);
+
+    /**
+     * Наборы без хостов, заблокированные на удаление. Наборы, заблокированные синхронизацией
+     * (resolveSet или проверка внешнего ключа hosts), пропускаются.
+     */
+    @Query(value = "SELECT s.id FROM software_set s WHERE NOT EXISTS " +
+                   "(SELECT 1 FROM hosts h WHERE h.software_set_id = s.id) FOR UPDATE SKIP LOCKED",
+           nativeQuery = true)
+    List<Long> lockUnreferencedIds();
+
+    /**
+     * Удаление заблокированных наборов (элементы удаляются каскадно). Отсутствие ссылок проверяется
+     * повторно: снимок этого запроса видит хосты, перешедшие на набор до его блокировки.
+     */
+    @Modifying
+    @QueryHints(@QueryHint(name = NATIVE_SPACES, value = "software_set,hosts"))
+    @Query(value = "DELETE FROM software_set s WHERE s.id IN (:ids) AND NOT EXISTS " +
+                   "(SELECT 1 FROM hosts h WHERE h.software_set_id = s.id)",
+           nativeQuery = true)
+    int deleteUnreferenced(@Param("ids") Collection<Long> ids);
+}
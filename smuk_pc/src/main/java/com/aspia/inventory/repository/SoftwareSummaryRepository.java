@@ -0,0 +1,91 @@
+package com.aspia.inventory.repository;
+
+import com.aspia.inventory.dto.SoftwareSummaryRow;
+import com.aspia.inventory.model.SoftwareSummary;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import javax.persistence.QueryHint;
+import java.util.Collection;
+import java.util.List;
+
+import static org.hibernate.annotations.QueryHints.NATIVE_SPACES;
+
+public interface SoftwareSummaryRepository extends JpaRepository<SoftwareSummary, Integer> {
+
+    /**
+     * Строки сводки [name, publisher, hostCount, versionCount] — первые три индекса
+     * совпадают с прежней GROUP BY-выборкой по установкам ПО, шаблоны и экспорт не меняются.
+     */
+    @Query("SELECT t.name, t.publisher, s.hostCount, s.versionCount FROM SoftwareSummary s JOIN s.title t " +
+           "WHERE s.hostCount > 0 ORDER BY s.hostCount DESC")
+    List<Object[]> findSummaryRows();
+
+    /**
+     * Страница сводки с поиском по названию и издателю. Ключи сортировки — t.name, t.publisher и свойства SoftwareSummary.
+     */
+    @Query(value = "SELECT new com.aspia.inventory.dto.SoftwareSummaryRow(t.name, t.publisher, s.hostCount, s.versionCount) " +
+                   "FROM SoftwareSummary s JOIN s.title t WHERE s.hostCount > 0 " +
+                   "AND (:search IS NULL OR LOWER(t.name) LIKE :search OR LOWER(t.publisher) LIKE :search)",
+           countQuery = "SELECT COUNT(s) FROM SoftwareSummary s JOIN s.title t WHERE s.hostCount > 0 " +
+                        "AND (:search IS NULL OR LOWER(t.name) LIKE :search OR LOWER(t.publisher) LIKE :search)")
+    Page<SoftwareSummaryRow> findSummaryPage(@Param("search") String search, Pageable pageable);
+
+    @Query("SELECT COUNT(s) FROM SoftwareSummary s WHERE s.hostCount > 0")
+    long countNonEmpty();
+
+    @Modifying
+    @QueryHints(@QueryHint(name = NATIVE_SPACES, value = "software_summary"))
+    @Query(value = "INSERT INTO software_summary (title_id, host_count, version_count) VALUES (:titleId, :delta, 0) " +
+                   "ON CONFLICT (title_id) DO UPDATE SET host_count = software_summary.host_count + EXCLUDED.host_count",
+           nativeQuery = true)
+    void addHostCount(@Param("titleId") Integer titleId, @Param("delta") int delta);
+
+    @Query(value = "SELECT DISTINCT i.title_id FROM hosts h JOIN software_set_item i ON i.set_id = h.software_set_id " +
+                   "WHERE h.id IN (:hostIds)", nativeQuery = true)
+    List<Integer> findTitleIdsByHostIds(@Param("hostIds") Collection<Long> hostIds);
+
+    /**
+     * Вычитает хосты из счётчиков одним UPDATE — до удаления самих строк hosts.
+     */
+    @Modifying
+    @QueryHints(@QueryHint(name = NATIVE_SPACES, value = "software_summary,hosts,software_set_item"))
+    @Query(value = "UPDATE software_summary s SET host_count = s.host_count - d.cnt FROM " +
+                   "(SELECT i.title_id, COUNT(DISTINCT h.id) AS cnt FROM hosts h " +
+                   "JOIN software_set_item i ON i.set_id = h.software_set_id " +
+                   "WHERE h.id IN (:hostIds) GROUP BY i.title_id) d WHERE s.title_id = d.title_id",
+           nativeQuery = true)
+    int subtractHosts(@Param("hostIds") Collection<Long> hostIds);
+
+    @Modifying
+    @QueryHints(@QueryHint(name = NATIVE_SPACES, value = "software_summary,hosts,software_set_item"))
+    @Query(value = "UPDATE software_summary s SET version_count = " +
+                   "(SELECT COUNT(DISTINCT COALESCE(i.version, '')) FROM hosts h " +
+                   "JOIN software_set_item i ON i.set_id = h.software_set_id WHERE i.title_id = s.title_id) " +
+                   "WHERE s.title_id IN (:titleIds)",
+           nativeQuery = true)
+    void refreshVersionCounts(@Param("titleIds") Collection<Integer> titleIds);
+
+    @Modifying
+    @QueryHints(@QueryHint(name = NATIVE_SPACES, value = "software_summary"))
+    @Query(value = "DELETE FROM software_summary WHERE host_count <= 0", nativeQuery = true)
+    int deleteEmpty();
+
+    @Modifying
+    @QueryHints(@QueryHint(name = NATIVE_SPACES, value = "software_summary"))
+    @Query(value = "DELETE FROM software_summary", nativeQuery = true)
+    void deleteAllRows();
+
+    @Modifying
+    @QueryHints(@QueryHint(name = NATIVE_SPACES, value = "software_summary,hosts,software_set_item"))
+    @Query(value = "INSERT INTO software_summary (title_id, host_count, version_count) " +
+                   "SELECT i.title_id, COUNT(DISTINCT h.id), COUNT(DISTINCT COALESCE(i.version, '')) " +
+                   "FROM hosts h JOIN software_set_item i ON i.set_id = h.software_set_id GROUP BY i.title_id",
+           nativeQuery = true)
+    int rebuildFromSoftwareSets();
+}
@@ -0,0 +1,29 @@
+package com.aspia.inventory.repository;
+
+import com.aspia.inventory.model.SoftwareTitle;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import javax.persistence.QueryHint;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+import static org.hibernate.annotations.QueryHints.NATIVE_SPACES;
+
+public interface SoftwareTitleRepository extends JpaRepository<SoftwareTitle, Integer> {
+
+    Optional<SoftwareTitle> findByName(String name);
+
+    List<SoftwareTitle> findByNameIn(Collection<String> names);
+
+    @Modifying
+    @QueryHints(@QueryHint(name = NATIVE_SPACES, value = "software_title"))
+    @Query(value = "INSERT INTO software_title (name, publisher) VALUES (:name, :publisher) " +
+                   "ON CONFLICT (name) DO UPDATE SET publisher = COALESCE(software_title.publisher, EXCLUDED.publisher)",
+           nativeQuery = true)
+    void upsert(@Param("name") String name, @Param("publisher") String publisher);
+}
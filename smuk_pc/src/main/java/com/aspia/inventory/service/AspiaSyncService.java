@@ -1,12 +1,12 @@
 package com.aspia.inventory.service;
 
 import com.aspia.inventory.model.ComponentChange;
+import com.aspia.inventory.model.ComponentType;
 import com.aspia.inventory.model.Host;
-import com.aspia.inventory.model.HostSoftware;
+import com.aspia.inventory.model.SoftwareSetItem;
 import com.aspia.inventory.model.SoftwareExclusion;
 import com.aspia.inventory.repository.ComponentChangeRepository;
 import com.aspia.inventory.repository.HostRepository;
-import com.aspia.inventory.repository.HostSoftwareRepository;
 import com.aspia.inventory.repository.SoftwareExclusionRepository;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -43,10 +43,14 @@ public class AspiaSyncService {
 
     private final RestTemplate aspiaRestTemplate;
     private final HostRepository hostRepository;
-    private final HostSoftwareRepository softwareRepository;
     private final ComponentChangeRepository changeRepository;
     private final SoftwareExclusionRepository exclusionRepository;
-    private final TelegramNotificationService telegramService;
+    private final NotificationService notificationService;
+    private final SoftwareSummaryService summaryService;
+    private final SoftwareTitleService titleService;
+    private final SoftwareSetService setService;
+    private final DashboardStatsService statsService;
+    private final InventoryDataVersion dataVersion;
     private final TransactionTemplate transactionTemplate;
     private ExecutorService syncExecutor;
 
@@ -70,17 +74,25 @@ public class AspiaSyncService {
 
     public AspiaSyncService(RestTemplate aspiaRestTemplate,
                             HostRepository hostRepository,
-                            HostSoftwareRepository softwareRepository,
                             ComponentChangeRepository changeRepository,
                             SoftwareExclusionRepository exclusionRepository,
-                            TelegramNotificationService telegramService,
+                            NotificationService notificationService,
+                            SoftwareSummaryService summaryService,
+                            SoftwareTitleService titleService,
+                            SoftwareSetService setService,
+                            DashboardStatsService statsService,
+                            InventoryDataVersion dataVersion,
                             PlatformTransactionManager transactionManager) {
         this.aspiaRestTemplate = aspiaRestTemplate;
         this.hostRepository = hostRepository;
-        this.softwareRepository = softwareRepository;
         this.changeRepository = changeRepository;
         this.exclusionRepository = exclusionRepository;
-        this.telegramService = telegramService;
+        this.notificationService = notificationService;
+        this.summaryService = summaryService;
+        this.titleService = titleService;
+        this.setService = setService;
+        this.statsService = statsService;
+        this.dataVersion = dataVersion;
         this.transactionTemplate = new TransactionTemplate(transactionManager);
     }
 
@@ -90,6 +102,7 @@ public class AspiaSyncService {
         syncExecutor = Executors.newFixedThreadPool(syncThreads);
         log.info("Пул синхронизации: {} потоков, таймаут {} мин", syncThreads, syncTimeoutMinutes);
         backfillMotherboard();
+        backfillTrackingMask();
     }
 
     private void backfillMotherboard() {
@@ -113,6 +126,17 @@ public class AspiaSyncService {
         }
     }
 
+    private void backfillTrackingMask() {
+        List<Host> hosts = hostRepository.findByTrackedComponentsMaskIsNull();
+        for (Host host : hosts) {
+            host.getTrackedComponentsMask();
+            hostRepository.save(host);
+        }
+        if (!hosts.isEmpty()) {
+            log.info("Backfill: скомпилирована политика отслеживания у {} хостов", hosts.size());
+        }
+    }
+
     public LocalDateTime getLastSyncTime() { return lastSyncTime; }
     public String getLastSyncStatus() { return lastSyncStatus; }
     public boolean isSyncing() { return syncing; }
@@ -176,6 +200,8 @@ public class AspiaSyncService {
                 updated++;
             }
 
+            statsService.refreshHostCounts();
+            dataVersion.bump();
             lastSyncTime = LocalDateTime.now();
             lastSyncStatus = "Успешно: " + updated + " хостов";
             log.info("Синхронизация списка завершена: {} хостов", updated);
@@ -203,6 +229,8 @@ public class AspiaSyncService {
         host.setNeedsFullSync(true);
         hostRepository.save(host);
         fetchAndCompareConfig(host);
+        statsService.refreshHostCounts();
+        dataVersion.bump();
     }
 
     /**
@@ -283,6 +311,8 @@ public class AspiaSyncService {
         } catch (ExecutionException | TimeoutException e) {
             log.error("Ошибка при параллельной синхронизации: {}", e.getMessage());
         }
+        statsService.refreshHostCounts();
+        dataVersion.bump();
     }
 
     /**
@@ -291,6 +321,7 @@ public class AspiaSyncService {
     @Transactional
     public void fetchAndCompareConfig(Host host) {
         log.info("Получение конфигурации хоста {} ({})...", host.getComputerName(), host.getAspiaHostId());
+        long startedAt = System.currentTimeMillis();
 
         Map<String, Object> config = fetchHostConfigFromApi(host);
         if (config == null) {
@@ -343,19 +374,19 @@ public class AspiaSyncService {
         List<ComponentChange> detectedChanges = new ArrayList<>();
         if (!isFirstSync) {
             ComponentChange c;
-            if (host.isComponentTracked("PROCESSOR")) {
+            if (host.isComponentTracked(ComponentType.PROCESSOR)) {
                 c = compareAndRecord(host, "PROCESSOR", host.getCpuModel(), newCpu);
                 if (c != null) detectedChanges.add(c);
             }
-            if (host.isComponentTracked("MEMORY")) {
+            if (host.isComponentTracked(ComponentType.MEMORY)) {
                 c = compareAndRecord(host, "MEMORY", formatBytes(host.getTotalRamBytes()), formatBytes(newRam));
                 if (c != null) detectedChanges.add(c);
             }
-            if (host.isComponentTracked("DISK")) {
+            if (host.isComponentTracked(ComponentType.DISK)) {
                 c = compareAndRecord(host, "DISK", formatBytes(host.getTotalDiskBytes()), formatBytes(newDisk));
                 if (c != null) detectedChanges.add(c);
             }
-            if (host.isComponentTracked("VIDEO_ADAPTER")) {
+            if (host.isComponentTracked(ComponentType.VIDEO_ADAPTER)) {
                 c = compareAndRecord(host, "VIDEO_ADAPTER", host.getVideoAdapter(), newVideo);
                 if (c != null) detectedChanges.add(c);
             }
@@ -384,15 +415,18 @@ public class AspiaSyncService {
         List<ComponentChange> softwareChanges = syncSoftwareList(host, newSoftware, isFirstSync);
         detectedChanges.addAll(softwareChanges);
 
-        // Отправка Telegram-уведомления при наличии изменений
+        registerChanges(host, detectedChanges);
+        host.setLastSyncDurationMs(System.currentTimeMillis() - startedAt);
+
+        // Уведомление по каналам при наличии изменений
         if (!detectedChanges.isEmpty()) {
             String displayName = host.getDisplayName();
-            List<TelegramNotificationService.ChangeInfo> infos = new ArrayList<>();
+            List<NotificationService.ChangeInfo> infos = new ArrayList<>();
             for (ComponentChange ch : detectedChanges) {
-                infos.add(new TelegramNotificationService.ChangeInfo(
+                infos.add(new NotificationService.ChangeInfo(
                         displayName, ch.getComponentType(), ch.getChangeType(), ch.getOldValue(), ch.getNewValue()));
             }
-            telegramService.notifyChangesDetected(displayName, infos);
+            notificationService.notifyChangesDetected(host.getId(), displayName, infos);
         }
 
         log.info("Конфигурация хоста {} ({}) синхронизирована", host.getComputerName(), host.getAspiaHostId());
@@ -494,70 +528,97 @@ public class AspiaSyncService {
         return change;
     }
 
+    /**
+     * Счётчики хоста и снимок дашборда — в транзакции, записавшей изменения.
+     */
+    private void registerChanges(Host host, List<ComponentChange> changes) {
+        if (changes.isEmpty()) return;
+        LocalDateTime lastDetectedAt = changes.stream().map(ComponentChange::getDetectedAt)
+                .filter(Objects::nonNull).max(Comparator.naturalOrder()).orElse(LocalDateTime.now());
+        hostRepository.addUnacknowledgedChanges(host.getId(), changes.size(), lastDetectedAt);
+        statsService.onChangesDetected(host, changes);
+    }
+
     @Transactional
     public List<ComponentChange> syncSoftwareList(Host host, List<SoftwareInfo> newSoftware, boolean isFirstSync) {
-        List<HostSoftware> existingSoftware = softwareRepository.findByHost(host);
+        List<SoftwareSetItem> existingSoftware = setService.getItemsWithoutTitle(host.getSoftwareSetId());
         List<ComponentChange> softwareChanges = new ArrayList<>();
 
-        boolean trackSoftware = host.isComponentTracked("SOFTWARE");
+        // Разрешаем названия ПО в id справочника software_title
+        Map<String, String> publishers = new HashMap<>();
+        for (SoftwareInfo sw : newSoftware) {
+            if (publishers.get(sw.name) == null) publishers.put(sw.name, sw.publisher);
+        }
+        Map<String, Integer> titleIds = titleService.resolveIds(publishers);
+        for (SoftwareInfo sw : newSoftware) {
+            sw.titleId = titleIds.get(sw.name);
+        }
+
+        boolean trackSoftware = host.isComponentTracked(ComponentType.SOFTWARE);
 
         if (!isFirstSync && trackSoftware && !existingSoftware.isEmpty()) {
             // Загружаем исключения ПО из отслеживания
-            Set<String> globalExclusions = exclusionRepository.findByHostIsNull().stream()
-                    .map(SoftwareExclusion::getSoftwareName).collect(Collectors.toSet());
-            Set<String> hostExclusions = exclusionRepository.findByHost(host).stream()
+            Set<String> excludedNames = exclusionRepository.findByHostIsNull().stream()
                     .map(SoftwareExclusion::getSoftwareName).collect(Collectors.toSet());
+            exclusionRepository.findByHost(host).stream()
+                    .map(SoftwareExclusion::getSoftwareName).forEach(excludedNames::add);
+            Set<Integer> excludedTitleIds = titleService.findIds(excludedNames);
 
-            // Создаём карты для сравнения по ключу name|version
-            Map<String, HostSoftware> existingMap = existingSoftware.stream()
-                    .collect(Collectors.toMap(HostSoftware::getSoftwareKey, s -> s, (a, b) -> a));
+            // Создаём карты для сравнения по ключу titleId|version
+            Map<String, SoftwareSetItem> existingMap = existingSoftware.stream()
+                    .collect(Collectors.toMap(SoftwareSetItem::getSoftwareKey, s -> s, (a, b) -> a));
             Map<String, SoftwareInfo> newMap = newSoftware.stream()
                     .collect(Collectors.toMap(SoftwareInfo::getKey, s -> s, (a, b) -> a));
 
-            // Собираем удалённое и добавленное ПО по имени для определения обновлений
-            Map<String, HostSoftware> removedByName = new HashMap<>();
-            Map<String, SoftwareInfo> addedByName = new HashMap<>();
-            for (Map.Entry<String, HostSoftware> entry : existingMap.entrySet()) {
+            // Собираем удалённое и добавленное ПО по названию для определения обновлений
+            Map<Integer, SoftwareSetItem> removedByTitle = new HashMap<>();
+            Map<Integer, SoftwareInfo> addedByTitle = new HashMap<>();
+            for (Map.Entry<String, SoftwareSetItem> entry : existingMap.entrySet()) {
                 if (!newMap.containsKey(entry.getKey())) {
-                    removedByName.put(entry.getValue().getName(), entry.getValue());
+                    removedByTitle.put(entry.getValue().getTitleId(), entry.getValue());
                 }
             }
             for (Map.Entry<String, SoftwareInfo> entry : newMap.entrySet()) {
                 if (!existingMap.containsKey(entry.getKey())) {
-                    addedByName.put(entry.getValue().name, entry.getValue());
+                    addedByTitle.put(entry.getValue().titleId, entry.getValue());
                 }
             }
-            // Обновления = имена, которые есть и в удалённых, и в добавленных (сменилась версия)
-            Set<String> updatedNames = new HashSet<>(removedByName.keySet());
-            updatedNames.retainAll(addedByName.keySet());
+            // Обновления = названия, которые есть и в удалённых, и в добавленных (сменилась версия)
+            Set<Integer> updatedTitles = new HashSet<>(removedByTitle.keySet());
+            updatedTitles.retainAll(addedByTitle.keySet());
 
             // Записываем обновления ПО (одна запись UPDATED, без уведомления)
-            for (String name : updatedNames) {
-                if (globalExclusions.contains(name) || hostExclusions.contains(name)) continue;
-                HostSoftware old = removedByName.get(name);
-                SoftwareInfo upd = addedByName.get(name);
-                String oldVal = name + " " + (old.getVersion() != null ? old.getVersion() : "");
-                String newVal = name + " " + (upd.version != null ? upd.version : "");
-                changeRepository.save(new ComponentChange(host, "SOFTWARE", "UPDATED", oldVal, newVal));
+            List<ComponentChange> softwareUpdates = new ArrayList<>();
+            for (Integer titleId : updatedTitles) {
+                if (excludedTitleIds.contains(titleId)) continue;
+                SoftwareSetItem old = removedByTitle.get(titleId);
+                SoftwareInfo upd = addedByTitle.get(titleId);
+                String oldVal = upd.name + " " + (old.getVersion() != null ? old.getVersion() : "");
+                String newVal = upd.name + " " + (upd.version != null ? upd.version : "");
+                softwareUpdates.add(changeRepository.save(new ComponentChange(host, "SOFTWARE", "UPDATED", oldVal, newVal)));
                 log.info("ПО обновлено на {}: {} → {}", host.getComputerName(), oldVal, newVal);
             }
+            // В уведомление не попадают, но учитываются как непросмотренные
+            registerChanges(host, softwareUpdates);
 
             // Найти действительно удалённое ПО (не обновления)
-            for (Map.Entry<String, HostSoftware> entry : removedByName.entrySet()) {
-                if (updatedNames.contains(entry.getKey())) continue;
-                HostSoftware removed = entry.getValue();
-                if (globalExclusions.contains(removed.getName()) || hostExclusions.contains(removed.getName())) continue;
+            Set<Integer> reallyRemoved = new HashSet<>(removedByTitle.keySet());
+            reallyRemoved.removeAll(updatedTitles);
+            reallyRemoved.removeAll(excludedTitleIds);
+            Map<Integer, String> removedNames = titleService.findNames(reallyRemoved);
+            for (Integer titleId : reallyRemoved) {
+                SoftwareSetItem removed = removedByTitle.get(titleId);
+                String name = removedNames.get(titleId);
                 ComponentChange change = changeRepository.save(new ComponentChange(host, "SOFTWARE", "REMOVED",
-                        removed.getName() + " " + (removed.getVersion() != null ? removed.getVersion() : ""), ""));
+                        name + " " + (removed.getVersion() != null ? removed.getVersion() : ""), ""));
                 softwareChanges.add(change);
-                log.info("ПО удалено на {}: {} {}", host.getComputerName(), removed.getName(), removed.getVersion());
+                log.info("ПО удалено на {}: {} {}", host.getComputerName(), name, removed.getVersion());
             }
 
             // Найти действительно добавленное ПО (не обновления)
-            for (Map.Entry<String, SoftwareInfo> entry : addedByName.entrySet()) {
-                if (updatedNames.contains(entry.getKey())) continue;
+            for (Map.Entry<Integer, SoftwareInfo> entry : addedByTitle.entrySet()) {
+                if (updatedTitles.contains(entry.getKey()) || excludedTitleIds.contains(entry.getKey())) continue;
                 SoftwareInfo added = entry.getValue();
-                if (globalExclusions.contains(added.name) || hostExclusions.contains(added.name)) continue;
                 ComponentChange change = changeRepository.save(new ComponentChange(host, "SOFTWARE", "ADDED",
                         "", added.name + " " + (added.version != null ? added.version : "")));
                 softwareChanges.add(change);
@@ -565,14 +626,52 @@ public class AspiaSyncService {
             }
         }
 
-        // Перезаписываем список ПО
-        softwareRepository.deleteByHost(host);
+        // Переключаем хост на набор ПО с тем же содержимым (создаётся только при отсутствии)
+        List<SoftwareSetService.Entry> entries = new ArrayList<>(newSoftware.size());
         for (SoftwareInfo sw : newSoftware) {
-            softwareRepository.save(new HostSoftware(host, sw.name, sw.version, sw.publisher, sw.installDate));
+            entries.add(new SoftwareSetService.Entry(sw.titleId, sw.version, sw.installDate));
         }
+        Long setId = setService.resolveSet(entries);
+        if (Objects.equals(setId, host.getSoftwareSetId())) {
+            return softwareChanges;
+        }
+        host.setSoftwareSetId(setId);
+        host.setSoftwareCount(entries.size());
+        hostRepository.saveAndFlush(host);
+
+        updateSoftwareSummary(existingSoftware, newSoftware);
         return softwareChanges;
     }
 
+    /**
+     * Инкрементальное обновление software_summary по разнице старого и нового списка ПО хоста.
+     */
+    private void updateSoftwareSummary(List<SoftwareSetItem> existingSoftware, List<SoftwareInfo> newSoftware) {
+        Map<Integer, Set<String>> oldVersions = new HashMap<>();
+        for (SoftwareSetItem sw : existingSoftware) {
+            oldVersions.computeIfAbsent(sw.getTitleId(), k -> new HashSet<>())
+                    .add(sw.getVersion() != null ? sw.getVersion() : "");
+        }
+        Map<Integer, Set<String>> newVersions = new HashMap<>();
+        for (SoftwareInfo sw : newSoftware) {
+            newVersions.computeIfAbsent(sw.titleId, k -> new HashSet<>())
+                    .add(sw.version != null ? sw.version : "");
+        }
+        Set<Integer> added = new HashSet<>(newVersions.keySet());
+        added.removeAll(oldVersions.keySet());
+        Set<Integer> removed = new HashSet<>(oldVersions.keySet());
+        removed.removeAll(newVersions.keySet());
+
+        Set<Integer> versionChanged = new HashSet<>(added);
+        for (Integer titleId : oldVersions.keySet()) {
+            if (!oldVersions.get(titleId).equals(newVersions.get(titleId))) versionChanged.add(titleId);
+        }
+
+        if (!versionChanged.isEmpty()) {
+            summaryService.applyHostDelta(added, removed, versionChanged);
+        }
+    }
+
     // ========== API вызовы ==========
 
     private List<Map<String, Object>> fetchHostListFromApi() {
@@ -663,6 +762,7 @@ public class AspiaSyncService {
         final String version;
         final String publisher;
         final String installDate;
+        Integer titleId;
 
         SoftwareInfo(String name, String version, String publisher, String installDate) {
             this.name = name;
@@ -672,7 +772,7 @@ public class AspiaSyncService {
         }
 
         String getKey() {
-            return name + "|" + (version != null ? version : "");
+            return titleId + "|" + (version != null ? version : "");
         }
     }
 }
@@ -0,0 +1,113 @@
+package com.aspia.inventory.service;
+
+import com.aspia.inventory.repository.ComponentChangeRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.YearMonth;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Обслуживание месячных секций журнала изменений (см. V8__partition_component_changes.sql):
+ * секции создаются на несколько месяцев вперёд; секции старше срока хранения сворачиваются
+ * в component_change_rollup, отсоединяются, выгружаются в CSV.gz и удаляются вместе со значениями
+ * словаря change_value, на которые больше не ссылается журнал.
+ */
+@Service
+public class ChangeRetentionService {
+
+    private static final Logger log = LoggerFactory.getLogger(ChangeRetentionService.class);
+    private static final int MONTHS_AHEAD = 2;
+
+    private final ComponentChangeRepository changeRepository;
+
+    /** Срок хранения в месяцах, не считая текущего; 0 — журнал хранится без ограничения. */
+    @Value("${inventory.changes.retention-months:12}")
+    private int retentionMonths;
+
+    @Value("${inventory.changes.archive-dir:archive/changes}")
+    private String archiveDir;
+
+    public ChangeRetentionService(ComponentChangeRepository changeRepository) {
+        this.changeRepository = changeRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        ensurePartitions();
+    }
+
+    @Scheduled(cron = "${inventory.changes.retention-cron:0 30 3 * * *}")
+    public void maintain() {
+        ensurePartitions();
+        if (retentionMonths <= 0) return;
+
+        // Сначала — секции, архивация которых была прервана
+        for (YearMonth month : changeRepository.findDetachedPartitions()) {
+            archiveAndDrop(month);
+        }
+
+        YearMonth cutoff = YearMonth.now().minusMonths(retentionMonths);
+        for (YearMonth month : changeRepository.findAttachedPartitions()) {
+            if (!month.isBefore(cutoff)) break;
+            long unacknowledged = changeRepository.countUnacknowledgedInPartition(month);
+            if (unacknowledged > 0) {
+                log.warn("Секция изменений {} старше срока хранения, но содержит {} неподтверждённых — оставлена",
+                        month, unacknowledged);
+                continue;
+            }
+            long rolledUp = changeRepository.rollupAndDetachPartition(month);
+            log.info("Секция изменений {}: {} изменений свёрнуто, секция отсоединена", month, rolledUp);
+            archiveAndDrop(month);
+        }
+    }
+
+    private void ensurePartitions() {
+        YearMonth current = YearMonth.now();
+        for (int i = 0; i <= MONTHS_AHEAD; i++) {
+            try {
+                changeRepository.createPartitionIfAbsent(current.plusMonths(i));
+            } catch (Exception e) {
+                // Например, строки этого месяца уже попали в секцию по умолчанию
+                log.error("Не удалось создать секцию изменений {}: {}", current.plusMonths(i), e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Архив пишется во временный файл и переименовывается после записи, секция удаляется только
+     * после успешной архивации — при сбое она останется отсоединённой до следующего запуска.
+     */
+    private void archiveAndDrop(YearMonth month) {
+        Path dir = Paths.get(archiveDir);
+        Path target = dir.resolve("component_changes_" + month + ".csv.gz");
+        Path temp = dir.resolve(target.getFileName() + ".part");
+        try {
+            Files.createDirectories(dir);
+            long rows;
+            try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(temp), 64 * 1024)) {
+                rows = changeRepository.copyPartitionTo(month, out);
+            }
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            int values = changeRepository.dropPartition(month);
+            log.info("Секция изменений {} выгружена в {} ({} строк) и удалена, значений словаря удалено: {}",
+                    month, target, rows, values);
+        } catch (Exception e) {
+            log.error("Ошибка архивации секции изменений {}: {}", month, e.getMessage());
+            try {
+                Files.deleteIfExists(temp);
+            } catch (IOException ignored) {}
+        }
+    }
+}
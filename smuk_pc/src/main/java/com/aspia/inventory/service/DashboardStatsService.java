@@ -0,0 +1,204 @@
+package com.aspia.inventory.service;
+
+import com.aspia.inventory.dto.ChangeEventView;
+import com.aspia.inventory.dto.EventFilter;
+import com.aspia.inventory.model.ComponentChange;
+import com.aspia.inventory.model.Host;
+import com.aspia.inventory.model.HostGroup;
+import com.aspia.inventory.repository.ComponentChangeRepository;
+import com.aspia.inventory.repository.HostRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
+import static com.aspia.inventory.util.TransactionCallbacks.afterCommit;
+
+/**
+ * Счётчики дашборда в памяти. Синхронизация и подтверждения обновляют снимок
+ * после фиксации транзакции, периодическая сверка с БД устраняет дрейф.
+ * Запросы дашборда читают только снимок.
+ */
+@Service
+public class DashboardStatsService {
+
+    private static final Logger log = LoggerFactory.getLogger(DashboardStatsService.class);
+    private static final DateTimeFormatter DATE_FMT = DateTimeFormatter.ofPattern("dd.MM.yyyy HH:mm");
+    private static final int RECENT_LIMIT = 20;
+
+    private final HostRepository hostRepository;
+    private final ComponentChangeRepository changeRepository;
+
+    private final AtomicReference<Snapshot> snapshot = new AtomicReference<>(Snapshot.EMPTY);
+
+    public DashboardStatsService(HostRepository hostRepository,
+                                 ComponentChangeRepository changeRepository) {
+        this.hostRepository = hostRepository;
+        this.changeRepository = changeRepository;
+    }
+
+    /**
+     * Неизменяемый снимок. Элементы recentChanges — карты в формате шаблона dashboard.html.
+     */
+    public static class Snapshot {
+        static final Snapshot EMPTY = new Snapshot(0, 0, 0, 0, Collections.emptyList());
+
+        public final long totalHosts;
+        public final long onlineHosts;
+        public final long errorHosts;
+        public final long unacknowledgedChanges;
+        public final List<Map<String, String>> recentChanges;
+
+        Snapshot(long totalHosts, long onlineHosts, long errorHosts, long unacknowledgedChanges,
+                 List<Map<String, String>> recentChanges) {
+            this.totalHosts = totalHosts;
+            this.onlineHosts = onlineHosts;
+            this.errorHosts = errorHosts;
+            this.unacknowledgedChanges = Math.max(unacknowledgedChanges, 0);
+            this.recentChanges = Collections.unmodifiableList(recentChanges);
+        }
+
+        public long getOfflineHosts() {
+            return totalHosts - onlineHosts;
+        }
+
+        public Map<String, Long> toStats() {
+            Map<String, Long> stats = new HashMap<>();
+            stats.put("totalHosts", totalHosts);
+            stats.put("onlineHosts", onlineHosts);
+            stats.put("offlineHosts", getOfflineHosts());
+            stats.put("errorHosts", errorHosts);
+            stats.put("unacknowledgedChanges", unacknowledgedChanges);
+            return stats;
+        }
+    }
+
+    public Snapshot getSnapshot() {
+        return snapshot.get();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        reconcile();
+    }
+
+    /**
+     * Полный пересчёт снимка из БД.
+     */
+    @Scheduled(fixedDelayString = "${inventory.dashboard.reconcile-interval:60000}", initialDelay = 60000)
+    public void reconcile() {
+        try {
+            long[] hosts = loadHostCounts();
+            long unacknowledged = changeRepository.countByAcknowledgedFalse();
+            List<Map<String, String>> recent = loadRecentChanges();
+            Snapshot old = snapshot.getAndSet(new Snapshot(hosts[0], hosts[1], hosts[2], unacknowledged, recent));
+            if (old != Snapshot.EMPTY && old.unacknowledgedChanges != unacknowledged) {
+                log.debug("Сверка дашборда: неподтверждённых {} → {}", old.unacknowledgedChanges, unacknowledged);
+            }
+        } catch (Exception e) {
+            log.warn("Не удалось пересчитать статистику дашборда: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Пересчёт счётчиков хостов — после синхронизации списка или конфигураций.
+     */
+    public void refreshHostCounts() {
+        afterCommit(() -> {
+            long[] hosts = loadHostCounts();
+            snapshot.updateAndGet(s -> new Snapshot(hosts[0], hosts[1], hosts[2], s.unacknowledgedChanges, s.recentChanges));
+        });
+    }
+
+    /**
+     * Новые изменения, обнаруженные синхронизацией хоста. Хост и изменения уже сохранены в текущей транзакции.
+     */
+    public void onChangesDetected(Host host, List<ComponentChange> changes) {
+        if (changes.isEmpty()) return;
+        List<Map<String, String>> added = new ArrayList<>(changes.size());
+        String groupNames = host.getGroups().stream().map(HostGroup::getName).sorted()
+                .collect(Collectors.joining(", "));
+        for (ComponentChange c : changes) {
+            added.add(toRecentItem(c.getId(), host.getId(), host.getDisplayName(), groupNames, c.getComponentType(),
+                    c.getChangeType(), c.getOldValue(), c.getNewValue(), c.getDetectedAt()));
+        }
+        // Новые — в начало списка, как в ORDER BY detected_at DESC
+        Collections.reverse(added);
+        afterCommit(() -> snapshot.updateAndGet(s -> {
+            List<Map<String, String>> recent = new ArrayList<>(added);
+            recent.addAll(s.recentChanges);
+            if (recent.size() > RECENT_LIMIT) recent = new ArrayList<>(recent.subList(0, RECENT_LIMIT));
+            return new Snapshot(s.totalHosts, s.onlineHosts, s.errorHosts,
+                    s.unacknowledgedChanges + changes.size(), recent);
+        }));
+    }
+
+    /**
+     * Подтверждение изменений: счётчик уменьшается, список последних перечитывается (один запрос).
+     */
+    public void onChangesAcknowledged(long count) {
+        if (count <= 0) return;
+        afterCommit(() -> {
+            List<Map<String, String>> recent = loadRecentChanges();
+            snapshot.updateAndGet(s -> new Snapshot(s.totalHosts, s.onlineHosts, s.errorHosts,
+                    s.unacknowledgedChanges - count, recent));
+        });
+    }
+
+    /**
+     * Удаление хоста затрагивает и счётчики хостов, и его изменения — полный пересчёт после фиксации.
+     */
+    public void onHostDeleted() {
+        afterCommit(this::reconcile);
+    }
+
+    private long[] loadHostCounts() {
+        Object[] row = hostRepository.countStatuses().get(0);
+        return new long[]{((Number) row[0]).longValue(), ((Number) row[1]).longValue(), ((Number) row[2]).longValue()};
+    }
+
+    private List<Map<String, String>> loadRecentChanges() {
+        EventFilter filter = new EventFilter();
+        filter.setAcknowledged(false);
+        List<ChangeEventView> changes = changeRepository.findEventPage(filter, null, RECENT_LIMIT).getItems();
+        if (changes.isEmpty()) return Collections.emptyList();
+
+        Set<Long> hostIds = changes.stream().map(ChangeEventView::getHostId).collect(Collectors.toSet());
+        Map<Long, List<String>> groupsByHost = new HashMap<>();
+        for (Object[] row : hostRepository.findGroupNamesByHostIds(hostIds)) {
+            groupsByHost.computeIfAbsent((Long) row[0], k -> new ArrayList<>()).add((String) row[1]);
+        }
+
+        List<Map<String, String>> result = new ArrayList<>(changes.size());
+        for (ChangeEventView c : changes) {
+            String groupNames = String.join(", ", groupsByHost.getOrDefault(c.getHostId(), Collections.emptyList()));
+            result.add(toRecentItem(c.getId(), c.getHostId(), c.getHostName(), groupNames, c.getComponentType(),
+                    c.getChangeType(), c.getOldValue(), c.getNewValue(), c.getDetectedAt()));
+        }
+        return result;
+    }
+
+    private static Map<String, String> toRecentItem(Long id, Long hostId, String hostName, String groupNames,
+                                                    String componentType, String changeType,
+                                                    String oldValue, String newValue, LocalDateTime detectedAt) {
+        Map<String, String> change = new HashMap<>();
+        change.put("id", String.valueOf(id));
+        change.put("hostName", hostName);
+        change.put("hostId", String.valueOf(hostId));
+        change.put("hostGroup", groupNames);
+        change.put("componentType", componentType);
+        change.put("changeType", changeType);
+        change.put("oldValue", oldValue != null ? oldValue : "");
+        change.put("newValue", newValue != null ? newValue : "");
+        change.put("changeDate", detectedAt != null ? detectedAt.format(DATE_FMT) : "");
+        return Collections.unmodifiableMap(change);
+    }
+}
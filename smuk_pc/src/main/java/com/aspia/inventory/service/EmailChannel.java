@@ -0,0 +1,135 @@
+package com.aspia.inventory.service;
+
+import com.aspia.inventory.dto.Notification;
+import com.aspia.inventory.util.SmtpClient;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+
+/**
+ * Письма по SMTP. Протокол блокирующий, поэтому отправка выполняется в общем пуле движка
+ * доставки; одновременных соединений — не больше max-concurrency канала.
+ * Первая строка отрисованного сообщения — тема письма, остальное — текст.
+ */
+@Component
+public class EmailChannel implements NotificationChannel {
+
+    private static final DateTimeFormatter DATE_FMT = DateTimeFormatter.ofPattern("dd.MM.yyyy HH:mm");
+    private static final int MAX_HOSTS_PER_CHANGE = 50;
+
+    @Value("${notifications.channels.email.enabled:false}")
+    private boolean enabled;
+
+    @Value("${notifications.channels.email.host:}")
+    private String host;
+
+    @Value("${notifications.channels.email.port:25}")
+    private int port;
+
+    @Value("${notifications.channels.email.security:NONE}")
+    private SmtpClient.Security security;
+
+    @Value("${notifications.channels.email.username:}")
+    private String username;
+
+    @Value("${notifications.channels.email.password:}")
+    private String password;
+
+    @Value("${notifications.channels.email.from:}")
+    private String from;
+
+    /** Получатели через запятую. */
+    @Value("${notifications.channels.email.to:}")
+    private String to;
+
+    @Value("${notifications.channels.email.timeout-seconds:20}")
+    private int timeoutSeconds;
+
+    private List<String> recipients;
+    private SmtpClient client;
+
+    @PostConstruct
+    public void init() {
+        recipients = Arrays.stream(to.split(",")).map(String::trim).filter(s -> !s.isEmpty())
+                .collect(Collectors.toList());
+        client = new SmtpClient(host, port, security, username, password, timeoutSeconds * 1000);
+    }
+
+    @Override
+    public String getName() {
+        return "email";
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return enabled && !host.isEmpty() && !from.isEmpty() && !recipients.isEmpty();
+    }
+
+    @Override
+    public String render(Notification notification) {
+        StringBuilder sb = new StringBuilder();
+        boolean detected = notification.getKind() == Notification.Kind.CHANGES_DETECTED;
+        int hostCount = notification.getHosts().size();
+        String target = hostCount == 1 ? notification.getHosts().get(0) : "хостов: " + hostCount;
+        sb.append("[СМУК ПК] ").append(detected ? "Изменение конфигурации" : "Изменения подтверждены")
+                .append(" — ").append(target).append("\n");
+
+        if (!detected) {
+            sb.append("Администратор: ").append(notification.getActor()).append("\n");
+            sb.append("Подтверждено: ").append(notification.getTotalCount()).append(" изм.\n");
+        }
+        sb.append("Дата: ").append(notification.getCreatedAt().format(DATE_FMT)).append("\n\n");
+
+        for (Notification.Item item : notification.getItems()) {
+            sb.append(item.getComponentType()).append(" — ")
+                    .append(NotificationService.formatChangeType(item.getChangeType()));
+            if (!detected && item.getOldValue() == null && item.getNewValue() == null) {
+                sb.append(": ").append(item.getCount());
+            }
+            sb.append("\n");
+            if (item.getOldValue() != null && !item.getOldValue().isEmpty()) {
+                sb.append("  Было:  ").append(item.getOldValue()).append("\n");
+            }
+            if (item.getNewValue() != null && !item.getNewValue().isEmpty()) {
+                sb.append("  Стало: ").append(item.getNewValue()).append("\n");
+            }
+            if (hostCount > 1) {
+                List<String> hosts = item.getHosts();
+                sb.append("  Хосты (").append(hosts.size()).append("): ")
+                        .append(String.join(", ", hosts.subList(0, Math.min(hosts.size(), MAX_HOSTS_PER_CHANGE))));
+                if (hosts.size() > MAX_HOSTS_PER_CHANGE) {
+                    sb.append(" и ещё ").append(hosts.size() - MAX_HOSTS_PER_CHANGE);
+                }
+                sb.append("\n");
+            }
+            sb.append("\n");
+        }
+        if (notification.getOmittedItems() > 0) {
+            sb.append("... и ещё ").append(notification.getOmittedItems()).append(" изм. — см. журнал событий\n");
+        }
+        return sb.toString();
+    }
+
+    @Override
+    public CompletableFuture<DeliveryResult> send(String message, DeliveryContext context) {
+        int newline = message.indexOf('\n');
+        String subject = newline < 0 ? message : message.substring(0, newline);
+        String body = newline < 0 ? "" : message.substring(newline + 1);
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                client.send(from, recipients, subject, body);
+                return DeliveryResult.SENT;
+            } catch (SmtpClient.SmtpException e) {
+                return e.isPermanent() ? DeliveryResult.rejected(e.getMessage()) : DeliveryResult.retry(0, e.getMessage());
+            } catch (Exception e) {
+                return DeliveryResult.retry(0, e.getMessage());
+            }
+        }, context.getExecutor());
+    }
+}
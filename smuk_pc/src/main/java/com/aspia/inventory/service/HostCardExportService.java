@@ -0,0 +1,265 @@
+package com.aspia.inventory.service;
+
+import com.aspia.inventory.model.ComponentChange;
+import com.aspia.inventory.model.Host;
+import com.aspia.inventory.model.SoftwareSetItem;
+import com.aspia.inventory.repository.ComponentChangeRepository;
+import com.aspia.inventory.repository.HostRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Карточки хостов (PDF/Excel): по одной и пакетом в ZIP. Пакет строится параллельно —
+ * в работе не больше card-threads карточек, готовые пишутся в архив в порядке завершения,
+ * поэтому в памяти одновременно лишь несколько карточек.
+ */
+@Service
+public class HostCardExportService {
+
+    private static final Logger log = LoggerFactory.getLogger(HostCardExportService.class);
+
+    public enum Format { PDF, EXCEL }
+
+    private final HostRepository hostRepository;
+    private final ComponentChangeRepository changeRepository;
+    private final SoftwareSetService setService;
+    private final InventoryExportService exportService;
+
+    /** 0 — по числу ядер, но не больше 4: каждая карточка занимает соединение с БД на время загрузки. */
+    @Value("${inventory.export.card-threads:0}")
+    private int cardThreads;
+
+    /** Изменений в карточке — последние; полная история хоста — выгрузкой журнала /events/export?hostId=. */
+    @Value("${inventory.export.card-changes:500}")
+    private int cardChanges;
+
+    private int parallelism;
+    private ExecutorService cardExecutor;
+
+    public HostCardExportService(HostRepository hostRepository,
+                                 ComponentChangeRepository changeRepository,
+                                 SoftwareSetService setService,
+                                 InventoryExportService exportService) {
+        this.hostRepository = hostRepository;
+        this.changeRepository = changeRepository;
+        this.setService = setService;
+        this.exportService = exportService;
+    }
+
+    @PostConstruct
+    public void init() {
+        parallelism = cardThreads > 0 ? cardThreads : Math.min(Runtime.getRuntime().availableProcessors(), 4);
+        AtomicInteger counter = new AtomicInteger();
+        cardExecutor = Executors.newFixedThreadPool(parallelism, r -> {
+            Thread thread = new Thread(r, "card-export-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        cardExecutor.shutdownNow();
+    }
+
+    /**
+     * Данные карточки: хост с группами, ПО его набора и последние cardChanges изменений.
+     * Лишняя строка выборки показывает, что история длиннее, — без отдельного COUNT.
+     */
+    public Optional<HostCard> load(Long hostId) {
+        return hostRepository.findWithGroupsById(hostId).map(host -> {
+            List<ComponentChange> changes = changeRepository.findByHostOrderByDetectedAtDescIdDesc(host,
+                    PageRequest.of(0, cardChanges + 1));
+            boolean truncated = changes.size() > cardChanges;
+            return new HostCard(host, setService.getItems(host.getSoftwareSetId()),
+                    truncated ? changes.subList(0, cardChanges) : changes, truncated);
+        });
+    }
+
+    public void write(HostCard card, Format format, OutputStream out) throws IOException {
+        String changesNote = card.isChangesTruncated() ? changesNote(card.getHost(), card.getChanges().size()) : null;
+        if (format == Format.PDF) {
+            exportService.writeHostCardPdf(card.getHost(), card.getSoftware(), card.getChanges(), changesNote, out);
+        } else {
+            exportService.writeHostCardExcel(card.getHost(), card.getSoftware(), card.getChanges(), changesNote, out);
+        }
+    }
+
+    private static String changesNote(Host host, int shown) {
+        return "История изменений: последние " + shown + " записей. Полный журнал хоста — /events/export?hostId="
+                + host.getId();
+    }
+
+    public static String fileName(Host host, Format format) {
+        return "host_" + host.getComputerName() + (format == Format.PDF ? ".pdf" : ".xlsx");
+    }
+
+    /**
+     * Архив карточек указанных хостов. Карточка, которую не удалось построить, пропускается,
+     * её хост перечисляется в errors.txt в конце архива. Поток out не закрывается.
+     */
+    public void writeZip(List<Long> hostIds, Format format, OutputStream out) throws IOException {
+        long startedAt = System.currentTimeMillis();
+        CompletionService<RenderedCard> completion = new ExecutorCompletionService<>(cardExecutor);
+        List<Future<RenderedCard>> futures = new ArrayList<>();
+        Iterator<Long> pending = hostIds.iterator();
+        List<String> errors = new ArrayList<>();
+        Set<String> names = new HashSet<>();
+        int inFlight = 0;
+        int written = 0;
+
+        try (ZipOutputStream zip = new ZipOutputStream(new FilterOutputStream(out) {
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                out.write(b, off, len);
+            }
+
+            @Override
+            public void close() throws IOException {
+                flush();
+            }
+        })) {
+            for (; inFlight < parallelism && pending.hasNext(); inFlight++) {
+                futures.add(submit(completion, pending.next(), format));
+            }
+            while (inFlight > 0) {
+                Future<RenderedCard> done = completion.take();
+                inFlight--;
+                if (pending.hasNext()) {
+                    futures.add(submit(completion, pending.next(), format));
+                    inFlight++;
+                }
+                RenderedCard card;
+                try {
+                    card = done.get();
+                } catch (ExecutionException e) {
+                    log.warn("Карточка хоста не построена: {}", e.getCause().getMessage());
+                    errors.add(e.getCause().getMessage());
+                    continue;
+                }
+                if (card == null) continue;
+                putStored(zip, uniqueName(names, card.name), card.content, card.crc);
+                written++;
+            }
+            if (!errors.isEmpty()) {
+                byte[] content = String.join("\r\n", errors).getBytes(StandardCharsets.UTF_8);
+                CRC32 crc = new CRC32();
+                crc.update(content);
+                putStored(zip, "errors.txt", content, crc.getValue());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Экспорт карточек прерван");
+        } finally {
+            // Клиент отключился или экспорт прерван — оставшиеся карточки не строятся
+            futures.forEach(f -> f.cancel(true));
+        }
+        log.info("Пакетный экспорт карточек ({}): {} из {} за {} мс", format, written, hostIds.size(),
+                System.currentTimeMillis() - startedAt);
+    }
+
+    private Future<RenderedCard> submit(CompletionService<RenderedCard> completion, Long hostId, Format format) {
+        return completion.submit(() -> {
+            HostCard card = null;
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream(64 * 1024);
+            try {
+                card = load(hostId).orElse(null);
+                if (card == null) return null;
+                write(card, format, buffer);
+            } catch (Exception e) {
+                String name = card != null ? card.getHost().getDisplayName() + " " : "";
+                throw new IOException(name + "(id=" + hostId + "): " + e.getMessage(), e);
+            }
+            byte[] content = buffer.toByteArray();
+            CRC32 crc = new CRC32();
+            crc.update(content);
+            return new RenderedCard(fileName(card.getHost(), format), content, crc.getValue());
+        });
+    }
+
+    /**
+     * PDF и XLSX уже сжаты — в архив они кладутся без повторного сжатия.
+     */
+    private static void putStored(ZipOutputStream zip, String name, byte[] content, long crc) throws IOException {
+        ZipEntry entry = new ZipEntry(name);
+        entry.setMethod(ZipEntry.STORED);
+        entry.setSize(content.length);
+        entry.setCompressedSize(content.length);
+        entry.setCrc(crc);
+        zip.putNextEntry(entry);
+        zip.write(content);
+        zip.closeEntry();
+    }
+
+    /**
+     * Имя файла в архиве без символов, недопустимых в Windows; совпадающие имена нумеруются.
+     */
+    private static String uniqueName(Set<String> names, String name) {
+        String safe = name.replaceAll("[\\\\/:*?\"<>|]", "_");
+        String candidate = safe;
+        int dot = safe.lastIndexOf('.');
+        for (int i = 2; !names.add(candidate.toLowerCase()); i++) {
+            candidate = safe.substring(0, dot) + "_" + i + safe.substring(dot);
+        }
+        return candidate;
+    }
+
+    public static class HostCard {
+        private final Host host;
+        private final List<SoftwareSetItem> software;
+        private final List<ComponentChange> changes;
+        private final boolean changesTruncated;
+
+        HostCard(Host host, List<SoftwareSetItem> software, List<ComponentChange> changes, boolean changesTruncated) {
+            this.host = host;
+            this.software = software;
+            this.changes = changes;
+            this.changesTruncated = changesTruncated;
+        }
+
+        public Host getHost() { return host; }
+        public List<SoftwareSetItem> getSoftware() { return software; }
+        public List<ComponentChange> getChanges() { return changes; }
+        public boolean isChangesTruncated() { return changesTruncated; }
+    }
+
+    private static class RenderedCard {
+        final String name;
+        final byte[] content;
+        final long crc;
+
+        RenderedCard(String name, byte[] content, long crc) {
+            this.name = name;
+            this.content = content;
+            this.crc = crc;
+        }
+    }
+}
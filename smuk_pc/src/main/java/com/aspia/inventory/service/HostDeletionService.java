@@ -0,0 +1,150 @@
+package com.aspia.inventory.service;
+
+import com.aspia.inventory.repository.ComponentChangeRepository;
+import com.aspia.inventory.repository.HostRepository;
+import com.aspia.inventory.repository.SoftwareExclusionRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Удаление хостов наборами: история изменений, исключения ПО и членство в группах удаляются
+ * запросами по host_id, без загрузки сущностей. Хосты с большой историей удаляются в фоне —
+ * история порциями короткими транзакциями, затем сами строки hosts.
+ */
+@Service
+public class HostDeletionService {
+
+    private static final Logger log = LoggerFactory.getLogger(HostDeletionService.class);
+
+    private final HostRepository hostRepository;
+    private final ComponentChangeRepository changeRepository;
+    private final SoftwareExclusionRepository exclusionRepository;
+    private final SoftwareSummaryService summaryService;
+    private final DashboardStatsService statsService;
+    private final InventoryDataVersion dataVersion;
+    private final TransactionTemplate transactionTemplate;
+
+    /** Хосты, удаляемые в фоне; повторный запрос на их удаление игнорируется. */
+    private final Set<Long> purging = ConcurrentHashMap.newKeySet();
+    private final ExecutorService purgeExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "host-purge");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /** Суммарный объём истории, начиная с которого удаление уходит в фон. */
+    @Value("${inventory.hosts.async-delete-threshold:20000}")
+    private long asyncThreshold;
+
+    @Value("${inventory.hosts.purge-batch-size:5000}")
+    private int purgeBatchSize;
+
+    public HostDeletionService(HostRepository hostRepository,
+                               ComponentChangeRepository changeRepository,
+                               SoftwareExclusionRepository exclusionRepository,
+                               SoftwareSummaryService summaryService,
+                               DashboardStatsService statsService,
+                               InventoryDataVersion dataVersion,
+                               PlatformTransactionManager transactionManager) {
+        this.hostRepository = hostRepository;
+        this.changeRepository = changeRepository;
+        this.exclusionRepository = exclusionRepository;
+        this.summaryService = summaryService;
+        this.statsService = statsService;
+        this.dataVersion = dataVersion;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        purgeExecutor.shutdownNow();
+    }
+
+    /**
+     * Удаляет хосты: небольшая история — сразу, одной транзакцией; большая — в фоне.
+     */
+    public Result delete(Collection<Long> hostIds) {
+        if (hostIds == null || hostIds.isEmpty()) return new Result(0, 0);
+        List<Long> ids = new ArrayList<>(hostRepository.findExistingIds(hostIds));
+        ids.removeAll(purging);
+        if (ids.isEmpty()) return new Result(0, 0);
+
+        long history = changeRepository.countByHostIds(ids);
+        if (history < asyncThreshold) {
+            int deleted = transactionTemplate.execute(status -> deleteRows(ids));
+            log.info("Удалено хостов: {}, изменений в истории: {}", deleted, history);
+            return new Result(deleted, 0);
+        }
+
+        purging.addAll(ids);
+        purgeExecutor.submit(() -> purge(ids, history));
+        log.info("Фоновое удаление {} хостов: {} изменений в истории", ids.size(), history);
+        return new Result(0, ids.size());
+    }
+
+    public boolean isPurging(Long hostId) {
+        return purging.contains(hostId);
+    }
+
+    private void purge(List<Long> ids, long history) {
+        try {
+            long purged = 0;
+            int batch;
+            do {
+                batch = transactionTemplate.execute(status -> changeRepository.deleteBatchByHostIds(ids, purgeBatchSize));
+                purged += batch;
+            } while (batch >= purgeBatchSize);
+            int deleted = transactionTemplate.execute(status -> deleteRows(ids));
+            log.info("Фоновое удаление завершено: хостов {}, изменений {} из {}", deleted, purged, history);
+        } catch (Exception e) {
+            log.error("Фоновое удаление хостов {} прервано: {}", ids, e.getMessage(), e);
+        } finally {
+            purging.removeAll(ids);
+        }
+    }
+
+    /**
+     * Удаление строк в текущей транзакции. Свёртки истории удаляются каскадно (ON DELETE CASCADE);
+     * наборы ПО остаются до плановой очистки — они могут быть общими с другими хостами.
+     */
+    private int deleteRows(List<Long> ids) {
+        List<Integer> titleIds = summaryService.subtractHosts(ids);
+        changeRepository.deleteByHostIds(ids);
+        exclusionRepository.deleteByHostIds(ids);
+        hostRepository.deleteGroupLinksByHostIds(ids);
+        int deleted = hostRepository.deleteRowsByIds(ids);
+        summaryService.refreshAfterHostsRemoved(titleIds);
+        statsService.onHostDeleted();
+        dataVersion.bump();
+        return deleted;
+    }
+
+    public static class Result {
+        private final int deleted;
+        private final int queued;
+
+        public Result(int deleted, int queued) {
+            this.deleted = deleted;
+            this.queued = queued;
+        }
+
+        /** Удалено сразу. */
+        public int getDeleted() { return deleted; }
+
+        /** Поставлено в очередь фонового удаления. */
+        public int getQueued() { return queued; }
+    }
+}
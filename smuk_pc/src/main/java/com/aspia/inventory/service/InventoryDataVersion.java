@@ -0,0 +1,29 @@
+package com.aspia.inventory.service;
+
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.aspia.inventory.util.TransactionCallbacks.afterCommit;
+
+/**
+ * Версия данных реестра для кэша готовых отчётов. Увеличивается после синхронизации,
+ * удаления хостов и правок, видимых в отчётах; отчёт с текущей версией считается актуальным.
+ * Начальное значение — время запуска, поэтому файлы от прошлого запуска с новой версией не совпадут.
+ */
+@Component
+public class InventoryDataVersion {
+
+    private final AtomicLong version = new AtomicLong(System.currentTimeMillis());
+
+    public long current() {
+        return version.get();
+    }
+
+    /**
+     * Новая версия после фиксации текущей транзакции.
+     */
+    public void bump() {
+        afterCommit(version::incrementAndGet);
+    }
+}
@@ -1,14 +1,15 @@
 package com.aspia.inventory.service;
 
+import com.aspia.inventory.dto.ChangeExportRow;
+import com.aspia.inventory.dto.HardwareReportRow;
 import com.aspia.inventory.model.Host;
+import com.aspia.inventory.util.DelimitedWriter;
 import com.lowagie.text.Document;
-import com.lowagie.text.DocumentException;
 import com.lowagie.text.Element;
 import com.lowagie.text.Font;
 import com.lowagie.text.PageSize;
 import com.lowagie.text.Paragraph;
 import com.lowagie.text.Phrase;
-import com.lowagie.text.pdf.BaseFont;
 import com.lowagie.text.pdf.PdfPCell;
 import com.lowagie.text.pdf.PdfPTable;
 import com.lowagie.text.pdf.PdfWriter;
@@ -19,16 +20,16 @@ import org.apache.poi.ss.usermodel.IndexedColors;
 import org.apache.poi.ss.usermodel.Row;
 import org.apache.poi.ss.usermodel.Sheet;
 import org.apache.poi.ss.usermodel.Cell;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
 import org.springframework.stereotype.Service;
 
 import java.awt.Color;
 import com.aspia.inventory.model.ComponentChange;
-import com.aspia.inventory.model.HostSoftware;
+import com.aspia.inventory.model.SoftwareSetItem;
 
-import java.io.ByteArrayOutputStream;
-import java.io.File;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
@@ -41,112 +42,88 @@ public class InventoryExportService {
             "ОЗУ", "Видеоадаптер", "ОС", "IP-адрес", "Статус"
     };
 
-    private static final DateTimeFormatter DT_FMT = DateTimeFormatter.ofPattern("dd.MM.yyyy HH:mm");
+    private static final String[] CHANGE_HEADERS = {
+            "ID", "Дата", "Хост", "Системное имя", "Группы", "Компонент", "Тип изменения",
+            "Старое значение", "Новое значение", "Просмотрено", "Дата просмотра", "Кем просмотрено"
+    };
 
-    // ==================== EXCEL ====================
+    private static final DateTimeFormatter DT_FMT = DateTimeFormatter.ofPattern("dd.MM.yyyy HH:mm");
 
-    public byte[] exportHardwareExcel(List<Host> hosts) throws IOException {
-        try (XSSFWorkbook workbook = new XSSFWorkbook();
-             ByteArrayOutputStream out = new ByteArrayOutputStream()) {
-
-            Sheet sheet = workbook.createSheet("Оборудование");
-
-            // Стили
-            CellStyle headerStyle = workbook.createCellStyle();
-            org.apache.poi.ss.usermodel.Font headerFont = workbook.createFont();
-            headerFont.setBold(true);
-            headerFont.setFontHeightInPoints((short) 11);
-            headerStyle.setFont(headerFont);
-            headerStyle.setFillForegroundColor(IndexedColors.LIGHT_CORNFLOWER_BLUE.getIndex());
-            headerStyle.setFillPattern(FillPatternType.SOLID_FOREGROUND);
-            headerStyle.setBorderBottom(BorderStyle.THIN);
-
-            // Заголовки
-            Row headerRow = sheet.createRow(0);
-            for (int i = 0; i < HW_HEADERS.length; i++) {
-                Cell cell = headerRow.createCell(i);
-                cell.setCellValue(HW_HEADERS[i]);
-                cell.setCellStyle(headerStyle);
-            }
+    /** Строк листа Excel в памяти при потоковой записи. */
+    private static final int ROW_WINDOW = 100;
+    private static final int MAX_COLUMNS = 16;
+    /** Предел ширины колонки в символах — длинные значения не растягивают лист. */
+    private static final int MAX_COLUMN_CHARS = 60;
+    /** Строк данных на лист: предел Excel — 1 048 576 вместе с заголовком. */
+    private static final int MAX_SHEET_ROWS = 1_000_000;
+    /** Предел длины текста в ячейке Excel. */
+    private static final int MAX_CELL_CHARS = 32_767;
+    /** Через сколько строк PDF-таблица выводится в документ и освобождается. */
+    private static final int PDF_FLUSH_ROWS = 200;
+
+    private static final Color HEADER_BG = new Color(52, 58, 64);
+    private static final Color ALT_ROW = new Color(248, 249, 250);
+
+    private final PdfFontRegistry fonts;
+
+    public InventoryExportService(PdfFontRegistry fonts) {
+        this.fonts = fonts;
+    }
 
-            // Данные
-            int rowNum = 1;
-            for (Host host : hosts) {
-                Row row = sheet.createRow(rowNum++);
-                row.createCell(0).setCellValue(host.getDisplayName());
-                row.createCell(1).setCellValue(safe(host.getComputerName()));
-                row.createCell(2).setCellValue(safe(host.getMotherboard()));
-                row.createCell(3).setCellValue(safe(host.getCpuModel()));
-                row.createCell(4).setCellValue(safe(host.getFormattedRam()));
-                row.createCell(5).setCellValue(safe(host.getVideoAdapter()));
-                row.createCell(6).setCellValue(safe(host.getOsName()));
-                row.createCell(7).setCellValue(safe(host.getIpAddress()));
-                row.createCell(8).setCellValue(host.getSyncError() != null ? "Ошибка" :
-                        (host.isOnline() ? "Онлайн" : "Оффлайн"));
-            }
+    // ==================== EXCEL ====================
 
-            // Автоширина колонок
-            for (int i = 0; i < HW_HEADERS.length; i++) {
-                sheet.autoSizeColumn(i);
+    public void writeHardwareExcel(HardwareReportRow.Source source, OutputStream out) throws IOException {
+        try (SXSSFWorkbook workbook = newStreamingWorkbook()) {
+            try {
+                SheetWriter sheet = new SheetWriter(workbook, "Оборудование");
+                sheet.header(HW_HEADERS, createHeaderStyle(workbook));
+                source.forEach(host -> sheet.row(host.getDisplayName(),
+                        safe(host.getComputerName()),
+                        safe(host.getMotherboard()),
+                        safe(host.getCpuModel()),
+                        safe(host.getFormattedRam()),
+                        safe(host.getVideoAdapter()),
+                        safe(host.getOsName()),
+                        safe(host.getIpAddress()),
+                        host.getStatus()));
+                sheet.applyColumnWidths();
+                workbook.write(out);
+            } finally {
+                workbook.dispose();
             }
-
-            workbook.write(out);
-            return out.toByteArray();
         }
     }
 
-    public byte[] exportSoftwareExcel(List<Object[]> softwareList) throws IOException {
-        try (XSSFWorkbook workbook = new XSSFWorkbook();
-             ByteArrayOutputStream out = new ByteArrayOutputStream()) {
-
-            Sheet sheet = workbook.createSheet("Программное обеспечение");
-
-            CellStyle headerStyle = workbook.createCellStyle();
-            org.apache.poi.ss.usermodel.Font headerFont = workbook.createFont();
-            headerFont.setBold(true);
-            headerFont.setFontHeightInPoints((short) 11);
-            headerStyle.setFont(headerFont);
-            headerStyle.setFillForegroundColor(IndexedColors.LIGHT_CORNFLOWER_BLUE.getIndex());
-            headerStyle.setFillPattern(FillPatternType.SOLID_FOREGROUND);
-            headerStyle.setBorderBottom(BorderStyle.THIN);
-
-            Row headerRow = sheet.createRow(0);
-            String[] swHeaders = {"Программа", "Издатель", "Кол-во ПК"};
-            for (int i = 0; i < swHeaders.length; i++) {
-                Cell cell = headerRow.createCell(i);
-                cell.setCellValue(swHeaders[i]);
-                cell.setCellStyle(headerStyle);
-            }
-
-            int rowNum = 1;
-            for (Object[] sw : softwareList) {
-                Row row = sheet.createRow(rowNum++);
-                row.createCell(0).setCellValue(sw[0] != null ? sw[0].toString() : "");
-                row.createCell(1).setCellValue(sw[1] != null ? sw[1].toString() : "—");
-                row.createCell(2).setCellValue(((Number) sw[2]).intValue());
+    public void writeSoftwareExcel(List<Object[]> softwareList, OutputStream out) throws IOException {
+        try (SXSSFWorkbook workbook = newStreamingWorkbook()) {
+            try {
+                SheetWriter sheet = new SheetWriter(workbook, "Программное обеспечение");
+                sheet.header(new String[]{"Программа", "Издатель", "Кол-во ПК"}, createHeaderStyle(workbook));
+                for (Object[] sw : softwareList) {
+                    sheet.row(sw[0] != null ? sw[0].toString() : "",
+                            sw[1] != null ? sw[1].toString() : "—",
+                            ((Number) sw[2]).intValue());
+                }
+                sheet.applyColumnWidths();
+                workbook.write(out);
+            } finally {
+                workbook.dispose();
             }
-
-            for (int i = 0; i < swHeaders.length; i++) {
-                sheet.autoSizeColumn(i);
-            }
-
-            workbook.write(out);
-            return out.toByteArray();
         }
     }
 
     // ==================== PDF ====================
 
-    public byte[] exportHardwarePdf(List<Host> hosts) throws DocumentException, IOException {
-        ByteArrayOutputStream out = new ByteArrayOutputStream();
-        Document document = new Document(PageSize.A4.rotate(), 20, 20, 30, 20);
-        PdfWriter.getInstance(document, out);
-        document.open();
+    /**
+     * @param hostCount число хостов для заголовка — строки источника читаются уже после него
+     */
+    public void writeHardwarePdf(HardwareReportRow.Source source, long hostCount, OutputStream out) throws IOException {
+        Document document = openPdf(new Document(PageSize.A4.rotate(), 20, 20, 30, 20), out);
 
-        Font titleFont = getCyrillicFont(16, Font.BOLD);
-        Font headerFont = getCyrillicFont(9, Font.BOLD);
-        Font cellFont = getCyrillicFont(8, Font.NORMAL);
-        Font metaFont = getCyrillicFont(8, Font.ITALIC);
+        Font titleFont = fonts.font(16, Font.BOLD);
+        Font headerFont = fonts.font(9, Font.BOLD, Color.WHITE);
+        Font cellFont = fonts.font(8, Font.NORMAL);
+        Font metaFont = fonts.font(8, Font.ITALIC);
 
         // Заголовок
         Paragraph title = new Paragraph("Инвентарь оборудования — SMUK PC Monitor", titleFont);
@@ -155,28 +132,17 @@ public class InventoryExportService {
         document.add(title);
 
         Paragraph meta = new Paragraph("Дата формирования: " + LocalDateTime.now().format(DT_FMT) +
-                "  |  Всего устройств: " + hosts.size(), metaFont);
+                "  |  Всего устройств: " + hostCount, metaFont);
         meta.setAlignment(Element.ALIGN_CENTER);
         meta.setSpacingAfter(12);
         document.add(meta);
 
         // Таблица
-        PdfPTable table = new PdfPTable(HW_HEADERS.length);
-        table.setWidthPercentage(100);
-        table.setWidths(new float[]{12, 10, 14, 18, 6, 14, 12, 8, 6});
-
-        for (String h : HW_HEADERS) {
-            PdfPCell cell = new PdfPCell(new Phrase(h, headerFont));
-            cell.setBackgroundColor(new Color(52, 58, 64));
-            cell.getPhrase().getFont().setColor(Color.WHITE);
-            cell.setPadding(5);
-            cell.setHorizontalAlignment(Element.ALIGN_CENTER);
-            table.addCell(cell);
-        }
+        PdfPTable table = newLargeTable(new float[]{12, 10, 14, 18, 6, 14, 12, 8, 6}, HW_HEADERS, headerFont, 5);
 
-        boolean alt = false;
-        for (Host host : hosts) {
-            Color bg = alt ? new Color(248, 249, 250) : Color.WHITE;
+        int[] rows = {0};
+        source.forEach(host -> {
+            Color bg = rows[0] % 2 == 1 ? ALT_ROW : Color.WHITE;
             addPdfCell(table, host.getDisplayName(), cellFont, bg);
             addPdfCell(table, safe(host.getComputerName()), cellFont, bg);
             addPdfCell(table, safe(host.getMotherboard()), cellFont, bg);
@@ -185,27 +151,21 @@ public class InventoryExportService {
             addPdfCell(table, safe(host.getVideoAdapter()), cellFont, bg);
             addPdfCell(table, safe(host.getOsName()), cellFont, bg);
             addPdfCell(table, safe(host.getIpAddress()), cellFont, bg);
-            String status = host.getSyncError() != null ? "Ошибка" :
-                    (host.isOnline() ? "Онлайн" : "Оффлайн");
-            addPdfCell(table, status, cellFont, bg);
-            alt = !alt;
-        }
+            addPdfCell(table, host.getStatus(), cellFont, bg);
+            flushRows(document, table, ++rows[0]);
+        });
 
-        document.add(table);
+        finishTable(document, table);
         document.close();
-        return out.toByteArray();
     }
 
-    public byte[] exportSoftwarePdf(List<Object[]> softwareList) throws DocumentException, IOException {
-        ByteArrayOutputStream out = new ByteArrayOutputStream();
-        Document document = new Document(PageSize.A4, 30, 30, 30, 20);
-        PdfWriter.getInstance(document, out);
-        document.open();
+    public void writeSoftwarePdf(List<Object[]> softwareList, OutputStream out) {
+        Document document = openPdf(new Document(PageSize.A4, 30, 30, 30, 20), out);
 
-        Font titleFont = getCyrillicFont(16, Font.BOLD);
-        Font headerFont = getCyrillicFont(10, Font.BOLD);
-        Font cellFont = getCyrillicFont(9, Font.NORMAL);
-        Font metaFont = getCyrillicFont(9, Font.ITALIC);
+        Font titleFont = fonts.font(16, Font.BOLD);
+        Font headerFont = fonts.font(10, Font.BOLD, Color.WHITE);
+        Font cellFont = fonts.font(9, Font.NORMAL);
+        Font metaFont = fonts.font(9, Font.ITALIC);
 
         Paragraph title = new Paragraph("Инвентарь ПО — SMUK PC Monitor", titleFont);
         title.setAlignment(Element.ALIGN_CENTER);
@@ -218,23 +178,12 @@ public class InventoryExportService {
         meta.setSpacingAfter(12);
         document.add(meta);
 
-        PdfPTable table = new PdfPTable(3);
-        table.setWidthPercentage(100);
-        table.setWidths(new float[]{45, 35, 20});
+        PdfPTable table = newLargeTable(new float[]{45, 35, 20},
+                new String[]{"Программа", "Издатель", "Кол-во ПК"}, headerFont, 5);
 
-        String[] swHeaders = {"Программа", "Издатель", "Кол-во ПК"};
-        for (String h : swHeaders) {
-            PdfPCell cell = new PdfPCell(new Phrase(h, headerFont));
-            cell.setBackgroundColor(new Color(52, 58, 64));
-            cell.getPhrase().getFont().setColor(Color.WHITE);
-            cell.setPadding(5);
-            cell.setHorizontalAlignment(Element.ALIGN_CENTER);
-            table.addCell(cell);
-        }
-
-        boolean alt = false;
+        int rows = 0;
         for (Object[] sw : softwareList) {
-            Color bg = alt ? new Color(248, 249, 250) : Color.WHITE;
+            Color bg = rows % 2 == 1 ? ALT_ROW : Color.WHITE;
             addPdfCell(table, sw[0] != null ? sw[0].toString() : "", cellFont, bg);
             addPdfCell(table, sw[1] != null ? sw[1].toString() : "—", cellFont, bg);
             PdfPCell countCell = new PdfPCell(new Phrase(String.valueOf(((Number) sw[2]).intValue()), cellFont));
@@ -242,46 +191,52 @@ public class InventoryExportService {
             countCell.setPadding(4);
             countCell.setHorizontalAlignment(Element.ALIGN_CENTER);
             table.addCell(countCell);
-            alt = !alt;
+            flushRows(document, table, ++rows);
         }
 
-        document.add(table);
+        finishTable(document, table);
         document.close();
-        return out.toByteArray();
     }
 
     // ==================== Карточка хоста (PDF) ====================
 
-    public byte[] exportHostCardPdf(Host host, List<HostSoftware> software, List<ComponentChange> changes)
-            throws DocumentException, IOException {
-        ByteArrayOutputStream out = new ByteArrayOutputStream();
-        Document document = new Document(PageSize.A4, 30, 30, 30, 20);
-        PdfWriter.getInstance(document, out);
-        document.open();
-
-        Font titleFont = getCyrillicFont(16, Font.BOLD);
-        Font sectionFont = getCyrillicFont(13, Font.BOLD);
-        Font labelFont = getCyrillicFont(9, Font.BOLD);
-        Font valueFont = getCyrillicFont(9, Font.NORMAL);
-        Font headerFont = getCyrillicFont(8, Font.BOLD);
-        Font cellFont = getCyrillicFont(8, Font.NORMAL);
-        Font metaFont = getCyrillicFont(8, Font.ITALIC);
+    /**
+     * @param changesNote пояснение в заголовке карточки, что история изменений неполная; null — история вся
+     */
+    public void writeHostCardPdf(Host host, List<SoftwareSetItem> software, List<ComponentChange> changes,
+                                 String changesNote, OutputStream out) {
+        Document document = openPdf(new Document(PageSize.A4, 30, 30, 30, 20), out);
+
+        Font titleFont = fonts.font(16, Font.BOLD);
+        Font sectionFont = fonts.font(13, Font.BOLD);
+        Font labelFont = fonts.font(9, Font.BOLD);
+        Font valueFont = fonts.font(9, Font.NORMAL);
+        Font headerFont = fonts.font(8, Font.BOLD, Color.WHITE);
+        Font cellFont = fonts.font(8, Font.NORMAL);
+        Font metaFont = fonts.font(8, Font.ITALIC);
 
         // === Заголовок ===
         Paragraph title = new Paragraph("Карточка устройства", titleFont);
         title.setAlignment(Element.ALIGN_CENTER);
         document.add(title);
 
-        Paragraph hostName = new Paragraph(host.getDisplayName(), getCyrillicFont(14, Font.BOLD));
+        Paragraph hostName = new Paragraph(host.getDisplayName(), fonts.font(14, Font.BOLD));
         hostName.setAlignment(Element.ALIGN_CENTER);
         hostName.setSpacingAfter(3);
         document.add(hostName);
 
         Paragraph meta = new Paragraph("Сформировано: " + LocalDateTime.now().format(DT_FMT) + "  |  SMUK PC Monitor", metaFont);
         meta.setAlignment(Element.ALIGN_CENTER);
-        meta.setSpacingAfter(15);
+        meta.setSpacingAfter(changesNote != null ? 3 : 15);
         document.add(meta);
 
+        if (changesNote != null) {
+            Paragraph note = new Paragraph(changesNote, metaFont);
+            note.setAlignment(Element.ALIGN_CENTER);
+            note.setSpacingAfter(15);
+            document.add(note);
+        }
+
         // === Основная информация ===
         document.add(createSectionHeader("Конфигурация", sectionFont));
 
@@ -318,155 +273,188 @@ public class InventoryExportService {
         if (!software.isEmpty()) {
             document.add(createSectionHeader("Программное обеспечение (" + software.size() + ")", sectionFont));
 
-            PdfPTable swTable = new PdfPTable(3);
-            swTable.setWidthPercentage(100);
-            swTable.setWidths(new float[]{50, 25, 25});
-            swTable.setSpacingAfter(15);
-
-            String[] swHeaders = {"Название", "Версия", "Издатель"};
-            for (String h : swHeaders) {
-                PdfPCell cell = new PdfPCell(new Phrase(h, headerFont));
-                cell.setBackgroundColor(new Color(52, 58, 64));
-                cell.getPhrase().getFont().setColor(Color.WHITE);
-                cell.setPadding(4);
-                swTable.addCell(cell);
-            }
+            PdfPTable swTable = newLargeTable(new float[]{50, 25, 25},
+                    new String[]{"Название", "Версия", "Издатель"}, headerFont, 4);
 
-            boolean alt = false;
-            for (HostSoftware sw : software) {
-                Color bg = alt ? new Color(248, 249, 250) : Color.WHITE;
+            int rows = 0;
+            for (SoftwareSetItem sw : software) {
+                Color bg = rows % 2 == 1 ? ALT_ROW : Color.WHITE;
                 addPdfCell(swTable, sw.getName(), cellFont, bg);
                 addPdfCell(swTable, safe(sw.getVersion()), cellFont, bg);
                 addPdfCell(swTable, safe(sw.getPublisher()), cellFont, bg);
-                alt = !alt;
+                flushRows(document, swTable, ++rows);
             }
-            document.add(swTable);
+            finishTable(document, swTable);
         }
 
         // === История изменений ===
         if (!changes.isEmpty()) {
-            document.add(createSectionHeader("История изменений (" + changes.size() + ")", sectionFont));
-
-            PdfPTable chTable = new PdfPTable(5);
-            chTable.setWidthPercentage(100);
-            chTable.setWidths(new float[]{15, 15, 15, 27, 28});
-
-            String[] chHeaders = {"Дата", "Компонент", "Тип", "Старое значение", "Новое значение"};
-            for (String h : chHeaders) {
-                PdfPCell cell = new PdfPCell(new Phrase(h, headerFont));
-                cell.setBackgroundColor(new Color(52, 58, 64));
-                cell.getPhrase().getFont().setColor(Color.WHITE);
-                cell.setPadding(4);
-                chTable.addCell(cell);
-            }
+            document.add(createSectionHeader("История изменений (" + (changesNote != null ? "последние " : "")
+                    + changes.size() + ")", sectionFont));
 
-            boolean alt = false;
+            PdfPTable chTable = newLargeTable(new float[]{15, 15, 15, 27, 28},
+                    new String[]{"Дата", "Компонент", "Тип", "Старое значение", "Новое значение"}, headerFont, 4);
+
+            int rows = 0;
             for (ComponentChange ch : changes) {
-                Color bg = alt ? new Color(248, 249, 250) : Color.WHITE;
+                Color bg = rows % 2 == 1 ? ALT_ROW : Color.WHITE;
                 addPdfCell(chTable, ch.getDetectedAt().format(DT_FMT), cellFont, bg);
                 addPdfCell(chTable, ch.getComponentType(), cellFont, bg);
-                String type = "ADDED".equals(ch.getChangeType()) ? "Добавлено" :
-                        "REMOVED".equals(ch.getChangeType()) ? "Удалено" : "Изменено";
+                String type = changeTypeLabel(ch.getChangeType());
                 addPdfCell(chTable, type, cellFont, bg);
                 addPdfCell(chTable, safe(ch.getOldValue()), cellFont, bg);
                 addPdfCell(chTable, safe(ch.getNewValue()), cellFont, bg);
-                alt = !alt;
+                flushRows(document, chTable, ++rows);
             }
-            document.add(chTable);
+            finishTable(document, chTable);
         }
 
         document.close();
-        return out.toByteArray();
     }
 
     // ==================== Карточка хоста (Excel) ====================
 
-    public byte[] exportHostCardExcel(Host host, List<HostSoftware> software, List<ComponentChange> changes)
-            throws IOException {
-        try (XSSFWorkbook workbook = new XSSFWorkbook();
-             ByteArrayOutputStream out = new ByteArrayOutputStream()) {
-
-            CellStyle headerStyle = createHeaderStyle(workbook);
-            CellStyle labelStyle = workbook.createCellStyle();
-            org.apache.poi.ss.usermodel.Font boldFont = workbook.createFont();
-            boldFont.setBold(true);
-            labelStyle.setFont(boldFont);
-
-            // --- Лист 1: Конфигурация ---
-            Sheet configSheet = workbook.createSheet("Конфигурация");
-            int r = 0;
-            r = addExcelInfoRow(configSheet, r, "Имя устройства", host.getDisplayName(), labelStyle);
-            if (host.getAlias() != null && !host.getAlias().isEmpty()) {
-                r = addExcelInfoRow(configSheet, r, "Системное имя", host.getComputerName(), labelStyle);
-            }
-            r = addExcelInfoRow(configSheet, r, "Host ID (Aspia)", String.valueOf(host.getAspiaHostId()), labelStyle);
-            r = addExcelInfoRow(configSheet, r, "IP-адрес", safe(host.getIpAddress()), labelStyle);
-            r = addExcelInfoRow(configSheet, r, "Операционная система", safe(host.getOsName()), labelStyle);
-            r = addExcelInfoRow(configSheet, r, "Архитектура", safe(host.getArchitecture()), labelStyle);
-            r = addExcelInfoRow(configSheet, r, "Материнская плата", safe(host.getMotherboard()), labelStyle);
-            r = addExcelInfoRow(configSheet, r, "Процессор", safe(host.getCpuModel()), labelStyle);
-            r = addExcelInfoRow(configSheet, r, "Оперативная память", host.getFormattedRam(), labelStyle);
-            r = addExcelInfoRow(configSheet, r, "Объём дисков", host.getFormattedDisk(), labelStyle);
-            r = addExcelInfoRow(configSheet, r, "Видеоадаптер", safe(host.getVideoAdapter()), labelStyle);
-            r = addExcelInfoRow(configSheet, r, "Версия агента", safe(host.getAspiaVersion()), labelStyle);
-            String status = host.getSyncError() != null ? "Ошибка: " + host.getSyncError() :
-                    (host.isOnline() ? "Онлайн" : "Оффлайн");
-            r = addExcelInfoRow(configSheet, r, "Статус", status, labelStyle);
-            r = addExcelInfoRow(configSheet, r, "Последняя синхронизация",
-                    host.getLastSyncAt() != null ? host.getLastSyncAt().format(DT_FMT) : "—", labelStyle);
-            addExcelInfoRow(configSheet, r, "Группы",
-                    host.getGroupNamesString().isEmpty() ? "—" : host.getGroupNamesString(), labelStyle);
-            configSheet.autoSizeColumn(0);
-            configSheet.autoSizeColumn(1);
-
-            // --- Лист 2: ПО ---
-            Sheet swSheet = workbook.createSheet("Программное обеспечение");
-            Row swHeader = swSheet.createRow(0);
-            String[] swHeaders = {"Название", "Версия", "Издатель"};
-            for (int i = 0; i < swHeaders.length; i++) {
-                Cell cell = swHeader.createCell(i);
-                cell.setCellValue(swHeaders[i]);
-                cell.setCellStyle(headerStyle);
-            }
-            int swRow = 1;
-            for (HostSoftware sw : software) {
-                Row row = swSheet.createRow(swRow++);
-                row.createCell(0).setCellValue(sw.getName());
-                row.createCell(1).setCellValue(safe(sw.getVersion()));
-                row.createCell(2).setCellValue(safe(sw.getPublisher()));
-            }
-            for (int i = 0; i < swHeaders.length; i++) swSheet.autoSizeColumn(i);
-
-            // --- Лист 3: Изменения ---
-            Sheet chSheet = workbook.createSheet("История изменений");
-            Row chHeader = chSheet.createRow(0);
-            String[] chHeaders = {"Дата", "Компонент", "Тип", "Старое значение", "Новое значение"};
-            for (int i = 0; i < chHeaders.length; i++) {
-                Cell cell = chHeader.createCell(i);
-                cell.setCellValue(chHeaders[i]);
-                cell.setCellStyle(headerStyle);
-            }
-            int chRow = 1;
-            for (ComponentChange ch : changes) {
-                Row row = chSheet.createRow(chRow++);
-                row.createCell(0).setCellValue(ch.getDetectedAt().format(DT_FMT));
-                row.createCell(1).setCellValue(ch.getComponentType());
-                String type = "ADDED".equals(ch.getChangeType()) ? "Добавлено" :
-                        "REMOVED".equals(ch.getChangeType()) ? "Удалено" : "Изменено";
-                row.createCell(2).setCellValue(type);
-                row.createCell(3).setCellValue(safe(ch.getOldValue()));
-                row.createCell(4).setCellValue(safe(ch.getNewValue()));
+    public void writeHostCardExcel(Host host, List<SoftwareSetItem> software, List<ComponentChange> changes,
+                                   String changesNote, OutputStream out) throws IOException {
+        try (SXSSFWorkbook workbook = newStreamingWorkbook()) {
+            try {
+                CellStyle headerStyle = createHeaderStyle(workbook);
+                CellStyle labelStyle = workbook.createCellStyle();
+                org.apache.poi.ss.usermodel.Font boldFont = workbook.createFont();
+                boldFont.setBold(true);
+                labelStyle.setFont(boldFont);
+
+                // --- Лист 1: Конфигурация ---
+                SheetWriter config = new SheetWriter(workbook, "Конфигурация");
+                config.info("Имя устройства", host.getDisplayName(), labelStyle);
+                if (host.getAlias() != null && !host.getAlias().isEmpty()) {
+                    config.info("Системное имя", host.getComputerName(), labelStyle);
+                }
+                config.info("Host ID (Aspia)", String.valueOf(host.getAspiaHostId()), labelStyle);
+                config.info("IP-адрес", safe(host.getIpAddress()), labelStyle);
+                config.info("Операционная система", safe(host.getOsName()), labelStyle);
+                config.info("Архитектура", safe(host.getArchitecture()), labelStyle);
+                config.info("Материнская плата", safe(host.getMotherboard()), labelStyle);
+                config.info("Процессор", safe(host.getCpuModel()), labelStyle);
+                config.info("Оперативная память", host.getFormattedRam(), labelStyle);
+                config.info("Объём дисков", host.getFormattedDisk(), labelStyle);
+                config.info("Видеоадаптер", safe(host.getVideoAdapter()), labelStyle);
+                config.info("Версия агента", safe(host.getAspiaVersion()), labelStyle);
+                String status = host.getSyncError() != null ? "Ошибка: " + host.getSyncError() :
+                        (host.isOnline() ? "Онлайн" : "Оффлайн");
+                config.info("Статус", status, labelStyle);
+                config.info("Последняя синхронизация",
+                        host.getLastSyncAt() != null ? host.getLastSyncAt().format(DT_FMT) : "—", labelStyle);
+                config.info("Группы",
+                        host.getGroupNamesString().isEmpty() ? "—" : host.getGroupNamesString(), labelStyle);
+                if (changesNote != null) {
+                    config.info("История изменений", changesNote, labelStyle);
+                }
+                config.applyColumnWidths();
+
+                // --- Лист 2: ПО ---
+                SheetWriter swSheet = new SheetWriter(workbook, "Программное обеспечение");
+                swSheet.header(new String[]{"Название", "Версия", "Издатель"}, headerStyle);
+                for (SoftwareSetItem sw : software) {
+                    swSheet.row(sw.getName(), safe(sw.getVersion()), safe(sw.getPublisher()));
+                }
+                swSheet.applyColumnWidths();
+
+                // --- Лист 3: Изменения ---
+                SheetWriter chSheet = new SheetWriter(workbook, changesNote != null
+                        ? "История (последние " + changes.size() + ")" : "История изменений");
+                chSheet.header(new String[]{"Дата", "Компонент", "Тип", "Старое значение", "Новое значение"}, headerStyle);
+                for (ComponentChange ch : changes) {
+                    String type = changeTypeLabel(ch.getChangeType());
+                    chSheet.row(ch.getDetectedAt().format(DT_FMT), ch.getComponentType(), type,
+                            safe(ch.getOldValue()), safe(ch.getNewValue()));
+                }
+                chSheet.applyColumnWidths();
+
+                workbook.write(out);
+            } finally {
+                workbook.dispose();
             }
-            for (int i = 0; i < chHeaders.length; i++) chSheet.autoSizeColumn(i);
+        }
+    }
 
-            workbook.write(out);
-            return out.toByteArray();
+    // ==================== Журнал изменений ====================
+
+    public void writeChangesDelimited(ChangeExportRow.Source source, DelimitedWriter.Format format,
+                                      OutputStream out) throws IOException {
+        DelimitedWriter writer = new DelimitedWriter(out, format);
+        writer.row(CHANGE_HEADERS);
+        source.forEach(row -> writer.row(String.valueOf(row.getId()),
+                row.getDetectedAt() != null ? row.getDetectedAt().format(DT_FMT) : null,
+                row.getHostName(),
+                row.getComputerName(),
+                row.getGroupNames(),
+                row.getComponentType(),
+                changeTypeLabel(row.getChangeType()),
+                row.getOldValue(),
+                row.getNewValue(),
+                row.isAcknowledged() ? "Да" : "Нет",
+                row.getAcknowledgedAt() != null ? row.getAcknowledgedAt().format(DT_FMT) : null,
+                row.getAcknowledgedBy()));
+        writer.flush();
+    }
+
+    /**
+     * Лист Excel вмещает чуть больше миллиона строк — дальше журнал продолжается на следующем листе.
+     */
+    public void writeChangesExcel(ChangeExportRow.Source source, OutputStream out) throws IOException {
+        try (SXSSFWorkbook workbook = newStreamingWorkbook()) {
+            try {
+                CellStyle headerStyle = createHeaderStyle(workbook);
+                SheetWriter[] sheet = {newChangesSheet(workbook, 1, headerStyle)};
+                int[] sheetRows = {0};
+                source.forEach(row -> {
+                    if (sheetRows[0] == MAX_SHEET_ROWS) {
+                        sheet[0].applyColumnWidths();
+                        sheet[0] = newChangesSheet(workbook, workbook.getNumberOfSheets() + 1, headerStyle);
+                        sheetRows[0] = 0;
+                    }
+                    sheet[0].row(row.getId(),
+                            row.getDetectedAt() != null ? row.getDetectedAt().format(DT_FMT) : "",
+                            row.getHostName(),
+                            row.getComputerName(),
+                            row.getGroupNames(),
+                            row.getComponentType(),
+                            changeTypeLabel(row.getChangeType()),
+                            row.getOldValue(),
+                            row.getNewValue(),
+                            row.isAcknowledged() ? "Да" : "Нет",
+                            row.getAcknowledgedAt() != null ? row.getAcknowledgedAt().format(DT_FMT) : "",
+                            row.getAcknowledgedBy());
+                    sheetRows[0]++;
+                });
+                sheet[0].applyColumnWidths();
+                workbook.write(out);
+            } finally {
+                workbook.dispose();
+            }
         }
     }
 
+    private SheetWriter newChangesSheet(Workbook workbook, int number, CellStyle headerStyle) {
+        SheetWriter sheet = new SheetWriter(workbook, number == 1 ? "Изменения" : "Изменения (" + number + ")");
+        sheet.header(CHANGE_HEADERS, headerStyle);
+        return sheet;
+    }
+
     // ==================== Helpers ====================
 
-    private CellStyle createHeaderStyle(XSSFWorkbook workbook) {
+    /**
+     * Потоковая книга: в памяти держится только окно последних строк, остальные сброшены
+     * во временный файл (сжатый), поэтому расход памяти не зависит от числа строк.
+     */
+    private SXSSFWorkbook newStreamingWorkbook() {
+        SXSSFWorkbook workbook = new SXSSFWorkbook(ROW_WINDOW);
+        workbook.setCompressTempFiles(true);
+        return workbook;
+    }
+
+    private CellStyle createHeaderStyle(Workbook workbook) {
         CellStyle style = workbook.createCellStyle();
         org.apache.poi.ss.usermodel.Font font = workbook.createFont();
         font.setBold(true);
@@ -500,34 +488,45 @@ public class InventoryExportService {
         table.addCell(valueCell);
     }
 
-    private int addExcelInfoRow(Sheet sheet, int rowNum, String label, String value, CellStyle labelStyle) {
-        Row row = sheet.createRow(rowNum);
-        Cell labelCell = row.createCell(0);
-        labelCell.setCellValue(label);
-        labelCell.setCellStyle(labelStyle);
-        row.createCell(1).setCellValue(value != null ? value : "—");
-        return rowNum + 1;
+    /**
+     * Документ пишет прямо в поток ответа; закрытие документа поток не закрывает.
+     */
+    private Document openPdf(Document document, OutputStream out) {
+        PdfWriter writer = PdfWriter.getInstance(document, out);
+        writer.setCloseStream(false);
+        document.open();
+        return document;
     }
 
-    private Font getCyrillicFont(float size, int style) {
-        // Пробуем найти системный шрифт с поддержкой кириллицы
-        String[] candidates = {
-                "/System/Library/Fonts/Supplemental/Arial.ttf",
-                "/System/Library/Fonts/Helvetica.ttc",
-                "/usr/share/fonts/truetype/dejavu/DejaVuSans.ttf",
-                "/usr/share/fonts/truetype/liberation/LiberationSans-Regular.ttf",
-                "C:\\Windows\\Fonts\\arial.ttf"
-        };
-        for (String path : candidates) {
-            if (new File(path).exists()) {
-                try {
-                    BaseFont bf = BaseFont.createFont(path, BaseFont.IDENTITY_H, BaseFont.EMBEDDED);
-                    return new Font(bf, size, style);
-                } catch (Exception ignored) {}
-            }
+    /**
+     * Таблица, которая выводится частями: заголовок повторяется на каждой странице,
+     * а уже выведенные строки освобождаются (см. flushRows).
+     */
+    private PdfPTable newLargeTable(float[] widths, String[] headers, Font headerFont, float padding) {
+        PdfPTable table = new PdfPTable(widths.length);
+        table.setWidthPercentage(100);
+        table.setWidths(widths);
+        for (String h : headers) {
+            PdfPCell cell = new PdfPCell(new Phrase(h, headerFont));
+            cell.setBackgroundColor(HEADER_BG);
+            cell.setPadding(padding);
+            cell.setHorizontalAlignment(Element.ALIGN_CENTER);
+            table.addCell(cell);
         }
-        // Fallback — встроенный шрифт (кириллица может не отображаться)
-        return new Font(Font.HELVETICA, size, style);
+        table.setHeaderRows(1);
+        table.setComplete(false);
+        return table;
+    }
+
+    private void flushRows(Document document, PdfPTable table, int rows) {
+        if (rows % PDF_FLUSH_ROWS == 0) {
+            document.add(table);
+        }
+    }
+
+    private void finishTable(Document document, PdfPTable table) {
+        table.setComplete(true);
+        document.add(table);
     }
 
     private void addPdfCell(PdfPTable table, String text, Font font, Color bg) {
@@ -537,7 +536,74 @@ public class InventoryExportService {
         table.addCell(cell);
     }
 
+    private static String changeTypeLabel(String changeType) {
+        return "ADDED".equals(changeType) ? "Добавлено" :
+                "REMOVED".equals(changeType) ? "Удалено" : "Изменено";
+    }
+
     private String safe(String value) {
         return value != null ? value : "—";
     }
+
+    /**
+     * Запись строк листа с учётом ширины колонок по длине текста — без autoSizeColumn,
+     * который измеряет каждую ячейку через AWT и требует всех строк в памяти.
+     */
+    private static final class SheetWriter {
+
+        private final Sheet sheet;
+        private final int[] widths = new int[MAX_COLUMNS];
+        private int rowNum;
+
+        SheetWriter(Workbook workbook, String name) {
+            this.sheet = workbook.createSheet(name);
+        }
+
+        void header(String[] titles, CellStyle style) {
+            Row row = sheet.createRow(rowNum++);
+            for (int i = 0; i < titles.length; i++) {
+                Cell cell = row.createCell(i);
+                cell.setCellValue(titles[i]);
+                cell.setCellStyle(style);
+                track(i, titles[i]);
+            }
+        }
+
+        void row(Object... values) {
+            Row row = sheet.createRow(rowNum++);
+            for (int i = 0; i < values.length; i++) {
+                Object value = values[i];
+                Cell cell = row.createCell(i);
+                if (value instanceof Number) {
+                    cell.setCellValue(((Number) value).doubleValue());
+                } else {
+                    String text = value != null ? value.toString() : "";
+                    cell.setCellValue(text.length() > MAX_CELL_CHARS ? text.substring(0, MAX_CELL_CHARS) : text);
+                }
+                track(i, value);
+            }
+        }
+
+        void info(String label, String value, CellStyle labelStyle) {
+            Row row = sheet.createRow(rowNum++);
+            Cell labelCell = row.createCell(0);
+            labelCell.setCellValue(label);
+            labelCell.setCellStyle(labelStyle);
+            row.createCell(1).setCellValue(value != null ? value : "—");
+            track(0, label);
+            track(1, value);
+        }
+
+        void applyColumnWidths() {
+            for (int i = 0; i < widths.length && widths[i] > 0; i++) {
+                sheet.setColumnWidth(i, (Math.min(widths[i], MAX_COLUMN_CHARS) + 2) * 256);
+            }
+        }
+
+        private void track(int column, Object value) {
+            if (value == null || column >= widths.length) return;
+            int length = value.toString().length();
+            if (length > widths[column]) widths[column] = length;
+        }
+    }
 }
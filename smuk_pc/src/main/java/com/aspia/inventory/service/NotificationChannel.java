@@ -0,0 +1,108 @@
+package com.aspia.inventory.service;
+
+import com.aspia.inventory.dto.Notification;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * Канал доставки уведомлений. Реализация — Spring-бин: отрисовка уведомления и одна попытка
+ * отправки. Очередь, повторы, ограничение частоты и параллельности, учёт статистики — общие
+ * для всех каналов и выполняются NotificationDeliveryEngine. Своих потоков и клиентов канал
+ * не заводит: HTTP — через общий асинхронный HttpClient, блокирующая работа — в общем пуле
+ * из DeliveryContext.
+ *
+ * <p>Настройки очереди и маршрутизации — notifications.channels.&lt;name&gt;.*
+ * (groups, components, max-concurrency, messages-per-minute, burst, queue-capacity, max-attempts).
+ */
+public interface NotificationChannel {
+
+    /** Ключ настроек и значение notification_outbox.channel. */
+    String getName();
+
+    boolean isEnabled();
+
+    /** Предел длины сообщения: длиннее — делится на части по строкам; 0 — без деления. */
+    default int getMaxMessageLength() {
+        return 0;
+    }
+
+    /** Пометка перед частью разделённого сообщения, не длиннее 32 символов. */
+    default String partHeader(int part, int parts) {
+        return "(" + part + "/" + parts + ")\n";
+    }
+
+    String render(Notification notification);
+
+    CompletableFuture<DeliveryResult> send(String message, DeliveryContext context);
+
+    /**
+     * Общие ресурсы движка доставки.
+     */
+    class DeliveryContext {
+        private final HttpClient httpClient;
+        private final Executor executor;
+
+        public DeliveryContext(HttpClient httpClient, Executor executor) {
+            this.httpClient = httpClient;
+            this.executor = executor;
+        }
+
+        public HttpClient getHttpClient() { return httpClient; }
+
+        /** Общий ограниченный пул — для каналов с блокирующим протоколом (SMTP). */
+        public Executor getExecutor() { return executor; }
+    }
+
+    class DeliveryResult {
+        public static final DeliveryResult SENT = new DeliveryResult(Outcome.SENT, 0, null);
+
+        public enum Outcome { SENT, RETRY, REJECTED }
+
+        private final Outcome outcome;
+        /** Пауза в секундах, которую потребовал получатель; 0 — на усмотрение движка. */
+        private final long retryAfterSeconds;
+        private final String error;
+
+        private DeliveryResult(Outcome outcome, long retryAfterSeconds, String error) {
+            this.outcome = outcome;
+            this.retryAfterSeconds = retryAfterSeconds;
+            this.error = error;
+        }
+
+        public static DeliveryResult retry(long retryAfterSeconds, String error) {
+            return new DeliveryResult(Outcome.RETRY, retryAfterSeconds, error);
+        }
+
+        /** Сообщение некорректно для получателя — повтор не поможет. */
+        public static DeliveryResult rejected(String error) {
+            return new DeliveryResult(Outcome.REJECTED, 0, error);
+        }
+
+        /**
+         * Результат по HTTP-статусу: 2xx — отправлено, 429 и 5xx — повтор, прочие 4xx — отказ.
+         */
+        public static DeliveryResult ofHttpStatus(int status, long retryAfterSeconds, String error) {
+            if (status >= 200 && status < 300) return SENT;
+            if (status == 429 || status >= 500) return retry(retryAfterSeconds, status + " " + error);
+            return rejected(status + " " + error);
+        }
+
+        /** Заголовок Retry-After в секундах; дата или мусор — 0. */
+        public static long retryAfter(HttpHeaders headers) {
+            try {
+                return headers.firstValueAsLong("Retry-After").orElse(0);
+            } catch (NumberFormatException e) {
+                return 0;
+            }
+        }
+
+        public Outcome getOutcome() { return outcome; }
+
+        public long getRetryAfterSeconds() { return retryAfterSeconds; }
+
+        public String getError() { return error; }
+    }
+}
@@ -0,0 +1,435 @@
+package com.aspia.inventory.service;
+
+import com.aspia.inventory.dto.Notification;
+import com.aspia.inventory.service.NotificationChannel.DeliveryContext;
+import com.aspia.inventory.service.NotificationChannel.DeliveryResult;
+import com.aspia.inventory.util.TokenBucket;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Общий движок доставки для всех NotificationChannel. У каждого канала — своя ограниченная очередь,
+ * TokenBucket, предел одновременных отправок и счётчики; потоки и HTTP-клиент общие: один поток
+ * раздачи, пул notifications.delivery.threads для завершения отправок и блокирующих каналов,
+ * асинхронный HttpClient поверх того же пула. Новый канал не добавляет ни потоков, ни клиентов.
+ *
+ * <p>Ответ «повторить позже» возвращает сообщение в голову очереди канала: с паузой retry_after,
+ * если получатель её назвал, иначе с нарастающей задержкой. Итог доставки сообщается через Callback.
+ */
+@Service
+public class NotificationDeliveryEngine {
+
+    private static final Logger log = LoggerFactory.getLogger(NotificationDeliveryEngine.class);
+    /** Запас под NotificationChannel.partHeader. */
+    private static final int PART_HEADER_RESERVE = 32;
+    private static final long TICK_MS = 250;
+
+    private final List<NotificationChannel> channels;
+    private final Environment environment;
+
+    @Value("${notifications.delivery.threads:4}")
+    private int threads;
+
+    @Value("${notifications.delivery.timeout-seconds:30}")
+    private long timeoutSeconds;
+
+    private final Map<String, ChannelState> states = new LinkedHashMap<>();
+    private ExecutorService deliveryExecutor;
+    private ScheduledExecutorService dispatcher;
+    private DeliveryContext context;
+
+    public NotificationDeliveryEngine(List<NotificationChannel> channels, Environment environment) {
+        this.channels = channels;
+        this.environment = environment;
+    }
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger counter = new AtomicInteger();
+        deliveryExecutor = Executors.newFixedThreadPool(threads, r -> {
+            Thread thread = new Thread(r, "notification-delivery-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        HttpClient httpClient = HttpClient.newBuilder()
+                .executor(deliveryExecutor)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        context = new DeliveryContext(httpClient, deliveryExecutor);
+
+        for (NotificationChannel channel : channels) {
+            if (!channel.isEnabled()) continue;
+            states.put(channel.getName(), new ChannelState(channel));
+        }
+        log.info("Каналы уведомлений: {}", states.isEmpty() ? "нет" : String.join(", ", states.keySet()));
+
+        dispatcher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "notification-dispatcher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        dispatcher.scheduleWithFixedDelay(this::dispatchAll, TICK_MS, TICK_MS, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        dispatcher.shutdownNow();
+        deliveryExecutor.shutdownNow();
+        states.values().forEach(state -> {
+            synchronized (state) {
+                if (!state.queue.isEmpty()) {
+                    log.warn("Канал {}: при остановке не отправлено сообщений: {}", state.name(), state.queue.size());
+                }
+            }
+        });
+    }
+
+    /** Включённые каналы. */
+    public Collection<String> getChannelNames() {
+        return Collections.unmodifiableSet(states.keySet());
+    }
+
+    /**
+     * Каналы, правила которых принимают изменение компонента на хосте из указанных групп.
+     */
+    public List<String> route(Set<Long> groupIds, String componentType) {
+        List<String> result = new ArrayList<>();
+        for (ChannelState state : states.values()) {
+            if (state.accepts(groupIds, componentType)) result.add(state.name());
+        }
+        return result;
+    }
+
+    /**
+     * Постановка уведомления в очередь канала. false — канал выключен или очередь заполнена.
+     */
+    public boolean enqueue(String channelName, Notification notification, Callback callback) {
+        ChannelState state = states.get(channelName);
+        if (state == null) return false;
+        int maxLength = state.channel.getMaxMessageLength();
+        String text = state.channel.render(notification);
+        List<String> parts = maxLength > 0 ? split(text, maxLength - PART_HEADER_RESERVE)
+                : Collections.singletonList(text);
+        Delivery delivery = new Delivery(parts.size(), callback);
+        synchronized (state) {
+            if (state.queue.size() + parts.size() > state.queueCapacity) return false;
+            for (int i = 0; i < parts.size(); i++) {
+                String part = parts.size() == 1 ? parts.get(i)
+                        : state.channel.partHeader(i + 1, parts.size()) + parts.get(i);
+                state.queue.addLast(new Outgoing(part, delivery));
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Свободное место в очереди канала (в частях сообщений); 0 — канал выключен.
+     */
+    public int remainingCapacity(String channelName) {
+        ChannelState state = states.get(channelName);
+        if (state == null) return 0;
+        synchronized (state) {
+            return state.queueCapacity - state.queue.size();
+        }
+    }
+
+    /**
+     * Счётчики по каналам — для /admin/notification-stats.
+     */
+    public Map<String, Object> stats() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        for (ChannelState state : states.values()) {
+            Map<String, Object> channel = new LinkedHashMap<>();
+            synchronized (state) {
+                channel.put("queued", state.queue.size());
+                channel.put("inFlight", state.inFlight);
+            }
+            channel.put("maxConcurrency", state.maxConcurrency);
+            channel.put("sent", state.sent.get());
+            channel.put("retried", state.retried.get());
+            channel.put("rejected", state.rejected.get());
+            channel.put("failed", state.failed.get());
+            long attempts = state.attempts.get();
+            channel.put("avgLatencyMs", attempts == 0 ? 0 : state.latencyNanos.get() / attempts / 1_000_000);
+            channel.put("lastSentAt", state.lastSentAt);
+            channel.put("lastError", state.lastError);
+            result.put(state.name(), channel);
+        }
+        return result;
+    }
+
+    private void dispatchAll() {
+        for (ChannelState state : states.values()) {
+            try {
+                dispatch(state);
+            } catch (Exception e) {
+                log.error("Канал {}: ошибка отправки", state.name(), e);
+            }
+        }
+    }
+
+    private void dispatch(ChannelState state) {
+        while (true) {
+            Outgoing message;
+            synchronized (state) {
+                if (state.inFlight >= state.maxConcurrency || state.queue.isEmpty()) return;
+                if (System.nanoTime() - state.backoffUntil < 0) return;
+                if (state.bucket.tryAcquire() > 0) return;
+                message = state.queue.pollFirst();
+                state.inFlight++;
+            }
+            long startedAt = System.nanoTime();
+            CompletableFuture<DeliveryResult> future;
+            try {
+                future = state.channel.send(message.text, context);
+            } catch (Exception e) {
+                future = CompletableFuture.completedFuture(DeliveryResult.retry(0, e.getMessage()));
+            }
+            future.orTimeout(timeoutSeconds, TimeUnit.SECONDS).whenCompleteAsync((result, error) ->
+                    complete(state, message, result != null ? result : DeliveryResult.retry(0, describe(error)),
+                            startedAt), deliveryExecutor);
+        }
+    }
+
+    private void complete(ChannelState state, Outgoing message, DeliveryResult result, long startedAt) {
+        state.attempts.incrementAndGet();
+        state.latencyNanos.addAndGet(System.nanoTime() - startedAt);
+        switch (result.getOutcome()) {
+            case SENT:
+                state.sent.incrementAndGet();
+                state.lastSentAt = LocalDateTime.now();
+                synchronized (state) {
+                    state.inFlight--;
+                }
+                if (message.delivery.partSent()) notify(message.delivery, null, false);
+                break;
+            case REJECTED:
+                log.error("Канал {} отклонил сообщение: {}", state.name(), result.getError());
+                state.rejected.incrementAndGet();
+                state.lastError = result.getError();
+                fail(state, message.delivery, result.getError(), true);
+                break;
+            case RETRY:
+                state.retried.incrementAndGet();
+                state.lastError = result.getError();
+                if (++message.attempts >= state.maxAttempts) {
+                    log.error("Канал {}: сообщение не отправлено за {} попыток: {}", state.name(), message.attempts,
+                            result.getError());
+                    state.failed.incrementAndGet();
+                    fail(state, message.delivery, result.getError(), false);
+                    break;
+                }
+                synchronized (state) {
+                    state.inFlight--;
+                    state.queue.addFirst(message);
+                    if (result.getRetryAfterSeconds() > 0) {
+                        log.warn("Канал {}: превышен лимит, пауза {} с", state.name(), result.getRetryAfterSeconds());
+                        state.bucket.pause(result.getRetryAfterSeconds(), TimeUnit.SECONDS);
+                    } else {
+                        long delay = Math.min(5L << (message.attempts - 1), 300);
+                        log.warn("Канал {} недоступен ({}), повтор через {} с", state.name(), result.getError(), delay);
+                        state.backoffUntil = System.nanoTime() + TimeUnit.SECONDS.toNanos(delay);
+                    }
+                }
+                break;
+        }
+    }
+
+    /**
+     * Неудача одной части — неудача всего сообщения: оставшиеся части снимаются с очереди.
+     */
+    private void fail(ChannelState state, Delivery delivery, String error, boolean rejected) {
+        synchronized (state) {
+            state.inFlight--;
+            state.queue.removeIf(outgoing -> outgoing.delivery == delivery);
+        }
+        if (delivery.finish()) notify(delivery, error, rejected);
+    }
+
+    private void notify(Delivery delivery, String error, boolean rejected) {
+        try {
+            if (error == null && !rejected) {
+                delivery.callback.onSent();
+            } else {
+                delivery.callback.onFailed(error, rejected);
+            }
+        } catch (Exception e) {
+            log.error("Ошибка обработки итога доставки", e);
+        }
+    }
+
+    private static String describe(Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        if (cause instanceof TimeoutException) return "Превышено время ожидания";
+        return cause.getMessage() != null ? cause.getMessage() : cause.getClass().getSimpleName();
+    }
+
+    /**
+     * Деление текста на части не длиннее limit по границам строк: разметка MarkdownV2 в сообщениях
+     * не переходит через перевод строки, поэтому каждая часть остаётся корректной. Строка длиннее
+     * limit режется так, чтобы не отделить экранирующий «\» от символа.
+     */
+    static List<String> split(String text, int limit) {
+        List<String> parts = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        for (String line : text.split("\n", -1)) {
+            while (line.length() > limit) {
+                int cut = limit;
+                int backslashes = 0;
+                while (backslashes < cut && line.charAt(cut - 1 - backslashes) == '\\') backslashes++;
+                if (backslashes % 2 == 1) cut--;
+                if (Character.isHighSurrogate(line.charAt(cut - 1))) cut--;
+                flush(parts, current);
+                parts.add(line.substring(0, cut));
+                line = line.substring(cut);
+            }
+            if (current.length() > 0 && current.length() + 1 + line.length() > limit) {
+                flush(parts, current);
+            }
+            if (current.length() > 0) current.append('\n');
+            current.append(line);
+        }
+        flush(parts, current);
+        if (parts.isEmpty()) parts.add(text);
+        return parts;
+    }
+
+    private static void flush(List<String> parts, StringBuilder current) {
+        String part = current.toString().trim();
+        if (!part.isEmpty()) parts.add(part);
+        current.setLength(0);
+    }
+
+    /**
+     * Итог доставки; вызывается в потоке пула доставки.
+     */
+    public interface Callback {
+        void onSent();
+
+        /**
+         * @param rejected сообщение отклонено как некорректное — повтор не поможет
+         */
+        void onFailed(String error, boolean rejected);
+    }
+
+    /**
+     * Состояние канала: очередь, ограничения из notifications.channels.&lt;name&gt;.* и счётчики.
+     */
+    private class ChannelState {
+        final NotificationChannel channel;
+        final Set<Long> groups;
+        final Set<String> components;
+        final int maxConcurrency;
+        final int queueCapacity;
+        final int maxAttempts;
+        final TokenBucket bucket;
+
+        final Deque<Outgoing> queue = new ArrayDeque<>();
+        int inFlight;
+        /** Время (nanoTime), раньше которого повтор после ошибки не делается. */
+        long backoffUntil = System.nanoTime();
+
+        final AtomicLong sent = new AtomicLong();
+        final AtomicLong retried = new AtomicLong();
+        final AtomicLong rejected = new AtomicLong();
+        final AtomicLong failed = new AtomicLong();
+        final AtomicLong attempts = new AtomicLong();
+        final AtomicLong latencyNanos = new AtomicLong();
+        volatile LocalDateTime lastSentAt;
+        volatile String lastError;
+
+        ChannelState(NotificationChannel channel) {
+            this.channel = channel;
+            this.groups = list(channel.getName(), "groups").stream().map(Long::valueOf).collect(Collectors.toSet());
+            this.components = list(channel.getName(), "components").stream()
+                    .map(String::toUpperCase).collect(Collectors.toSet());
+            this.maxConcurrency = setting(channel.getName(), "max-concurrency", 1);
+            this.queueCapacity = setting(channel.getName(), "queue-capacity", 500);
+            this.maxAttempts = setting(channel.getName(), "max-attempts", 5);
+            this.bucket = new TokenBucket(setting(channel.getName(), "burst", 5),
+                    setting(channel.getName(), "messages-per-minute", 60));
+        }
+
+        String name() {
+            return channel.getName();
+        }
+
+        /** Пустой список групп или компонентов в настройках — без ограничения. */
+        boolean accepts(Set<Long> hostGroups, String componentType) {
+            if (!components.isEmpty() && (componentType == null || !components.contains(componentType))) return false;
+            return groups.isEmpty() || hostGroups.stream().anyMatch(groups::contains);
+        }
+    }
+
+    private int setting(String channel, String key, int defaultValue) {
+        return environment.getProperty("notifications.channels." + channel + "." + key, Integer.class, defaultValue);
+    }
+
+    private List<String> list(String channel, String key) {
+        String value = environment.getProperty("notifications.channels." + channel + "." + key, "");
+        return Arrays.stream(value.split(",")).map(String::trim).filter(s -> !s.isEmpty())
+                .collect(Collectors.toList());
+    }
+
+    private static class Delivery {
+        final Callback callback;
+        final AtomicInteger remaining;
+        final AtomicBoolean finished = new AtomicBoolean();
+
+        Delivery(int parts, Callback callback) {
+            this.remaining = new AtomicInteger(parts);
+            this.callback = callback;
+        }
+
+        /** true — отправлена последняя часть и итог ещё не сообщён. */
+        boolean partSent() {
+            return remaining.decrementAndGet() == 0 && finished.compareAndSet(false, true);
+        }
+
+        /** true — итог ещё не сообщён. */
+        boolean finish() {
+            return finished.compareAndSet(false, true);
+        }
+    }
+
+    private static class Outgoing {
+        final String text;
+        final Delivery delivery;
+        int attempts;
+
+        Outgoing(String text, Delivery delivery) {
+            this.text = text;
+            this.delivery = delivery;
+        }
+    }
+}
@@ -0,0 +1,215 @@
+package com.aspia.inventory.service;
+
+import com.aspia.inventory.dto.Notification;
+import com.aspia.inventory.model.OutboxMessage;
+import com.aspia.inventory.repository.OutboxMessageRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Доставка notification_outbox. Раз в poll-seconds для каждого включённого канала забирает пачку
+ * его строк, срок которых подошёл, и передаёт их NotificationDeliveryEngine: строки CHANGES пачки —
+ * одной сводкой, ACK — по одной.
+ * Строка удаляется после подтверждённой отправки; при ошибке — повтор с нарастающей паузой,
+ * после max-attempts строка остаётся со статусом FAILED. Отклонённая получателем сводка не
+ * помечает FAILED все свои строки: они отправляются повторно по одной (send_alone), и FAILED
+ * становится только строка, отклонённая и в одиночку. Пачка не больше свободного места
+ * в очереди канала, поэтому отставание копится в БД, а не в памяти.
+ */
+@Service
+public class NotificationOutboxRelay {
+
+    private static final Logger log = LoggerFactory.getLogger(NotificationOutboxRelay.class);
+    private static final int MAX_ERROR_LENGTH = 500;
+
+    private final OutboxMessageRepository outboxRepository;
+    private final NotificationService notificationService;
+    private final NotificationDeliveryEngine deliveryEngine;
+    private final TransactionTemplate transactionTemplate;
+
+    /** Период опроса; он же окно, в котором изменения разных хостов объединяются в сводку. */
+    @Value("${notifications.outbox.poll-seconds:15}")
+    private long pollSeconds;
+
+    @Value("${notifications.outbox.batch-size:500}")
+    private int batchSize;
+
+    /** Срок, на который строка забирается в работу; неподтверждённая строка будет отправлена снова. */
+    @Value("${notifications.outbox.lease-minutes:10}")
+    private long leaseMinutes;
+
+    @Value("${notifications.outbox.max-attempts:10}")
+    private int maxAttempts;
+
+    @Value("${notifications.outbox.failed-retention-days:30}")
+    private int failedRetentionDays;
+
+    private ScheduledExecutorService relayExecutor;
+
+    public NotificationOutboxRelay(OutboxMessageRepository outboxRepository,
+                                   NotificationService notificationService,
+                                   NotificationDeliveryEngine deliveryEngine,
+                                   PlatformTransactionManager transactionManager) {
+        this.outboxRepository = outboxRepository;
+        this.notificationService = notificationService;
+        this.deliveryEngine = deliveryEngine;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @PostConstruct
+    public void init() {
+        relayExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "notification-relay");
+            thread.setDaemon(true);
+            return thread;
+        });
+        relayExecutor.scheduleWithFixedDelay(this::relay, pollSeconds, pollSeconds, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        relayExecutor.shutdownNow();
+    }
+
+    private void relay() {
+        for (String channel : deliveryEngine.getChannelNames()) {
+            try {
+                relay(channel);
+            } catch (Exception e) {
+                log.error("Outbox: ошибка передачи уведомлений канала {}", channel, e);
+            }
+        }
+    }
+
+    private void relay(String channel) {
+        // Место под части длинных сообщений остаётся в запасе
+        int limit = Math.min(batchSize, deliveryEngine.remainingCapacity(channel) / 2);
+        if (limit <= 0) return;
+
+        List<OutboxMessage> batch = claim(channel, limit);
+        if (batch.isEmpty()) return;
+
+        List<Long> changeIds = new ArrayList<>();
+        List<String> changePayloads = new ArrayList<>();
+        int maxChangeAttempts = 0;
+        for (OutboxMessage message : batch) {
+            if (OutboxMessage.KIND_CHANGES.equals(message.getKind()) && message.isSendAlone()) {
+                send(channel, notificationService.buildChangesDigest(Collections.singletonList(message.getPayload())),
+                        Collections.singletonList(message.getId()), message.getAttempts() + 1);
+            } else if (OutboxMessage.KIND_CHANGES.equals(message.getKind())) {
+                changeIds.add(message.getId());
+                changePayloads.add(message.getPayload());
+                maxChangeAttempts = Math.max(maxChangeAttempts, message.getAttempts() + 1);
+            } else {
+                send(channel, notificationService.buildAcknowledged(message.getPayload()),
+                        Collections.singletonList(message.getId()), message.getAttempts() + 1);
+            }
+        }
+        if (!changeIds.isEmpty()) {
+            send(channel, notificationService.buildChangesDigest(changePayloads), changeIds, maxChangeAttempts);
+        }
+        log.debug("Outbox: в канал {} передано {} записей", channel, batch.size());
+    }
+
+    /**
+     * Блокировка пачки и продление аренды в короткой транзакции — отправка идёт уже вне её.
+     * attempts у возвращаемых сущностей — без учёта текущей попытки.
+     */
+    private List<OutboxMessage> claim(String channel, int limit) {
+        return transactionTemplate.execute(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            List<OutboxMessage> due = outboxRepository.lockDue(channel, now, limit);
+            if (due.isEmpty()) return due;
+            List<Long> ids = new ArrayList<>(due.size());
+            for (OutboxMessage message : due) ids.add(message.getId());
+            outboxRepository.claim(ids, now.plusMinutes(leaseMinutes));
+            return due;
+        });
+    }
+
+    private void send(String channel, Notification notification, List<Long> ids, int attempts) {
+        boolean accepted = deliveryEngine.enqueue(channel, notification, new NotificationDeliveryEngine.Callback() {
+            @Override
+            public void onSent() {
+                complete(ids);
+            }
+
+            @Override
+            public void onFailed(String error, boolean rejected) {
+                if (rejected && ids.size() > 1) {
+                    sendAlone(ids, error);
+                } else {
+                    fail(ids, error, attempts, rejected);
+                }
+            }
+        });
+        if (!accepted) {
+            fail(ids, "Очередь отправки заполнена", attempts, false);
+        }
+    }
+
+    private void complete(List<Long> ids) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> outboxRepository.deleteDelivered(ids));
+        } catch (Exception e) {
+            // Строки будут отправлены повторно по окончании аренды
+            log.error("Outbox: не удалось отметить доставку {} записей", ids.size(), e);
+        }
+    }
+
+    private void sendAlone(List<Long> ids, String error) {
+        String message = truncate(error);
+        try {
+            transactionTemplate.executeWithoutResult(status ->
+                    outboxRepository.markSendAlone(ids, message, LocalDateTime.now()));
+        } catch (Exception e) {
+            log.error("Outbox: не удалось поставить записи на отправку по одной", e);
+        }
+        log.warn("Outbox: сводка из {} записей отклонена получателем ({}), записи будут отправлены по одной",
+                ids.size(), message);
+    }
+
+    private void fail(List<Long> ids, String error, int attempts, boolean rejected) {
+        String message = truncate(error);
+        // 30 с, 1 мин, 2 мин ... не больше часа
+        long delaySeconds = Math.min(30L << Math.min(Math.max(attempts - 1, 0), 7), 3600);
+        try {
+            transactionTemplate.executeWithoutResult(status -> outboxRepository.markFailed(ids, message,
+                    LocalDateTime.now().plusSeconds(delaySeconds), rejected ? 0 : maxAttempts));
+        } catch (Exception e) {
+            log.error("Outbox: не удалось записать ошибку доставки", e);
+        }
+        log.warn("Outbox: {} записей не доставлено ({}), {}", ids.size(), message,
+                rejected ? "отклонено получателем" : "повтор через " + delaySeconds + " с");
+    }
+
+    private static String truncate(String error) {
+        if (error == null) return "Неизвестная ошибка";
+        return error.length() > MAX_ERROR_LENGTH ? error.substring(0, MAX_ERROR_LENGTH) : error;
+    }
+
+    @Scheduled(cron = "${notifications.outbox.cleanup-cron:0 45 3 * * *}")
+    public void purgeFailed() {
+        int removed = transactionTemplate.execute(status ->
+                outboxRepository.deleteFailedBefore(LocalDateTime.now().minusDays(failedRetentionDays)));
+        long pending = outboxRepository.countPending();
+        if (removed > 0 || pending > 0) {
+            log.info("Outbox: удалено недоставленных записей: {}, ожидают отправки: {}", removed, pending);
+        }
+    }
+}
@@ -0,0 +1,239 @@
+package com.aspia.inventory.service;
+
+import com.aspia.inventory.dto.AcknowledgementSummary;
+import com.aspia.inventory.dto.Notification;
+import com.aspia.inventory.model.OutboxMessage;
+import com.aspia.inventory.repository.HostRepository;
+import com.aspia.inventory.repository.OutboxMessageRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Уведомления об изменениях. Методы notify* ничего не отправляют: они раскладывают изменения
+ * по каналам согласно правилам маршрутизации (группа хоста, тип компонента) и пишут по строке
+ * notification_outbox на канал в транзакции вызывающего кода — уведомление существует, только
+ * если зафиксированы изменения, о которых оно сообщает, и переживает перезапуск.
+ * Доставляет NotificationOutboxRelay; обнаруженные изменения пачки объединяются в сводку
+ * (buildChangesDigest), где одинаковые изменения на разных хостах — один пункт.
+ */
+@Service
+public class NotificationService {
+
+    private static final Logger log = LoggerFactory.getLogger(NotificationService.class);
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    /** Различных изменений в одной сводке; остальные — числом. */
+    private static final int MAX_DIGEST_CHANGES = 500;
+
+    private final OutboxMessageRepository outboxRepository;
+    private final HostRepository hostRepository;
+    private final NotificationDeliveryEngine deliveryEngine;
+
+    public NotificationService(OutboxMessageRepository outboxRepository,
+                               HostRepository hostRepository,
+                               NotificationDeliveryEngine deliveryEngine) {
+        this.outboxRepository = outboxRepository;
+        this.hostRepository = hostRepository;
+        this.deliveryEngine = deliveryEngine;
+    }
+
+    /**
+     * DTO для передачи данных об изменении без привязки к Hibernate-сессии.
+     */
+    public static class ChangeInfo {
+        public final String hostName;
+        public final String componentType;
+        public final String changeType;
+        public final String oldValue;
+        public final String newValue;
+
+        public ChangeInfo(String hostName, String componentType, String changeType, String oldValue, String newValue) {
+            this.hostName = hostName;
+            this.componentType = componentType;
+            this.changeType = changeType;
+            this.oldValue = oldValue;
+            this.newValue = newValue;
+        }
+    }
+
+    /**
+     * Изменения хоста — в outbox каждого канала, чьи правила их принимают.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void notifyChangesDetected(Long hostId, String hostName, List<ChangeInfo> changes) {
+        if (!hasChannels() || changes.isEmpty()) return;
+
+        Set<Long> groupIds = groupIdsByHost(Collections.singleton(hostId))
+                .getOrDefault(hostId, Collections.emptySet());
+        Map<String, ArrayNode> byChannel = new LinkedHashMap<>();
+        for (ChangeInfo change : changes) {
+            for (String channel : deliveryEngine.route(groupIds, change.componentType)) {
+                byChannel.computeIfAbsent(channel, k -> MAPPER.createArrayNode()).addObject()
+                        .put("component", change.componentType)
+                        .put("type", change.changeType)
+                        .put("old", change.oldValue)
+                        .put("new", change.newValue);
+            }
+        }
+        byChannel.forEach((channel, items) -> {
+            ObjectNode payload = MAPPER.createObjectNode();
+            payload.put("host", hostName);
+            payload.set("changes", items);
+            outboxRepository.save(new OutboxMessage(channel, OutboxMessage.KIND_CHANGES, payload.toString()));
+        });
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void notifyChangesAcknowledged(String adminName, Long hostId, String hostName, List<ChangeInfo> changes) {
+        if (!hasChannels() || changes.isEmpty()) return;
+
+        Set<Long> groupIds = groupIdsByHost(Collections.singleton(hostId))
+                .getOrDefault(hostId, Collections.emptySet());
+        Map<String, ArrayNode> byChannel = new LinkedHashMap<>();
+        for (ChangeInfo change : changes) {
+            for (String channel : deliveryEngine.route(groupIds, change.componentType)) {
+                byChannel.computeIfAbsent(channel, k -> MAPPER.createArrayNode()).addObject()
+                        .put("host", hostName)
+                        .put("component", change.componentType)
+                        .put("type", change.changeType)
+                        .put("old", change.oldValue)
+                        .put("new", change.newValue)
+                        .put("count", 1);
+            }
+        }
+        saveAcknowledged(adminName, byChannel);
+    }
+
+    /**
+     * Сводка массового подтверждения, построенная по агрегатам UPDATE — без загрузки самих изменений.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void notifyChangesAcknowledgedSummary(String adminName, List<AcknowledgementSummary> summary) {
+        if (!hasChannels() || summary.isEmpty()) return;
+
+        Set<Long> hostIds = new HashSet<>();
+        for (AcknowledgementSummary row : summary) hostIds.add(row.getHostId());
+        Map<Long, Set<Long>> groupsByHost = groupIdsByHost(hostIds);
+
+        Map<String, ArrayNode> byChannel = new LinkedHashMap<>();
+        for (AcknowledgementSummary row : summary) {
+            Set<Long> groupIds = groupsByHost.getOrDefault(row.getHostId(), Collections.emptySet());
+            for (String channel : deliveryEngine.route(groupIds, row.getComponentType())) {
+                byChannel.computeIfAbsent(channel, k -> MAPPER.createArrayNode()).addObject()
+                        .put("host", row.getHostName())
+                        .put("component", row.getComponentType())
+                        .put("type", row.getChangeType())
+                        .put("count", row.getCount());
+            }
+        }
+        saveAcknowledged(adminName, byChannel);
+    }
+
+    private void saveAcknowledged(String adminName, Map<String, ArrayNode> byChannel) {
+        byChannel.forEach((channel, items) -> {
+            ObjectNode payload = MAPPER.createObjectNode();
+            payload.put("actor", adminName);
+            payload.set("items", items);
+            outboxRepository.save(new OutboxMessage(channel, OutboxMessage.KIND_ACKNOWLEDGED, payload.toString()));
+        });
+    }
+
+    /**
+     * Сводка по строкам CHANGES из outbox: одинаковое изменение → хосты, на которых оно обнаружено.
+     */
+    public Notification buildChangesDigest(List<String> payloads) {
+        Map<List<String>, Set<String>> changes = new LinkedHashMap<>();
+        Set<String> hosts = new LinkedHashSet<>();
+        long omitted = 0;
+        for (JsonNode payload : parse(payloads)) {
+            String hostName = payload.path("host").asText();
+            hosts.add(hostName);
+            for (JsonNode item : payload.path("changes")) {
+                List<String> key = Arrays.asList(text(item, "component"), text(item, "type"),
+                        text(item, "old"), text(item, "new"));
+                Set<String> keyHosts = changes.get(key);
+                if (keyHosts == null) {
+                    if (changes.size() >= MAX_DIGEST_CHANGES) {
+                        omitted++;
+                        continue;
+                    }
+                    keyHosts = new LinkedHashSet<>();
+                    changes.put(key, keyHosts);
+                }
+                keyHosts.add(hostName);
+            }
+        }
+        List<Notification.Item> items = new ArrayList<>(changes.size());
+        changes.forEach((key, keyHosts) -> items.add(new Notification.Item(key.get(0), key.get(1), key.get(2),
+                key.get(3), new ArrayList<>(keyHosts), keyHosts.size())));
+        return new Notification(Notification.Kind.CHANGES_DETECTED, null, new ArrayList<>(hosts), items, omitted,
+                LocalDateTime.now());
+    }
+
+    /**
+     * Подтверждение из строки ACKNOWLEDGED — отправляется отдельным сообщением, как и было сделано.
+     */
+    public Notification buildAcknowledged(String payload) {
+        List<JsonNode> parsed = parse(Collections.singletonList(payload));
+        JsonNode root = parsed.isEmpty() ? MAPPER.createObjectNode() : parsed.get(0);
+        Set<String> hosts = new LinkedHashSet<>();
+        List<Notification.Item> items = new ArrayList<>();
+        for (JsonNode item : root.path("items")) {
+            String host = item.path("host").asText();
+            hosts.add(host);
+            items.add(new Notification.Item(text(item, "component"), text(item, "type"), text(item, "old"),
+                    text(item, "new"), Collections.singletonList(host), item.path("count").asLong(1)));
+        }
+        return new Notification(Notification.Kind.CHANGES_ACKNOWLEDGED, root.path("actor").asText(),
+                new ArrayList<>(hosts), items, 0, LocalDateTime.now());
+    }
+
+    private boolean hasChannels() {
+        return !deliveryEngine.getChannelNames().isEmpty();
+    }
+
+    private Map<Long, Set<Long>> groupIdsByHost(Collection<Long> hostIds) {
+        Map<Long, Set<Long>> result = new HashMap<>();
+        for (Object[] link : hostRepository.findGroupLinks(hostIds)) {
+            result.computeIfAbsent((Long) link[0], k -> new HashSet<>()).add((Long) link[1]);
+        }
+        return result;
+    }
+
+    private static List<JsonNode> parse(List<String> payloads) {
+        List<JsonNode> result = new ArrayList<>(payloads.size());
+        for (String json : payloads) {
+            try {
+                result.add(MAPPER.readTree(json));
+            } catch (Exception e) {
+                log.error("Повреждённая запись outbox пропущена: {}", e.getMessage());
+            }
+        }
+        return result;
+    }
+
+    private static String text(JsonNode node, String field) {
+        JsonNode value = node.get(field);
+        return value == null || value.isNull() ? null : value.asText();
+    }
+
+    public static String formatChangeType(String changeType) {
+        if (changeType == null) return "Неизвестно";
+        switch (changeType) {
+            case "ADDED": return "Добавлено";
+            case "REMOVED": return "Удалено";
+            case "MODIFIED": return "Изменено";
+            case "UPDATED": return "Обновлено";
+            default: return changeType;
+        }
+    }
+}
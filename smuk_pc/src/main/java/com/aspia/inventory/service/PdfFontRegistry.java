@@ -0,0 +1,69 @@
+package com.aspia.inventory.service;
+
+import com.lowagie.text.Font;
+import com.lowagie.text.pdf.BaseFont;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.awt.Color;
+import java.io.File;
+
+/**
+ * Шрифт с кириллицей для PDF-выгрузок: файл ищется и разбирается один раз при старте,
+ * выгрузки получают лёгкие объекты Font поверх общего BaseFont.
+ */
+@Component
+public class PdfFontRegistry {
+
+    private static final Logger log = LoggerFactory.getLogger(PdfFontRegistry.class);
+
+    private static final String[] CANDIDATES = {
+            "/System/Library/Fonts/Supplemental/Arial.ttf",
+            "/System/Library/Fonts/Helvetica.ttc",
+            "/usr/share/fonts/truetype/dejavu/DejaVuSans.ttf",
+            "/usr/share/fonts/truetype/liberation/LiberationSans-Regular.ttf",
+            "C:\\Windows\\Fonts\\arial.ttf"
+    };
+
+    /** null — системный шрифт не найден, используется встроенный Helvetica. */
+    private final BaseFont baseFont;
+
+    public PdfFontRegistry() {
+        this.baseFont = loadBaseFont();
+    }
+
+    /**
+     * Новый Font на каждый вызов: PdfPCell и Phrase могут менять его свойства,
+     * поэтому сами Font между выгрузками не разделяются.
+     */
+    public Font font(float size, int style) {
+        if (baseFont == null) {
+            // Встроенный шрифт — кириллица может не отображаться
+            return new Font(Font.HELVETICA, size, style);
+        }
+        return new Font(baseFont, size, style);
+    }
+
+    public Font font(float size, int style, Color color) {
+        Font font = font(size, style);
+        font.setColor(color);
+        return font;
+    }
+
+    private static BaseFont loadBaseFont() {
+        for (String path : CANDIDATES) {
+            if (new File(path).exists()) {
+                try {
+                    BaseFont font = BaseFont.createFont(path, BaseFont.IDENTITY_H, BaseFont.EMBEDDED);
+                    log.info("Шрифт PDF: {}", path);
+                    return font;
+                } catch (Exception e) {
+                    log.debug("Шрифт {} не загружен: {}", path, e.getMessage());
+                }
+            }
+        }
+        log.warn("Шрифт с кириллицей для PDF не найден, используется Helvetica");
+        return null;
+    }
+}
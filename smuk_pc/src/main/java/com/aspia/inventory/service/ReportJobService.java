@@ -0,0 +1,364 @@
+package com.aspia.inventory.service;
+
+import com.aspia.inventory.dto.HardwareReportRow;
+import com.aspia.inventory.repository.HostRepository;
+import com.aspia.inventory.util.DownloadResponses;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Отчёты по всему парку строятся в фоне. Готовый файл хранится на диске под именем
+ * «тип-версия данных» и отдаётся повторно, пока данные не изменились; одинаковые запросы,
+ * пришедшие во время построения, получают одно и то же задание.
+ */
+@Service
+public class ReportJobService {
+
+    private static final Logger log = LoggerFactory.getLogger(ReportJobService.class);
+
+    public enum ReportType {
+        HARDWARE_EXCEL("hardware", "xlsx", DownloadResponses.XLSX),
+        HARDWARE_PDF("hardware", "pdf", MediaType.APPLICATION_PDF),
+        SOFTWARE_EXCEL("software", "xlsx", DownloadResponses.XLSX),
+        SOFTWARE_PDF("software", "pdf", MediaType.APPLICATION_PDF);
+
+        private final String baseName;
+        private final String extension;
+        private final MediaType mediaType;
+
+        ReportType(String baseName, String extension, MediaType mediaType) {
+            this.baseName = baseName;
+            this.extension = extension;
+            this.mediaType = mediaType;
+        }
+
+        public String getBaseName() { return baseName; }
+        public String getExtension() { return extension; }
+        public MediaType getMediaType() { return mediaType; }
+
+        /** Отчёт по оборудованию — только он принимает фильтр по группе. */
+        public boolean isHardware() { return "hardware".equals(baseName); }
+
+        String key() { return name().toLowerCase(Locale.ROOT).replace('_', '-'); }
+    }
+
+    public enum Status { RUNNING, DONE, FAILED }
+
+    private final HostRepository hostRepository;
+    private final SoftwareSummaryService summaryService;
+    private final InventoryExportService exportService;
+    private final InventoryDataVersion dataVersion;
+
+    /** Задания в работе и завершившиеся ошибкой; готовые отчёты находятся по файлу. */
+    private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+    private ExecutorService reportExecutor;
+
+    @Value("${inventory.reports.dir:reports}")
+    private String reportsDir;
+
+    @Value("${inventory.reports.threads:2}")
+    private int threads;
+
+    @Value("${inventory.reports.max-age-hours:24}")
+    private long maxAgeHours;
+
+    @Value("${inventory.reports.max-size-mb:500}")
+    private long maxSizeMb;
+
+    private Path dir;
+
+    public Path getDirectory() { return dir; }
+
+    public ReportJobService(HostRepository hostRepository,
+                            SoftwareSummaryService summaryService,
+                            InventoryExportService exportService,
+                            InventoryDataVersion dataVersion) {
+        this.hostRepository = hostRepository;
+        this.summaryService = summaryService;
+        this.exportService = exportService;
+        this.dataVersion = dataVersion;
+    }
+
+    @PostConstruct
+    public void init() throws IOException {
+        dir = Paths.get(reportsDir).toAbsolutePath();
+        Files.createDirectories(dir);
+        AtomicInteger counter = new AtomicInteger();
+        reportExecutor = Executors.newFixedThreadPool(threads, r -> {
+            Thread thread = new Thread(r, "report-job-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        // Недописанные файлы от прерванного запуска
+        try (DirectoryStream<Path> partial = Files.newDirectoryStream(dir, "*.part")) {
+            for (Path file : partial) Files.deleteIfExists(file);
+        }
+        log.info("Каталог отчётов: {}", dir);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        reportExecutor.shutdownNow();
+    }
+
+    /**
+     * Отчёт по текущей версии данных: готовый файл, уже идущее построение или новое задание.
+     */
+    public Job submit(ReportType type) {
+        long version = dataVersion.current();
+        String id = type.key() + "-" + version;
+        Path file = cachePath(type, version);
+        if (Files.exists(file)) {
+            return new Job(id, type, Status.DONE, null);
+        }
+        return jobs.compute(id, (key, existing) -> {
+            if (existing != null && existing.getStatus() == Status.RUNNING) return existing;
+            Job job = new Job(id, type, Status.RUNNING, null);
+            reportExecutor.submit(() -> build(job, file));
+            return job;
+        });
+    }
+
+    /**
+     * Состояние задания; пусто — неизвестный id или файл уже вытеснен.
+     */
+    public Optional<Job> find(String id) {
+        Job job = jobs.get(id);
+        if (job != null) return Optional.of(job);
+        return resolve(id).filter(Files::exists).map(file -> new Job(id, typeOf(id), Status.DONE, null));
+    }
+
+    /**
+     * Готовый файл отчёта. Время изменения файла обновляется — вытеснение по размеру
+     * удаляет сначала давно не запрашивавшиеся отчёты.
+     */
+    public Optional<Path> getFile(String id) {
+        Optional<Path> file = resolve(id).filter(Files::exists);
+        file.ifPresent(path -> {
+            try {
+                Files.setLastModifiedTime(path, FileTime.from(Instant.now()));
+            } catch (IOException e) {
+                log.debug("Не удалось обновить время отчёта {}: {}", path, e.getMessage());
+            }
+        });
+        return file;
+    }
+
+    private void build(Job job, Path file) {
+        long startedAt = System.currentTimeMillis();
+        try {
+            renderTo(job.getType(), null, file);
+            jobs.remove(job.getId());
+            log.info("Отчёт {} построен за {} мс, {} КБ", job.getId(),
+                    System.currentTimeMillis() - startedAt, Files.size(file) / 1024);
+            evict();
+        } catch (Exception e) {
+            log.error("Ошибка построения отчёта {}", job.getId(), e);
+            jobs.put(job.getId(), new Job(job.getId(), job.getType(), Status.FAILED, e.getMessage()));
+        }
+    }
+
+    /**
+     * Построение отчёта в файл: запись во временный .part и атомарная замена —
+     * читатели никогда не видят недописанный файл.
+     *
+     * @param groupId фильтр отчёта по оборудованию; null — весь парк
+     */
+    public void renderTo(ReportType type, Long groupId, Path target) throws IOException {
+        Path partial = target.resolveSibling(target.getFileName() + ".part");
+        try {
+            try (OutputStream out = Files.newOutputStream(partial)) {
+                render(type, groupId, out);
+            }
+            Files.move(partial, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(partial);
+        }
+    }
+
+    /**
+     * Готовый отчёт по всему парку для указанной версии данных, если он уже есть в кэше.
+     */
+    public Optional<Path> findCached(ReportType type, long version) {
+        Path file = cachePath(type, version);
+        return Files.exists(file) ? Optional.of(file) : Optional.empty();
+    }
+
+    /**
+     * Отчёт по всему парку, построенный вне очереди (плановый), становится кэшем для запросов
+     * по той же версии данных: жёсткая ссылка, если ФС позволяет, иначе копия.
+     */
+    public void publish(ReportType type, long version, Path file) {
+        Path cached = cachePath(type, version);
+        if (Files.exists(cached)) return;
+        try {
+            try {
+                Files.createLink(cached, file);
+            } catch (UnsupportedOperationException | IOException e) {
+                Path partial = cached.resolveSibling(cached.getFileName() + ".part");
+                Files.copy(file, partial, StandardCopyOption.REPLACE_EXISTING);
+                Files.move(partial, cached, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            }
+        } catch (IOException e) {
+            log.warn("Отчёт {} не помещён в кэш: {}", file, e.getMessage());
+        }
+    }
+
+    private Path cachePath(ReportType type, long version) {
+        return dir.resolve(type.key() + "-" + version + "." + type.getExtension());
+    }
+
+    private void render(ReportType type, Long groupId, OutputStream out) throws IOException {
+        switch (type) {
+            case HARDWARE_EXCEL:
+                exportService.writeHardwareExcel(hostRows(groupId), out);
+                break;
+            case HARDWARE_PDF:
+                exportService.writeHardwarePdf(hostRows(groupId),
+                        groupId != null ? hostRepository.countByGroupId(groupId) : hostRepository.count(), out);
+                break;
+            case SOFTWARE_EXCEL:
+                exportService.writeSoftwareExcel(summaryService.getSummaryRows(), out);
+                break;
+            case SOFTWARE_PDF:
+                exportService.writeSoftwarePdf(summaryService.getSummaryRows(), out);
+                break;
+        }
+    }
+
+    /**
+     * Хосты отчёта читаются курсором по одной строке и только нужными колонками —
+     * память не растёт с размером парка.
+     */
+    private HardwareReportRow.Source hostRows(Long groupId) {
+        return handler -> hostRepository.forEachHardwareRow(groupId, handler);
+    }
+
+    /**
+     * Вытеснение: отчёты старше max-age-hours, затем самые давно запрошенные —
+     * пока каталог не уложится в max-size-mb.
+     */
+    @Scheduled(fixedDelayString = "${inventory.reports.evict-interval:600000}", initialDelay = 600000)
+    public synchronized void evict() {
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir)) {
+            for (Path file : stream) {
+                if (Files.isRegularFile(file) && !file.getFileName().toString().endsWith(".part")) files.add(file);
+            }
+        } catch (IOException e) {
+            log.warn("Не удалось прочитать каталог отчётов {}: {}", dir, e.getMessage());
+            return;
+        }
+
+        Instant expiry = Instant.now().minus(Duration.ofHours(maxAgeHours));
+        long total = 0;
+        List<FileEntry> kept = new ArrayList<>();
+        int removed = 0;
+        for (Path file : files) {
+            try {
+                FileTime modified = Files.getLastModifiedTime(file);
+                if (modified.toInstant().isBefore(expiry)) {
+                    if (Files.deleteIfExists(file)) removed++;
+                    continue;
+                }
+                long size = Files.size(file);
+                total += size;
+                kept.add(new FileEntry(file, modified, size));
+            } catch (IOException e) {
+                log.debug("Отчёт {} пропущен при вытеснении: {}", file, e.getMessage());
+            }
+        }
+
+        long limit = maxSizeMb * 1024 * 1024;
+        kept.sort(Comparator.comparing(entry -> entry.modified));
+        for (FileEntry entry : kept) {
+            if (total <= limit) break;
+            try {
+                if (Files.deleteIfExists(entry.file)) {
+                    total -= entry.size;
+                    removed++;
+                }
+            } catch (IOException e) {
+                log.debug("Не удалось удалить отчёт {}: {}", entry.file, e.getMessage());
+            }
+        }
+        if (removed > 0) {
+            log.info("Вытеснено отчётов: {}, в каталоге {} МБ", removed, total / (1024 * 1024));
+        }
+    }
+
+    /**
+     * Путь к файлу только для id вида «тип-версия» — произвольные имена не принимаются.
+     */
+    private Optional<Path> resolve(String id) {
+        ReportType type = typeOf(id);
+        if (type == null || !id.substring(type.key().length() + 1).matches("\\d{1,19}")) return Optional.empty();
+        return Optional.of(dir.resolve(id + "." + type.getExtension()));
+    }
+
+    private static ReportType typeOf(String id) {
+        if (id == null) return null;
+        for (ReportType type : ReportType.values()) {
+            if (id.startsWith(type.key() + "-")) return type;
+        }
+        return null;
+    }
+
+    private static class FileEntry {
+        final Path file;
+        final FileTime modified;
+        final long size;
+
+        FileEntry(Path file, FileTime modified, long size) {
+            this.file = file;
+            this.modified = modified;
+            this.size = size;
+        }
+    }
+
+    public static class Job {
+        private final String id;
+        private final ReportType type;
+        private final Status status;
+        private final String error;
+
+        Job(String id, ReportType type, Status status, String error) {
+            this.id = id;
+            this.type = type;
+            this.status = status;
+            this.error = error;
+        }
+
+        public String getId() { return id; }
+        public ReportType getType() { return type; }
+        public Status getStatus() { return status; }
+        public String getError() { return error; }
+    }
+}
@@ -0,0 +1,286 @@
+package com.aspia.inventory.service;
+
+import com.aspia.inventory.model.ScheduledReport;
+import com.aspia.inventory.repository.ScheduledReportRepository;
+import com.aspia.inventory.service.ReportJobService.ReportType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.support.CronExpression;
+import org.springframework.scheduling.support.CronTrigger;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledFuture;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Плановые отчёты: строятся по cron в ночные часы в каталог отчётов (reports/scheduled/&lt;id&gt;)
+ * и отдаются из списка готовых без ожидания. Построение идёт в одном потоке, чтобы несколько
+ * отчётов с одинаковым расписанием не нагружали БД одновременно. Отчёт по всему парку заодно
+ * становится кэшем ReportJobService для текущей версии данных.
+ */
+@Service
+public class ScheduledReportService {
+
+    private static final Logger log = LoggerFactory.getLogger(ScheduledReportService.class);
+    private static final DateTimeFormatter FILE_STAMP = DateTimeFormatter.ofPattern("yyyyMMdd_HHmm");
+    /** Отметка построения в имени файла: &lt;отчёт&gt;_yyyyMMdd_HHmm.&lt;расширение&gt;. */
+    private static final Pattern FILE_STAMP_PATTERN = Pattern.compile("_(\\d{8}_\\d{4})\\.[^.]+$");
+
+    private final ScheduledReportRepository reportRepository;
+    private final ReportJobService reportJobService;
+    private final InventoryDataVersion dataVersion;
+    private final TaskScheduler taskScheduler;
+
+    private final Map<Long, ScheduledFuture<?>> triggers = new ConcurrentHashMap<>();
+    private ExecutorService runExecutor;
+
+    public ScheduledReportService(ScheduledReportRepository reportRepository,
+                                  ReportJobService reportJobService,
+                                  InventoryDataVersion dataVersion,
+                                  TaskScheduler taskScheduler) {
+        this.reportRepository = reportRepository;
+        this.reportJobService = reportJobService;
+        this.dataVersion = dataVersion;
+        this.taskScheduler = taskScheduler;
+    }
+
+    @PostConstruct
+    public void init() {
+        runExecutor = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "scheduled-report");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        triggers.values().forEach(f -> f.cancel(false));
+        runExecutor.shutdownNow();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        for (ScheduledReport report : reportRepository.findByEnabledTrue()) {
+            reschedule(report);
+        }
+        log.info("Плановых отчётов в расписании: {}", triggers.size());
+    }
+
+    public static boolean isValidCron(String cron) {
+        return cron != null && CronExpression.isValidExpression(cron);
+    }
+
+    /**
+     * Расписание определения после создания или изменения; выключенное снимается с расписания.
+     */
+    public void reschedule(ScheduledReport report) {
+        unschedule(report.getId());
+        if (!report.isEnabled()) return;
+        Long id = report.getId();
+        try {
+            triggers.put(id, taskScheduler.schedule(() -> runNow(id), new CronTrigger(report.getCron())));
+        } catch (IllegalArgumentException e) {
+            log.error("Плановый отчёт «{}»: неверное расписание «{}»", report.getName(), report.getCron());
+        }
+    }
+
+    public void unschedule(Long id) {
+        ScheduledFuture<?> trigger = triggers.remove(id);
+        if (trigger != null) trigger.cancel(false);
+    }
+
+    /**
+     * Постановка в очередь построения; планировщик только передаёт запуск и не ждёт его.
+     */
+    public void runNow(Long id) {
+        runExecutor.submit(() -> run(id));
+    }
+
+    private void run(Long id) {
+        ScheduledReport report = reportRepository.findById(id).orElse(null);
+        if (report == null) return;
+        long startedAt = System.currentTimeMillis();
+        String status;
+        try {
+            ReportType type = ReportType.valueOf(report.getReportType());
+            Long groupId = type.isHardware() ? report.getGroupId() : null;
+            Path dir = Files.createDirectories(directoryOf(id));
+            Path target = dir.resolve(type.getBaseName() + "_" + LocalDateTime.now().format(FILE_STAMP)
+                    + "." + type.getExtension());
+
+            long version = dataVersion.current();
+            Optional<Path> cached = groupId == null ? reportJobService.findCached(type, version) : Optional.empty();
+            if (cached.isPresent()) {
+                // Данные не менялись с последнего построения — готовый файл используется повторно
+                copy(cached.get(), target);
+            } else {
+                reportJobService.renderTo(type, groupId, target);
+                if (groupId == null) reportJobService.publish(type, version, target);
+            }
+            int removed = applyRetention(id, report.getKeepCount());
+            status = "OK, " + Files.size(target) / 1024 + " КБ";
+            log.info("Плановый отчёт «{}» построен за {} мс ({}), удалено старых: {}", report.getName(),
+                    System.currentTimeMillis() - startedAt, cached.isPresent() ? "из кэша" : "заново", removed);
+        } catch (Exception e) {
+            log.error("Ошибка построения планового отчёта «{}»", report.getName(), e);
+            status = "Ошибка: " + e.getMessage();
+        }
+        // Определение могли изменить или удалить, пока строился отчёт
+        String lastStatus = status.length() > 500 ? status.substring(0, 500) : status;
+        reportRepository.findById(id).ifPresent(current -> {
+            current.setLastRunAt(LocalDateTime.now());
+            current.setLastStatus(lastStatus);
+            reportRepository.save(current);
+        });
+    }
+
+    /**
+     * Готовые файлы определения, новые первыми.
+     */
+    public List<Path> listFiles(Long id) {
+        Path dir = directoryOf(id);
+        if (!Files.isDirectory(dir)) return Collections.emptyList();
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir)) {
+            for (Path file : stream) {
+                if (Files.isRegularFile(file) && !file.getFileName().toString().endsWith(".part")) {
+                    files.add(file);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        files.sort(Comparator.comparing((Path file) -> file.getFileName().toString()).reversed());
+        return files;
+    }
+
+    /**
+     * Готовые файлы всех определений для страницы реестра: по названию отчёта, новые первыми.
+     */
+    public List<ReadyFile> listReady() {
+        List<ReadyFile> result = new ArrayList<>();
+        for (ScheduledReport report : reportRepository.findAllByOrderByNameAsc()) {
+            for (Path file : listFiles(report.getId())) {
+                try {
+                    result.add(new ReadyFile(report.getId(), report.getName(), file.getFileName().toString(),
+                            Files.size(file), builtAt(file)));
+                } catch (IOException e) {
+                    // Файл удалён ротацией между листингом и чтением атрибутов
+                    log.debug("Файл {} недоступен: {}", file, e.getMessage());
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Файл по имени из списка готовых — имя из запроса сверяется со списком, а не склеивается в путь.
+     */
+    public Optional<Path> getFile(Long id, String fileName) {
+        return listFiles(id).stream().filter(file -> file.getFileName().toString().equals(fileName)).findFirst();
+    }
+
+    /**
+     * Снятие с расписания и удаление готовых файлов удалённого определения.
+     */
+    public void deleteFiles(Long id) {
+        unschedule(id);
+        for (Path file : listFiles(id)) {
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                log.warn("Не удалось удалить {}: {}", file, e.getMessage());
+            }
+        }
+        try {
+            Files.deleteIfExists(directoryOf(id));
+        } catch (IOException e) {
+            log.debug("Каталог {} не удалён: {}", directoryOf(id), e.getMessage());
+        }
+    }
+
+    /**
+     * Время построения — из имени файла: файл может быть жёсткой ссылкой на запись кэша отчётов,
+     * и время изменения у них общее (его обновляет каждая выдача из кэша).
+     */
+    private static LocalDateTime builtAt(Path file) throws IOException {
+        Matcher matcher = FILE_STAMP_PATTERN.matcher(file.getFileName().toString());
+        if (matcher.find()) {
+            try {
+                return LocalDateTime.parse(matcher.group(1), FILE_STAMP);
+            } catch (DateTimeParseException e) {
+                log.debug("Неверная отметка времени в имени {}", file);
+            }
+        }
+        return LocalDateTime.ofInstant(Files.getLastModifiedTime(file).toInstant(), ZoneId.systemDefault());
+    }
+
+    private Path directoryOf(Long id) {
+        return reportJobService.getDirectory().resolve("scheduled").resolve(String.valueOf(id));
+    }
+
+    private int applyRetention(Long id, int keepCount) throws IOException {
+        List<Path> files = listFiles(id);
+        int removed = 0;
+        for (int i = Math.max(keepCount, 1); i < files.size(); i++) {
+            if (Files.deleteIfExists(files.get(i))) removed++;
+        }
+        return removed;
+    }
+
+    private static void copy(Path source, Path target) throws IOException {
+        try {
+            Files.createLink(target, source);
+        } catch (UnsupportedOperationException | IOException e) {
+            Files.copy(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    public static class ReadyFile {
+        private final Long reportId;
+        private final String reportName;
+        private final String fileName;
+        private final long size;
+        private final LocalDateTime builtAt;
+
+        ReadyFile(Long reportId, String reportName, String fileName, long size, LocalDateTime builtAt) {
+            this.reportId = reportId;
+            this.reportName = reportName;
+            this.fileName = fileName;
+            this.size = size;
+            this.builtAt = builtAt;
+        }
+
+        public Long getReportId() { return reportId; }
+        public String getReportName() { return reportName; }
+        public String getFileName() { return fileName; }
+        public long getSize() { return size; }
+        public LocalDateTime getBuiltAt() { return builtAt; }
+    }
+}
@@ -0,0 +1,142 @@
+package com.aspia.inventory.service;
+
+import com.aspia.inventory.model.SoftwareSetItem;
+import com.aspia.inventory.repository.SoftwareSetItemRepository;
+import com.aspia.inventory.repository.SoftwareSetRepository;
+import com.aspia.inventory.repository.SoftwareTitleRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+
+/**
+ * Хранение списков ПО в виде наборов, адресуемых по содержимому.
+ * Синхронизация хоста с тем же списком, что у уже известного набора, сводится к смене ссылки.
+ */
+@Service
+public class SoftwareSetService {
+
+    private static final Logger log = LoggerFactory.getLogger(SoftwareSetService.class);
+
+    private final SoftwareSetRepository setRepository;
+    private final SoftwareSetItemRepository itemRepository;
+    private final SoftwareTitleRepository titleRepository;
+
+    public SoftwareSetService(SoftwareSetRepository setRepository,
+                              SoftwareSetItemRepository itemRepository,
+                              SoftwareTitleRepository titleRepository) {
+        this.setRepository = setRepository;
+        this.itemRepository = itemRepository;
+        this.titleRepository = titleRepository;
+    }
+
+    /**
+     * Элемент набора до сохранения.
+     */
+    public static class Entry {
+        public final int titleId;
+        public final String version;
+        public final String installDate;
+
+        public Entry(int titleId, String version, String installDate) {
+            this.titleId = titleId;
+            this.version = version;
+            this.installDate = installDate;
+        }
+    }
+
+    /**
+     * Возвращает id набора с указанным содержимым, создавая его при отсутствии.
+     * Существующий набор блокируется до конца транзакции синхронизации, чтобы purgeUnreferenced
+     * не удалил его до того, как хост на него сошлётся. Для пустого списка возвращает null.
+     */
+    @Transactional
+    public Long resolveSet(List<Entry> entries) {
+        if (entries.isEmpty()) return null;
+
+        List<Entry> sorted = new ArrayList<>(entries);
+        sorted.sort(Comparator.<Entry>comparingInt(e -> e.titleId)
+                .thenComparing(e -> e.version != null ? e.version : "")
+                .thenComparing(e -> e.installDate != null ? e.installDate : ""));
+        String hash = contentHash(sorted);
+
+        while (true) {
+            if (setRepository.insertIfAbsent(hash, sorted.size()) > 0) {
+                Long setId = setRepository.findByContentHash(hash).orElseThrow().getId();
+                List<SoftwareSetItem> items = new ArrayList<>(sorted.size());
+                for (Entry e : sorted) {
+                    items.add(new SoftwareSetItem(setId, titleRepository.getReferenceById(e.titleId), e.version, e.installDate));
+                }
+                itemRepository.saveAll(items);
+                log.debug("Создан набор ПО {} ({} программ)", setId, sorted.size());
+                return setId;
+            }
+            Optional<Long> setId = setRepository.lockIdByContentHash(hash);
+            if (setId.isPresent()) {
+                return setId.get();
+            }
+            // Набор удалён purgeUnreferenced между вставкой и блокировкой — создаём заново
+        }
+    }
+
+    /**
+     * Канонизация совпадает с миграцией V5: строки "titleId\tversion\tinstallDate",
+     * отсортированные и объединённые через '\n'.
+     */
+    private static String contentHash(List<Entry> sorted) {
+        StringBuilder sb = new StringBuilder();
+        for (Entry e : sorted) {
+            if (sb.length() > 0) sb.append('\n');
+            sb.append(e.titleId).append('\t')
+                    .append(e.version != null ? e.version : "").append('\t')
+                    .append(e.installDate != null ? e.installDate : "");
+        }
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] hash = digest.digest(sb.toString().getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder(hash.length * 2);
+            for (byte b : hash) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 недоступен", e);
+        }
+    }
+
+    public List<SoftwareSetItem> getItems(Long setId) {
+        if (setId == null) return Collections.emptyList();
+        return itemRepository.findBySetIdWithTitle(setId);
+    }
+
+    public List<SoftwareSetItem> getItemsWithoutTitle(Long setId) {
+        if (setId == null) return Collections.emptyList();
+        return itemRepository.findBySetId(setId);
+    }
+
+    public List<Integer> getTitleIds(Long setId) {
+        if (setId == null) return Collections.emptyList();
+        return itemRepository.findDistinctTitleIdsBySetId(setId);
+    }
+
+    /**
+     * Удаление наборов, оставшихся без хостов после смены ссылок. Наборы блокируются до проверки
+     * ссылок, поэтому набор, выбранный синхронизацией, но ещё не записанный в хост, не удаляется.
+     */
+    @Scheduled(cron = "${inventory.software-set.purge-cron:0 0 4 * * *}")
+    @Transactional
+    public void purgeUnreferenced() {
+        List<Long> ids = setRepository.lockUnreferencedIds();
+        if (ids.isEmpty()) return;
+        int deleted = setRepository.deleteUnreferenced(ids);
+        if (deleted > 0) {
+            log.info("Удалено неиспользуемых наборов ПО: {}", deleted);
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.aspia.inventory.service;
+
+import com.aspia.inventory.dto.SoftwareSummaryRow;
+import com.aspia.inventory.dto.TablePage;
+import com.aspia.inventory.repository.SoftwareSummaryRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.*;
+
+/**
+ * Инкрементальное сопровождение агрегата software_summary.
+ * Вызывается в той же транзакции, что и смена набора ПО хоста.
+ */
+@Service
+public class SoftwareSummaryService {
+
+    private static final Logger log = LoggerFactory.getLogger(SoftwareSummaryService.class);
+
+    private static final Map<String, String> SORT_PROPERTIES = Map.of(
+            "name", "t.name",
+            "publisher", "t.publisher",
+            "hostCount", "hostCount");
+
+    private final SoftwareSummaryRepository summaryRepository;
+
+    public SoftwareSummaryService(SoftwareSummaryRepository summaryRepository) {
+        this.summaryRepository = summaryRepository;
+    }
+
+    /**
+     * Строки сводки: [name, publisher, hostCount, versionCount], по убыванию числа ПК.
+     */
+    public List<Object[]> getSummaryRows() {
+        return summaryRepository.findSummaryRows();
+    }
+
+    /**
+     * Страница сводки для таблицы ПО.
+     *
+     * @param sort элементы вида "hostCount,desc"; допустимые ключи — name, publisher, hostCount
+     */
+    public TablePage<SoftwareSummaryRow> getSummaryPage(String search, List<String> sort, int page, int size) {
+        String pattern = search != null && !search.trim().isEmpty()
+                ? "%" + search.trim().toLowerCase() + "%" : null;
+        List<Sort.Order> orders = new ArrayList<>();
+        for (String item : sort) {
+            String[] parts = item.split(",");
+            String property = SORT_PROPERTIES.get(parts[0].trim());
+            if (property == null) continue;
+            boolean desc = parts.length > 1 && "desc".equalsIgnoreCase(parts[1].trim());
+            orders.add(desc ? Sort.Order.desc(property) : Sort.Order.asc(property));
+        }
+        if (orders.isEmpty()) orders.add(Sort.Order.desc("hostCount"));
+        // Уникальный ключ в конце — стабильный порядок между страницами
+        orders.add(Sort.Order.asc("titleId"));
+
+        Page<SoftwareSummaryRow> result = summaryRepository.findSummaryPage(
+                pattern, PageRequest.of(page, size, Sort.by(orders)));
+        return new TablePage<>(result.getContent(), result.getTotalElements(), page, size);
+    }
+
+    public long countPrograms() {
+        return summaryRepository.countNonEmpty();
+    }
+
+    /**
+     * Применяет изменения одного хоста. Должен вызываться после того, как ссылка хоста
+     * на набор ПО уже обновлена — счётчик версий пересчитывается по актуальным данным.
+     *
+     * @param addedTitleIds          программы, появившиеся на хосте
+     * @param removedTitleIds        программы, исчезнувшие с хоста
+     * @param versionChangedTitleIds программы, у которых изменился набор версий на хосте
+     */
+    @Transactional
+    public void applyHostDelta(Collection<Integer> addedTitleIds,
+                               Collection<Integer> removedTitleIds,
+                               Collection<Integer> versionChangedTitleIds) {
+        for (Integer titleId : addedTitleIds) {
+            summaryRepository.addHostCount(titleId, 1);
+        }
+        for (Integer titleId : removedTitleIds) {
+            summaryRepository.addHostCount(titleId, -1);
+        }
+        if (!versionChangedTitleIds.isEmpty()) {
+            summaryRepository.refreshVersionCounts(versionChangedTitleIds);
+        }
+        if (!removedTitleIds.isEmpty()) {
+            summaryRepository.deleteEmpty();
+        }
+    }
+
+    /**
+     * Вычитает удаляемые хосты из сводки одним запросом. Вызывать в транзакции удаления,
+     * пока строки hosts ещё существуют; затем — {@link #refreshAfterHostsRemoved}.
+     *
+     * @return программы удаляемых хостов
+     */
+    @Transactional
+    public List<Integer> subtractHosts(Collection<Long> hostIds) {
+        List<Integer> titleIds = summaryRepository.findTitleIdsByHostIds(hostIds);
+        if (!titleIds.isEmpty()) {
+            summaryRepository.subtractHosts(hostIds);
+        }
+        return titleIds;
+    }
+
+    /**
+     * Пересчёт версий и удаление опустевших строк после удаления хостов.
+     */
+    @Transactional
+    public void refreshAfterHostsRemoved(Collection<Integer> titleIds) {
+        if (titleIds.isEmpty()) return;
+        summaryRepository.refreshVersionCounts(titleIds);
+        summaryRepository.deleteEmpty();
+    }
+
+    /**
+     * Полный пересчёт по наборам ПО хостов — устраняет возможный дрейф счётчиков
+     * при конкурентной синхронизации.
+     */
+    @Scheduled(cron = "${inventory.software-summary.rebuild-cron:0 30 3 * * *}")
+    @Transactional
+    public void rebuild() {
+        summaryRepository.deleteAllRows();
+        int rows = summaryRepository.rebuildFromSoftwareSets();
+        log.info("Сводка ПО пересчитана: {} программ", rows);
+    }
+}
@@ -0,0 +1,123 @@
+package com.aspia.inventory.service;
+
+import com.aspia.inventory.model.SoftwareTitle;
+import com.aspia.inventory.repository.SoftwareTitleRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.annotation.PostConstruct;
+import java.util.*;
+
+import static com.aspia.inventory.util.TransactionCallbacks.afterCommit;
+
+/**
+ * Разрешение названий ПО в id справочника software_title.
+ * Записи справочника не удаляются, поэтому соответствие name → id кэшируется без инвалидации,
+ * но только после фиксации транзакции: id записи, вставленной ещё не зафиксированной синхронизацией
+ * другого хоста, не прошёл бы проверку внешнего ключа, а после отката указывал бы в никуда.
+ */
+@Service
+public class SoftwareTitleService {
+
+    private final SoftwareTitleRepository titleRepository;
+
+    /** Названий в кэше; давно не запрашивавшиеся вытесняются. */
+    @Value("${inventory.software-title.cache-size:50000}")
+    private int cacheSize;
+
+    private Map<String, Integer> idsByName;
+
+    public SoftwareTitleService(SoftwareTitleRepository titleRepository) {
+        this.titleRepository = titleRepository;
+    }
+
+    @PostConstruct
+    public void init() {
+        idsByName = Collections.synchronizedMap(new LinkedHashMap<String, Integer>(1024, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Integer> eldest) {
+                return size() > cacheSize;
+            }
+        });
+    }
+
+    /**
+     * Возвращает id для всех переданных названий, создавая недостающие записи справочника.
+     *
+     * @param publishers название → издатель (издатель сохраняется только для новых записей)
+     */
+    @Transactional
+    public Map<String, Integer> resolveIds(Map<String, String> publishers) {
+        Map<String, Integer> result = new HashMap<>();
+        List<String> missing = new ArrayList<>();
+        for (String name : publishers.keySet()) {
+            Integer id = idsByName.get(name);
+            if (id != null) {
+                result.put(name, id);
+            } else {
+                missing.add(name);
+            }
+        }
+        if (missing.isEmpty()) return result;
+
+        for (String name : missing) {
+            titleRepository.upsert(name, publishers.get(name));
+        }
+        Map<String, Integer> found = new HashMap<>();
+        for (SoftwareTitle title : titleRepository.findByNameIn(missing)) {
+            found.put(title.getName(), title.getId());
+        }
+        result.putAll(found);
+        cacheAfterCommit(found);
+        return result;
+    }
+
+    /**
+     * id уже известных названий; отсутствующие в справочнике названия пропускаются.
+     */
+    public Set<Integer> findIds(Collection<String> names) {
+        Set<Integer> result = new HashSet<>();
+        List<String> missing = new ArrayList<>();
+        for (String name : names) {
+            Integer id = idsByName.get(name);
+            if (id != null) {
+                result.add(id);
+            } else {
+                missing.add(name);
+            }
+        }
+        if (!missing.isEmpty()) {
+            Map<String, Integer> found = new HashMap<>();
+            for (SoftwareTitle title : titleRepository.findByNameIn(missing)) {
+                found.put(title.getName(), title.getId());
+            }
+            result.addAll(found.values());
+            cacheAfterCommit(found);
+        }
+        return result;
+    }
+
+    private void cacheAfterCommit(Map<String, Integer> found) {
+        if (!found.isEmpty()) {
+            afterCommit(() -> idsByName.putAll(found));
+        }
+    }
+
+    public Map<Integer, String> findNames(Collection<Integer> ids) {
+        Map<Integer, String> result = new HashMap<>();
+        if (ids.isEmpty()) return result;
+        for (SoftwareTitle title : titleRepository.findAllById(ids)) {
+            result.put(title.getId(), title.getName());
+        }
+        return result;
+    }
+
+    public Optional<SoftwareTitle> findByName(String name) {
+        return titleRepository.findByName(name);
+    }
+
+    public SoftwareTitle getReference(Integer id) {
+        return titleRepository.getReferenceById(id);
+    }
+}
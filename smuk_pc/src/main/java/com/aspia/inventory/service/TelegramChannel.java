@@ -0,0 +1,241 @@
+package com.aspia.inventory.service;
+
+import com.aspia.inventory.dto.Notification;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Telegram Bot API (sendMessage, MarkdownV2). Адрес API настраивается (telegram.bot.api-url) —
+ * для проверки отправку можно направить на локальную заглушку вместо api.telegram.org.
+ * Ответ 429 передаёт движку паузу parameters.retry_after.
+ */
+@Component
+public class TelegramChannel implements NotificationChannel {
+
+    private static final Logger log = LoggerFactory.getLogger(TelegramChannel.class);
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final DateTimeFormatter DATE_FMT = DateTimeFormatter.ofPattern("dd.MM.yyyy HH:mm");
+    /** Предел длины сообщения Bot API. */
+    private static final int MAX_MESSAGE_LENGTH = 4096;
+    /** Ограничение длины сводки подтверждений. */
+    private static final int MAX_SUMMARY_HOSTS = 30;
+    /** Имён хостов в строке сводки изменений; остальные — числом. */
+    private static final int MAX_HOSTS_PER_CHANGE = 20;
+
+    @Value("${telegram.bot.enabled:false}")
+    private boolean enabled;
+
+    @Value("${telegram.bot.api-url:https://api.telegram.org}")
+    private String apiUrl;
+
+    @Value("${telegram.bot.token:}")
+    private String botToken;
+
+    @Value("${telegram.bot.chat-id:}")
+    private String chatId;
+
+    @Override
+    public String getName() {
+        return "telegram";
+    }
+
+    @Override
+    public boolean isEnabled() {
+        if (!enabled) return false;
+        if (botToken == null || botToken.isEmpty()) {
+            log.warn("Telegram bot token не настроен");
+            return false;
+        }
+        if (chatId == null || chatId.isEmpty()) {
+            log.warn("Telegram chat ID не настроен");
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    public int getMaxMessageLength() {
+        return MAX_MESSAGE_LENGTH;
+    }
+
+    @Override
+    public String partHeader(int part, int parts) {
+        return "_\\(часть " + part + "/" + parts + "\\)_\n";
+    }
+
+    @Override
+    public String render(Notification notification) {
+        return notification.getKind() == Notification.Kind.CHANGES_DETECTED
+                ? renderDetected(notification) : renderAcknowledged(notification);
+    }
+
+    @Override
+    public CompletableFuture<DeliveryResult> send(String message, DeliveryContext context) {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("chat_id", chatId);
+        body.put("text", message);
+        body.put("parse_mode", "MarkdownV2");
+
+        HttpRequest request;
+        try {
+            request = HttpRequest.newBuilder(URI.create(apiUrl.replaceAll("/+$", "") + "/bot" + botToken + "/sendMessage"))
+                    .timeout(Duration.ofSeconds(15))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(MAPPER.writeValueAsBytes(body)))
+                    .build();
+        } catch (Exception e) {
+            return CompletableFuture.completedFuture(DeliveryResult.rejected(e.getMessage()));
+        }
+        return context.getHttpClient().sendAsync(request, HttpResponse.BodyHandlers.ofString())
+                .thenApply(response -> {
+                    JsonNode json = parse(response.body());
+                    long retryAfter = json.path("parameters").path("retry_after").asLong(
+                            DeliveryResult.retryAfter(response.headers()));
+                    return DeliveryResult.ofHttpStatus(response.statusCode(), retryAfter,
+                            json.path("description").asText(""));
+                });
+    }
+
+    private static JsonNode parse(String body) {
+        try {
+            return MAPPER.readTree(body);
+        } catch (Exception e) {
+            return MAPPER.createObjectNode();
+        }
+    }
+
+    private String renderDetected(Notification notification) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("\uD83D\uDD14 *Изменение конфигурации*\n\n");
+        boolean singleHost = notification.getHosts().size() == 1;
+        if (singleHost) {
+            sb.append("\uD83D\uDDA5 *Хост:* ").append(escapeMarkdown(notification.getHosts().get(0))).append("\n\n");
+        } else {
+            sb.append("\uD83D\uDDA5 *Хостов:* ").append(notification.getHosts().size()).append("\n\n");
+        }
+
+        for (Notification.Item change : notification.getItems()) {
+            sb.append(getComponentEmoji(change.getComponentType()));
+            sb.append(" *Компонент:* ").append(escapeMarkdown(change.getComponentType())).append("\n");
+            sb.append("\uD83D\uDD04 *Тип:* ").append(escapeMarkdown(NotificationService.formatChangeType(change.getChangeType()))).append("\n");
+
+            if (change.getOldValue() != null && !change.getOldValue().isEmpty()) {
+                sb.append("   _Было:_ ").append(escapeMarkdown(change.getOldValue())).append("\n");
+            }
+            if (change.getNewValue() != null && !change.getNewValue().isEmpty()) {
+                sb.append("   _Стало:_ ").append(escapeMarkdown(change.getNewValue())).append("\n");
+            }
+            if (!singleHost) {
+                appendHosts(sb, change.getHosts());
+            }
+            sb.append("\n");
+        }
+        if (notification.getOmittedItems() > 0) {
+            sb.append("_\\.\\.\\. и ещё ").append(notification.getOmittedItems())
+                    .append(" изм\\. — см\\. журнал событий_\n\n");
+        }
+
+        sb.append("\uD83D\uDCC5 ").append(escapeMarkdown(notification.getCreatedAt().format(DATE_FMT)));
+        return sb.toString();
+    }
+
+    private static void appendHosts(StringBuilder sb, List<String> hosts) {
+        sb.append("   _Хосты \\(").append(hosts.size()).append("\\):_ ");
+        int shown = 0;
+        for (String host : hosts) {
+            if (shown == MAX_HOSTS_PER_CHANGE) {
+                sb.append(" _и ещё ").append(hosts.size() - shown).append("_");
+                break;
+            }
+            if (shown > 0) sb.append(", ");
+            sb.append(escapeMarkdown(host));
+            shown++;
+        }
+        sb.append("\n");
+    }
+
+    /**
+     * Подтверждение: по хостам, у каждого — компонент, тип и значения либо число изменений.
+     */
+    private String renderAcknowledged(Notification notification) {
+        Map<String, List<Notification.Item>> byHost = new LinkedHashMap<>();
+        for (Notification.Item item : notification.getItems()) {
+            byHost.computeIfAbsent(item.getHosts().get(0), k -> new ArrayList<>()).add(item);
+        }
+
+        StringBuilder sb = new StringBuilder();
+        sb.append("\u2705 *Изменения подтверждены*\n\n");
+        sb.append("\uD83D\uDC64 *Администратор:* ").append(escapeMarkdown(notification.getActor())).append("\n");
+        if (byHost.size() == 1) {
+            sb.append("\uD83D\uDDA5 *Хост:* ").append(escapeMarkdown(byHost.keySet().iterator().next())).append("\n");
+        } else {
+            sb.append("\uD83D\uDDA5 *Хостов:* ").append(byHost.size()).append("\n");
+        }
+        sb.append("\uD83D\uDCCB *Подтверждено:* ").append(notification.getTotalCount()).append(" изм\\.\n\n");
+
+        int shown = 0;
+        for (Map.Entry<String, List<Notification.Item>> host : byHost.entrySet()) {
+            if (shown == MAX_SUMMARY_HOSTS) {
+                sb.append("_\\.\\.\\. и ещё ").append(byHost.size() - shown).append(" хостов_\n");
+                break;
+            }
+            String indent = "";
+            if (byHost.size() > 1) {
+                sb.append("\uD83D\uDDA5 *").append(escapeMarkdown(host.getKey())).append(":*\n");
+                indent = "  ";
+            }
+            for (Notification.Item item : host.getValue()) {
+                sb.append(indent).append(getComponentEmoji(item.getComponentType()));
+                sb.append(" ").append(escapeMarkdown(item.getComponentType()));
+                sb.append(" \\— ").append(escapeMarkdown(NotificationService.formatChangeType(item.getChangeType())));
+                if (item.getOldValue() != null || item.getNewValue() != null) {
+                    if (item.getOldValue() != null && !item.getOldValue().isEmpty()) {
+                        sb.append(": ").append(escapeMarkdown(item.getOldValue()));
+                    }
+                    if (item.getNewValue() != null && !item.getNewValue().isEmpty()) {
+                        sb.append(" \\→ ").append(escapeMarkdown(item.getNewValue()));
+                    }
+                } else {
+                    sb.append(": ").append(item.getCount());
+                }
+                sb.append("\n");
+            }
+            shown++;
+        }
+
+        sb.append("\n\uD83D\uDCC5 ").append(escapeMarkdown(notification.getCreatedAt().format(DATE_FMT)));
+        return sb.toString();
+    }
+
+    private static String escapeMarkdown(String text) {
+        if (text == null) return "";
+        return text.replaceAll("([_*\\[\\]()~`>#+\\-=|{}.!])", "\\\\$1");
+    }
+
+    private static String getComponentEmoji(String componentType) {
+        if (componentType == null) return "\uD83D\uDD27";
+        switch (componentType) {
+            case "PROCESSOR": return "\uD83E\uDDE0";
+            case "MEMORY": return "\uD83D\uDCBE";
+            case "DISK": return "\uD83D\uDCBF";
+            case "VIDEO_ADAPTER": return "\uD83C\uDFA8";
+            case "SOFTWARE": return "\uD83D\uDCE6";
+            default: return "\uD83D\uDD27";
+        }
+    }
+}
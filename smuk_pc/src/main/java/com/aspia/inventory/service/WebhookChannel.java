@@ -0,0 +1,87 @@
+package com.aspia.inventory.service;
+
+import com.aspia.inventory.dto.Notification;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Произвольный HTTP-приёмник: уведомление уходит POST-запросом в JSON
+ * (event, actor, createdAt, hosts, items, omittedItems). Необязательный токен передаётся
+ * в заголовке Authorization: Bearer.
+ */
+@Component
+public class WebhookChannel implements NotificationChannel {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    @Value("${notifications.channels.webhook.enabled:false}")
+    private boolean enabled;
+
+    @Value("${notifications.channels.webhook.url:}")
+    private String url;
+
+    @Value("${notifications.channels.webhook.token:}")
+    private String token;
+
+    @Override
+    public String getName() {
+        return "webhook";
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return enabled && url != null && !url.isEmpty();
+    }
+
+    @Override
+    public String render(Notification notification) {
+        ObjectNode root = MAPPER.createObjectNode();
+        root.put("event", notification.getKind() == Notification.Kind.CHANGES_DETECTED
+                ? "changes_detected" : "changes_acknowledged");
+        if (notification.getActor() != null) root.put("actor", notification.getActor());
+        root.put("createdAt", notification.getCreatedAt().toString());
+        ArrayNode hosts = root.putArray("hosts");
+        notification.getHosts().forEach(hosts::add);
+        ArrayNode items = root.putArray("items");
+        for (Notification.Item item : notification.getItems()) {
+            ObjectNode node = items.addObject();
+            node.put("componentType", item.getComponentType());
+            node.put("changeType", item.getChangeType());
+            node.put("oldValue", item.getOldValue());
+            node.put("newValue", item.getNewValue());
+            node.put("count", item.getCount());
+            ArrayNode itemHosts = node.putArray("hosts");
+            item.getHosts().forEach(itemHosts::add);
+        }
+        root.put("omittedItems", notification.getOmittedItems());
+        return root.toString();
+    }
+
+    @Override
+    public CompletableFuture<DeliveryResult> send(String message, DeliveryContext context) {
+        HttpRequest.Builder request;
+        try {
+            request = HttpRequest.newBuilder(URI.create(url))
+                    .timeout(Duration.ofSeconds(15))
+                    .header("Content-Type", "application/json; charset=UTF-8")
+                    .POST(HttpRequest.BodyPublishers.ofString(message));
+        } catch (IllegalArgumentException e) {
+            return CompletableFuture.completedFuture(DeliveryResult.rejected(e.getMessage()));
+        }
+        if (token != null && !token.isEmpty()) {
+            request.header("Authorization", "Bearer " + token);
+        }
+        return context.getHttpClient().sendAsync(request.build(), HttpResponse.BodyHandlers.discarding())
+                .thenApply(response -> DeliveryResult.ofHttpStatus(response.statusCode(),
+                        DeliveryResult.retryAfter(response.headers()), "HTTP"));
+    }
+}
@@ -0,0 +1,69 @@
+package com.aspia.inventory.util;
+
+import org.springframework.http.MediaType;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Построчная запись CSV/TSV в UTF-8. Строки не накапливаются — память постоянна при любом объёме.
+ */
+public class DelimitedWriter {
+
+    public enum Format {
+        /** RFC 4180; BOM в начале — Excel открывает кириллицу без мастера импорта. */
+        CSV(',', "csv", MediaType.parseMediaType("text/csv;charset=UTF-8")),
+        /** Табуляции и переводы строк внутри значений заменяются пробелами. */
+        TSV('\t', "tsv", MediaType.parseMediaType("text/tab-separated-values;charset=UTF-8"));
+
+        private final char delimiter;
+        private final String extension;
+        private final MediaType mediaType;
+
+        Format(char delimiter, String extension, MediaType mediaType) {
+            this.delimiter = delimiter;
+            this.extension = extension;
+            this.mediaType = mediaType;
+        }
+
+        public String getExtension() { return extension; }
+        public MediaType getMediaType() { return mediaType; }
+    }
+
+    private final Writer writer;
+    private final Format format;
+
+    public DelimitedWriter(OutputStream out, Format format) throws IOException {
+        this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+        this.format = format;
+        if (format == Format.CSV) writer.write('\uFEFF');
+    }
+
+    /** null — пустое поле. */
+    public void row(String... values) throws IOException {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) writer.write(format.delimiter);
+            String value = values[i];
+            if (value == null || value.isEmpty()) continue;
+            if (format == Format.TSV) {
+                writer.write(value.replace('\t', ' ').replace('\r', ' ').replace('\n', ' '));
+            } else if (value.indexOf(',') >= 0 || value.indexOf('"') >= 0
+                    || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0) {
+                writer.write('"');
+                writer.write(value.replace("\"", "\"\""));
+                writer.write('"');
+            } else {
+                writer.write(value);
+            }
+        }
+        writer.write("\r\n");
+    }
+
+    public void flush() throws IOException {
+        writer.flush();
+    }
+}
@@ -0,0 +1,82 @@
+package com.aspia.inventory.util;
+
+import org.slf4j.Logger;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Ответы-вложения, которые пишутся прямо в поток ответа, без промежуточного byte[].
+ */
+public class DownloadResponses {
+
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    public static final MediaType XLSX =
+            MediaType.parseMediaType("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet");
+
+    public static final MediaType ZIP = MediaType.parseMediaType("application/zip");
+
+    public static ResponseEntity<StreamingResponseBody> attachment(String filename, MediaType contentType,
+                                                                   StreamingResponseBody body) {
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
+                .contentType(contentType)
+                .body(body);
+    }
+
+    /**
+     * Ошибка при записи уже не может сменить статус ответа (заголовки отправлены) —
+     * она пишется в лог и обрывает передачу.
+     */
+    public static StreamingResponseBody logged(Logger log, String errorMessage, StreamingResponseBody body) {
+        return out -> {
+            try {
+                body.writeTo(out);
+            } catch (IOException | RuntimeException e) {
+                log.error(errorMessage, e);
+                throw e;
+            }
+        };
+    }
+
+    /**
+     * Готовый файл с диска. Если коннектор Tomcat поддерживает sendfile, файл передаётся ядром
+     * после выхода из обработчика, минуя буферы приложения; иначе — через FileChannel.transferTo.
+     */
+    public static void sendFile(HttpServletRequest request, HttpServletResponse response, Path file,
+                                String filename, MediaType contentType) throws IOException {
+        long length = Files.size(file);
+        response.setContentType(contentType.toString());
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"");
+        response.setContentLengthLong(length);
+
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            request.setAttribute(SENDFILE_FILENAME, file.toRealPath().toString());
+            request.setAttribute(SENDFILE_START, 0L);
+            request.setAttribute(SENDFILE_END, length);
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            WritableByteChannel target = Channels.newChannel(response.getOutputStream());
+            long position = 0;
+            while (position < length) {
+                position += channel.transferTo(position, length - position, target);
+            }
+        }
+    }
+}
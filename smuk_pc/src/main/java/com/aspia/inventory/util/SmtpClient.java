@@ -0,0 +1,158 @@
+package com.aspia.inventory.util;
+
+import javax.net.ssl.SSLSocket;
+import javax.net.ssl.SSLSocketFactory;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Base64;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Минимальный SMTP-клиент для текстовых писем: EHLO, STARTTLS или SMTPS, AUTH PLAIN, одно письмо
+ * на соединение. Тело — text/plain UTF-8 в base64, поэтому точки в начале строк и 8-битные
+ * символы не требуют обработки. Вызов блокирующий.
+ */
+public class SmtpClient {
+
+    public enum Security { NONE, STARTTLS, SSL }
+
+    private static final Base64.Encoder MIME = Base64.getMimeEncoder(76, "\r\n".getBytes(StandardCharsets.US_ASCII));
+
+    private final String host;
+    private final int port;
+    private final Security security;
+    private final String username;
+    private final String password;
+    private final int timeoutMs;
+
+    public SmtpClient(String host, int port, Security security, String username, String password, int timeoutMs) {
+        this.host = host;
+        this.port = port;
+        this.security = security;
+        this.username = username;
+        this.password = password;
+        this.timeoutMs = timeoutMs;
+    }
+
+    public void send(String from, List<String> to, String subject, String body) throws IOException {
+        Socket socket = security == Security.SSL ? SSLSocketFactory.getDefault().createSocket() : new Socket();
+        try {
+            socket.connect(new InetSocketAddress(host, port), timeoutMs);
+            socket.setSoTimeout(timeoutMs);
+            Session session = new Session(socket);
+            session.expect(220);
+            session.command("EHLO " + localName(), 250);
+            if (security == Security.STARTTLS) {
+                session.command("STARTTLS", 220);
+                SSLSocket tls = (SSLSocket) ((SSLSocketFactory) SSLSocketFactory.getDefault())
+                        .createSocket(socket, host, port, true);
+                tls.startHandshake();
+                socket = tls;
+                session = new Session(socket);
+                session.command("EHLO " + localName(), 250);
+            }
+            if (username != null && !username.isEmpty()) {
+                String credentials = "\0" + username + "\0" + (password != null ? password : "");
+                session.command("AUTH PLAIN " + Base64.getEncoder().encodeToString(
+                        credentials.getBytes(StandardCharsets.UTF_8)), 235);
+            }
+            session.command("MAIL FROM:<" + from + ">", 250);
+            for (String recipient : to) {
+                session.command("RCPT TO:<" + recipient + ">", 250, 251);
+            }
+            session.command("DATA", 354);
+            session.write(message(from, to, subject, body) + "\r\n.\r\n");
+            session.expect(250);
+            session.write("QUIT\r\n");
+        } finally {
+            socket.close();
+        }
+    }
+
+    private static String message(String from, List<String> to, String subject, String body) {
+        return "From: " + from + "\r\n"
+                + "To: " + String.join(", ", to) + "\r\n"
+                + "Subject: =?UTF-8?B?" + Base64.getEncoder().encodeToString(subject.getBytes(StandardCharsets.UTF_8)) + "?=\r\n"
+                + "Date: " + DateTimeFormatter.RFC_1123_DATE_TIME.withLocale(Locale.ROOT).format(ZonedDateTime.now()) + "\r\n"
+                + "MIME-Version: 1.0\r\n"
+                + "Content-Type: text/plain; charset=UTF-8\r\n"
+                + "Content-Transfer-Encoding: base64\r\n"
+                + "\r\n"
+                + MIME.encodeToString(body.replace("\r\n", "\n").replace("\n", "\r\n").getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String localName() {
+        try {
+            return java.net.InetAddress.getLocalHost().getCanonicalHostName();
+        } catch (IOException e) {
+            return "localhost";
+        }
+    }
+
+    /**
+     * Ответ сервера с кодом ошибки: 4xx — временная, 5xx — постоянная.
+     */
+    public static class SmtpException extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        private final int code;
+
+        public SmtpException(int code, String message) {
+            super(message);
+            this.code = code;
+        }
+
+        public int getCode() { return code; }
+
+        public boolean isPermanent() { return code >= 500; }
+    }
+
+    private static class Session {
+        private final BufferedReader in;
+        private final OutputStream out;
+
+        Session(Socket socket) throws IOException {
+            this.in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+            this.out = socket.getOutputStream();
+        }
+
+        void command(String line, int... expected) throws IOException {
+            write(line + "\r\n");
+            expect(expected);
+        }
+
+        void write(String data) throws IOException {
+            out.write(data.getBytes(StandardCharsets.UTF_8));
+            out.flush();
+        }
+
+        /** Чтение ответа, в том числе многострочного («250-...», «250 ...»). */
+        void expect(int... expected) throws IOException {
+            String line;
+            StringBuilder reply = new StringBuilder();
+            do {
+                line = in.readLine();
+                if (line == null) throw new IOException("SMTP: соединение закрыто сервером");
+                reply.append(line).append(' ');
+            } while (line.length() > 3 && line.charAt(3) == '-');
+            int code;
+            try {
+                code = Integer.parseInt(line.substring(0, 3));
+            } catch (RuntimeException e) {
+                throw new IOException("SMTP: неожиданный ответ «" + line + "»");
+            }
+            for (int value : expected) {
+                if (code == value) return;
+            }
+            throw new SmtpException(code, "SMTP: " + reply.toString().trim());
+        }
+    }
+}
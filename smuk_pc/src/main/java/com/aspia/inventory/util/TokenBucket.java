@@ -0,0 +1,59 @@
+package com.aspia.inventory.util;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ограничитель частоты: до capacity действий подряд, дальше — ratePerMinute в минуту.
+ * Пауза, запрошенная сервером (retry_after), обнуляет запас и блокирует выдачу до её окончания.
+ */
+public class TokenBucket {
+
+    private final double capacity;
+    private final double tokensPerNano;
+
+    private double tokens;
+    private long lastRefill;
+    private long blockedUntil;
+
+    public TokenBucket(int capacity, int ratePerMinute) {
+        if (capacity < 1 || ratePerMinute < 1) {
+            throw new IllegalArgumentException("capacity и ratePerMinute должны быть положительными");
+        }
+        this.capacity = capacity;
+        this.tokensPerNano = ratePerMinute / (double) TimeUnit.MINUTES.toNanos(1);
+        this.tokens = capacity;
+        this.lastRefill = System.nanoTime();
+        this.blockedUntil = lastRefill;
+    }
+
+    /**
+     * Взять жетон. Возвращает 0, если жетон выдан, иначе — сколько наносекунд ждать до следующего.
+     */
+    public synchronized long tryAcquire() {
+        long now = System.nanoTime();
+        if (now - blockedUntil < 0) return blockedUntil - now;
+        refill(now);
+        if (tokens >= 1) {
+            tokens -= 1;
+            return 0;
+        }
+        return (long) Math.ceil((1 - tokens) / tokensPerNano);
+    }
+
+    /**
+     * Пауза по требованию сервера: ни одного жетона до её окончания, после — запас пуст
+     * и копится заново, чтобы не отправить сразу пачку.
+     */
+    public synchronized void pause(long duration, TimeUnit unit) {
+        long until = System.nanoTime() + unit.toNanos(duration);
+        if (until - blockedUntil > 0) blockedUntil = until;
+        tokens = 0;
+        lastRefill = blockedUntil;
+    }
+
+    private void refill(long now) {
+        if (now - lastRefill <= 0) return;
+        tokens = Math.min(capacity, tokens + (now - lastRefill) * tokensPerNano);
+        lastRefill = now;
+    }
+}
@@ -0,0 +1,27 @@
+package com.aspia.inventory.util;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Действия, которые должны видеть только зафиксированные данные.
+ */
+public class TransactionCallbacks {
+
+    /**
+     * Выполнение после фиксации текущей транзакции; без транзакции — сразу.
+     * При откате действие не выполняется.
+     */
+    public static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
@@ -0,0 +1,19 @@
+-- Плановые отчёты: строятся по cron в каталог отчётов, хранятся последние keep_count файлов.
+-- group_id — фильтр отчёта по оборудованию; отчёты по ПО строятся по всему парку
+CREATE TABLE scheduled_report (
+    id          BIGSERIAL PRIMARY KEY,
+    name        VARCHAR(255) NOT NULL,
+    report_type VARCHAR(32)  NOT NULL,
+    group_id    BIGINT REFERENCES host_group (id) ON DELETE CASCADE,
+    cron        VARCHAR(64)  NOT NULL,
+    keep_count  INTEGER      NOT NULL DEFAULT 4,
+    enabled     BOOLEAN      NOT NULL DEFAULT TRUE,
+    last_run_at TIMESTAMP,
+    last_status VARCHAR(500),
+    created_at  TIMESTAMP
+);
+
+-- Еженедельные отчёты по всему парку к утру понедельника
+INSERT INTO scheduled_report (name, report_type, cron, keep_count, enabled, created_at) VALUES
+    ('Оборудование (еженедельно)', 'HARDWARE_PDF', '0 0 5 * * MON', 4, TRUE, NOW()),
+    ('Программное обеспечение (еженедельно)', 'SOFTWARE_PDF', '0 15 5 * * MON', 4, TRUE, NOW());
@@ -0,0 +1,16 @@
+-- Исходящие уведомления: строка пишется в одной транзакции с изменениями, о которых она сообщает,
+-- и удаляется после доставки. Доставка — не реже одного раза: строка, взятая в работу
+-- и не подтверждённая до next_attempt_at (аренда), будет взята снова.
+-- kind: CHANGES — JSON обнаруженных изменений хоста (объединяются в сводку), MESSAGE — готовый текст
+CREATE TABLE notification_outbox (
+    id              BIGSERIAL PRIMARY KEY,
+    kind            VARCHAR(16)  NOT NULL,
+    payload         TEXT         NOT NULL,
+    status          VARCHAR(16)  NOT NULL DEFAULT 'PENDING',
+    attempts        INTEGER      NOT NULL DEFAULT 0,
+    next_attempt_at TIMESTAMP    NOT NULL DEFAULT NOW(),
+    last_error      VARCHAR(500),
+    created_at      TIMESTAMP    NOT NULL DEFAULT NOW()
+);
+
+CREATE INDEX idx_notification_outbox_due ON notification_outbox (next_attempt_at, id) WHERE status = 'PENDING';
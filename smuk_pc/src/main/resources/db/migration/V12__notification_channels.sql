@@ -0,0 +1,11 @@
+-- Каналы уведомлений: строка outbox принадлежит одному каналу (telegram, webhook, email),
+-- доставка и повторы по каналам независимы. Существующие строки были адресованы Telegram.
+ALTER TABLE notification_outbox ADD COLUMN channel VARCHAR(32) NOT NULL DEFAULT 'telegram';
+ALTER TABLE notification_outbox ALTER COLUMN channel DROP DEFAULT;
+
+-- Строки MESSAGE содержат уже отрисованный MarkdownV2, канал рисует сообщение сам —
+-- такие строки (только подтверждения) не переносятся
+DELETE FROM notification_outbox WHERE kind = 'MESSAGE';
+
+DROP INDEX idx_notification_outbox_due;
+CREATE INDEX idx_notification_outbox_due ON notification_outbox (channel, next_attempt_at, id) WHERE status = 'PENDING';
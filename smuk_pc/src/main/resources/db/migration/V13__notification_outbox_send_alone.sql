@@ -0,0 +1,4 @@
+-- send_alone: строка CHANGES отправляется отдельным сообщением, а не в общей сводке.
+-- Выставляется, когда получатель отклонил сводку: по отдельности доставляются все строки,
+-- кроме той, из-за которой сводка была отклонена
+ALTER TABLE notification_outbox ADD COLUMN send_alone BOOLEAN NOT NULL DEFAULT FALSE;
@@ -0,0 +1,29 @@
+-- Значения словаря change_value, на которые больше не ссылается журнал, удаляются вместе
+-- с секцией, вышедшей за срок хранения (ComponentChangeRepositoryImpl.dropPartition).
+-- Найденное значение блокируется FOR KEY SHARE до конца транзакции, вставляющей изменение:
+-- удаление пропускает заблокированные значения, и ссылка не может остаться висячей.
+-- Если значение удалено, пока функция ждала блокировку, оно добавляется заново.
+CREATE OR REPLACE FUNCTION intern_change_value(v TEXT) RETURNS BIGINT
+LANGUAGE plpgsql AS $$
+DECLARE
+    h   BYTEA;
+    vid BIGINT;
+BEGIN
+    IF v IS NULL THEN
+        RETURN NULL;
+    END IF;
+    h := sha256(convert_to(v, 'UTF8'));
+    LOOP
+        SELECT id INTO vid FROM change_value WHERE hash = h FOR KEY SHARE;
+        IF vid IS NOT NULL THEN
+            RETURN vid;
+        END IF;
+        INSERT INTO change_value (hash, value) VALUES (h, v)
+        ON CONFLICT (hash) DO NOTHING
+        RETURNING id INTO vid;
+        IF vid IS NOT NULL THEN
+            RETURN vid;
+        END IF;
+        -- Значение только что добавила параллельная транзакция — повторяем поиск с блокировкой
+    END LOOP;
+END $$;
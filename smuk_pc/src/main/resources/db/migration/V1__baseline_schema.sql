@@ -0,0 +1,82 @@
+-- Базовая схема (соответствует схеме, ранее создаваемой ddl-auto=update).
+-- На существующих БД не выполняется: spring.flyway.baseline-on-migrate помечает её применённой.
+
+CREATE TABLE app_users (
+    id           BIGSERIAL PRIMARY KEY,
+    username     VARCHAR(255) NOT NULL UNIQUE,
+    password     VARCHAR(255) NOT NULL,
+    role         VARCHAR(255) NOT NULL,
+    display_name VARCHAR(255),
+    enabled      BOOLEAN      NOT NULL
+);
+
+CREATE TABLE host_group (
+    id                 BIGSERIAL PRIMARY KEY,
+    name               VARCHAR(255) NOT NULL UNIQUE,
+    description        VARCHAR(255),
+    tracked_components VARCHAR(255),
+    created_at         TIMESTAMP
+);
+
+CREATE TABLE hosts (
+    id                          BIGSERIAL PRIMARY KEY,
+    aspia_host_id               INTEGER      NOT NULL UNIQUE,
+    session_id                  BIGINT,
+    computer_name               VARCHAR(255),
+    ip_address                  VARCHAR(255),
+    os_name                     VARCHAR(255),
+    architecture                VARCHAR(255),
+    aspia_version               VARCHAR(255),
+    cpu_model                   VARCHAR(255),
+    total_ram_bytes             BIGINT,
+    total_disk_bytes            BIGINT,
+    video_adapter               VARCHAR(255),
+    motherboard                 VARCHAR(255),
+    alias                       VARCHAR(255),
+    aspia_host_user             VARCHAR(255),
+    aspia_host_password         VARCHAR(255),
+    config_json                 TEXT,
+    online                      BOOLEAN,
+    sync_error                  VARCHAR(255),
+    needs_full_sync             BOOLEAN      NOT NULL,
+    last_sync_at                TIMESTAMP,
+    created_at                  TIMESTAMP,
+    updated_at                  TIMESTAMP,
+    tracked_components_override VARCHAR(255)
+);
+
+CREATE TABLE hosts_groups (
+    host_id  BIGINT NOT NULL REFERENCES hosts (id),
+    group_id BIGINT NOT NULL REFERENCES host_group (id),
+    PRIMARY KEY (host_id, group_id)
+);
+
+CREATE TABLE host_software (
+    id           BIGSERIAL PRIMARY KEY,
+    host_id      BIGINT       NOT NULL REFERENCES hosts (id),
+    name         VARCHAR(255) NOT NULL,
+    version      VARCHAR(255),
+    publisher    VARCHAR(255),
+    install_date VARCHAR(255)
+);
+
+CREATE TABLE component_changes (
+    id              BIGSERIAL PRIMARY KEY,
+    host_id         BIGINT       NOT NULL REFERENCES hosts (id),
+    component_type  VARCHAR(255) NOT NULL,
+    change_type     VARCHAR(255) NOT NULL,
+    old_value       TEXT,
+    new_value       TEXT,
+    detected_at     TIMESTAMP    NOT NULL,
+    acknowledged    BOOLEAN      NOT NULL,
+    acknowledged_at TIMESTAMP,
+    acknowledged_by VARCHAR(255)
+);
+
+CREATE TABLE software_exclusions (
+    id            BIGSERIAL PRIMARY KEY,
+    software_name VARCHAR(255) NOT NULL,
+    host_id       BIGINT REFERENCES hosts (id),
+    created_at    TIMESTAMP,
+    CONSTRAINT uk_software_exclusions_name_host UNIQUE (software_name, host_id)
+);
@@ -0,0 +1,51 @@
+-- Скомпилированная политика отслеживания (см. Host.getTrackedComponentsMask)
+ALTER TABLE hosts ADD COLUMN IF NOT EXISTS tracked_components_mask INTEGER;
+
+-- ========== component_changes ==========
+
+-- findTop20ByOrderByDetectedAtDesc, countByDetectedAtAfter, findByDetectedAtBetween...,
+-- findDistinctHostIdsWithChangesAfter (host_id включён для index-only scan)
+CREATE INDEX IF NOT EXISTS idx_component_changes_detected_at
+    ON component_changes (detected_at, host_id);
+
+CREATE INDEX IF NOT EXISTS idx_component_changes_ack_detected_at
+    ON component_changes (acknowledged, detected_at);
+
+-- findByHostOrderByDetectedAtDesc, deleteByHost
+CREATE INDEX IF NOT EXISTS idx_component_changes_host_detected_at
+    ON component_changes (host_id, detected_at);
+
+-- Непросмотренные изменения — малая доля таблицы, частичные индексы остаются компактными.
+-- findTop20ByAcknowledgedFalseOrderByDetectedAtDesc, countByAcknowledgedFalse
+CREATE INDEX IF NOT EXISTS idx_component_changes_unack_detected_at
+    ON component_changes (detected_at) WHERE acknowledged = false;
+
+-- findDistinctHostIdsWithUnacknowledgedChanges, findByHostAndAcknowledgedFalse...
+CREATE INDEX IF NOT EXISTS idx_component_changes_unack_host
+    ON component_changes (host_id, detected_at) WHERE acknowledged = false;
+
+-- ========== host_software ==========
+
+-- findByNameWithHost; findSoftwareSummary (GROUP BY name, COUNT(DISTINCT host_id) — index-only scan)
+CREATE INDEX IF NOT EXISTS idx_host_software_name_host
+    ON host_software (name, host_id);
+
+-- findByHost, deleteByHost
+CREATE INDEX IF NOT EXISTS idx_host_software_host
+    ON host_software (host_id);
+
+-- ========== hosts ==========
+
+-- findByNeedsFullSyncTrue
+CREATE INDEX IF NOT EXISTS idx_hosts_needs_full_sync
+    ON hosts (needs_full_sync) WHERE needs_full_sync = true;
+
+-- ========== связи ==========
+
+-- HostRepository.findByGroups_Id
+CREATE INDEX IF NOT EXISTS idx_hosts_groups_group
+    ON hosts_groups (group_id);
+
+-- SoftwareExclusionRepository.findByHost
+CREATE INDEX IF NOT EXISTS idx_software_exclusions_host
+    ON software_exclusions (host_id);
@@ -0,0 +1,15 @@
+-- Агрегат по ПО для страницы /inventory и экспорта ПО.
+-- Поддерживается инкрементально при синхронизации (см. SoftwareSummaryService).
+CREATE TABLE software_summary (
+    name          VARCHAR(255) PRIMARY KEY,
+    publisher     VARCHAR(255),
+    host_count    INTEGER NOT NULL,
+    version_count INTEGER NOT NULL
+);
+
+CREATE INDEX idx_software_summary_host_count ON software_summary (host_count DESC);
+
+INSERT INTO software_summary (name, publisher, host_count, version_count)
+SELECT name, MAX(publisher), COUNT(DISTINCT host_id), COUNT(DISTINCT COALESCE(version, ''))
+FROM host_software
+GROUP BY name;
@@ -0,0 +1,43 @@
+-- Справочник названий ПО: host_software и software_summary ссылаются на него по integer id
+CREATE TABLE software_title (
+    id        SERIAL PRIMARY KEY,
+    name      VARCHAR(255) NOT NULL UNIQUE,
+    publisher VARCHAR(255)
+);
+
+INSERT INTO software_title (name, publisher)
+SELECT name, MAX(publisher) FROM host_software GROUP BY name;
+
+-- host_software: name/publisher → title_id
+ALTER TABLE host_software ADD COLUMN title_id INTEGER;
+
+UPDATE host_software hs SET title_id = t.id
+FROM software_title t
+WHERE t.name = hs.name;
+
+ALTER TABLE host_software ALTER COLUMN title_id SET NOT NULL;
+ALTER TABLE host_software
+    ADD CONSTRAINT fk_host_software_title FOREIGN KEY (title_id) REFERENCES software_title (id);
+
+DROP INDEX IF EXISTS idx_host_software_name_host;
+ALTER TABLE host_software DROP COLUMN name;
+ALTER TABLE host_software DROP COLUMN publisher;
+
+-- findByTitleIdWithHost; пересчёт software_summary (index-only scan по title_id, host_id)
+CREATE INDEX idx_host_software_title_host ON host_software (title_id, host_id);
+
+-- software_summary: ключ по title_id, название и издатель берутся из справочника
+DROP TABLE software_summary;
+
+CREATE TABLE software_summary (
+    title_id      INTEGER PRIMARY KEY REFERENCES software_title (id),
+    host_count    INTEGER NOT NULL,
+    version_count INTEGER NOT NULL
+);
+
+CREATE INDEX idx_software_summary_host_count ON software_summary (host_count DESC);
+
+INSERT INTO software_summary (title_id, host_count, version_count)
+SELECT title_id, COUNT(DISTINCT host_id), COUNT(DISTINCT COALESCE(version, ''))
+FROM host_software
+GROUP BY title_id;
@@ -0,0 +1,55 @@
+-- Наборы ПО, адресуемые по содержимому: хосты с одинаковым списком ПО ссылаются на один набор
+CREATE TABLE software_set (
+    id           BIGSERIAL PRIMARY KEY,
+    content_hash VARCHAR(64) NOT NULL UNIQUE,
+    item_count   INTEGER NOT NULL,
+    created_at   TIMESTAMP
+);
+
+CREATE TABLE software_set_item (
+    id           BIGSERIAL PRIMARY KEY,
+    set_id       BIGINT NOT NULL REFERENCES software_set (id) ON DELETE CASCADE,
+    title_id     INTEGER NOT NULL REFERENCES software_title (id),
+    version      VARCHAR(255),
+    install_date VARCHAR(255)
+);
+
+ALTER TABLE hosts ADD COLUMN software_set_id BIGINT REFERENCES software_set (id);
+
+-- Хэш содержимого каждого хоста; канонизация совпадает с SoftwareSetService.contentHash
+CREATE TEMPORARY TABLE tmp_host_set_hash AS
+SELECT host_id,
+       encode(sha256(convert_to(string_agg(
+           title_id || E'\t' || COALESCE(version, '') || E'\t' || COALESCE(install_date, ''), E'\n'
+           ORDER BY title_id, COALESCE(version, '') COLLATE "C", COALESCE(install_date, '') COLLATE "C"),
+           'UTF8')), 'hex') AS content_hash,
+       COUNT(*) AS item_count
+FROM host_software
+GROUP BY host_id;
+
+INSERT INTO software_set (content_hash, item_count, created_at)
+SELECT content_hash, MIN(item_count), now()
+FROM tmp_host_set_hash
+GROUP BY content_hash;
+
+UPDATE hosts h SET software_set_id = s.id
+FROM tmp_host_set_hash t
+JOIN software_set s ON s.content_hash = t.content_hash
+WHERE t.host_id = h.id;
+
+-- Элементы копируются с одного представителя каждого набора
+INSERT INTO software_set_item (set_id, title_id, version, install_date)
+SELECT r.set_id, hs.title_id, hs.version, hs.install_date
+FROM (SELECT software_set_id AS set_id, MIN(id) AS host_id
+      FROM hosts
+      WHERE software_set_id IS NOT NULL
+      GROUP BY software_set_id) r
+JOIN host_software hs ON hs.host_id = r.host_id;
+
+DROP TABLE tmp_host_set_hash;
+DROP TABLE host_software;
+
+-- Загрузка набора; пересчёт software_summary и страница программы (title_id → наборы → хосты)
+CREATE INDEX idx_software_set_item_set ON software_set_item (set_id);
+CREATE INDEX idx_software_set_item_title_set ON software_set_item (title_id, set_id);
+CREATE INDEX idx_hosts_software_set ON hosts (software_set_id);
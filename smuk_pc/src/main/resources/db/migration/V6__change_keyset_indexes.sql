@@ -0,0 +1,15 @@
+-- Постраничный журнал изменений: ORDER BY detected_at DESC, id DESC с курсором по той же паре
+CREATE INDEX IF NOT EXISTS idx_component_changes_detected_id
+    ON component_changes (detected_at, id);
+
+-- Фильтр "Непросмотренные" — частичный индекс по тому же ключу заменяет индекс только по detected_at
+CREATE INDEX IF NOT EXISTS idx_component_changes_unack_detected_id
+    ON component_changes (detected_at, id) WHERE acknowledged = false;
+
+DROP INDEX IF EXISTS idx_component_changes_unack_detected_at;
+
+-- Фильтр по хосту со страницами по (detected_at, id)
+CREATE INDEX IF NOT EXISTS idx_component_changes_host_detected_id
+    ON component_changes (host_id, detected_at, id);
+
+DROP INDEX IF EXISTS idx_component_changes_host_detected_at;
@@ -0,0 +1,12 @@
+-- Денормализованные счётчики хоста: обновляются вместе с записью изменений и синхронизацией,
+-- списки хостов читают их как обычные колонки
+ALTER TABLE hosts ADD COLUMN IF NOT EXISTS unacknowledged_changes INTEGER NOT NULL DEFAULT 0;
+ALTER TABLE hosts ADD COLUMN IF NOT EXISTS last_change_at TIMESTAMP;
+ALTER TABLE hosts ADD COLUMN IF NOT EXISTS software_count INTEGER NOT NULL DEFAULT 0;
+ALTER TABLE hosts ADD COLUMN IF NOT EXISTS last_sync_duration_ms BIGINT;
+
+UPDATE hosts h SET
+    unacknowledged_changes = (SELECT COUNT(*) FROM component_changes c
+                              WHERE c.host_id = h.id AND c.acknowledged = false),
+    last_change_at = (SELECT MAX(c.detected_at) FROM component_changes c WHERE c.host_id = h.id),
+    software_count = (SELECT COUNT(*) FROM software_set_item i WHERE i.set_id = h.software_set_id);
@@ -0,0 +1,72 @@
+-- Журнал изменений секционируется по месяцам (detected_at). Новые секции создаёт
+-- ChangeRetentionService заранее; секции старше срока хранения сворачиваются в
+-- component_change_rollup, отсоединяются и выгружаются в архив.
+
+ALTER TABLE component_changes RENAME TO component_changes_old;
+ALTER SEQUENCE component_changes_id_seq OWNED BY NONE;
+
+-- Первичный ключ секционированной таблицы обязан включать ключ секционирования
+CREATE TABLE component_changes (
+    id              BIGINT       NOT NULL DEFAULT nextval('component_changes_id_seq'),
+    host_id         BIGINT       NOT NULL REFERENCES hosts (id),
+    component_type  VARCHAR(255) NOT NULL,
+    change_type     VARCHAR(255) NOT NULL,
+    old_value       TEXT,
+    new_value       TEXT,
+    detected_at     TIMESTAMP    NOT NULL,
+    acknowledged    BOOLEAN      NOT NULL,
+    acknowledged_at TIMESTAMP,
+    acknowledged_by VARCHAR(255),
+    PRIMARY KEY (id, detected_at)
+) PARTITION BY RANGE (detected_at);
+
+-- Страховка на случай, если секция месяца не была создана заранее
+CREATE TABLE component_changes_default PARTITION OF component_changes DEFAULT;
+
+-- Секции component_changes_pYYYYMM: от самого раннего изменения до двух месяцев вперёд
+DO $$
+DECLARE
+    m DATE;
+    last_month DATE := date_trunc('month', now() + INTERVAL '2 months')::date;
+BEGIN
+    m := COALESCE((SELECT date_trunc('month', MIN(detected_at))::date FROM component_changes_old),
+                  date_trunc('month', now())::date);
+    WHILE m <= last_month LOOP
+        EXECUTE format('CREATE TABLE component_changes_p%s PARTITION OF component_changes FOR VALUES FROM (%L) TO (%L)',
+                       to_char(m, 'YYYYMM'), m, (m + INTERVAL '1 month')::date);
+        m := (m + INTERVAL '1 month')::date;
+    END LOOP;
+END $$;
+
+INSERT INTO component_changes
+SELECT id, host_id, component_type, change_type, old_value, new_value,
+       detected_at, acknowledged, acknowledged_at, acknowledged_by
+FROM component_changes_old;
+
+DROP TABLE component_changes_old;
+ALTER SEQUENCE component_changes_id_seq OWNED BY component_changes.id;
+
+-- Индексы создаются на родительской таблице и наследуются всеми секциями
+CREATE INDEX idx_component_changes_detected_id
+    ON component_changes (detected_at, id);
+
+CREATE INDEX idx_component_changes_unack_detected_id
+    ON component_changes (detected_at, id) WHERE acknowledged = false;
+
+CREATE INDEX idx_component_changes_host_detected_id
+    ON component_changes (host_id, detected_at, id);
+
+CREATE INDEX idx_component_changes_unack_host
+    ON component_changes (host_id, detected_at) WHERE acknowledged = false;
+
+-- Свёртка подтверждённых изменений, вышедших за срок хранения: хост × месяц × компонент × тип
+CREATE TABLE component_change_rollup (
+    host_id           BIGINT       NOT NULL REFERENCES hosts (id) ON DELETE CASCADE,
+    month             DATE         NOT NULL,
+    component_type    VARCHAR(255) NOT NULL,
+    change_type       VARCHAR(255) NOT NULL,
+    change_count      INTEGER      NOT NULL,
+    first_detected_at TIMESTAMP    NOT NULL,
+    last_detected_at  TIMESTAMP    NOT NULL,
+    PRIMARY KEY (host_id, month, component_type, change_type)
+);
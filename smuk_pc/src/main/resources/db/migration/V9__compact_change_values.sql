@@ -0,0 +1,139 @@
+-- Компактное хранение журнала изменений:
+--   component_type/change_type → SMALLINT-коды (порядковые номера ComponentType / ChangeType),
+--   old_value/new_value → ссылки на словарь change_value (одно значение хранится один раз).
+-- Таблица пересобирается, а не изменяется через ALTER: иначе место старых колонок не освободится.
+
+CREATE TABLE change_value (
+    id    BIGSERIAL PRIMARY KEY,
+    hash  BYTEA NOT NULL UNIQUE,
+    value TEXT  NOT NULL
+);
+
+-- Id значения в словаре, с добавлением при отсутствии. Используется при вставке изменений
+-- (см. @ColumnTransformer в ComponentChange).
+CREATE FUNCTION intern_change_value(v TEXT) RETURNS BIGINT
+LANGUAGE plpgsql AS $$
+DECLARE
+    h   BYTEA;
+    vid BIGINT;
+BEGIN
+    IF v IS NULL THEN
+        RETURN NULL;
+    END IF;
+    h := sha256(convert_to(v, 'UTF8'));
+    SELECT id INTO vid FROM change_value WHERE hash = h;
+    IF vid IS NULL THEN
+        INSERT INTO change_value (hash, value) VALUES (h, v)
+        ON CONFLICT (hash) DO NOTHING
+        RETURNING id INTO vid;
+        -- Значение только что добавила параллельная транзакция
+        IF vid IS NULL THEN
+            SELECT id INTO vid FROM change_value WHERE hash = h;
+        END IF;
+    END IF;
+    RETURN vid;
+END $$;
+
+INSERT INTO change_value (hash, value)
+SELECT sha256(convert_to(v, 'UTF8')), v
+FROM (SELECT old_value AS v FROM component_changes
+      UNION
+      SELECT new_value FROM component_changes) s
+WHERE v IS NOT NULL;
+
+-- Старые таблица, секции и их индексы переименовываются, чтобы новые получили прежние имена
+ALTER TABLE component_changes RENAME TO component_changes_v8;
+ALTER SEQUENCE component_changes_id_seq OWNED BY NONE;
+
+DO $$
+DECLARE
+    rel TEXT;
+BEGIN
+    FOR rel IN SELECT ic.relname FROM pg_index x JOIN pg_class ic ON ic.oid = x.indexrelid
+               WHERE x.indrelid = 'component_changes_v8'::regclass
+                  OR x.indrelid IN (SELECT inhrelid FROM pg_inherits WHERE inhparent = 'component_changes_v8'::regclass) LOOP
+        EXECUTE format('ALTER INDEX %I RENAME TO %I', rel, left(rel, 60) || '_v8');
+    END LOOP;
+    FOR rel IN SELECT c.relname FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid
+               WHERE i.inhparent = 'component_changes_v8'::regclass LOOP
+        EXECUTE format('ALTER TABLE %I RENAME TO %I', rel, rel || '_v8');
+    END LOOP;
+END $$;
+
+CREATE TABLE component_changes (
+    id                  BIGINT    NOT NULL DEFAULT nextval('component_changes_id_seq'),
+    host_id             BIGINT    NOT NULL REFERENCES hosts (id),
+    component_type_code SMALLINT  NOT NULL,
+    change_type_code    SMALLINT  NOT NULL,
+    old_value_id        BIGINT,
+    new_value_id        BIGINT,
+    detected_at         TIMESTAMP NOT NULL,
+    acknowledged        BOOLEAN   NOT NULL,
+    acknowledged_at     TIMESTAMP,
+    acknowledged_by     VARCHAR(255),
+    CONSTRAINT component_changes_pkey PRIMARY KEY (id, detected_at)
+) PARTITION BY RANGE (detected_at);
+
+CREATE TABLE component_changes_default PARTITION OF component_changes DEFAULT;
+
+-- Те же месячные секции, что были у старой таблицы
+DO $$
+DECLARE
+    part TEXT;
+    m    DATE;
+BEGIN
+    FOR part IN SELECT c.relname FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid
+                WHERE i.inhparent = 'component_changes_v8'::regclass
+                  AND c.relname ~ '^component_changes_p[0-9]{6}_v8$' LOOP
+        m := to_date(substring(part FROM 'p([0-9]{6})_v8$'), 'YYYYMM');
+        EXECUTE format('CREATE TABLE component_changes_p%s PARTITION OF component_changes FOR VALUES FROM (%L) TO (%L)',
+                       to_char(m, 'YYYYMM'), m, (m + INTERVAL '1 month')::date);
+    END LOOP;
+END $$;
+
+INSERT INTO component_changes (id, host_id, component_type_code, change_type_code, old_value_id, new_value_id,
+                               detected_at, acknowledged, acknowledged_at, acknowledged_by)
+SELECT c.id, c.host_id,
+       CASE c.component_type
+           WHEN 'PROCESSOR' THEN 0 WHEN 'MEMORY' THEN 1 WHEN 'DISK' THEN 2
+           WHEN 'VIDEO_ADAPTER' THEN 3 WHEN 'SOFTWARE' THEN 4 END,
+       CASE c.change_type
+           WHEN 'ADDED' THEN 0 WHEN 'REMOVED' THEN 1 WHEN 'MODIFIED' THEN 2 WHEN 'UPDATED' THEN 3 END,
+       ov.id, nv.id,
+       c.detected_at, c.acknowledged, c.acknowledged_at, c.acknowledged_by
+FROM component_changes_v8 c
+LEFT JOIN change_value ov ON ov.hash = sha256(convert_to(c.old_value, 'UTF8'))
+LEFT JOIN change_value nv ON nv.hash = sha256(convert_to(c.new_value, 'UTF8'));
+
+DROP TABLE component_changes_v8;
+ALTER SEQUENCE component_changes_id_seq OWNED BY component_changes.id;
+
+CREATE INDEX idx_component_changes_detected_id
+    ON component_changes (detected_at, id);
+
+CREATE INDEX idx_component_changes_unack_detected_id
+    ON component_changes (detected_at, id) WHERE acknowledged = false;
+
+CREATE INDEX idx_component_changes_host_detected_id
+    ON component_changes (host_id, detected_at, id);
+
+CREATE INDEX idx_component_changes_unack_host
+    ON component_changes (host_id, detected_at) WHERE acknowledged = false;
+
+-- Свёртка — на тех же кодах
+ALTER TABLE component_change_rollup ADD COLUMN component_type_code SMALLINT;
+ALTER TABLE component_change_rollup ADD COLUMN change_type_code SMALLINT;
+
+UPDATE component_change_rollup SET
+    component_type_code = CASE component_type
+        WHEN 'PROCESSOR' THEN 0 WHEN 'MEMORY' THEN 1 WHEN 'DISK' THEN 2
+        WHEN 'VIDEO_ADAPTER' THEN 3 WHEN 'SOFTWARE' THEN 4 END,
+    change_type_code = CASE change_type
+        WHEN 'ADDED' THEN 0 WHEN 'REMOVED' THEN 1 WHEN 'MODIFIED' THEN 2 WHEN 'UPDATED' THEN 3 END;
+
+ALTER TABLE component_change_rollup DROP CONSTRAINT component_change_rollup_pkey;
+ALTER TABLE component_change_rollup DROP COLUMN component_type;
+ALTER TABLE component_change_rollup DROP COLUMN change_type;
+ALTER TABLE component_change_rollup ALTER COLUMN component_type_code SET NOT NULL;
+ALTER TABLE component_change_rollup ALTER COLUMN change_type_code SET NOT NULL;
+ALTER TABLE component_change_rollup ADD PRIMARY KEY (host_id, month, component_type_code, change_type_code);
@@ -0,0 +1,169 @@
+/* ===== Таблица с серверной подгрузкой: фильтры, сортировка и страницы выполняются в БД ===== */
+
+/**
+ * options:
+ *   url        — JSON-эндпоинт, возвращающий {items, total, page, size, totalPages}
+ *   table      — элемент таблицы; заголовки с data-sort="ключ" сортируемые
+ *                (клик — сортировка по колонке, Shift+клик — добавить колонку к сортировке)
+ *   pager      — контейнер для пагинации
+ *   counter    — элемент для "Найдено: N" (необязательно)
+ *   params     — функция, возвращающая объект фильтров
+ *   renderRow  — функция (item) → HTML строки <tr>
+ *   emptyText  — текст при пустом результате
+ *   sort       — начальная сортировка, например [{key: 'name', dir: 'asc'}]
+ *   size       — размер страницы
+ */
+function RemoteTable(options) {
+    this.options = options;
+    this.page = 0;
+    this.size = options.size || 50;
+    this.sort = options.sort || [];
+    this.requestSeq = 0;
+
+    var self = this;
+    options.table.querySelectorAll('thead th[data-sort]').forEach(function(th) {
+        th.style.cursor = 'pointer';
+        th.addEventListener('click', function(e) {
+            self.toggleSort(th.getAttribute('data-sort'), e.shiftKey);
+        });
+    });
+}
+
+RemoteTable.prototype.toggleSort = function(key, append) {
+    var existing = this.sort.filter(function(s) { return s.key === key; })[0];
+    var dir = existing && existing.dir === 'asc' ? 'desc' : 'asc';
+    if (append) {
+        if (existing) {
+            existing.dir = dir;
+        } else {
+            this.sort.push({key: key, dir: 'asc'});
+        }
+    } else {
+        this.sort = [{key: key, dir: existing ? dir : 'asc'}];
+    }
+    this.load(0);
+};
+
+RemoteTable.prototype.reload = function() {
+    this.load(0);
+};
+
+RemoteTable.prototype.load = function(page) {
+    var self = this;
+    var query = new URLSearchParams();
+    var params = this.options.params ? this.options.params() : {};
+    Object.keys(params).forEach(function(k) {
+        if (params[k] !== null && params[k] !== undefined && params[k] !== '') query.append(k, params[k]);
+    });
+    this.sort.forEach(function(s) { query.append('sort', s.key + ',' + s.dir); });
+    query.append('page', page);
+    query.append('size', this.size);
+
+    // Ответ на устаревший запрос (быстрый ввод в поиске) не перерисовывает таблицу
+    var seq = ++this.requestSeq;
+    fetch(this.options.url + '?' + query.toString(), {headers: {'Accept': 'application/json'}})
+        .then(function(resp) { return resp.json(); })
+        .then(function(data) {
+            if (seq !== self.requestSeq) return;
+            self.page = data.page;
+            self.render(data);
+        });
+};
+
+RemoteTable.prototype.render = function(data) {
+    var tbody = this.options.table.querySelector('tbody');
+    var colspan = this.options.table.querySelectorAll('thead th').length;
+    if (data.items.length === 0) {
+        tbody.innerHTML = '<tr><td colspan="' + colspan + '" class="text-muted text-center p-4">' +
+            escapeHtml(this.options.emptyText || 'Нет данных') + '</td></tr>';
+    } else {
+        tbody.innerHTML = data.items.map(this.options.renderRow).join('');
+    }
+    if (this.options.counter) {
+        this.options.counter.innerHTML = 'Найдено: <strong>' + data.total + '</strong>';
+    }
+    this.renderSortIcons();
+    this.renderPager(data);
+    if (this.options.onRender) this.options.onRender();
+};
+
+RemoteTable.prototype.renderSortIcons = function() {
+    var sort = this.sort;
+    this.options.table.querySelectorAll('thead th[data-sort]').forEach(function(th) {
+        var icon = th.querySelector('i');
+        if (!icon) return;
+        var idx = -1;
+        for (var i = 0; i < sort.length; i++) {
+            if (sort[i].key === th.getAttribute('data-sort')) idx = i;
+        }
+        if (idx < 0) {
+            icon.className = 'bi bi-chevron-expand text-muted';
+            icon.textContent = '';
+        } else {
+            icon.className = (sort[idx].dir === 'asc' ? 'bi bi-chevron-up' : 'bi bi-chevron-down') + ' text-primary';
+            icon.textContent = sort.length > 1 ? String(idx + 1) : '';
+        }
+    });
+};
+
+RemoteTable.prototype.renderPager = function(data) {
+    var pager = this.options.pager;
+    if (!pager) return;
+    var self = this;
+    var totalPages = data.totalPages;
+    if (totalPages <= 1) {
+        pager.innerHTML = '';
+        return;
+    }
+    var html = '<ul class="pagination pagination-sm mb-0">';
+    html += pageItem(data.page - 1, '&laquo;', data.page === 0, false);
+    var from = Math.max(0, data.page - 3);
+    var to = Math.min(totalPages - 1, data.page + 3);
+    if (from > 0) html += pageItem(0, '1', false, false);
+    if (from > 1) html += pageItem(-1, '&hellip;', true, false);
+    for (var p = from; p <= to; p++) {
+        html += pageItem(p, String(p + 1), false, p === data.page);
+    }
+    if (to < totalPages - 2) html += pageItem(-1, '&hellip;', true, false);
+    if (to < totalPages - 1) html += pageItem(totalPages - 1, String(totalPages), false, false);
+    html += pageItem(data.page + 1, '&raquo;', data.page >= totalPages - 1, false);
+    html += '</ul>';
+    pager.innerHTML = html;
+    pager.querySelectorAll('a[data-page]').forEach(function(a) {
+        a.addEventListener('click', function(e) {
+            e.preventDefault();
+            self.load(parseInt(a.getAttribute('data-page'), 10));
+        });
+    });
+
+    function pageItem(page, label, disabled, active) {
+        return '<li class="page-item' + (disabled ? ' disabled' : '') + (active ? ' active' : '') + '">' +
+            '<a class="page-link" href="#"' + (disabled ? '' : ' data-page="' + page + '"') + '>' + label + '</a></li>';
+    }
+};
+
+/** Отложенный вызов — для поиска по мере ввода. */
+function debounce(fn, delay) {
+    var timer;
+    return function() {
+        clearTimeout(timer);
+        timer = setTimeout(fn, delay);
+    };
+}
+
+function escapeHtml(value) {
+    if (value === null || value === undefined) return '';
+    return String(value)
+        .replace(/&/g, '&amp;')
+        .replace(/</g, '&lt;')
+        .replace(/>/g, '&gt;')
+        .replace(/"/g, '&quot;')
+        .replace(/'/g, '&#39;');
+}
+
+/** LocalDateTime из JSON ("2026-01-31T12:00:00") → "31.01.2026 12:00". */
+function formatDateTime(value) {
+    if (!value) return '—';
+    var m = /^(\d{4})-(\d{2})-(\d{2})T(\d{2}):(\d{2})/.exec(value);
+    return m ? m[3] + '.' + m[2] + '.' + m[1] + ' ' + m[4] + ':' + m[5] : value;
+}
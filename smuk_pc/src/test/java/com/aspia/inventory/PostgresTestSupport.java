@@ -0,0 +1,36 @@
+package com.aspia.inventory;
+
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Основа интеграционных тестов: PostgreSQL в Testcontainers со всеми миграциями Flyway
+ * и тестовым парком (db/fixtures). Без Docker тесты пропускаются.
+ *
+ * <p>Контейнер один на все тестовые классы: кэшированный Spring-контекст ссылается на него,
+ * поэтому он не останавливается между классами.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+public abstract class PostgresTestSupport {
+
+    /** Не ниже 16 — IndexUsageTest использует EXPLAIN (GENERIC_PLAN). */
+    protected static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    private static final Path WORK_DIR = Paths.get(System.getProperty("java.io.tmpdir"), "smuk-test");
+
+    @DynamicPropertySource
+    static void postgres(DynamicPropertyRegistry registry) {
+        POSTGRES.start();
+        registry.add("spring.datasource.url", POSTGRES::getJdbcUrl);
+        registry.add("spring.datasource.username", POSTGRES::getUsername);
+        registry.add("spring.datasource.password", POSTGRES::getPassword);
+        registry.add("spring.flyway.locations", () -> "classpath:db/migration,classpath:db/fixtures");
+        registry.add("inventory.reports.dir", () -> WORK_DIR.resolve("reports").toString());
+        registry.add("inventory.changes.archive-dir", () -> WORK_DIR.resolve("archive").toString());
+    }
+}
@@ -0,0 +1,56 @@
+package com.aspia.inventory.controller;
+
+import com.aspia.inventory.PostgresTestSupport;
+import com.aspia.inventory.config.QueryCountConfig;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Бюджет SQL-запросов страниц и API на тестовом парке (60 хостов, тысячи изменений):
+ * число запросов не должно зависеть от числа строк, иначе это N+1. Считает QueryCountConfig,
+ * включая отрисовку шаблона. Бюджет — замеренное значение с небольшим запасом;
+ * при осознанном добавлении запроса его поднимают вместе с изменением.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@WithMockUser(username = "admin", roles = "ADMIN")
+class EndpointQueryCountTest extends PostgresTestSupport {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @ParameterizedTest(name = "{0}: не больше {1} SQL-запросов")
+    @CsvSource(delimiter = '|', value = {
+            "/                                       | 2",
+            "/api/dashboard                          | 2",
+            "/hosts                                  | 9",
+            "/api/hosts                              | 5",
+            "/api/hosts?sort=ram,desc&size=100       | 5",
+            "/hosts/1                                | 8",
+            "/events                                 | 4",
+            "/events?status=unacknowledged&hostId=2  | 4",
+            "/api/events                             | 3",
+            "/inventory                              | 5",
+            "/api/inventory/software?size=200        | 4",
+            "/inventory/software?name=Программа 010  | 5",
+            "/admin                                  | 4",
+            "/profile                                | 3",
+    })
+    void staysWithinQueryBudget(String url, int budget) throws Exception {
+        MvcResult result = mockMvc.perform(get(url)).andExpect(status().isOk()).andReturn();
+        Integer count = (Integer) result.getRequest().getAttribute(QueryCountConfig.QUERY_COUNT_ATTRIBUTE);
+        assertNotNull(count, "Счётчик запросов не выставлен для " + url);
+        assertTrue(count <= budget, url + ": " + count + " SQL-запросов при бюджете " + budget);
+    }
+}
@@ -0,0 +1,262 @@
+package com.aspia.inventory.repository;
+
+import com.aspia.inventory.PostgresTestSupport;
+import com.aspia.inventory.dto.EventFilter;
+import com.aspia.inventory.dto.EventPage;
+import com.aspia.inventory.model.Host;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DynamicTest;
+import org.junit.jupiter.api.TestFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Запросы журнала изменений и наборов ПО обязаны идти по индексам (V2, V5, V6, V9):
+ * каждый запрос репозитория выполняется на тестовом парке, его SQL перехватывается
+ * и проверяется через EXPLAIN (GENERIC_PLAN, FORMAT JSON) с enable_seqscan = off.
+ * Если подходящего индекса нет, план всё равно содержит Seq Scan — это и ловит тест.
+ *
+ * <p>HostSoftwareRepository заменён наборами ПО (V5) — его запросы теперь в SoftwareSetItemRepository.
+ */
+@SpringBootTest
+class IndexUsageTest extends PostgresTestSupport {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final List<String> INDEX_NODES = Arrays.asList("Index Scan", "Index Only Scan", "Bitmap Index Scan");
+    /** SQL, подготовленный в текущем потоке; null — запись выключена. */
+    private static final ThreadLocal<List<String>> RECORDED = new ThreadLocal<>();
+
+    @Autowired
+    private ComponentChangeRepository changeRepository;
+
+    @Autowired
+    private SoftwareSetItemRepository itemRepository;
+
+    @Autowired
+    private HostRepository hostRepository;
+
+    @Autowired
+    private DataSourceProperties dataSourceProperties;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @TestFactory
+    Stream<DynamicTest> componentChangeQueriesUseIndexes() {
+        LocalDateTime weekAgo = LocalDateTime.now().minusDays(7);
+        List<Long> hostIds = Arrays.asList(1L, 2L, 3L);
+        List<Long> missingHosts = Collections.singletonList(-1L);
+        return Stream.of(
+                check("findTop20ByOrderByDetectedAtDesc", () -> changeRepository.findTop20ByOrderByDetectedAtDesc()),
+                check("countByDetectedAtAfter", () -> changeRepository.countByDetectedAtAfter(weekAgo)),
+                check("countByAcknowledgedFalse", () -> changeRepository.countByAcknowledgedFalse()),
+                check("countByAcknowledgedFalseAndDetectedAtAfter",
+                        () -> changeRepository.countByAcknowledgedFalseAndDetectedAtAfter(weekAgo)),
+                check("findByHostOrderByDetectedAtDescIdDesc",
+                        () -> changeRepository.findByHostOrderByDetectedAtDescIdDesc(host(1L), PageRequest.of(0, 201))),
+                check("findByHostAndAcknowledgedFalseOrderByDetectedAtDesc",
+                        () -> changeRepository.findByHostAndAcknowledgedFalseOrderByDetectedAtDesc(host(1L))),
+                check("acknowledgeIfUnacknowledged",
+                        () -> changeRepository.acknowledgeIfUnacknowledged(1L, "admin", LocalDateTime.now())),
+                check("countByHostIds", () -> changeRepository.countByHostIds(hostIds)),
+                check("deleteByHostIds", () -> changeRepository.deleteByHostIds(missingHosts)),
+                check("deleteBatchByHostIds", () -> changeRepository.deleteBatchByHostIds(missingHosts, 100)),
+                check("findEventPage", () -> changeRepository.findEventPage(new EventFilter(), null, 50)),
+                check("findEventPage: непросмотренные", () -> {
+                    EventFilter filter = new EventFilter();
+                    filter.setAcknowledged(false);
+                    return changeRepository.findEventPage(filter, null, 50);
+                }),
+                check("findEventPage: хост и курсор", () -> {
+                    EventFilter filter = new EventFilter();
+                    filter.setHostId(2L);
+                    return changeRepository.findEventPage(filter, new EventPage.Cursor(LocalDateTime.now(), Long.MAX_VALUE), 50);
+                }),
+                check("findEventPage: период", () -> {
+                    EventFilter filter = new EventFilter();
+                    filter.setFrom(weekAgo);
+                    filter.setTo(LocalDateTime.now());
+                    return changeRepository.findEventPage(filter, null, 50);
+                }),
+                check("acknowledge: хост", () -> {
+                    EventFilter filter = new EventFilter();
+                    filter.setHostId(3L);
+                    return changeRepository.acknowledge(filter, "admin", LocalDateTime.now());
+                }),
+                check("forEachEvent: хост", () -> {
+                    EventFilter filter = new EventFilter();
+                    filter.setHostId(4L);
+                    return changeRepository.forEachEvent(filter, row -> { });
+                }),
+                check("findRollups", () -> changeRepository.findRollups(1L)));
+    }
+
+    @TestFactory
+    Stream<DynamicTest> softwareSetQueriesUseIndexes() {
+        return Stream.of(
+                check("findBySetIdWithTitle", () -> itemRepository.findBySetIdWithTitle(1L)),
+                check("findBySetId", () -> itemRepository.findBySetId(1L)),
+                check("findDistinctTitleIdsBySetId", () -> itemRepository.findDistinctTitleIdsBySetId(1L)),
+                check("findHostEntriesByTitleId", () -> itemRepository.findHostEntriesByTitleId(10)));
+    }
+
+    private interface Call {
+        Object run() throws Exception;
+    }
+
+    /**
+     * Вызов в откатываемой транзакции (часть запросов изменяет данные) с записью SQL,
+     * затем проверка плана каждого записанного запроса.
+     */
+    private DynamicTest check(String name, Call call) {
+        return DynamicTest.dynamicTest(name, () -> {
+            List<String> statements = new ArrayList<>();
+            new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                RECORDED.set(statements);
+                try {
+                    call.run();
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                } finally {
+                    RECORDED.remove();
+                    status.setRollbackOnly();
+                }
+            });
+            assertFalse(statements.isEmpty(), name + ": запрос не выполнялся");
+            for (String sql : statements) {
+                List<JsonNode> nodes = new ArrayList<>();
+                collectNodes(explain(sql).get(0).get("Plan"), nodes);
+                assertTrue(nodes.stream().anyMatch(node -> INDEX_NODES.contains(node.path("Node Type").asText())),
+                        name + ": в плане нет индексного доступа\n" + sql);
+                for (JsonNode node : nodes) {
+                    assertFalse("Seq Scan".equals(node.path("Node Type").asText()),
+                            name + ": последовательное чтение " + node.path("Relation Name").asText() + "\n" + sql);
+                }
+            }
+        });
+    }
+
+    private Host host(Long id) {
+        return hostRepository.getReferenceById(id);
+    }
+
+    /**
+     * Отдельное соединение в простом протоколе: в расширенном драйвер передал бы $1 как параметр
+     * подготовленного запроса и потребовал значения.
+     */
+    private JsonNode explain(String sql) throws Exception {
+        Properties credentials = new Properties();
+        credentials.setProperty("user", dataSourceProperties.getUsername());
+        credentials.setProperty("password", dataSourceProperties.getPassword());
+        credentials.setProperty("preferQueryMode", "simple");
+        try (Connection connection = DriverManager.getConnection(dataSourceProperties.getUrl(), credentials);
+             Statement statement = connection.createStatement()) {
+            statement.execute("SET enable_seqscan = off");
+            try (ResultSet rs = statement.executeQuery("EXPLAIN (GENERIC_PLAN, FORMAT JSON) " + numberParameters(sql))) {
+                rs.next();
+                return MAPPER.readTree(rs.getString(1));
+            }
+        }
+    }
+
+    /** JDBC-параметры «?» → $1, $2 ... — форма, которую принимает EXPLAIN (GENERIC_PLAN). */
+    private static String numberParameters(String sql) {
+        StringBuilder result = new StringBuilder(sql.length() + 16);
+        boolean quoted = false;
+        int index = 0;
+        for (char c : sql.toCharArray()) {
+            if (c == '\'') quoted = !quoted;
+            if (c == '?' && !quoted) {
+                result.append('$').append(++index);
+            } else {
+                result.append(c);
+            }
+        }
+        return result.toString();
+    }
+
+    private static void collectNodes(JsonNode plan, List<JsonNode> nodes) {
+        nodes.add(plan);
+        for (JsonNode child : plan.path("Plans")) {
+            collectNodes(child, nodes);
+        }
+    }
+
+    /**
+     * Запись SQL, который Hibernate и JDBC-код репозиториев подготавливают в текущем потоке.
+     */
+    @TestConfiguration
+    static class StatementRecorderConfig {
+
+        @Bean
+        static BeanPostProcessor statementRecorder() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    return bean instanceof DataSource ? new RecordingDataSource((DataSource) bean) : bean;
+                }
+            };
+        }
+    }
+
+    private static class RecordingDataSource extends DelegatingDataSource {
+
+        RecordingDataSource(DataSource target) {
+            super(target);
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            return record(super.getConnection());
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            return record(super.getConnection(username, password));
+        }
+
+        private static Connection record(Connection connection) {
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                    new Class<?>[]{Connection.class}, (proxy, method, args) -> {
+                        List<String> statements = RECORDED.get();
+                        if (statements != null && method.getName().startsWith("prepare")
+                                && args != null && args[0] instanceof String) {
+                            statements.add((String) args[0]);
+                        }
+                        try {
+                            return method.invoke(connection, args);
+                        } catch (InvocationTargetException e) {
+                            throw e.getCause();
+                        }
+                    });
+        }
+    }
+}
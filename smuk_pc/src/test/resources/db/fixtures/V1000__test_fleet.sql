@@ -0,0 +1,56 @@
+-- Тестовый парк для интеграционных тестов: подключается через spring.flyway.locations
+-- поверх рабочих миграций (см. PostgresTestSupport). Объём подобран так, чтобы N+1
+-- в списках был заметен по числу запросов, а планы запросов строились по статистике.
+
+INSERT INTO host_group (name, description, created_at)
+SELECT 'Группа ' || g, 'Тестовая группа ' || g, now()
+FROM generate_series(1, 5) g;
+
+INSERT INTO software_title (name, publisher)
+SELECT 'Программа ' || lpad(t::text, 3, '0'), 'Издатель ' || (t % 10)
+FROM generate_series(1, 200) t;
+
+INSERT INTO software_set (content_hash, item_count, created_at)
+SELECT md5('set' || s) || md5('set' || s), 150, now()
+FROM generate_series(1, 3) s;
+
+INSERT INTO software_set_item (set_id, title_id, version, install_date)
+SELECT s.id, t.id, '1.' || (t.id % 7), '2026-01-01'
+FROM software_set s
+JOIN software_title t ON t.id > (s.id - 1) * 25 AND t.id <= (s.id - 1) * 25 + 150;
+
+INSERT INTO hosts (aspia_host_id, computer_name, ip_address, os_name, architecture, cpu_model,
+                   total_ram_bytes, total_disk_bytes, video_adapter, motherboard, online, needs_full_sync,
+                   last_sync_at, created_at, updated_at, software_set_id, software_count)
+SELECT 1000 + h, 'PC-' || lpad(h::text, 3, '0'), '10.0.0.' || h,
+       CASE WHEN h % 4 = 0 THEN 'Windows 11 Pro' ELSE 'Windows 10 Pro' END, 'x64',
+       'Intel Core i5-' || (8000 + h), 17179869184, 512110190592, 'Intel UHD Graphics', 'ASUS PRIME',
+       h % 3 <> 0, false, now(), now(), now(), 1 + h % 3, 150
+FROM generate_series(1, 60) h;
+
+INSERT INTO hosts_groups (host_id, group_id)
+SELECT h.id, g.id
+FROM hosts h
+JOIN host_group g ON g.id = 1 + h.id % 5 OR (h.id % 2 = 0 AND g.id = 1 + (h.id + 1) % 5);
+
+-- Изменения за последние 90 дней: попадают и в месячные секции, и в секцию по умолчанию
+INSERT INTO component_changes (host_id, component_type_code, change_type_code, old_value_id, new_value_id,
+                               detected_at, acknowledged, acknowledged_at, acknowledged_by)
+SELECT 1 + n % 60, n % 5, n % 4,
+       intern_change_value('Значение ' || (n % 50)), intern_change_value('Значение ' || (n % 50 + 1)),
+       now() - (n || ' minutes')::interval * 20,
+       n % 3 <> 0, CASE WHEN n % 3 <> 0 THEN now() END, CASE WHEN n % 3 <> 0 THEN 'admin' END
+FROM generate_series(1, 6000) n;
+
+UPDATE hosts h SET
+    unacknowledged_changes = (SELECT COUNT(*) FROM component_changes c
+                              WHERE c.host_id = h.id AND c.acknowledged = false),
+    last_change_at = (SELECT MAX(c.detected_at) FROM component_changes c WHERE c.host_id = h.id);
+
+INSERT INTO software_summary (title_id, host_count, version_count)
+SELECT i.title_id, COUNT(DISTINCT h.id), COUNT(DISTINCT i.version)
+FROM software_set_item i
+JOIN hosts h ON h.software_set_id = i.set_id
+GROUP BY i.title_id;
+
+ANALYZE;